@@ -0,0 +1,137 @@
+package benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import api.Endpoint;
+import api.RequestHandler;
+import io.restassured.response.Response;
+import models.Post;
+import stub.PostsStubServer;
+import utils.ApiLogger;
+import utils.JsonSchema;
+import utils.JsonSchemas;
+import utils.JsonUtil;
+
+/**
+ * Measures the individual framework steps around a request without any
+ * network I/O: expanding the URL (legacy string replacement versus the
+ * compiled Endpoint template), logging the response and parsing it into a
+ * JsonNode or binding it to the Post record, and validating it against the
+ * endpoint's JSON Schema, including a 10,000-post array. Run with the GC
+ * profiler to see the bytes allocated per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class HotPathBenchmark {
+
+	private static final String PATH = "/posts/{id}";
+
+	private PostsStubServer stub;
+	private String baseUri;
+	private Map<String, String> pathParams;
+	private Response postResponse;
+	private Response postsResponse;
+	private JsonSchema postsSchema;
+	private byte[] largePosts;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		stub = PostsStubServer.start();
+		baseUri = stub.getBaseUri();
+		pathParams = Map.of("id", "1");
+		try (RequestHandler requestHandler = new RequestHandler(baseUri)) {
+			postResponse = requestHandler.get(PATH, null, null, pathParams);
+			postsResponse = requestHandler.get("/posts", null, null);
+		}
+		postsSchema = JsonSchemas.get(Endpoint.GET_POSTS.getSchema());
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 1; i <= 10_000; i++) {
+			json.append(i > 1 ? "," : "").append("{\"userId\":").append(i % 10 + 1).append(",\"id\":").append(i)
+					.append(",\"title\":\"title ").append(i).append("\",\"body\":\"body of post ").append(i)
+					.append(" with a few more words in it\"}");
+		}
+		largePosts = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		stub.close();
+	}
+
+	// Same work as the former UserApi.constructFullUrl
+	@Benchmark
+	public String replacePathParams() {
+		String url = baseUri + PATH;
+		for (Map.Entry<String, String> entry : pathParams.entrySet()) {
+			url = url.replace("{" + entry.getKey() + "}", entry.getValue());
+		}
+		return url;
+	}
+
+	@Benchmark
+	public String expandEndpoint() {
+		return Endpoint.GET_POST_BY_ID.expand(1);
+	}
+
+	@Benchmark
+	public void logRequest() {
+		ApiLogger.logRequest("GET", baseUri, Endpoint.GET_POST_BY_ID.expand(1), null, null);
+	}
+
+	@Benchmark
+	public void logResponse() {
+		ApiLogger.logResponse(postResponse);
+	}
+
+	@Benchmark
+	public JsonNode convertPostToJsonNode() {
+		return JsonUtil.convertResponseToJsonNode(postResponse);
+	}
+
+	@Benchmark
+	public JsonNode convertPostsToJsonNode() {
+		return JsonUtil.convertResponseToJsonNode(postsResponse);
+	}
+
+	@Benchmark
+	public Post convertPostToRecord() {
+		return JsonUtil.convertResponseToType(postResponse, Post.class);
+	}
+
+	@Benchmark
+	public List<Post> convertPostsToRecords() {
+		return JsonUtil.convertResponseToList(postsResponse, Post.class);
+	}
+
+	@Benchmark
+	public List<JsonSchema.Violation> validatePostsSchema() {
+		return postsSchema.validate(postsResponse);
+	}
+
+	@Benchmark
+	public List<JsonSchema.Violation> validateLargePostsSchema() {
+		return postsSchema.validate(largePosts);
+	}
+}
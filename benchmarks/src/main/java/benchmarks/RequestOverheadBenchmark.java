@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.RequestHandler;
+import api.UserApi;
+import io.restassured.response.Response;
+import stub.PostsStubServer;
+
+/**
+ * Compares a bare RequestHandler call with the same call made through UserApi
+ * against a loopback stub. The difference between the two is the overhead
+ * UserApi adds on top of the HTTP round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+public class RequestOverheadBenchmark {
+
+	private static final String POST_JSON = "{\"userId\":1,\"title\":\"benchmark title\",\"body\":\"benchmark body\"}";
+	private static final Map<String, String> HEADERS = Map.of("Content-Type", "application/json");
+
+	private PostsStubServer stub;
+	private RequestHandler requestHandler;
+	private UserApi userApi;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		stub = PostsStubServer.start();
+		requestHandler = new RequestHandler(stub.getBaseUri());
+		userApi = new UserApi(stub.getBaseUri());
+	}
+
+	// Drops the posts created during the iteration so the stub does not grow unbounded
+	@TearDown(Level.Iteration)
+	public void resetStub() {
+		stub.reset();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		requestHandler.close();
+		userApi.close();
+		stub.close();
+	}
+
+	@Benchmark
+	public Response requestHandlerGetById() {
+		return requestHandler.get("/posts/{id}", null, null, Map.of("id", "1"));
+	}
+
+	@Benchmark
+	public Response userApiGetPostById() {
+		return userApi.getPostById(1);
+	}
+
+	@Benchmark
+	public Response requestHandlerCreatePost() {
+		return requestHandler.post("/posts", HEADERS, POST_JSON);
+	}
+
+	@Benchmark
+	public Response userApiCreatePost() {
+		return userApi.createPost(POST_JSON);
+	}
+
+	@Benchmark
+	public Response userApiGetAllPosts() {
+		return userApi.getAllPosts();
+	}
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import api.RequestExecutors;
+import api.RequestHandler;
+import api.Transport;
+import config.HttpClientSettings;
+import io.restassured.response.Response;
+import stub.PostsStubServer;
+
+/**
+ * Compares the throughput of the RestAssured and JDK HttpClient transports
+ * with 16 concurrent callers. Runs against the loopback stub (HTTP/1.1 only)
+ * unless a base URL is given, e.g. -p baseUrl=https://gateway.example.com to
+ * measure HTTP/2 multiplexing against a real endpoint. The transport's
+ * connection statistics are printed at the end of each trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@Threads(16)
+public class TransportBenchmark {
+
+	@Param({ "restassured", "jdk" })
+	public String transport;
+
+	@Param({ "" })
+	public String baseUrl; // Empty: the loopback stub
+
+	@Param({ "/posts/{id}" })
+	public String path;
+
+	private PostsStubServer stub;
+	private RequestHandler requestHandler;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		String target = baseUrl;
+		if (target.isEmpty()) {
+			stub = PostsStubServer.start();
+			target = stub.getBaseUri();
+		}
+		requestHandler = new RequestHandler(target,
+				Transport.create(transport, target, HttpClientSettings.defaults()), RequestExecutors.defaultExecutor());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.println(transport + " " + requestHandler.getPoolStats()
+				+ (stub != null ? ", stub connections: " + stub.getConnectionCount() : ""));
+		requestHandler.close();
+		if (stub != null) {
+			stub.close();
+		}
+	}
+
+	@Benchmark
+	public Response get() {
+		return requestHandler.get(path, null, null, Map.of("id", "1"));
+	}
+}
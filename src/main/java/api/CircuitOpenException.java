@@ -0,0 +1,21 @@
+package api;
+
+/**
+ * Thrown instead of sending a request while the circuit breaker of its
+ * endpoint is open, i.e. the endpoint failed repeatedly and is treated as down.
+ *
+ * @author subramanyamkongani
+ */
+public class CircuitOpenException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Constructor for CircuitOpenException.
+	 *
+	 * @param endpoint Method and endpoint template, e.g. GET /posts/{id}.
+	 */
+	public CircuitOpenException(String endpoint) {
+		super("Circuit open for " + endpoint + ": failing fast");
+	}
+}
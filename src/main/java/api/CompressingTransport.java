@@ -0,0 +1,271 @@
+package api;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+/**
+ * CompressingTransport applies a CompressionPolicy around another transport:
+ * it asks for compressed responses with Accept-Encoding and decodes them, and
+ * compresses request bodies above the policy's threshold.
+ *
+ * Callers, listeners and the TrafficRecorder only ever see decoded bodies and
+ * the headers they passed in; the Observer additionally receives the body
+ * sizes as they crossed the wire, which RequestMetrics counts per endpoint.
+ * Reported durations include compressing the request and decoding the
+ * response, so latencies with and without compression compare fairly.
+ *
+ * @author subramanyamkongani
+ */
+public final class CompressingTransport implements Transport {
+
+	private static final String ACCEPT_ENCODING = "Accept-Encoding";
+	private static final String CONTENT_ENCODING = "Content-Encoding";
+
+	private final Transport delegate;
+	private final CompressionPolicy policy;
+	private final LongAdder compressedRequests = new LongAdder();
+	private final LongAdder compressedResponses = new LongAdder();
+
+	/**
+	 * What the delegate reported for one exchange, before decoding.
+	 */
+	private static final class Sent {
+		private Object body;
+		private Throwable error;
+		private long durationNanos;
+	}
+
+	/**
+	 * Constructor for CompressingTransport, which closes the delegate when it is
+	 * closed.
+	 *
+	 * @param delegate Transport that sends the (compressed) requests.
+	 * @param policy   The codings to negotiate.
+	 */
+	public CompressingTransport(Transport delegate, CompressionPolicy policy) {
+		this.delegate = delegate;
+		this.policy = policy;
+	}
+
+	/**
+	 * Returns the wrapped transport.
+	 *
+	 * @return Transport - the transport sending the requests
+	 */
+	public Transport getDelegate() {
+		return delegate;
+	}
+
+	public CompressionPolicy getPolicy() {
+		return policy;
+	}
+
+	@Override
+	public Response send(Request request, Observer observer) {
+		long start = System.nanoTime();
+		Map<String, String> headers = new LinkedHashMap<>(request.headers() != null ? request.headers() : Map.of());
+		if (!containsHeader(headers, ACCEPT_ENCODING)) {
+			headers.put(ACCEPT_ENCODING, policy.getAcceptEncoding());
+		}
+		Object body = request.body();
+		byte[] uncompressed = null; // Set when the body is sent compressed
+		String encoding = policy.getRequestEncoding();
+		if (encoding != null && body != null && !containsHeader(headers, CONTENT_ENCODING)) {
+			byte[] serialized = JdkHttpTransport.serialize(body);
+			if (!(body instanceof byte[] || body instanceof String) && !containsHeader(headers, "Content-Type")) {
+				headers.put("Content-Type", "application/json"); // As the transports do for serialized objects
+			}
+			body = serialized;
+			if (serialized.length >= policy.getRequestMinBytes()) {
+				uncompressed = serialized;
+				headers.put(CONTENT_ENCODING, encoding);
+				body = encode(serialized, encoding);
+				compressedRequests.increment();
+			}
+		}
+		Request sent = new Request(request.method(), request.path(), headers, request.queryParams(), body);
+		long requestWire = uncompressed != null ? ((byte[]) body).length : -1;
+		long encodeNanos = System.nanoTime() - start;
+
+		Sent exchange = new Sent();
+		Observer capture = observer == null ? null : (requestBody, response, error, durationNanos, requestWireBytes,
+				responseWireBytes) -> {
+			exchange.body = requestBody;
+			exchange.error = error;
+			exchange.durationNanos = durationNanos;
+		};
+		Response response;
+		try {
+			response = delegate.send(sent, capture);
+		} catch (RuntimeException | Error e) {
+			if (observer != null && exchange.error != null) {
+				observer.onExchange(uncompressed != null ? uncompressed : exchange.body, null, exchange.error,
+						encodeNanos + exchange.durationNanos, requestWire, -1);
+			}
+			throw e;
+		}
+
+		long decodeStart = System.nanoTime();
+		byte[] raw = response.asByteArray();
+		Response decoded;
+		try {
+			decoded = decode(response, raw);
+		} catch (UncheckedIOException e) {
+			if (observer != null) {
+				observer.onExchange(uncompressed != null ? uncompressed : exchange.body, null, e,
+						encodeNanos + exchange.durationNanos + System.nanoTime() - decodeStart, requestWire,
+						raw.length);
+			}
+			throw e;
+		}
+		if (observer != null) {
+			observer.onExchange(uncompressed != null ? uncompressed : exchange.body, decoded, null,
+					encodeNanos + exchange.durationNanos + System.nanoTime() - decodeStart, requestWire,
+					decoded != response ? raw.length : -1);
+		}
+		return decoded;
+	}
+
+	/**
+	 * Returns the delegate's statistics and the number of compressed requests
+	 * and responses.
+	 */
+	@Override
+	public String stats() {
+		return delegate.stats() + " [compressed requests: " + compressedRequests.sum() + "; compressed responses: "
+				+ compressedResponses.sum() + "]";
+	}
+
+	@Override
+	public void close() {
+		delegate.close();
+	}
+
+	// Returns the response with its body decoded, or the response itself when it was not compressed
+	private Response decode(Response response, byte[] raw) {
+		String contentEncoding = response.getHeader(CONTENT_ENCODING);
+		if (contentEncoding == null || contentEncoding.isBlank() || raw.length == 0) {
+			return response;
+		}
+		byte[] body = decode(raw, contentEncoding);
+		if (body == raw) {
+			return response;
+		}
+		compressedResponses.increment();
+		// The body no longer has the coding or length the headers describe
+		List<Header> headers = new ArrayList<>();
+		for (Header header : response.getHeaders()) {
+			if (!header.getName().equalsIgnoreCase(CONTENT_ENCODING)
+					&& !header.getName().equalsIgnoreCase("Content-Length")) {
+				headers.add(header);
+			}
+		}
+		return new ResponseBuilder().clone(response).setHeaders(new Headers(headers)).setBody(body).build();
+	}
+
+	/**
+	 * Decodes a body sent with the given Content-Encoding, undoing each listed
+	 * coding in reverse order. Unknown codings are left alone, so the body is
+	 * returned as it is.
+	 *
+	 * @param raw             The body as received.
+	 * @param contentEncoding e.g. gzip, or "deflate, gzip".
+	 * @return byte[] - the decoded body, or raw itself
+	 */
+	static byte[] decode(byte[] raw, String contentEncoding) {
+		String[] codings = contentEncoding.toLowerCase(Locale.ROOT).split(",");
+		for (String coding : codings) {
+			String name = coding.trim();
+			if (!name.equals("gzip") && !name.equals("x-gzip") && !name.equals("deflate") && !name.equals("identity")) {
+				return raw;
+			}
+		}
+		List<Inflater> inflaters = new ArrayList<>(1); // Passed in explicitly, so closing the streams does not end them
+		InputStream in = new ByteArrayInputStream(raw);
+		try {
+			for (int i = codings.length - 1; i >= 0; i--) {
+				String name = codings[i].trim();
+				if (name.equals("deflate")) {
+					in = inflater(in, inflaters);
+				} else if (!name.equals("identity")) {
+					in = new GZIPInputStream(in, 8192);
+				}
+			}
+			// Streamed through the decoders in one pass into the decoded body
+			ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length * 4));
+			in.transferTo(out);
+			return out.toByteArray();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to decode a " + contentEncoding + " response body", e);
+		} finally {
+			// Releases the native zlib memory now instead of when the streams are collected
+			try {
+				in.close();
+			} catch (IOException ignored) {
+				// Nothing is left to read from a byte array
+			}
+			inflaters.forEach(Inflater::end);
+		}
+	}
+
+	/**
+	 * Compresses a body with gzip or deflate (zlib format, as HTTP defines it).
+	 *
+	 * @param body     The body to compress.
+	 * @param encoding gzip or deflate.
+	 * @return byte[] - the compressed body
+	 */
+	static byte[] encode(byte[] body, String encoding) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+		try (OutputStream compressor = encoding.equals("gzip") ? new GZIPOutputStream(out, 8192)
+				: new DeflaterOutputStream(out)) {
+			compressor.write(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to compress the request body", e);
+		}
+		return out.toByteArray();
+	}
+
+	// HTTP deflate is zlib-wrapped, but some servers send raw deflate: tell them apart by the zlib header
+	private static InputStream inflater(InputStream in, List<Inflater> inflaters) throws IOException {
+		InputStream buffered = in.markSupported() ? in : new BufferedInputStream(in);
+		buffered.mark(2);
+		int cmf = buffered.read();
+		int flg = buffered.read();
+		buffered.reset();
+		boolean zlib = cmf >= 0 && flg >= 0 && (cmf & 0x0F) == 8 && ((cmf << 8) | flg) % 31 == 0;
+		Inflater inflater = new Inflater(!zlib);
+		inflaters.add(inflater);
+		return new InflaterInputStream(buffered, inflater, 8192);
+	}
+
+	private static boolean containsHeader(Map<String, String> headers, String name) {
+		for (String key : headers.keySet()) {
+			if (key.equalsIgnoreCase(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,152 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import config.ConfigMapping;
+
+/**
+ * CompressionPolicy configures the content codings CompressingTransport
+ * negotiates with a host. Compression is off by default.
+ *
+ * Responses: the accepted codings (compression.encodings, gzip and deflate by
+ * default, in order of preference) are sent as Accept-Encoding, and compressed
+ * responses are decoded before anyone reads them.
+ *
+ * Requests: bodies of at least compression.request.minBytes bytes (default
+ * 1024; -1 never compresses) are sent compressed with the first accepted
+ * coding and a Content-Encoding header. Small bodies are sent as they are,
+ * since compressing them costs more time than the bytes it saves.
+ *
+ * Supported keys: compression.enabled, compression.encodings,
+ * compression.request.minBytes
+ *
+ * @author subramanyamkongani
+ */
+public final class CompressionPolicy {
+
+	private static final List<String> SUPPORTED = List.of("gzip", "deflate");
+
+	private final List<String> encodings; // Empty = no compression
+	private final int requestMinBytes; // -1 = requests are never compressed
+
+	private CompressionPolicy(List<String> encodings, int requestMinBytes) {
+		for (String encoding : encodings) {
+			if (!SUPPORTED.contains(encoding)) {
+				throw new IllegalArgumentException("Unsupported encoding: " + encoding + " (expected gzip or deflate)");
+			}
+		}
+		if (requestMinBytes < -1) {
+			throw new IllegalArgumentException("Invalid compression.request.minBytes: " + requestMinBytes);
+		}
+		this.encodings = Collections.unmodifiableList(new ArrayList<>(encodings));
+		this.requestMinBytes = requestMinBytes;
+	}
+
+	/**
+	 * Returns a policy that neither asks for compressed responses nor
+	 * compresses requests.
+	 *
+	 * @return CompressionPolicy - bodies cross the wire as they are
+	 */
+	public static CompressionPolicy disabled() {
+		return new CompressionPolicy(List.of(), -1);
+	}
+
+	/**
+	 * Returns a policy accepting gzip and deflate responses and compressing
+	 * request bodies of 1 KB and more with gzip.
+	 *
+	 * @return CompressionPolicy - the default enabled policy
+	 */
+	public static CompressionPolicy defaults() {
+		return new CompressionPolicy(SUPPORTED, 1024);
+	}
+
+	/**
+	 * Builds the policy from the configuration file: disabled unless
+	 * compression.enabled=true, with the defaults for every key that is not
+	 * set.
+	 *
+	 * @return CompressionPolicy - the configured policy
+	 */
+	public static CompressionPolicy fromConfig() {
+		if (!"true".equalsIgnoreCase(ConfigMapping.getConfigProperty("compression.enabled"))) {
+			return disabled();
+		}
+		CompressionPolicy defaults = defaults();
+		List<String> encodings = new ArrayList<>();
+		for (String encoding : property("compression.encodings", String.join(",", defaults.encodings)).split(",")) {
+			if (!encoding.isBlank()) {
+				encodings.add(encoding.trim().toLowerCase(Locale.ROOT));
+			}
+		}
+		return new CompressionPolicy(encodings,
+				Integer.parseInt(property("compression.request.minBytes", String.valueOf(defaults.requestMinBytes))));
+	}
+
+	/**
+	 * Returns a copy accepting other codings.
+	 *
+	 * @param encodings gzip and/or deflate, in order of preference; the first
+	 *                  one also compresses requests.
+	 * @return CompressionPolicy - the new policy
+	 */
+	public CompressionPolicy withEncodings(String... encodings) {
+		return new CompressionPolicy(List.of(encodings), requestMinBytes);
+	}
+
+	/**
+	 * Returns a copy that compresses request bodies from another size on.
+	 *
+	 * @param minBytes Smallest body to compress, 0 for every body, or -1 for
+	 *                 none.
+	 * @return CompressionPolicy - the new policy
+	 */
+	public CompressionPolicy withRequestMinBytes(int minBytes) {
+		return new CompressionPolicy(encodings, minBytes);
+	}
+
+	/**
+	 * Returns whether any coding is accepted; a disabled policy adds no work.
+	 *
+	 * @return boolean - true if requests need the compressing transport
+	 */
+	public boolean isActive() {
+		return !encodings.isEmpty();
+	}
+
+	public List<String> getEncodings() {
+		return encodings;
+	}
+
+	/**
+	 * Returns the Accept-Encoding header value, e.g. "gzip, deflate".
+	 *
+	 * @return String - the accepted codings
+	 */
+	public String getAcceptEncoding() {
+		return String.join(", ", encodings);
+	}
+
+	/**
+	 * Returns the coding request bodies are compressed with, or null when they
+	 * are never compressed.
+	 *
+	 * @return String - gzip, deflate or null
+	 */
+	public String getRequestEncoding() {
+		return encodings.isEmpty() || requestMinBytes < 0 ? null : encodings.get(0);
+	}
+
+	public int getRequestMinBytes() {
+		return requestMinBytes;
+	}
+
+	private static String property(String key, String defaultValue) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+}
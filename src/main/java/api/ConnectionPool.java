@@ -0,0 +1,112 @@
+package api;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.impl.conn.PoolingClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.CoreConnectionPNames;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HTTP;
+
+import config.HttpClientSettings;
+
+/**
+ * ConnectionPool owns the thread-safe Apache HttpClient used by a single
+ * RequestHandler. Connections are kept alive and reused across threads, and a
+ * shared background task evicts expired and idle connections.
+ *
+ * RestAssured 5 still requires an AbstractHttpClient, which is why the pool is
+ * built on the (deprecated) DefaultHttpClient and PoolingClientConnectionManager.
+ */
+@SuppressWarnings("deprecation")
+final class ConnectionPool implements AutoCloseable {
+
+	// One daemon thread evicts idle connections for every pool in the JVM
+	private static final ScheduledExecutorService EVICTOR = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "http-idle-connection-evictor");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final PoolingClientConnectionManager connectionManager;
+	private final DefaultHttpClient httpClient;
+	private final ScheduledFuture<?> evictionTask;
+
+	/**
+	 * Constructor for ConnectionPool.
+	 *
+	 * @param settings The pool sizes, timeouts and keep-alive to apply.
+	 */
+	ConnectionPool(HttpClientSettings settings) {
+		connectionManager = new PoolingClientConnectionManager();
+		connectionManager.setMaxTotal(settings.getMaxTotal());
+		connectionManager.setDefaultMaxPerRoute(settings.getMaxPerRoute());
+
+		HttpParams params = new BasicHttpParams();
+		params.setParameter(CoreConnectionPNames.CONNECTION_TIMEOUT, settings.getConnectTimeoutMs());
+		params.setParameter(CoreConnectionPNames.SO_TIMEOUT, settings.getReadTimeoutMs());
+
+		httpClient = new DefaultHttpClient(connectionManager, params);
+		httpClient.setKeepAliveStrategy(keepAliveStrategy(settings.getKeepAliveMs()));
+
+		long idleTimeoutMs = settings.getIdleTimeoutMs();
+		long period = Math.max(1_000, idleTimeoutMs / 2);
+		evictionTask = EVICTOR.scheduleWithFixedDelay(() -> {
+			connectionManager.closeExpiredConnections();
+			connectionManager.closeIdleConnections(idleTimeoutMs, TimeUnit.MILLISECONDS);
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns the shared client backing this pool.
+	 *
+	 * @return DefaultHttpClient - the pooled, thread-safe client
+	 */
+	DefaultHttpClient httpClient() {
+		return httpClient;
+	}
+
+	/**
+	 * Returns the number of leased and available connections.
+	 *
+	 * @return String - the pool statistics, for logging
+	 */
+	String stats() {
+		return connectionManager.getTotalStats().toString();
+	}
+
+	/**
+	 * Stops idle eviction and closes every pooled connection.
+	 */
+	@Override
+	public void close() {
+		evictionTask.cancel(false);
+		connectionManager.shutdown();
+	}
+
+	// Honours the server's Keep-Alive timeout, otherwise uses the configured one
+	private static ConnectionKeepAliveStrategy keepAliveStrategy(long defaultKeepAliveMs) {
+		return (response, context) -> {
+			HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+			while (it.hasNext()) {
+				HeaderElement element = it.nextElement();
+				if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+					try {
+						return Long.parseLong(element.getValue()) * 1000;
+					} catch (NumberFormatException ignored) {
+						// Fall through to the configured keep-alive
+					}
+				}
+			}
+			return defaultKeepAliveMs;
+		};
+	}
+}
@@ -0,0 +1,59 @@
+package api;
+
+import io.restassured.http.Method;
+
+/**
+ * Endpoint is the registry of API endpoints used by UserApi, each with its
+ * HTTP method, a template compiled once at class initialization and the
+ * schema file (under schemas/) its successful responses must match.
+ *
+ * Example usage: String path = Endpoint.GET_POST_BY_ID.expand(1); // /posts/1
+ *
+ * @author subramanyamkongani
+ */
+public enum Endpoint {
+
+	GET_POSTS(Method.GET, "/posts", "posts.json"),
+	GET_POST_BY_ID(Method.GET, "/posts/{id}", "post.json"),
+	CREATE_POST(Method.POST, "/posts", "savedPost.json"),
+	UPDATE_POST(Method.PUT, "/posts/{id}", "savedPost.json"),
+	DELETE_POST(Method.DELETE, "/posts/{id}", null);
+
+	private final Method method;
+	private final EndpointTemplate template;
+	private final String schema;
+
+	Endpoint(Method method, String template, String schema) {
+		this.method = method;
+		this.template = EndpointTemplate.of(template);
+		this.schema = schema;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public EndpointTemplate getTemplate() {
+		return template;
+	}
+
+	/**
+	 * Returns the schema file of the endpoint's response body.
+	 *
+	 * @return String - a file name under schemas/, or null when the response has
+	 *         no body to validate
+	 */
+	public String getSchema() {
+		return schema;
+	}
+
+	/**
+	 * Expands the endpoint's path with values in the order of its variables.
+	 *
+	 * @param values One value per variable.
+	 * @return String - the expanded, percent-encoded path
+	 */
+	public String expand(Object... values) {
+		return template.expand(values);
+	}
+}
@@ -0,0 +1,257 @@
+package api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * EndpointTemplate is a URI path template such as /posts/{id}, parsed once
+ * into literal and variable segments. Expanding it appends the literals and
+ * the percent-encoded values into a single pre-sized StringBuilder, so no
+ * intermediate strings are created per call.
+ *
+ * Values are encoded as a single path segment (RFC 3986): everything except
+ * unreserved characters, sub-delims, ':' and '@' is UTF-8 percent-encoded,
+ * including '/'.
+ *
+ * Templates are cached by their text, e.g. those of the Endpoint registry.
+ * The cache holds at most 256 templates so that it cannot grow with every
+ * path requested; an already expanded path is keyed by its generalized
+ * template instead, e.g. /posts/42 by /posts/{id}.
+ *
+ * @author subramanyamkongani
+ */
+public final class EndpointTemplate {
+
+	private static final int MAX_CACHED = 256;
+	private static final Map<String, EndpointTemplate> compiled = new ConcurrentHashMap<>();
+	private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+	private static final String PATH_SAFE = "-._~!$&'()*+,;=:@";
+	private static final String QUERY_SAFE = "-._~!$'()*,;:@/?"; // '&', '=' and '+' would change the meaning
+
+	private final String template;
+	private final String[] literals; // literals[i] precedes variable i; one extra trailing literal
+	private final String[] variables;
+	private final int literalLength;
+
+	private EndpointTemplate(String template, String[] literals, String[] variables) {
+		this.template = template;
+		this.literals = literals;
+		this.variables = variables;
+		int length = 0;
+		for (String literal : literals) {
+			length += literal.length();
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * Returns the compiled form of a template, parsing it on first use only.
+	 * Once the cache is full, templates not yet cached are parsed per call.
+	 *
+	 * @param template Path template, e.g. /posts/{id}.
+	 * @return EndpointTemplate - the compiled template
+	 */
+	public static EndpointTemplate of(String template) {
+		EndpointTemplate endpoint = compiled.get(template);
+		if (endpoint != null) {
+			return endpoint;
+		}
+		return compiled.size() < MAX_CACHED ? compiled.computeIfAbsent(template, EndpointTemplate::compile)
+				: compile(template);
+	}
+
+	/**
+	 * Returns the template an expanded path was most likely produced from, by
+	 * replacing every segment that is a number or a UUID with {id}, e.g.
+	 * /users/7/posts becomes /users/{id}/posts.
+	 *
+	 * @param path An expanded path.
+	 * @return String - the template (the same instance if no segment was replaced)
+	 */
+	public static String generalize(String path) {
+		StringBuilder template = null;
+		int start = 0;
+		while (start <= path.length()) {
+			int end = path.indexOf('/', start);
+			if (end < 0) {
+				end = path.length();
+			}
+			if (isIdentifier(path, start, end)) {
+				if (template == null) {
+					template = new StringBuilder(path.length()).append(path, 0, start);
+				}
+				template.append("{id}");
+			} else if (template != null) {
+				template.append(path, start, end);
+			}
+			if (template != null && end < path.length()) {
+				template.append('/');
+			}
+			start = end + 1;
+		}
+		return template == null ? path : template.toString();
+	}
+
+	private static EndpointTemplate compile(String template) {
+		List<String> literals = new ArrayList<>();
+		List<String> variables = new ArrayList<>();
+		int start = 0;
+		int open;
+		while ((open = template.indexOf('{', start)) >= 0) {
+			int close = template.indexOf('}', open);
+			if (close < 0) {
+				throw new IllegalArgumentException("Unclosed variable in endpoint template " + template);
+			}
+			literals.add(template.substring(start, open));
+			variables.add(template.substring(open + 1, close).trim());
+			start = close + 1;
+		}
+		literals.add(template.substring(start));
+		return new EndpointTemplate(template, literals.toArray(new String[0]), variables.toArray(new String[0]));
+	}
+
+	/**
+	 * Expands the template with values in the order of its variables.
+	 *
+	 * @param values One non-null value per variable.
+	 * @return String - the expanded, percent-encoded path
+	 * @throws IllegalArgumentException if the count is wrong or a value is null
+	 */
+	public String expand(Object... values) {
+		if (values.length != variables.length) {
+			throw new IllegalArgumentException(
+					template + " expects " + variables.length + " values but got " + values.length);
+		}
+		if (variables.length == 0) {
+			return template;
+		}
+		StringBuilder path = new StringBuilder(literalLength + variables.length * 12);
+		for (int i = 0; i < variables.length; i++) {
+			if (values[i] == null) {
+				throw new IllegalArgumentException("No value for {" + variables[i] + "} in " + template);
+			}
+			path.append(literals[i]);
+			appendValue(path, values[i]);
+		}
+		return path.append(literals[variables.length]).toString();
+	}
+
+	/**
+	 * Expands the template with values looked up by variable name.
+	 *
+	 * @param values Value for every variable; may be null for templates without
+	 *               variables.
+	 * @return String - the expanded, percent-encoded path
+	 */
+	public String expand(Map<String, ?> values) {
+		if (variables.length == 0) {
+			return template;
+		}
+		StringBuilder path = new StringBuilder(literalLength + variables.length * 12);
+		for (int i = 0; i < variables.length; i++) {
+			Object value = values == null ? null : values.get(variables[i]);
+			if (value == null) {
+				throw new IllegalArgumentException("No value for {" + variables[i] + "} in " + template);
+			}
+			path.append(literals[i]);
+			appendValue(path, value);
+		}
+		return path.append(literals[variables.length]).toString();
+	}
+
+	public String getTemplate() {
+		return template;
+	}
+
+	public List<String> getVariables() {
+		return List.of(variables);
+	}
+
+	@Override
+	public String toString() {
+		return template;
+	}
+
+	/**
+	 * Percent-encodes a query parameter name or value.
+	 *
+	 * @param value The raw text.
+	 * @return String - the encoded text (the same instance if nothing needed encoding)
+	 */
+	static String encodeQuery(String value) {
+		if (isSafe(value, QUERY_SAFE)) {
+			return value;
+		}
+		StringBuilder encoded = new StringBuilder(value.length() + 16);
+		appendEncoded(encoded, value, QUERY_SAFE);
+		return encoded.toString();
+	}
+
+	// A segment of digits, or of hex digits in the 8-4-4-4-12 layout of a UUID
+	private static boolean isIdentifier(String path, int start, int end) {
+		int length = end - start;
+		if (length == 0) {
+			return false;
+		}
+		boolean uuid = length == 36;
+		for (int i = start; i < end; i++) {
+			char c = path.charAt(i);
+			int offset = i - start;
+			if (uuid && (offset == 8 || offset == 13 || offset == 18 || offset == 23)) {
+				if (c != '-') {
+					return false;
+				}
+			} else if (!(c >= '0' && c <= '9') && !(uuid && ((c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F')))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void appendValue(StringBuilder path, Object value) {
+		if (value instanceof Integer || value instanceof Long) {
+			path.append(((Number) value).longValue()); // Digits and '-' never need encoding
+			return;
+		}
+		String text = String.valueOf(value);
+		if (isSafe(text, PATH_SAFE)) {
+			path.append(text);
+		} else {
+			appendEncoded(path, text, PATH_SAFE);
+		}
+	}
+
+	private static boolean isSafe(String text, String safe) {
+		for (int i = 0; i < text.length(); i++) {
+			if (!isSafe(text.charAt(i), safe)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isSafe(char c, String safe) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || safe.indexOf(c) >= 0;
+	}
+
+	private static void appendEncoded(StringBuilder out, String text, String safe) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c < 0x80 && isSafe(c, safe)) {
+				out.append(c);
+				continue;
+			}
+			int end = i + 1;
+			if (Character.isHighSurrogate(c) && end < text.length()) {
+				end++; // Encode the surrogate pair as one code point
+			}
+			for (byte b : text.substring(i, end).getBytes(StandardCharsets.UTF_8)) {
+				out.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+			}
+			i = end - 1;
+		}
+	}
+}
@@ -0,0 +1,227 @@
+package api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+
+/**
+ * JdkHttpTransport sends requests with java.net.http.HttpClient. With HTTP/2
+ * (the default) concurrent requests to a host are multiplexed as streams over
+ * a single connection instead of each holding a pooled HTTP/1.1 connection;
+ * servers that do not speak HTTP/2 (including h2c over plain http) are served
+ * over HTTP/1.1 by the same client.
+ *
+ * Responses are buffered and returned as RestAssured Responses, so callers
+ * cannot tell the transports apart. Bodies other than byte[] and String are
+ * serialized as JSON with Jackson.
+ */
+public final class JdkHttpTransport implements Transport {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	// Headers the JDK client sets itself and refuses to accept from callers
+	private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length", "expect", "host",
+			"upgrade");
+
+	private final String baseUri; // Without a trailing slash
+	private final HttpClient client;
+	private final Duration readTimeout;
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final LongAdder http1Responses = new LongAdder();
+	private final LongAdder http2Responses = new LongAdder();
+
+	/**
+	 * Constructor for JdkHttpTransport.
+	 *
+	 * @param baseUri  The base URI requests are sent to.
+	 * @param settings Connect and read timeouts; the JDK client manages its
+	 *                 own connections, so the pool sizes do not apply.
+	 * @param version  HTTP_2 to negotiate HTTP/2, or HTTP_1_1.
+	 */
+	public JdkHttpTransport(String baseUri, HttpClientSettings settings, HttpClient.Version version) {
+		this.baseUri = baseUri.endsWith("/") ? baseUri.substring(0, baseUri.length() - 1) : baseUri;
+		this.readTimeout = Duration.ofMillis(settings.getReadTimeoutMs());
+		this.client = HttpClient.newBuilder()
+				.version(version)
+				.connectTimeout(Duration.ofMillis(settings.getConnectTimeoutMs()))
+				.followRedirects(HttpClient.Redirect.NORMAL)
+				.build();
+	}
+
+	/**
+	 * Returns the protocol version named by http.version: HTTP_2 (default, or
+	 * 2) or HTTP_1_1 (or 1.1).
+	 *
+	 * @return HttpClient.Version - the configured version
+	 */
+	static HttpClient.Version versionFromConfig() {
+		String value = ConfigMapping.getConfigProperty("http.version");
+		if (value == null || value.isBlank()) {
+			return HttpClient.Version.HTTP_2;
+		}
+		switch (value.trim().toUpperCase(Locale.ROOT)) {
+		case "2":
+		case "HTTP_2":
+			return HttpClient.Version.HTTP_2;
+		case "1.1":
+		case "HTTP_1_1":
+			return HttpClient.Version.HTTP_1_1;
+		default:
+			throw new IllegalArgumentException("Unknown http.version: " + value + " (expected HTTP_2 or HTTP_1_1)");
+		}
+	}
+
+	@Override
+	public Response send(Request request, Observer observer) {
+		HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(uri(request))).timeout(readTimeout);
+		boolean contentType = false;
+		if (request.headers() != null) {
+			for (Map.Entry<String, String> header : request.headers().entrySet()) {
+				String name = header.getKey().toLowerCase(Locale.ROOT);
+				if (!RESTRICTED_HEADERS.contains(name) && header.getValue() != null) {
+					builder.header(header.getKey(), header.getValue());
+					contentType |= name.equals("content-type");
+				}
+			}
+		}
+		byte[] body = serialize(request.body());
+		if (body != null && !contentType && !(request.body() instanceof byte[] || request.body() instanceof String)) {
+			builder.header("Content-Type", "application/json");
+		}
+		builder.method(request.method().name(),
+				body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofByteArray(body));
+
+		long start = System.nanoTime();
+		inFlight.incrementAndGet();
+		try {
+			HttpResponse<byte[]> httpResponse = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+			Response response = toResponse(httpResponse);
+			if (observer != null) {
+				observer.onExchange(body, response, null, System.nanoTime() - start);
+			}
+			return response;
+		} catch (IOException | InterruptedException | RuntimeException e) {
+			RuntimeException error = failure(e);
+			if (observer != null) {
+				observer.onExchange(body, null, error, System.nanoTime() - start);
+			}
+			throw error;
+		} finally {
+			inFlight.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Returns the requests in flight and the responses per protocol version.
+	 */
+	@Override
+	public String stats() {
+		return "[inFlight: " + inFlight.get() + "; HTTP/1.1 responses: " + http1Responses.sum()
+				+ "; HTTP/2 responses: " + http2Responses.sum() + "]";
+	}
+
+	@Override
+	public void close() {
+		// HttpClient is AutoCloseable from Java 21 on; earlier clients are released by the GC
+		if (client instanceof AutoCloseable) {
+			try {
+				((AutoCloseable) client).close();
+			} catch (Exception e) {
+				throw new IllegalStateException("Unable to close the HTTP client", e);
+			}
+		}
+	}
+
+	// Appends the encoded query parameters to the expanded path
+	private String uri(Request request) {
+		StringBuilder uri = new StringBuilder(baseUri).append(request.path());
+		if (request.queryParams() != null && !request.queryParams().isEmpty()) {
+			char separator = request.path().indexOf('?') < 0 ? '?' : '&';
+			for (Map.Entry<String, String> param : request.queryParams().entrySet()) {
+				uri.append(separator).append(EndpointTemplate.encodeQuery(param.getKey()));
+				if (param.getValue() != null) {
+					uri.append('=').append(EndpointTemplate.encodeQuery(param.getValue()));
+				}
+				separator = '&';
+			}
+		}
+		return uri.toString();
+	}
+
+	private Response toResponse(HttpResponse<byte[]> httpResponse) {
+		boolean http2 = httpResponse.version() == HttpClient.Version.HTTP_2;
+		(http2 ? http2Responses : http1Responses).increment();
+		List<Header> headers = new ArrayList<>();
+		httpResponse.headers().map().forEach((name, values) -> {
+			if (!name.startsWith(":")) { // HTTP/2 pseudo-headers
+				values.forEach(value -> headers.add(new Header(name, value)));
+			}
+		});
+		ResponseBuilder builder = new ResponseBuilder()
+				.setStatusCode(httpResponse.statusCode())
+				.setStatusLine((http2 ? "HTTP/2 " : "HTTP/1.1 ") + httpResponse.statusCode())
+				.setHeaders(new Headers(headers))
+				.setBody(httpResponse.body());
+		httpResponse.headers().firstValue("Content-Type").ifPresent(builder::setContentType);
+		return builder.build();
+	}
+
+	static byte[] serialize(Object body) {
+		if (body == null) {
+			return null;
+		}
+		if (body instanceof byte[]) {
+			return (byte[]) body; // Pre-rendered payload, sent as is
+		}
+		if (body instanceof String) {
+			return ((String) body).getBytes(StandardCharsets.UTF_8);
+		}
+		try {
+			return mapper.writeValueAsBytes(body);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Unable to serialize the request body", e);
+		}
+	}
+
+	// Reports timeouts as SocketTimeoutExceptions, like the Apache client does
+	private static RuntimeException failure(Exception e) {
+		if (e instanceof RuntimeException) {
+			return (RuntimeException) e;
+		}
+		if (e instanceof InterruptedException) {
+			Thread.currentThread().interrupt();
+			return new UncheckedIOException(new InterruptedIOException("Request interrupted"));
+		}
+		if (e instanceof HttpTimeoutException) {
+			SocketTimeoutException timeout = new SocketTimeoutException(e.getMessage());
+			timeout.initCause(e);
+			return new UncheckedIOException(timeout);
+		}
+		return new UncheckedIOException((IOException) e);
+	}
+}
@@ -0,0 +1,223 @@
+package api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import config.ConfigMapping;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+import utils.JsonUtil;
+
+/**
+ * Iterates the items of a paginated collection. The first page is requested
+ * on the first call to hasNext; as soon as a page arrives, the request for
+ * the following page is sent on the handler's executor, so at most two pages
+ * are held while the caller consumes the current one.
+ */
+final class PageIterator<T> implements Iterator<T>, AutoCloseable {
+
+	private static final JsonFactory json = new JsonFactory();
+
+	/**
+	 * One fetched page and the request for the page after it (null path when
+	 * it was the last).
+	 */
+	private record Page<T>(List<T> items, String nextPath, Map<String, String> nextQuery) {
+	}
+
+	private final RequestHandler handler;
+	private final EndpointTemplate template;
+	private final Map<String, String> headers;
+	private final Pagination pagination;
+	private final ObjectReader listReader;
+	private final String basePath; // Path of the base URI, stripped from Link header URLs
+
+	private Iterator<T> current = Collections.emptyIterator();
+	private CompletableFuture<Page<T>> next;
+	private String firstPath;
+	private Map<String, String> firstQuery;
+
+	PageIterator(RequestHandler handler, EndpointTemplate template, String path, Map<String, String> headers,
+			Map<String, String> queryParams, Pagination pagination, Class<T> type) {
+		this.handler = handler;
+		this.template = template;
+		this.headers = headers;
+		this.pagination = pagination;
+		this.listReader = JsonUtil.listReaderFor(type);
+		String base = URI.create(handler.getBaseUri()).getRawPath();
+		this.basePath = base == null || base.equals("/") ? "" : base;
+		this.firstPath = path;
+		this.firstQuery = pagination.firstQuery(queryParams);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while (!current.hasNext()) {
+			if (firstPath != null) {
+				next = fetchAsync(firstPath, firstQuery); // Lazy: nothing is sent before the first item is needed
+				firstPath = null;
+			}
+			if (next == null) {
+				return false;
+			}
+			Page<T> page = join(next);
+			next = page.nextPath() == null ? null : fetchAsync(page.nextPath(), page.nextQuery());
+			current = page.items().iterator();
+		}
+		return true;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return current.next();
+	}
+
+	/**
+	 * Abandons the prefetched page, e.g. when the stream is closed early.
+	 */
+	@Override
+	public void close() {
+		firstPath = null;
+		if (next != null) {
+			next.cancel(false);
+			next = null;
+		}
+		current = Collections.emptyIterator();
+	}
+
+	private CompletableFuture<Page<T>> fetchAsync(String path, Map<String, String> query) {
+		return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> fetch(path, query)),
+				handler.getExecutor());
+	}
+
+	private Page<T> fetch(String path, Map<String, String> query) {
+		Response response = handler.request(Method.GET, template, path, headers, query, null);
+		int status = response.getStatusCode();
+		if (status < 200 || status >= 300) {
+			throw new IllegalStateException("GET " + path + query + " failed with status " + status);
+		}
+		String[] cursor = new String[1];
+		List<T> items = readItems(response.asByteArray(), cursor);
+		if (pagination.getStyle() == Pagination.Style.LINK_HEADER) {
+			String link = items.isEmpty() ? null : nextLink(response.getHeader("Link"));
+			if (link == null) {
+				return new Page<>(items, null, null);
+			}
+			URI uri = URI.create(handler.getBaseUri()).resolve(link);
+			String nextPath = uri.getRawPath();
+			if (!basePath.isEmpty() && nextPath.startsWith(basePath)) {
+				nextPath = nextPath.substring(basePath.length());
+			}
+			return new Page<>(items, nextPath, parseQuery(uri.getRawQuery()));
+		}
+		Map<String, String> nextQuery = pagination.nextQuery(query, items.size(), cursor[0]);
+		return new Page<>(items, nextQuery == null ? null : path, nextQuery);
+	}
+
+	// Binds the top-level array, or the items field of an envelope while picking up the cursor field
+	private List<T> readItems(byte[] body, String[] cursor) {
+		try {
+			String itemsField = pagination.getItemsField();
+			if (itemsField == null) {
+				List<T> items = body.length == 0 ? null : listReader.readValue(body);
+				return items == null ? List.of() : items;
+			}
+			List<T> items = List.of();
+			try (JsonParser parser = json.createParser(body)) {
+				if (parser.nextToken() != JsonToken.START_OBJECT) {
+					throw new IllegalStateException("Expected a JSON object with a " + itemsField + " field");
+				}
+				while (parser.nextToken() == JsonToken.FIELD_NAME) {
+					String field = parser.getCurrentName();
+					JsonToken value = parser.nextToken();
+					if (field.equals(itemsField) && value == JsonToken.START_ARRAY) {
+						items = listReader.readValue(parser);
+					} else if (field.equals(pagination.getCursorField())) {
+						cursor[0] = value == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+					} else {
+						parser.skipChildren();
+					}
+				}
+			}
+			return items;
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read page items", e);
+		}
+	}
+
+	// Returns the target of the rel="next" link, or null
+	static String nextLink(String header) {
+		if (header == null) {
+			return null;
+		}
+		int start;
+		int from = 0;
+		while ((start = header.indexOf('<', from)) >= 0) {
+			int end = header.indexOf('>', start);
+			if (end < 0) {
+				return null;
+			}
+			int nextLink = header.indexOf('<', end);
+			String params = header.substring(end + 1, nextLink < 0 ? header.length() : nextLink).trim();
+			if (params.endsWith(",")) {
+				params = params.substring(0, params.length() - 1); // Separator before the next link
+			}
+			for (String param : params.split(";")) {
+				String[] pair = param.trim().split("=", 2);
+				if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("rel")) {
+					for (String rel : pair[1].trim().replace("\"", "").split("\\s+")) {
+						if (rel.equalsIgnoreCase("next")) {
+							return header.substring(start + 1, end);
+						}
+					}
+				}
+			}
+			from = end + 1;
+		}
+		return null;
+	}
+
+	// Decodes a raw query string; RequestHandler encodes the values again
+	private static Map<String, String> parseQuery(String rawQuery) {
+		Map<String, String> query = new LinkedHashMap<>();
+		if (rawQuery == null) {
+			return query;
+		}
+		for (String pair : rawQuery.split("&")) {
+			int eq = pair.indexOf('=');
+			String name = eq < 0 ? pair : pair.substring(0, eq);
+			if (!name.isEmpty()) {
+				query.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+						eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return query;
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+		}
+	}
+}
@@ -0,0 +1,199 @@
+package api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pagination describes how a collection endpoint is paged, so
+ * RequestHandler.stream can walk it one page at a time:
+ *
+ * pages: page number and size parameters, e.g. ?_page=2&amp;_limit=100;
+ * offsets: item offset and size parameters, e.g. ?_start=200&amp;_limit=100;
+ * cursor: an opaque cursor taken from a field of the previous page's body;
+ * linkHeader: the rel="next" URL of the previous response's Link header.
+ *
+ * Page and offset walks end on a page shorter than the page size, cursor
+ * walks on an empty cursor and Link walks when there is no next link. Items
+ * are read from the body's top-level array unless withItemsField names the
+ * array of an envelope object.
+ *
+ * Example usage: handler.stream("/posts", null, null, Pagination.pages(100),
+ * Post.class)
+ *
+ * @author subramanyamkongani
+ */
+public final class Pagination {
+
+	/**
+	 * The supported paging styles.
+	 */
+	public enum Style {
+		PAGES, OFFSETS, CURSOR, LINK_HEADER
+	}
+
+	private final Style style;
+	private final String positionParam; // Page number, offset or cursor parameter; null for Link headers
+	private final String limitParam;
+	private final int pageSize;
+	private final long first; // First page number or offset
+	private final String itemsField; // Array field of an envelope, or null for a top-level array
+	private final String cursorField; // Field holding the next cursor
+
+	private Pagination(Style style, String positionParam, String limitParam, int pageSize, long first,
+			String itemsField, String cursorField) {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be at least 1: " + pageSize);
+		}
+		this.style = style;
+		this.positionParam = positionParam;
+		this.limitParam = limitParam;
+		this.pageSize = pageSize;
+		this.first = first;
+		this.itemsField = itemsField;
+		this.cursorField = cursorField;
+	}
+
+	/**
+	 * Pages with _page (starting at 1) and _limit parameters.
+	 *
+	 * @param pageSize Items per page.
+	 * @return Pagination - the page-number style
+	 */
+	public static Pagination pages(int pageSize) {
+		return pages("_page", "_limit", pageSize, 1);
+	}
+
+	/**
+	 * Pages with custom page number and size parameters.
+	 *
+	 * @param pageParam  Page number parameter.
+	 * @param limitParam Page size parameter.
+	 * @param pageSize   Items per page.
+	 * @param firstPage  Number of the first page, usually 0 or 1.
+	 * @return Pagination - the page-number style
+	 */
+	public static Pagination pages(String pageParam, String limitParam, int pageSize, int firstPage) {
+		return new Pagination(Style.PAGES, pageParam, limitParam, pageSize, firstPage, null, null);
+	}
+
+	/**
+	 * Pages with _start (starting at 0) and _limit parameters.
+	 *
+	 * @param pageSize Items per page.
+	 * @return Pagination - the offset style
+	 */
+	public static Pagination offsets(int pageSize) {
+		return offsets("_start", "_limit", pageSize);
+	}
+
+	/**
+	 * Pages with custom offset and size parameters, starting at offset 0.
+	 *
+	 * @param offsetParam Offset parameter, e.g. offset.
+	 * @param limitParam  Page size parameter, e.g. limit.
+	 * @param pageSize    Items per page.
+	 * @return Pagination - the offset style
+	 */
+	public static Pagination offsets(String offsetParam, String limitParam, int pageSize) {
+		return new Pagination(Style.OFFSETS, offsetParam, limitParam, pageSize, 0, null, null);
+	}
+
+	/**
+	 * Pages with a cursor returned in an envelope such as
+	 * {"items":[...],"nextCursor":"abc"}; the first request has no cursor.
+	 *
+	 * @param cursorParam Cursor parameter of the next request.
+	 * @param limitParam  Page size parameter.
+	 * @param pageSize    Items per page.
+	 * @param itemsField  Envelope field holding the items.
+	 * @param cursorField Envelope field holding the next cursor.
+	 * @return Pagination - the cursor style
+	 */
+	public static Pagination cursor(String cursorParam, String limitParam, int pageSize, String itemsField,
+			String cursorField) {
+		return new Pagination(Style.CURSOR, cursorParam, limitParam, pageSize, 0, itemsField, cursorField);
+	}
+
+	/**
+	 * Follows the rel="next" links of the Link response header (RFC 8288);
+	 * only the first request carries the page size parameter.
+	 *
+	 * @param limitParam Page size parameter.
+	 * @param pageSize   Items per page.
+	 * @return Pagination - the Link header style
+	 */
+	public static Pagination linkHeader(String limitParam, int pageSize) {
+		return new Pagination(Style.LINK_HEADER, null, limitParam, pageSize, 0, null, null);
+	}
+
+	/**
+	 * Returns a copy reading the items from an array field of an envelope
+	 * object instead of a top-level array.
+	 *
+	 * @param field Name of the array field, e.g. data.
+	 * @return Pagination - the new pagination
+	 */
+	public Pagination withItemsField(String field) {
+		return new Pagination(style, positionParam, limitParam, pageSize, first, field, cursorField);
+	}
+
+	public Style getStyle() {
+		return style;
+	}
+
+	public int getPageSize() {
+		return pageSize;
+	}
+
+	String getItemsField() {
+		return itemsField;
+	}
+
+	String getCursorField() {
+		return cursorField;
+	}
+
+	// Query parameters of the first page request
+	Map<String, String> firstQuery(Map<String, String> queryParams) {
+		Map<String, String> query = copy(queryParams);
+		query.put(limitParam, String.valueOf(pageSize));
+		if (style == Style.PAGES || style == Style.OFFSETS) {
+			query.put(positionParam, String.valueOf(first));
+		}
+		return query;
+	}
+
+	// Query parameters of the page after one with the given query and item count, or
+	// null if that page was the last; cursors and links are handled by the iterator
+	Map<String, String> nextQuery(Map<String, String> query, int items, String cursor) {
+		switch (style) {
+		case PAGES:
+		case OFFSETS:
+			if (items < pageSize) {
+				return null;
+			}
+			long position = Long.parseLong(query.get(positionParam));
+			Map<String, String> next = copy(query);
+			next.put(positionParam, String.valueOf(style == Style.PAGES ? position + 1 : position + items));
+			return next;
+		case CURSOR:
+			if (items == 0 || cursor == null || cursor.isEmpty()) {
+				return null;
+			}
+			Map<String, String> nextCursor = copy(query);
+			nextCursor.put(positionParam, cursor);
+			return nextCursor;
+		default:
+			throw new IllegalStateException(style + " pages are followed by link");
+		}
+	}
+
+	private static Map<String, String> copy(Map<String, String> queryParams) {
+		return queryParams == null ? new LinkedHashMap<>() : new LinkedHashMap<>(queryParams);
+	}
+
+	@Override
+	public String toString() {
+		return style + "(" + pageSize + (positionParam == null ? "" : ", " + positionParam) + ")";
+	}
+}
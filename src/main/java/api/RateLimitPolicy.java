@@ -0,0 +1,224 @@
+package api;
+
+import java.util.Locale;
+import java.util.Objects;
+
+import config.ConfigMapping;
+
+/**
+ * RateLimitPolicy configures the client-side limits RateLimiter puts on the
+ * requests sent to a host. Every feature is off by default.
+ *
+ * Token bucket: at most ratelimit.perSecond requests per second, with bursts
+ * of up to ratelimit.burst requests after a quiet period.
+ *
+ * Adaptive concurrency: at most a limit of requests in flight, which grows by
+ * one per round trip while responses come back healthy and is multiplied by
+ * ratelimit.adaptive.backoffRatio when the backend answers 429 or 503, times
+ * out, or the smoothed latency rises above ratelimit.adaptive.latencyTolerance
+ * times the lowest latency seen (AIMD). The limit therefore settles near the
+ * concurrency the backend can sustain without per-environment tuning.
+ *
+ * A Retry-After on a 429 or 503 holds back every request of the limited scope
+ * until it has passed. Limits apply per host (ratelimit.scope=host, the
+ * default) or separately per endpoint template (ratelimit.scope=endpoint).
+ *
+ * Supported keys: ratelimit.perSecond, ratelimit.burst, ratelimit.scope,
+ * ratelimit.adaptive.enabled, ratelimit.adaptive.initialLimit,
+ * ratelimit.adaptive.minLimit, ratelimit.adaptive.maxLimit,
+ * ratelimit.adaptive.backoffRatio, ratelimit.adaptive.latencyTolerance
+ *
+ * @author subramanyamkongani
+ */
+public final class RateLimitPolicy {
+
+	private final double perSecond; // 0 = no token bucket
+	private final int burst;
+	private final boolean perEndpoint;
+	private final boolean adaptive;
+	private final int initialLimit;
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final double latencyTolerance;
+
+	private RateLimitPolicy(double perSecond, int burst, boolean perEndpoint, boolean adaptive, int initialLimit,
+			int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+		if (perSecond < 0 || burst < 1) {
+			throw new IllegalArgumentException("Invalid token bucket: " + perSecond + "/s, burst " + burst);
+		}
+		if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+			throw new IllegalArgumentException(
+					"Invalid concurrency limits: initial " + initialLimit + ", min " + minLimit + ", max " + maxLimit);
+		}
+		if (backoffRatio <= 0 || backoffRatio >= 1 || latencyTolerance <= 1) {
+			throw new IllegalArgumentException(
+					"Backoff ratio must be in (0, 1) and latency tolerance above 1: " + backoffRatio + ", "
+							+ latencyTolerance);
+		}
+		this.perSecond = perSecond;
+		this.burst = burst;
+		this.perEndpoint = perEndpoint;
+		this.adaptive = adaptive;
+		this.initialLimit = initialLimit;
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoffRatio = backoffRatio;
+		this.latencyTolerance = latencyTolerance;
+	}
+
+	/**
+	 * Returns a policy with every limit disabled.
+	 *
+	 * @return RateLimitPolicy - requests are never held back
+	 */
+	public static RateLimitPolicy disabled() {
+		return new RateLimitPolicy(0, 1, false, false, 16, 1, 256, 0.9, 2.0);
+	}
+
+	/**
+	 * Builds the policy from the configuration file, using the disabled policy's
+	 * values for every key that is not set.
+	 *
+	 * @return RateLimitPolicy - the configured policy
+	 */
+	public static RateLimitPolicy fromConfig() {
+		RateLimitPolicy defaults = disabled();
+		double perSecond = Double.parseDouble(property("ratelimit.perSecond", "0"));
+		String scope = property("ratelimit.scope", "host").toLowerCase(Locale.ROOT);
+		if (!scope.equals("host") && !scope.equals("endpoint")) {
+			throw new IllegalArgumentException("Unknown ratelimit.scope: " + scope + " (expected host or endpoint)");
+		}
+		return new RateLimitPolicy(perSecond,
+				Integer.parseInt(property("ratelimit.burst", String.valueOf(Math.max(1, (int) perSecond)))),
+				scope.equals("endpoint"),
+				"true".equalsIgnoreCase(ConfigMapping.getConfigProperty("ratelimit.adaptive.enabled")),
+				Integer.parseInt(property("ratelimit.adaptive.initialLimit", String.valueOf(defaults.initialLimit))),
+				Integer.parseInt(property("ratelimit.adaptive.minLimit", String.valueOf(defaults.minLimit))),
+				Integer.parseInt(property("ratelimit.adaptive.maxLimit", String.valueOf(defaults.maxLimit))),
+				Double.parseDouble(property("ratelimit.adaptive.backoffRatio", String.valueOf(defaults.backoffRatio))),
+				Double.parseDouble(
+						property("ratelimit.adaptive.latencyTolerance", String.valueOf(defaults.latencyTolerance))));
+	}
+
+	/**
+	 * Returns a copy with a token bucket.
+	 *
+	 * @param perSecond Sustained requests per second.
+	 * @param burst     Requests that may be sent at once after a quiet period.
+	 * @return RateLimitPolicy - the new policy
+	 */
+	public RateLimitPolicy withRate(double perSecond, int burst) {
+		return new RateLimitPolicy(perSecond, burst, perEndpoint, adaptive, initialLimit, minLimit, maxLimit,
+				backoffRatio, latencyTolerance);
+	}
+
+	/**
+	 * Returns a copy with an adaptive concurrency limit.
+	 *
+	 * @param initialLimit Requests in flight allowed at first.
+	 * @param minLimit     Lowest limit the backoff goes down to.
+	 * @param maxLimit     Highest limit the increase goes up to.
+	 * @return RateLimitPolicy - the new policy
+	 */
+	public RateLimitPolicy withAdaptiveConcurrency(int initialLimit, int minLimit, int maxLimit) {
+		return new RateLimitPolicy(perSecond, burst, perEndpoint, true, initialLimit, minLimit, maxLimit,
+				backoffRatio, latencyTolerance);
+	}
+
+	/**
+	 * Returns a copy that reacts differently to overload.
+	 *
+	 * @param backoffRatio     Factor applied to the limit on overload, e.g. 0.9.
+	 * @param latencyTolerance Smoothed-to-lowest latency ratio treated as
+	 *                         overload, e.g. 2.0.
+	 * @return RateLimitPolicy - the new policy
+	 */
+	public RateLimitPolicy withBackoff(double backoffRatio, double latencyTolerance) {
+		return new RateLimitPolicy(perSecond, burst, perEndpoint, adaptive, initialLimit, minLimit, maxLimit,
+				backoffRatio, latencyTolerance);
+	}
+
+	/**
+	 * Returns a copy whose limits apply to every endpoint template separately
+	 * instead of to the whole host.
+	 *
+	 * @return RateLimitPolicy - the new policy
+	 */
+	public RateLimitPolicy perEndpoint() {
+		return new RateLimitPolicy(perSecond, burst, true, adaptive, initialLimit, minLimit, maxLimit, backoffRatio,
+				latencyTolerance);
+	}
+
+	/**
+	 * Returns whether any limit is enabled; a disabled policy adds no work.
+	 *
+	 * @return boolean - true if requests need the limiter
+	 */
+	public boolean isActive() {
+		return perSecond > 0 || adaptive;
+	}
+
+	public double getPerSecond() {
+		return perSecond;
+	}
+
+	public int getBurst() {
+		return burst;
+	}
+
+	public boolean isPerEndpoint() {
+		return perEndpoint;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	public int getInitialLimit() {
+		return initialLimit;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	public double getLatencyTolerance() {
+		return latencyTolerance;
+	}
+
+	// Equal policies share one limiter per host in RateLimiter.forHost
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof RateLimitPolicy)) {
+			return false;
+		}
+		RateLimitPolicy that = (RateLimitPolicy) other;
+		return perSecond == that.perSecond && burst == that.burst && perEndpoint == that.perEndpoint
+				&& adaptive == that.adaptive && initialLimit == that.initialLimit && minLimit == that.minLimit
+				&& maxLimit == that.maxLimit && backoffRatio == that.backoffRatio
+				&& latencyTolerance == that.latencyTolerance;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(perSecond, burst, perEndpoint, adaptive, initialLimit, minLimit, maxLimit, backoffRatio,
+				latencyTolerance);
+	}
+
+	private static String property(String key, String defaultValue) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+}
@@ -0,0 +1,295 @@
+package api;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import constants.StatusCodes;
+import io.restassured.response.Response;
+
+/**
+ * RateLimiter applies a RateLimitPolicy to the requests sent to one host. It
+ * is shared by every thread, and by default by every RequestHandler, sending
+ * to that host: handlers built from the configuration get the limiter of
+ * their host from forHost, so the limits hold for the whole test run however
+ * many UserApi instances it creates.
+ *
+ * Each attempt waits for a token (token bucket), for a free slot under the
+ * adaptive concurrency limit and for any Retry-After to pass, then reports
+ * its status and latency back, which moves the limit (see RateLimitPolicy).
+ *
+ * @author subramanyamkongani
+ */
+public final class RateLimiter {
+	private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+	// Limiters built from the configuration, one per scheme://host:port and policy
+	private static final Map<HostPolicy, RateLimiter> hosts = new ConcurrentHashMap<>();
+
+	// Weight of the newest sample in the smoothed latency
+	private static final double SMOOTHING = 0.1;
+	// Samples before rising latency counts as overload; the first ones warm up the connections
+	private static final int LATENCY_WARMUP_SAMPLES = 20;
+	// Samples after which the lowest latency is measured afresh, so a backend that got slower
+	// for good is not treated as overloaded forever
+	private static final int MIN_LATENCY_WINDOW = 1_000;
+
+	/**
+	 * A point-in-time copy of the state of one scope (the host or an endpoint
+	 * template). Limit is the current concurrency limit, or 0 when concurrency
+	 * is not limited.
+	 */
+	public record Stats(double limit, int inFlight, long requests, long overloads, long delayed, double delayedMs) {
+	}
+
+	/**
+	 * Limits of one scope. The lock is not held while a request is in flight or
+	 * waiting for a token, only while the state is updated.
+	 */
+	static final class Gate {
+		private final RateLimitPolicy policy;
+		private final ReentrantLock lock = new ReentrantLock(); // Not synchronized: waiting virtual threads would pin
+		private final Condition changed = lock.newCondition();
+		private double tokens;
+		private long refilledAt = System.nanoTime();
+		private double limit;
+		private int inFlight;
+		private long pausedUntil; // System.nanoTime() until which Retry-After holds requests back
+		private boolean paused;
+		private long minLatencyNanos = Long.MAX_VALUE;
+		private double smoothedLatencyNanos;
+		private long samples;
+		private long lastDecreaseAt;
+		private long requests;
+		private long overloads;
+		private long delayed;
+		private long delayedNanos;
+
+		Gate(RateLimitPolicy policy) {
+			this.policy = policy;
+			this.tokens = policy.getBurst();
+			this.limit = policy.getInitialLimit();
+		}
+
+		// Blocks until the request may be sent and takes its slot and token
+		void acquire() throws InterruptedException {
+			long start = System.nanoTime();
+			long tokenWait = 0;
+			lock.lock();
+			try {
+				while (true) {
+					long pause = paused ? pausedUntil - System.nanoTime() : 0;
+					if (pause > 0) {
+						changed.awaitNanos(pause);
+					} else if (policy.isAdaptive() && inFlight >= (int) limit) {
+						changed.await();
+					} else {
+						break;
+					}
+				}
+				paused = false;
+				inFlight++;
+				requests++;
+				if (policy.getPerSecond() > 0) {
+					// Reserve the token now and wait for it outside the lock, so callers are served in order
+					long now = System.nanoTime();
+					tokens = Math.min(policy.getBurst(), tokens + (now - refilledAt) * policy.getPerSecond() / 1e9);
+					refilledAt = now;
+					tokens--;
+					tokenWait = tokens < 0 ? (long) (-tokens / policy.getPerSecond() * 1e9) : 0;
+				}
+			} finally {
+				lock.unlock();
+			}
+			if (tokenWait > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(tokenWait);
+				} catch (InterruptedException e) {
+					release(0, false, 0);
+					throw e;
+				}
+			}
+			long waited = System.nanoTime() - start;
+			if (waited > TimeUnit.MILLISECONDS.toNanos(1)) {
+				lock.lock();
+				try {
+					delayed++;
+					delayedNanos += waited;
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+
+		// Frees the slot and adjusts the limit from the outcome: latency is 0 for failed requests
+		void release(long latencyNanos, boolean overloaded, long retryAfterMillis) {
+			lock.lock();
+			try {
+				inFlight--;
+				long now = System.nanoTime();
+				if (retryAfterMillis > 0) {
+					long until = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis);
+					pausedUntil = paused ? Math.max(pausedUntil, until) : until;
+					paused = true;
+				}
+				if (overloaded) {
+					overloads++;
+				}
+				if (policy.isAdaptive()) {
+					adjustLimit(now, latencyNanos, overloaded);
+				}
+				changed.signalAll();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		// AIMD: one multiplicative decrease per round trip on overload, else +1 per round trip
+		private void adjustLimit(long now, long latencyNanos, boolean overloaded) {
+			if (!overloaded && latencyNanos > 0) {
+				if (++samples % MIN_LATENCY_WINDOW == 0) {
+					minLatencyNanos = Long.MAX_VALUE;
+				}
+				minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+				smoothedLatencyNanos = smoothedLatencyNanos == 0 ? latencyNanos
+						: smoothedLatencyNanos + SMOOTHING * (latencyNanos - smoothedLatencyNanos);
+			}
+			boolean slow = samples >= LATENCY_WARMUP_SAMPLES && minLatencyNanos != Long.MAX_VALUE
+					&& smoothedLatencyNanos > minLatencyNanos * policy.getLatencyTolerance();
+			if (overloaded || slow) {
+				// Responses to requests sent before the last decrease say nothing about the new limit
+				if (now - lastDecreaseAt >= Math.max(smoothedLatencyNanos, TimeUnit.MILLISECONDS.toNanos(1))) {
+					double previous = limit;
+					limit = Math.max(policy.getMinLimit(), limit * policy.getBackoffRatio());
+					lastDecreaseAt = now;
+					if (slow && !overloaded) {
+						// Measure the latency under the new limit afresh
+						smoothedLatencyNanos = minLatencyNanos * policy.getLatencyTolerance();
+					}
+					logger.debug("Concurrency limit {} -> {} ({})", (int) previous, (int) limit,
+							overloaded ? "overloaded" : "latency");
+				}
+			} else if (latencyNanos > 0 && (inFlight + 1) * 2 >= limit) {
+				// Grow only while the limit is actually used, else it drifts up without evidence
+				limit = Math.min(policy.getMaxLimit(), limit + 1 / limit);
+			}
+		}
+
+		Stats stats() {
+			lock.lock();
+			try {
+				return new Stats(policy.isAdaptive() ? limit : 0, inFlight, requests, overloads, delayed,
+						delayedNanos / 1e6);
+			} finally {
+				lock.unlock();
+			}
+		}
+	}
+
+	// Cache key of the configured limiters
+	private record HostPolicy(String host, RateLimitPolicy policy) {
+	}
+
+	private final String host;
+	private final RateLimitPolicy policy;
+	private final Gate hostGate; // Null when limits are per endpoint
+	private final Map<String, Gate> endpointGates = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for RateLimiter.
+	 *
+	 * @param host   Name of the limited host, for the stats.
+	 * @param policy The limits to apply.
+	 */
+	public RateLimiter(String host, RateLimitPolicy policy) {
+		this.host = host;
+		this.policy = policy;
+		this.hostGate = policy.isPerEndpoint() ? null : new Gate(policy);
+	}
+
+	/**
+	 * Returns the shared limiter for the host of a base URI, configured from
+	 * the ratelimit.* keys, or null when no limit is configured. The policy is
+	 * read on every call, so handlers created under other ratelimit.* values,
+	 * e.g. per-thread overrides, share a separate limiter.
+	 *
+	 * @param baseUri The base URI requests are sent to.
+	 * @return RateLimiter - the host's limiter, or null
+	 */
+	public static RateLimiter forHost(String baseUri) {
+		RateLimitPolicy policy = RateLimitPolicy.fromConfig();
+		if (!policy.isActive()) {
+			return null;
+		}
+		URI uri = URI.create(baseUri);
+		String host = uri.getScheme() + "://" + uri.getAuthority();
+		return hosts.computeIfAbsent(new HostPolicy(host, policy), key -> new RateLimiter(host, policy));
+	}
+
+	public RateLimitPolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Returns the state of every scope: the host, or each endpoint template
+	 * that was called.
+	 *
+	 * @return Map - stats by host or endpoint template
+	 */
+	public Map<String, Stats> getStats() {
+		Map<String, Stats> stats = new TreeMap<>();
+		if (hostGate != null) {
+			stats.put(host, hostGate.stats());
+		}
+		endpointGates.forEach((endpoint, gate) -> stats.put(endpoint, gate.stats()));
+		return stats;
+	}
+
+	/**
+	 * Sends one attempt within the limits and feeds its outcome back.
+	 *
+	 * @param template Endpoint template, e.g. /posts/{id}.
+	 * @param attempt  Sends the request once.
+	 * @return Response - the attempt's response
+	 */
+	Response call(String template, Supplier<Response> attempt) {
+		Gate gate = hostGate != null ? hostGate : endpointGates.computeIfAbsent(template, key -> new Gate(policy));
+		try {
+			gate.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new UncheckedIOException(new InterruptedIOException("Interrupted waiting for the rate limit"));
+		}
+		long start = System.nanoTime();
+		Response response = null;
+		boolean timedOut = false;
+		try {
+			response = attempt.get();
+			return response;
+		} catch (Exception e) {
+			// RestAssured rethrows a raw SocketTimeoutException, the JDK transport an UncheckedIOException
+			timedOut = RequestEvent.isTimeout(e);
+			throw e;
+		} finally {
+			if (response == null) {
+				gate.release(0, timedOut, 0);
+			} else {
+				int status = response.getStatusCode();
+				boolean overloaded = status == StatusCodes.TOO_MANY_REQUESTS.getCode()
+						|| status == StatusCodes.SERVICE_UNAVAILABLE.getCode();
+				gate.release(System.nanoTime() - start, overloaded,
+						overloaded ? Resilience.retryAfterMillis(response.getHeader("Retry-After")) : 0);
+			}
+		}
+	}
+}
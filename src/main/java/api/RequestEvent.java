@@ -0,0 +1,80 @@
+package api;
+
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+
+import org.apache.http.conn.ConnectTimeoutException;
+
+/**
+ * A request sent by a RequestHandler, as reported to RequestListeners.
+ *
+ * @param method            HTTP method, e.g. GET.
+ * @param endpoint          Endpoint template as passed to RequestHandler,
+ *                          e.g. /posts/{id}, so metrics aggregate across IDs.
+ * @param statusCode        Response status code, or -1 if no response
+ *                          arrived.
+ * @param durationNanos     Time from sending the request to reading the whole
+ *                          response body.
+ * @param requestBytes      Size of the serialized request body.
+ * @param responseBytes     Size of the (decoded) response body.
+ * @param requestWireBytes  Size of the request body as it crossed the wire,
+ *                          smaller than requestBytes when it was compressed.
+ * @param responseWireBytes Size of the response body as it crossed the wire,
+ *                          smaller than responseBytes when it was compressed.
+ * @param error             Failure that prevented a response, or null.
+ * @param exchange          Full request and response, only captured when a
+ *                          listener asks for it with
+ *                          {@link RequestListener#needsExchange()}; otherwise
+ *                          null.
+ * @author subramanyamkongani
+ */
+public record RequestEvent(String method, String endpoint, int statusCode, long durationNanos, long requestBytes,
+		long responseBytes, long requestWireBytes, long responseWireBytes, Throwable error, Exchange exchange) {
+
+	/**
+	 * The request as passed to RequestHandler and the response body.
+	 *
+	 * @param startEpochMillis Wall-clock time the request was sent.
+	 * @param path             Expanded, percent-encoded path, e.g. /posts/1.
+	 * @param queryParams      Unencoded query parameters, possibly empty.
+	 * @param headers          Request headers, possibly empty.
+	 * @param requestBody      Serialized request body, or null.
+	 * @param responseBody     Response body, empty if no response arrived.
+	 */
+	public record Exchange(long startEpochMillis, String path, Map<String, String> queryParams,
+			Map<String, String> headers, byte[] requestBody, byte[] responseBody) {
+	}
+
+	/**
+	 * Constructor for uncompressed events without the captured exchange.
+	 */
+	public RequestEvent(String method, String endpoint, int statusCode, long durationNanos, long requestBytes,
+			long responseBytes, Throwable error) {
+		this(method, endpoint, statusCode, durationNanos, requestBytes, responseBytes, requestBytes, responseBytes,
+				error, null);
+	}
+
+	/**
+	 * Returns whether the request failed because a connect or read timeout
+	 * expired. Other interrupted I/O, e.g. an interrupted request thread, is
+	 * not a timeout.
+	 *
+	 * @return boolean - true for timeouts
+	 */
+	public boolean isTimeout() {
+		return isTimeout(error);
+	}
+
+	// Walks the cause chain, as each transport wraps its timeouts differently
+	static boolean isTimeout(Throwable error) {
+		for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+			// HttpConnectTimeoutException, the JDK client's connect timeout, is an HttpTimeoutException
+			if (cause instanceof SocketTimeoutException || cause instanceof ConnectTimeoutException
+					|| cause instanceof HttpTimeoutException) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
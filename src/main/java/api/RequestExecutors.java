@@ -0,0 +1,106 @@
+package api;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import config.ConfigMapping;
+
+/**
+ * RequestExecutors creates the executors used to run asynchronous API calls.
+ * On a JVM with virtual threads (Java 21+) a virtual-thread-per-task executor
+ * is used, so thousands of requests can be in flight without thousands of
+ * blocked platform threads. Older JVMs fall back to a bounded daemon pool.
+ *
+ * The executor type is selected with the http.async.executor property
+ * ("virtual" or "platform") and the platform pool size with
+ * http.async.threads.
+ *
+ * @author subramanyamkongani
+ */
+public final class RequestExecutors {
+
+	// Shared default executor, created on first use
+	private static volatile ExecutorService defaultExecutor;
+
+	private RequestExecutors() {
+	}
+
+	/**
+	 * Returns the shared executor configured for asynchronous requests.
+	 *
+	 * @return ExecutorService - the shared default executor
+	 */
+	public static ExecutorService defaultExecutor() {
+		ExecutorService executor = defaultExecutor;
+		if (executor == null) {
+			synchronized (RequestExecutors.class) {
+				executor = defaultExecutor;
+				if (executor == null) {
+					executor = fromConfig();
+					defaultExecutor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Creates an executor from the http.async.* configuration properties.
+	 *
+	 * @return ExecutorService - a new executor
+	 */
+	public static ExecutorService fromConfig() {
+		String type = ConfigMapping.getConfigProperty("http.async.executor");
+		if ("platform".equalsIgnoreCase(type)) {
+			return platformThreads(threadsFromConfig());
+		}
+		return virtualThreadsIfAvailable(threadsFromConfig());
+	}
+
+	/**
+	 * Creates a virtual-thread-per-task executor when the running JVM supports
+	 * it, otherwise a fixed pool of daemon platform threads.
+	 *
+	 * @param fallbackThreads Pool size used when virtual threads are unavailable.
+	 * @return ExecutorService - a new executor
+	 */
+	public static ExecutorService virtualThreadsIfAvailable(int fallbackThreads) {
+		try {
+			// Looked up reflectively so the framework still compiles for Java 17
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) factory.invoke(null);
+		} catch (ReflectiveOperationException | UnsupportedOperationException e) {
+			return platformThreads(fallbackThreads);
+		}
+	}
+
+	/**
+	 * Creates a fixed pool of daemon platform threads.
+	 *
+	 * @param threads Number of threads in the pool.
+	 * @return ExecutorService - a new executor
+	 */
+	public static ExecutorService platformThreads(int threads) {
+		return Executors.newFixedThreadPool(threads, daemonThreadFactory("api-request-"));
+	}
+
+	// Names threads for easier thread dumps and keeps them from blocking JVM exit
+	private static ThreadFactory daemonThreadFactory(String prefix) {
+		AtomicInteger counter = new AtomicInteger();
+		return runnable -> {
+			Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	// Platform pool size, defaulting to 4 threads per core
+	private static int threadsFromConfig() {
+		String value = ConfigMapping.getConfigProperty("http.async.threads");
+		return value == null || value.isBlank() ? Runtime.getRuntime().availableProcessors() * 4
+				: Integer.parseInt(value.trim());
+	}
+}
@@ -1,25 +1,248 @@
 package api;
 
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import io.restassured.RestAssured;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import constants.StatusCodes;
+import io.restassured.http.Method;
 import io.restassured.response.Response;
+import metrics.CallProfile;
+import metrics.RequestMetrics;
+import replay.TrafficRecorder;
 
 /**
- * RequestHandler is responsible for handling HTTP requests using the
- * RestAssured library. It provides methods for sending GET, POST, PUT, and
- * DELETE requests to a specified base URI.
+ * RequestHandler is responsible for handling HTTP requests. It provides
+ * methods for sending GET, POST, PUT, and DELETE requests to a specified base
+ * URI and returns RestAssured Responses.
+ * 
+ * Each handler owns its own Transport (see http.transport): RestAssured over a
+ * pooled, keep-alive HTTP/1.1 client by default, or the JDK HttpClient with
+ * HTTP/2 multiplexing. Handlers for different hosts can be used side by side
+ * and a single handler can be shared by many threads. No global RestAssured
+ * state is modified.
+ * 
+ * Every operation also has an asynchronous variant returning a
+ * CompletableFuture, run on the handler's executor (virtual threads when the
+ * JVM supports them, see RequestExecutors).
+ * 
+ * GET responses can optionally be served from a ResponseCache (see
+ * cache.enabled); PUT, POST and DELETE invalidate the affected entries.
+ * 
+ * Every request sent is reported to the registered RequestListeners, by
+ * default including the global RequestMetrics (see metrics.enabled) and, when
+ * record.enabled is set, the global TrafficRecorder.
+ * 
+ * Calls are sent through a ResiliencePolicy (hedging, deadlines, retries and
+ * circuit breakers, all disabled unless configured), and every attempt within
+ * the host's RateLimiter (token bucket and adaptive concurrency, see
+ * RateLimitPolicy), which is shared by all handlers for the host.
+ * 
+ * With compression.enabled, request and response bodies are compressed on
+ * the wire (see CompressionPolicy); listeners still see the decoded bodies,
+ * along with the wire sizes.
+ * 
+ * Each request is also part of an api.Call JFR event (see CallProfile) while
+ * a flight recording is running.
  */
-public class RequestHandler {
+public class RequestHandler implements AutoCloseable {
+	private static final Logger logger = LoggerFactory.getLogger(RequestHandler.class);
+
 	private final String baseUri; // Base URI for the API requests
+	private final Transport transport; // Sends the requests; owned by this handler
+	private final Executor executor; // Runs the asynchronous variants
+	private volatile ResponseCache responseCache; // Optional GET cache, null when disabled
+	private final List<RequestListener> listeners = new CopyOnWriteArrayList<>(); // Notified after each request
+	private volatile boolean captureExchange; // Whether any listener needs the full exchange
+	private volatile Resilience resilience = new Resilience(ResiliencePolicy.fromConfig());
+	private volatile RateLimiter rateLimiter; // Shared per host, null when no limit is configured
 
 	/**
-	 * Constructor for RequestHandler.
+	 * Constructor for RequestHandler using the pool settings from the
+	 * configuration file.
 	 * 
 	 * @param baseUri The base URI to be used for all API requests.
 	 */
 	public RequestHandler(String baseUri) {
+		this(baseUri, HttpClientSettings.fromConfig());
+	}
+
+	/**
+	 * Constructor for RequestHandler.
+	 * 
+	 * @param baseUri  The base URI to be used for all API requests.
+	 * @param settings Connection pool and timeout settings for this handler.
+	 */
+	public RequestHandler(String baseUri, HttpClientSettings settings) {
+		this(baseUri, settings, RequestExecutors.defaultExecutor());
+	}
+
+	/**
+	 * Constructor for RequestHandler with a custom executor for asynchronous
+	 * requests.
+	 * 
+	 * @param baseUri  The base URI to be used for all API requests.
+	 * @param settings Connection pool and timeout settings for this handler.
+	 * @param executor Executor that runs the *Async methods.
+	 */
+	public RequestHandler(String baseUri, HttpClientSettings settings, Executor executor) {
+		this(baseUri, Transport.fromConfig(baseUri, settings), executor);
+	}
+
+	/**
+	 * Constructor for RequestHandler with an explicit transport, which the
+	 * handler closes when it is closed.
+	 * 
+	 * @param baseUri   The base URI to be used for all API requests.
+	 * @param transport Transport that sends the requests to the base URI.
+	 * @param executor  Executor that runs the *Async methods.
+	 */
+	public RequestHandler(String baseUri, Transport transport, Executor executor) {
 		this.baseUri = baseUri; // Initialize the base URI
-		RestAssured.baseURI = baseUri; // Set RestAssured's base URI
+		this.executor = executor;
+		this.transport = transport;
+		this.responseCache = ResponseCache.fromConfig();
+		this.rateLimiter = RateLimiter.forHost(baseUri);
+		if (RequestMetrics.isEnabled()) {
+			addListener(RequestMetrics.global());
+		}
+		if (TrafficRecorder.isEnabled()) {
+			addListener(TrafficRecorder.global());
+		}
+	}
+
+	/**
+	 * Returns the base URI this handler sends requests to.
+	 * 
+	 * @return String - the base URI
+	 */
+	public String getBaseUri() {
+		return baseUri;
+	}
+
+	/**
+	 * Returns the executor used by the asynchronous methods.
+	 * 
+	 * @return Executor - the async executor
+	 */
+	public Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Returns the GET response cache, or null when caching is disabled.
+	 * 
+	 * @return ResponseCache - the cache in use
+	 */
+	public ResponseCache getResponseCache() {
+		return responseCache;
+	}
+
+	/**
+	 * Enables (or, with null, disables) caching of GET responses.
+	 * 
+	 * @param responseCache The cache to use.
+	 */
+	public void setResponseCache(ResponseCache responseCache) {
+		this.responseCache = responseCache;
+	}
+
+	/**
+	 * Replaces the resilience policy; its counters start from zero.
+	 * 
+	 * @param policy The policy to apply to subsequent calls.
+	 */
+	public void setResiliencePolicy(ResiliencePolicy policy) {
+		this.resilience = new Resilience(policy);
+	}
+
+	/**
+	 * Returns the hedge, retry, timeout and circuit breaker counters.
+	 * 
+	 * @return Resilience.Stats - the current counters
+	 */
+	public Resilience.Stats getResilienceStats() {
+		return resilience.getStats();
+	}
+
+	/**
+	 * Returns the client-side rate limiter, or null when requests are not
+	 * limited.
+	 * 
+	 * @return RateLimiter - the limiter in use
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Limits the requests of this handler (or, with null, stops limiting them).
+	 * A limiter can be shared by several handlers for the same host.
+	 * 
+	 * @param rateLimiter The limiter to use.
+	 */
+	public void setRateLimiter(RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Registers a listener notified after every request this handler sends.
+	 * 
+	 * @param listener The listener to add.
+	 */
+	public void addListener(RequestListener listener) {
+		listeners.add(listener);
+		captureExchange |= listener.needsExchange();
+	}
+
+	/**
+	 * Unregisters a listener.
+	 * 
+	 * @param listener The listener to remove.
+	 */
+	public void removeListener(RequestListener listener) {
+		listeners.remove(listener);
+		captureExchange = listeners.stream().anyMatch(RequestListener::needsExchange);
+	}
+
+	/**
+	 * Returns the transport sending this handler's requests.
+	 * 
+	 * @return Transport - the transport in use
+	 */
+	public Transport getTransport() {
+		return transport;
+	}
+
+	/**
+	 * Returns the current connection statistics of the transport.
+	 * 
+	 * @return String - e.g. leased, pending, available and max connections
+	 */
+	public String getPoolStats() {
+		return transport.stats();
+	}
+
+	/**
+	 * Closes every connection owned by this handler.
+	 */
+	@Override
+	public void close() {
+		transport.close();
 	}
 
 	/**
@@ -35,9 +258,23 @@ public class RequestHandler {
 	 * @return Response object containing the server's response to the GET request.
 	 */
 	public Response get(String path, Map<String, String> headers, Map<String, String> queryParams) {
-		return RestAssured.given().headers(headers != null ? headers : Map.of()) // Use an empty map if headers are null
-				.queryParams(queryParams != null ? queryParams : Map.of()) // Use an empty map if queryParams are null
-				.get(baseUri + path); // Perform the GET request
+		return get(path, headers, queryParams, null);
+	}
+
+	/**
+	 * Sends a GET request to the specified path with optional headers, query
+	 * parameters and path parameters.
+	 * 
+	 * @param path        The API endpoint path (e.g., "/posts/{id}").
+	 * @param headers     Optional map of headers to be included in the request.
+	 * @param queryParams Optional map of query parameters.
+	 * @param pathParams  Optional map of path parameters to be included in the
+	 *                    request URL.
+	 * @return Response object containing the server's response to the GET request.
+	 */
+	public Response get(String path, Map<String, String> headers, Map<String, String> queryParams,
+			Map<String, String> pathParams) {
+		return execute(Method.GET, path, headers, queryParams, pathParams, null); // Perform the GET request
 	}
 
 	/**
@@ -52,9 +289,7 @@ public class RequestHandler {
 	 * @return Response object containing the server's response to the POST request.
 	 */
 	public Response post(String path, Map<String, String> headers, Object body) {
-		return RestAssured.given().headers(headers != null ? headers : Map.of()) // Use an empty map if headers are null
-				.body(body) // Set the request body
-				.post(baseUri + path); // Perform the POST request
+		return execute(Method.POST, path, headers, null, null, body); // Perform the POST request
 	}
 
 	/**
@@ -71,10 +306,7 @@ public class RequestHandler {
 	 * @return Response object containing the server's response to the PUT request.
 	 */
 	public Response put(String path, Map<String, String> headers, Object body, Map<String, String> pathParams) {
-		return RestAssured.given().headers(headers != null ? headers : Map.of()) // Use an empty map if headers are null
-				.body(body) // Set the request body
-				.pathParams(pathParams != null ? pathParams : Map.of()) // Use an empty map if pathParams are null
-				.put(baseUri + path); // Perform the PUT request
+		return execute(Method.PUT, path, headers, null, pathParams, body); // Perform the PUT request
 	}
 
 	/**
@@ -90,8 +322,240 @@ public class RequestHandler {
 	 *         request.
 	 */
 	public Response delete(String path, Map<String, String> headers, Map<String, String> pathParams) {
-		return RestAssured.given().headers(headers != null ? headers : Map.of()) // Use an empty map if headers are null
-				.pathParams(pathParams != null ? pathParams : Map.of()) // Use an empty map if pathParams are null
-				.delete(baseUri + path); // Perform the DELETE request
+		return execute(Method.DELETE, path, headers, null, pathParams, null); // Perform the DELETE request
+	}
+
+	/**
+	 * Lazily streams the items of a paginated collection, bound to a class.
+	 * Pages are requested as the stream is consumed, with the next page
+	 * prefetched in the background, so at most two pages are held in memory.
+	 * Close the stream (or use try-with-resources) when it is not consumed to
+	 * the end, to drop the prefetched page.
+	 * 
+	 * @param path        The collection endpoint, e.g. /posts.
+	 * @param headers     Optional map of headers, sent with every page request.
+	 * @param queryParams Optional query parameters, e.g. filters; the paging
+	 *                    parameters are added.
+	 * @param pagination  How the endpoint is paged.
+	 * @param type        Class of the items, e.g. Post.class.
+	 * @return Stream - the items of all pages, in order
+	 */
+	public <T> Stream<T> stream(String path, Map<String, String> headers, Map<String, String> queryParams,
+			Pagination pagination, Class<T> type) {
+		EndpointTemplate template = EndpointTemplate.of(EndpointTemplate.generalize(path));
+		PageIterator<T> pages = new PageIterator<>(this, template, path, headers, queryParams, pagination, type);
+		return StreamSupport
+				.stream(Spliterators.spliteratorUnknownSize(pages, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(pages::close);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #get(String, Map, Map)}.
+	 * 
+	 * @return CompletableFuture completed with the GET response.
+	 */
+	public CompletableFuture<Response> getAsync(String path, Map<String, String> headers,
+			Map<String, String> queryParams) {
+		return getAsync(path, headers, queryParams, null);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #get(String, Map, Map, Map)}.
+	 * 
+	 * @return CompletableFuture completed with the GET response.
+	 */
+	public CompletableFuture<Response> getAsync(String path, Map<String, String> headers,
+			Map<String, String> queryParams, Map<String, String> pathParams) {
+		return CompletableFuture
+				.supplyAsync(ConfigMapping.propagating(() -> get(path, headers, queryParams, pathParams)), executor);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #post(String, Map, Object)}.
+	 * 
+	 * @return CompletableFuture completed with the POST response.
+	 */
+	public CompletableFuture<Response> postAsync(String path, Map<String, String> headers, Object body) {
+		return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> post(path, headers, body)), executor);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #put(String, Map, Object, Map)}.
+	 * 
+	 * @return CompletableFuture completed with the PUT response.
+	 */
+	public CompletableFuture<Response> putAsync(String path, Map<String, String> headers, Object body,
+			Map<String, String> pathParams) {
+		return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> put(path, headers, body, pathParams)),
+				executor);
+	}
+
+	/**
+	 * Asynchronous variant of {@link #delete(String, Map, Map)}.
+	 * 
+	 * @return CompletableFuture completed with the DELETE response.
+	 */
+	public CompletableFuture<Response> deleteAsync(String path, Map<String, String> headers,
+			Map<String, String> pathParams) {
+		return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> delete(path, headers, pathParams)),
+				executor);
+	}
+
+	// Compiles (once) and expands the template, then sends the request. A path without variables is sent as it is
+	// and keyed by its generalized template, so metrics do not grow with every id requested
+	private Response execute(Method method, String path, Map<String, String> headers, Map<String, String> queryParams,
+			Map<String, String> pathParams, Object body) {
+		if (path.indexOf('{') < 0) {
+			return request(method, EndpointTemplate.of(EndpointTemplate.generalize(path)), path, headers, queryParams,
+					body);
+		}
+		EndpointTemplate template = EndpointTemplate.of(path);
+		return request(method, template, template.expand(pathParams), headers, queryParams, body);
+	}
+
+	/**
+	 * Sends a request to an already expanded path, e.g. one produced by
+	 * {@link Endpoint#expand(Object...)}, so the caller can reuse the same
+	 * string for logging. Metrics, caching and resilience are keyed by the
+	 * template.
+	 * 
+	 * @param method      The HTTP method.
+	 * @param template    The endpoint template the path was expanded from.
+	 * @param path        The expanded, percent-encoded path, e.g. /posts/1.
+	 * @param headers     Optional map of headers.
+	 * @param queryParams Optional map of (unencoded) query parameters.
+	 * @param body        Optional request body.
+	 * @return Response object containing the server's response.
+	 */
+	public Response request(Method method, EndpointTemplate template, String path, Map<String, String> headers,
+			Map<String, String> queryParams, Object body) {
+		try (CallProfile profile = CallProfile.begin(template.getTemplate())) {
+			try {
+				return cachedRequest(method, template, path, headers, queryParams, body);
+			} catch (Throwable e) {
+				profile.failed(e); // Throwable: transports may throw checked I/O exceptions undeclared
+				throw e;
+			}
+		}
+	}
+
+	// Serves GETs from the cache when enabled and invalidates it on other methods
+	private Response cachedRequest(Method method, EndpointTemplate template, String path,
+			Map<String, String> headers, Map<String, String> queryParams, Object body) {
+		ResponseCache cache = responseCache;
+		if (cache == null) {
+			return sendResiliently(method, template, path, headers, queryParams, body);
+		}
+		if (method != Method.GET) {
+			Response response = sendResiliently(method, template, path, headers, queryParams, body);
+			cache.invalidate(path);
+			return response;
+		}
+
+		String key = ResponseCache.key(path, queryParams, headers);
+		ResponseCache.Entry cached = cache.lookup(key);
+		if (cached != null && cached.isFresh()) {
+			return cached.response();
+		}
+		Map<String, String> requestHeaders = headers;
+		if (cached != null) {
+			// Stale entry with validators: ask the server whether it changed
+			requestHeaders = new HashMap<>(headers != null ? headers : Map.of());
+			if (cached.etag() != null) {
+				requestHeaders.put("If-None-Match", cached.etag());
+			}
+			if (cached.lastModified() != null) {
+				requestHeaders.put("If-Modified-Since", cached.lastModified());
+			}
+		}
+		Response response = sendResiliently(method, template, path, requestHeaders, queryParams, body);
+		if (cached != null && response.getStatusCode() == StatusCodes.NOT_MODIFIED.getCode()) {
+			cache.revalidated(cached);
+			return cached.response();
+		}
+		if (cached != null) {
+			cache.refetched();
+		}
+		if (response.getStatusCode() == StatusCodes.OK.getCode()) {
+			cache.store(key, path, response);
+		}
+		return response;
+	}
+
+	// Sends the request under the resilience policy, each attempt within the rate limits
+	private Response sendResiliently(Method method, EndpointTemplate template, String path,
+			Map<String, String> headers, Map<String, String> queryParams, Object body) {
+		CallProfile profile = CallProfile.current(); // Hedged attempts run on other threads
+		Supplier<Response> attempt = () -> send(profile, method, template, path, headers, queryParams, body);
+		RateLimiter limiter = rateLimiter;
+		return resilience.call(method, template.getTemplate(),
+				limiter == null ? attempt : () -> limiter.call(template.getTemplate(), attempt));
+	}
+
+	// Sends the request on this handler's transport, reporting it to the listeners and the
+	// profiled call, if any. A non-null captured path means the full exchange is captured too.
+	private Response send(CallProfile profile, Method method, EndpointTemplate template, String path,
+			Map<String, String> headers, Map<String, String> queryParams, Object body) {
+		Transport.Request request = new Transport.Request(method, path, headers, queryParams, body);
+		if (listeners.isEmpty() && profile == null) {
+			return transport.send(request, null);
+		}
+		String capturedPath = captureExchange ? path : null; // Only capture bodies when a listener wants them
+		long startMillis = capturedPath != null ? System.currentTimeMillis() : 0;
+		return transport.send(request, (requestBody, response, error, duration, requestWire, responseWire) -> {
+			byte[] responseBody = response != null ? response.asByteArray() : new byte[0];
+			long requestBytes = bodySize(requestBody);
+			if (profile != null) {
+				profile.exchanged(method.name(), template.getTemplate(), response != null ? response.getStatusCode() : -1,
+						requestBytes, responseBody.length, duration);
+			}
+			if (listeners.isEmpty()) {
+				return;
+			}
+			notify(new RequestEvent(method.name(), template.getTemplate(),
+					response != null ? response.getStatusCode() : -1, duration, requestBytes, responseBody.length,
+					requestWire >= 0 ? requestWire : requestBytes, responseWire >= 0 ? responseWire : responseBody.length,
+					error, exchange(startMillis, capturedPath, headers, queryParams,
+							capturedPath != null ? bodyBytes(requestBody) : null, responseBody)));
+		});
+	}
+
+	private static RequestEvent.Exchange exchange(long startMillis, String path, Map<String, String> headers,
+			Map<String, String> queryParams, byte[] requestBody, byte[] responseBody) {
+		if (path == null) {
+			return null;
+		}
+		return new RequestEvent.Exchange(startMillis, path, queryParams != null ? queryParams : Map.of(),
+				headers != null ? headers : Map.of(), requestBody, responseBody);
+	}
+
+	private static byte[] bodyBytes(Object body) {
+		if (body instanceof byte[]) {
+			return (byte[]) body;
+		}
+		if (body instanceof String) {
+			return ((String) body).getBytes(StandardCharsets.UTF_8);
+		}
+		return null;
+	}
+
+	private void notify(RequestEvent event) {
+		for (RequestListener listener : listeners) {
+			try {
+				listener.onRequest(event);
+			} catch (RuntimeException e) {
+				logger.warn("Request listener failed", e);
+			}
+		}
+	}
+
+	private static long bodySize(Object body) {
+		if (body instanceof byte[]) {
+			return ((byte[]) body).length;
+		}
+		if (body instanceof String) {
+			return ((String) body).getBytes(StandardCharsets.UTF_8).length;
+		}
+		return 0;
 	}
 }
@@ -0,0 +1,33 @@
+package api;
+
+/**
+ * RequestListener is notified after every request a RequestHandler sends,
+ * including requests that failed without a response. Responses served from
+ * the ResponseCache are not reported, since nothing was sent.
+ *
+ * Listeners run on the thread that sent the request and should return
+ * quickly; exceptions they throw are logged and ignored.
+ *
+ * @author subramanyamkongani
+ */
+@FunctionalInterface
+public interface RequestListener {
+
+	/**
+	 * Called once per completed or failed request.
+	 *
+	 * @param event Method, endpoint template, status, timing and sizes.
+	 */
+	void onRequest(RequestEvent event);
+
+	/**
+	 * Whether this listener reads {@link RequestEvent#exchange()}. Capturing the
+	 * headers and bodies costs copies on every request, so it only happens
+	 * while at least one registered listener returns true.
+	 *
+	 * @return boolean - true to receive the exchange; false by default
+	 */
+	default boolean needsExchange() {
+		return false;
+	}
+}
@@ -0,0 +1,439 @@
+package api;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import config.ConfigMapping;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+
+/**
+ * Resilience applies a ResiliencePolicy to the calls of one RequestHandler:
+ * hedging, deadlines, retries and per-endpoint circuit breakers, and counts
+ * how often each of them acted.
+ *
+ * Hedged and deadline-bound attempts run on a pool shared by all handlers of
+ * at most resilience.attempts.maxThreads threads (default 64 per core). The
+ * attempt that loses a hedge race and any attempt still running when its
+ * deadline expires are cancelled and interrupted; when the pool is full the
+ * call fails with RejectedExecutionException, or the hedge is not sent.
+ *
+ * @author subramanyamkongani
+ */
+public final class Resilience {
+
+	// Statuses worth retrying: throttled or a gateway/backend temporarily unavailable
+	private static final Set<Integer> RETRYABLE_STATUSES = Set.of(429, 502, 503, 504);
+	// Latency samples needed before the hedge delay follows the percentile
+	private static final int MIN_HEDGE_SAMPLES = 20;
+
+	// Runs hedged and deadline-bound attempts; bounded by resilience.attempts.maxThreads, and an attempt that finds
+	// every thread busy is rejected rather than queued behind attempts that may never finish
+	private static final ExecutorService ATTEMPTS = new ThreadPoolExecutor(0, maxThreadsFromConfig(), 60,
+			TimeUnit.SECONDS, new SynchronousQueue<>(), new ThreadFactory() {
+				private final AtomicInteger count = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable task) {
+					Thread thread = new Thread(task, "api-attempt-" + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+
+	/**
+	 * A point-in-time copy of the resilience counters.
+	 */
+	public record Stats(long hedgesSent, long hedgesWon, long retries, long timeouts, long circuitRejections,
+			long attemptRejections) {
+
+		/**
+		 * Returns the fraction of hedges whose response was used.
+		 *
+		 * @return double - the hedge win ratio between 0 and 1
+		 */
+		public double hedgeWinRatio() {
+			return hedgesSent == 0 ? 0 : (double) hedgesWon / hedgesSent;
+		}
+	}
+
+	/**
+	 * Thrown (wrapped in an UncheckedIOException) when a call's deadline
+	 * expires; a SocketTimeoutException so it is reported like any timeout.
+	 */
+	static final class DeadlineExceededException extends SocketTimeoutException {
+		private static final long serialVersionUID = 1L;
+
+		DeadlineExceededException(String message) {
+			super(message);
+		}
+	}
+
+	/**
+	 * Consecutive-failure circuit breaker of one endpoint.
+	 */
+	static final class CircuitBreaker {
+		private final int threshold;
+		private final long openNanos;
+		private int failures;
+		private long openedAt;
+		private boolean open;
+		private boolean trialInFlight;
+
+		CircuitBreaker(int threshold, long openMs) {
+			this.threshold = threshold;
+			this.openNanos = TimeUnit.MILLISECONDS.toNanos(openMs);
+		}
+
+		// Closed: always; open: one trial call once openMs has passed
+		synchronized boolean allowRequest() {
+			if (!open) {
+				return true;
+			}
+			if (!trialInFlight && System.nanoTime() - openedAt >= openNanos) {
+				trialInFlight = true;
+				return true;
+			}
+			return false;
+		}
+
+		synchronized void onSuccess() {
+			failures = 0;
+			open = false;
+			trialInFlight = false;
+		}
+
+		synchronized void onFailure() {
+			failures++;
+			if (trialInFlight || failures >= threshold) {
+				open = true;
+				openedAt = System.nanoTime();
+				trialInFlight = false;
+			}
+		}
+	}
+
+	private final ResiliencePolicy policy;
+	private final Map<String, Histogram> latencies = new ConcurrentHashMap<>(); // Per endpoint, in microseconds
+	private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+	private final LongAdder hedgesSent = new LongAdder();
+	private final LongAdder hedgesWon = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final LongAdder circuitRejections = new LongAdder();
+	private final LongAdder attemptRejections = new LongAdder();
+	private final Executor attempts;
+
+	Resilience(ResiliencePolicy policy) {
+		this(policy, ATTEMPTS);
+	}
+
+	Resilience(ResiliencePolicy policy, Executor attempts) {
+		this.policy = policy;
+		this.attempts = attempts;
+	}
+
+	ResiliencePolicy getPolicy() {
+		return policy;
+	}
+
+	/**
+	 * Returns a snapshot of the counters.
+	 *
+	 * @return Stats - the current counters
+	 */
+	public Stats getStats() {
+		return new Stats(hedgesSent.sum(), hedgesWon.sum(), retries.sum(), timeouts.sum(), circuitRejections.sum(),
+				attemptRejections.sum());
+	}
+
+	/**
+	 * Runs a call under the policy.
+	 *
+	 * @param method   HTTP method; only GET, PUT and DELETE are hedged or retried.
+	 * @param template Endpoint template, e.g. /posts/{id}.
+	 * @param attempt  Sends the request once.
+	 * @return Response - the response used
+	 */
+	Response call(Method method, String template, Supplier<Response> attempt) {
+		if (!policy.isActive()) {
+			return attempt.get();
+		}
+		String endpoint = method + " " + template;
+		boolean idempotent = method != Method.POST;
+		CircuitBreaker breaker = policy.getFailureThreshold() > 0
+				? breakers.computeIfAbsent(endpoint,
+						key -> new CircuitBreaker(policy.getFailureThreshold(), policy.getOpenMs()))
+				: null;
+		long timeoutMs = policy.getTimeoutMs(template);
+		long deadline = timeoutMs > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : Long.MAX_VALUE;
+		int maxAttempts = idempotent ? Math.max(1, policy.getMaxAttempts()) : 1;
+
+		for (int attemptNumber = 1;; attemptNumber++) {
+			if (breaker != null && !breaker.allowRequest()) {
+				circuitRejections.increment();
+				throw new CircuitOpenException(endpoint);
+			}
+			Response response;
+			try {
+				response = attemptOnce(endpoint, idempotent, attempt, deadline);
+			} catch (RejectedExecutionException e) {
+				throw e; // Saturated here, not failing there: neither the breaker nor a retry should see it
+			} catch (Exception e) {
+				if (breaker != null) {
+					breaker.onFailure();
+				}
+				long backoff = backoffMillis(attemptNumber, null);
+				if (attemptNumber >= maxAttempts || isDeadline(e) || !sleepBefore(deadline, backoff)) {
+					throw e;
+				}
+				retries.increment();
+				continue;
+			}
+			int status = response.getStatusCode();
+			if (breaker != null) {
+				if (status >= 500) {
+					breaker.onFailure();
+				} else {
+					breaker.onSuccess();
+				}
+			}
+			if (!RETRYABLE_STATUSES.contains(status) || attemptNumber >= maxAttempts
+					|| !sleepBefore(deadline, backoffMillis(attemptNumber, response.getHeader("Retry-After")))) {
+				return response;
+			}
+			retries.increment();
+		}
+	}
+
+	// One attempt, hedged and/or bounded by the deadline when the policy asks for it
+	private Response attemptOnce(String endpoint, boolean idempotent, Supplier<Response> attempt, long deadline) {
+		boolean hedge = policy.isHedging() && idempotent;
+		if (!hedge && deadline == Long.MAX_VALUE) {
+			return timed(endpoint, attempt);
+		}
+		CompletableFuture<Response> primary = start(endpoint, attempt);
+		if (!hedge) {
+			return awaitThenCancel(primary, deadline, endpoint, primary);
+		}
+		long hedgeDelay = hedgeDelayNanos(endpoint);
+		if (hedgeDelay < 0) {
+			// Too few samples to know what slow means yet
+			return awaitThenCancel(primary, deadline, endpoint, primary);
+		}
+		long hedgeAt = Math.min(deadline, System.nanoTime() + hedgeDelay);
+		try {
+			return primary.get(Math.max(0, hedgeAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			// Slower than the hedge delay: race a second attempt against the first
+		} catch (InterruptedException e) {
+			primary.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for " + endpoint, e);
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		}
+		if (deadline - System.nanoTime() <= 0) {
+			return awaitThenCancel(primary, deadline, endpoint, primary);
+		}
+		CompletableFuture<Response> secondary;
+		try {
+			secondary = start(endpoint, attempt);
+		} catch (RejectedExecutionException e) {
+			// No thread to spare for a hedge; the first attempt may still answer in time
+			return awaitThenCancel(primary, deadline, endpoint, primary);
+		}
+		hedgesSent.increment();
+		CompletableFuture<Response> winner = new CompletableFuture<>();
+		AtomicInteger failed = new AtomicInteger();
+		primary.whenComplete((response, error) -> complete(winner, response, error, failed, false));
+		secondary.whenComplete((response, error) -> complete(winner, response, error, failed, true));
+		return awaitThenCancel(winner, deadline, endpoint, primary, secondary);
+	}
+
+	// Submits one attempt; cancelling the returned future interrupts the attempt if it is still running
+	private CompletableFuture<Response> start(String endpoint, Supplier<Response> attempt) {
+		CompletableFuture<Response> result = new CompletableFuture<>();
+		Supplier<Response> call = ConfigMapping.propagating(() -> timed(endpoint, attempt));
+		FutureTask<Void> task = new FutureTask<>(() -> {
+			try {
+				result.complete(call.get());
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		}, null);
+		try {
+			attempts.execute(task);
+		} catch (RejectedExecutionException e) {
+			attemptRejections.increment();
+			throw e;
+		}
+		result.whenComplete((response, error) -> {
+			if (result.isCancelled()) {
+				task.cancel(true);
+			}
+		});
+		return result;
+	}
+
+	// Waits for the result, then cancels every attempt still running: a hedge that lost or attempts past the
+	// deadline would otherwise keep holding an attempt thread and a connection
+	@SafeVarargs
+	private Response awaitThenCancel(CompletableFuture<Response> result, long deadline, String endpoint,
+			CompletableFuture<Response>... started) {
+		try {
+			return await(result, deadline, endpoint);
+		} finally {
+			for (CompletableFuture<Response> future : started) {
+				future.cancel(true);
+			}
+		}
+	}
+
+	// First successful attempt wins; the call fails only when both failed
+	private void complete(CompletableFuture<Response> winner, Response response, Throwable error,
+			AtomicInteger failed, boolean hedge) {
+		if (error == null) {
+			if (!hedge) {
+				winner.complete(response);
+			} else {
+				// Counted before completing, so the caller never sees a winning hedge uncounted
+				hedgesWon.increment();
+				if (!winner.complete(response)) {
+					hedgesWon.decrement();
+				}
+			}
+		} else if (failed.incrementAndGet() == 2) {
+			winner.completeExceptionally(error);
+		}
+	}
+
+	// Sends once and records the latency that drives the hedge delay
+	private Response timed(String endpoint, Supplier<Response> attempt) {
+		long start = System.nanoTime();
+		Response response = attempt.get();
+		if (policy.isHedging()) {
+			latencies.computeIfAbsent(endpoint, key -> new ConcurrentHistogram(3))
+					.recordValue(Math.max(1, (System.nanoTime() - start) / 1_000));
+		}
+		return response;
+	}
+
+	// Percentile latency of the endpoint, or -1 until enough samples were recorded
+	private long hedgeDelayNanos(String endpoint) {
+		long minDelay = TimeUnit.MILLISECONDS.toNanos(policy.getHedgeMinDelayMs());
+		Histogram histogram = latencies.get(endpoint);
+		if (histogram == null || histogram.getTotalCount() < MIN_HEDGE_SAMPLES) {
+			return -1;
+		}
+		return Math.max(minDelay, TimeUnit.MICROSECONDS.toNanos(histogram.getValueAtPercentile(policy.getHedgePercentile())));
+	}
+
+	private Response await(CompletableFuture<Response> future, long deadline, String endpoint) {
+		try {
+			if (deadline == Long.MAX_VALUE) {
+				return future.get();
+			}
+			return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException e) {
+			timeouts.increment();
+			throw new UncheckedIOException(new DeadlineExceededException("Deadline exceeded for " + endpoint));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for " + endpoint, e);
+		} catch (ExecutionException e) {
+			throw unwrap(e);
+		}
+	}
+
+	// Full-jitter exponential backoff, or the server's Retry-After if that is longer
+	private long backoffMillis(int attemptNumber, String retryAfter) {
+		long cap = Math.min(policy.getRetryMaxDelayMs(),
+				policy.getRetryBaseDelayMs() << Math.min(attemptNumber - 1, 20));
+		long backoff = cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+		return Math.max(backoff, retryAfterMillis(retryAfter));
+	}
+
+	// Retry-After is either delay-seconds or an HTTP date
+	static long retryAfterMillis(String retryAfter) {
+		if (retryAfter == null || retryAfter.isBlank()) {
+			return 0;
+		}
+		try {
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(retryAfter.trim()));
+		} catch (NumberFormatException e) {
+			try {
+				ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+				return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+			} catch (DateTimeParseException ignored) {
+				return 0;
+			}
+		}
+	}
+
+	// Sleeps before a retry; false when the retry would start after the deadline
+	private static boolean sleepBefore(long deadline, long millis) {
+		if (deadline != Long.MAX_VALUE && deadline - System.nanoTime() <= TimeUnit.MILLISECONDS.toNanos(millis)) {
+			return false;
+		}
+		try {
+			Thread.sleep(millis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	// Attempt threads shared by every RequestHandler, defaulting to 64 per core
+	private static int maxThreadsFromConfig() {
+		String value = ConfigMapping.getConfigProperty("resilience.attempts.maxThreads");
+		return value == null || value.isBlank() ? Runtime.getRuntime().availableProcessors() * 64
+				: Integer.parseInt(value.trim());
+	}
+
+	private static boolean isDeadline(Exception e) {
+		return e instanceof UncheckedIOException && e.getCause() instanceof DeadlineExceededException;
+	}
+
+	// Rethrows an attempt's failure as it was thrown on the attempt thread
+	private static RuntimeException unwrap(ExecutionException e) {
+		Throwable cause = e.getCause();
+		if (cause instanceof RuntimeException) {
+			return (RuntimeException) cause;
+		}
+		if (cause instanceof Error) {
+			throw (Error) cause;
+		}
+		if (cause instanceof IOException) {
+			return new UncheckedIOException((IOException) cause);
+		}
+		return new IllegalStateException(cause);
+	}
+}
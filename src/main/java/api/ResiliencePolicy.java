@@ -0,0 +1,226 @@
+package api;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import config.ConfigMapping;
+
+/**
+ * ResiliencePolicy configures how RequestHandler protects calls against slow
+ * or failing endpoints. Every feature is off by default.
+ *
+ * Hedging: an idempotent call (GET, PUT, DELETE) that has not answered after
+ * the endpoint's hedge.percentile latency (never less than hedge.minDelayMs)
+ * is sent a second time, and the first response wins.
+ *
+ * Timeouts: a deadline for the whole call (all attempts), by default and per
+ * endpoint template, e.g. resilience.timeoutMs./posts/{id}=2000.
+ *
+ * Retries: idempotent calls that fail with an I/O error or answer 429, 502,
+ * 503 or 504 are retried up to retry.maxAttempts in total, after a full-jitter
+ * exponential backoff or the server's Retry-After, whichever is longer.
+ *
+ * Circuit breaker: after circuit.failureThreshold consecutive failures (I/O
+ * errors or 5xx) an endpoint fails fast with CircuitOpenException for
+ * circuit.openMs, then lets a single trial call through.
+ *
+ * Supported keys: resilience.hedge.enabled, resilience.hedge.percentile,
+ * resilience.hedge.minDelayMs, resilience.timeoutMs,
+ * resilience.timeoutMs.{endpoint}, resilience.retry.maxAttempts,
+ * resilience.retry.baseDelayMs, resilience.retry.maxDelayMs,
+ * resilience.circuit.failureThreshold, resilience.circuit.openMs,
+ * resilience.attempts.maxThreads (read once by Resilience, for the attempt
+ * pool shared by every handler)
+ *
+ * @author subramanyamkongani
+ */
+public final class ResiliencePolicy {
+
+	private static final String TIMEOUT_KEY = "resilience.timeoutMs";
+
+	private final boolean hedging;
+	private final double hedgePercentile;
+	private final long hedgeMinDelayMs;
+	private final long timeoutMs; // 0 = no deadline
+	private final Map<String, Long> endpointTimeoutsMs;
+	private final int maxAttempts;
+	private final long retryBaseDelayMs;
+	private final long retryMaxDelayMs;
+	private final int failureThreshold; // 0 = no circuit breaker
+	private final long openMs;
+
+	private ResiliencePolicy(boolean hedging, double hedgePercentile, long hedgeMinDelayMs, long timeoutMs,
+			Map<String, Long> endpointTimeoutsMs, int maxAttempts, long retryBaseDelayMs, long retryMaxDelayMs,
+			int failureThreshold, long openMs) {
+		this.hedging = hedging;
+		this.hedgePercentile = hedgePercentile;
+		this.hedgeMinDelayMs = hedgeMinDelayMs;
+		this.timeoutMs = timeoutMs;
+		this.endpointTimeoutsMs = Map.copyOf(endpointTimeoutsMs);
+		this.maxAttempts = maxAttempts;
+		this.retryBaseDelayMs = retryBaseDelayMs;
+		this.retryMaxDelayMs = retryMaxDelayMs;
+		this.failureThreshold = failureThreshold;
+		this.openMs = openMs;
+	}
+
+	/**
+	 * Returns a policy with every feature disabled.
+	 *
+	 * @return ResiliencePolicy - calls are sent once, without a deadline
+	 */
+	public static ResiliencePolicy disabled() {
+		return new ResiliencePolicy(false, 95, 10, 0, Map.of(), 1, 100, 2_000, 0, 10_000);
+	}
+
+	/**
+	 * Builds the policy from the configuration file, using the disabled policy's
+	 * values for every key that is not set.
+	 *
+	 * @return ResiliencePolicy - the configured policy
+	 */
+	public static ResiliencePolicy fromConfig() {
+		ResiliencePolicy defaults = disabled();
+		Map<String, Long> endpointTimeouts = new HashMap<>();
+		String prefix = TIMEOUT_KEY + ".";
+		for (String key : ConfigMapping.getPropertyNames()) {
+			if (key.startsWith(prefix)) {
+				endpointTimeouts.put(key.substring(prefix.length()), longProperty(key, 0));
+			}
+		}
+		return new ResiliencePolicy(
+				"true".equalsIgnoreCase(ConfigMapping.getConfigProperty("resilience.hedge.enabled")),
+				Double.parseDouble(property("resilience.hedge.percentile", String.valueOf(defaults.hedgePercentile))),
+				longProperty("resilience.hedge.minDelayMs", defaults.hedgeMinDelayMs),
+				longProperty(TIMEOUT_KEY, defaults.timeoutMs),
+				endpointTimeouts,
+				(int) longProperty("resilience.retry.maxAttempts", defaults.maxAttempts),
+				longProperty("resilience.retry.baseDelayMs", defaults.retryBaseDelayMs),
+				longProperty("resilience.retry.maxDelayMs", defaults.retryMaxDelayMs),
+				(int) longProperty("resilience.circuit.failureThreshold", defaults.failureThreshold),
+				longProperty("resilience.circuit.openMs", defaults.openMs));
+	}
+
+	/**
+	 * Returns a copy that hedges idempotent calls.
+	 *
+	 * @param percentile Latency percentile of the endpoint after which to hedge, e.g. 95.
+	 * @param minDelay   Minimum delay before hedging.
+	 * @return ResiliencePolicy - the new policy
+	 */
+	public ResiliencePolicy withHedging(double percentile, Duration minDelay) {
+		return new ResiliencePolicy(true, percentile, minDelay.toMillis(), timeoutMs, endpointTimeoutsMs, maxAttempts,
+				retryBaseDelayMs, retryMaxDelayMs, failureThreshold, openMs);
+	}
+
+	/**
+	 * Returns a copy with a deadline for every call.
+	 *
+	 * @param timeout Deadline for all attempts of a call.
+	 * @return ResiliencePolicy - the new policy
+	 */
+	public ResiliencePolicy withTimeout(Duration timeout) {
+		return new ResiliencePolicy(hedging, hedgePercentile, hedgeMinDelayMs, timeout.toMillis(), endpointTimeoutsMs,
+				maxAttempts, retryBaseDelayMs, retryMaxDelayMs, failureThreshold, openMs);
+	}
+
+	/**
+	 * Returns a copy with a deadline for calls to one endpoint template.
+	 *
+	 * @param endpoint Endpoint template, e.g. /posts/{id}.
+	 * @param timeout  Deadline for all attempts of a call.
+	 * @return ResiliencePolicy - the new policy
+	 */
+	public ResiliencePolicy withEndpointTimeout(String endpoint, Duration timeout) {
+		Map<String, Long> timeouts = new HashMap<>(endpointTimeoutsMs);
+		timeouts.put(endpoint, timeout.toMillis());
+		return new ResiliencePolicy(hedging, hedgePercentile, hedgeMinDelayMs, timeoutMs, timeouts, maxAttempts,
+				retryBaseDelayMs, retryMaxDelayMs, failureThreshold, openMs);
+	}
+
+	/**
+	 * Returns a copy that retries idempotent calls.
+	 *
+	 * @param maxAttempts Total attempts including the first.
+	 * @param baseDelay   Backoff before the first retry, doubled for each retry.
+	 * @param maxDelay    Upper bound of the backoff.
+	 * @return ResiliencePolicy - the new policy
+	 */
+	public ResiliencePolicy withRetries(int maxAttempts, Duration baseDelay, Duration maxDelay) {
+		return new ResiliencePolicy(hedging, hedgePercentile, hedgeMinDelayMs, timeoutMs, endpointTimeoutsMs,
+				maxAttempts, baseDelay.toMillis(), maxDelay.toMillis(), failureThreshold, openMs);
+	}
+
+	/**
+	 * Returns a copy with a circuit breaker per endpoint.
+	 *
+	 * @param failureThreshold Consecutive failures that open the circuit.
+	 * @param openDuration     Time the circuit stays open before a trial call.
+	 * @return ResiliencePolicy - the new policy
+	 */
+	public ResiliencePolicy withCircuitBreaker(int failureThreshold, Duration openDuration) {
+		return new ResiliencePolicy(hedging, hedgePercentile, hedgeMinDelayMs, timeoutMs, endpointTimeoutsMs,
+				maxAttempts, retryBaseDelayMs, retryMaxDelayMs, failureThreshold, openDuration.toMillis());
+	}
+
+	/**
+	 * Returns whether any feature is enabled; a disabled policy adds no work.
+	 *
+	 * @return boolean - true if calls need the resilience layer
+	 */
+	public boolean isActive() {
+		return hedging || timeoutMs > 0 || !endpointTimeoutsMs.isEmpty() || maxAttempts > 1 || failureThreshold > 0;
+	}
+
+	public boolean isHedging() {
+		return hedging;
+	}
+
+	public double getHedgePercentile() {
+		return hedgePercentile;
+	}
+
+	public long getHedgeMinDelayMs() {
+		return hedgeMinDelayMs;
+	}
+
+	/**
+	 * Returns the deadline for an endpoint template, or 0 for none.
+	 *
+	 * @param endpoint Endpoint template, e.g. /posts/{id}.
+	 * @return long - the deadline in milliseconds
+	 */
+	public long getTimeoutMs(String endpoint) {
+		return endpointTimeoutsMs.getOrDefault(endpoint, timeoutMs);
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public long getRetryBaseDelayMs() {
+		return retryBaseDelayMs;
+	}
+
+	public long getRetryMaxDelayMs() {
+		return retryMaxDelayMs;
+	}
+
+	public int getFailureThreshold() {
+		return failureThreshold;
+	}
+
+	public long getOpenMs() {
+		return openMs;
+	}
+
+	private static String property(String key, String defaultValue) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+
+	private static long longProperty(String key, long defaultValue) {
+		return Long.parseLong(property(key, String.valueOf(defaultValue)));
+	}
+}
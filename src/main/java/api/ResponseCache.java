@@ -0,0 +1,276 @@
+package api;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import config.ConfigMapping;
+import io.restassured.response.Response;
+
+/**
+ * ResponseCache is an optional, thread-safe cache of GET responses used by
+ * RequestHandler. Entries are keyed by method, resolved path, query parameters
+ * and the headers that change the representation (Accept, Accept-Encoding,
+ * Authorization), bounded by entry count and total body bytes, expire after a
+ * TTL and are evicted in least-recently-used order.
+ *
+ * Expired entries that carry an ETag or Last-Modified header are revalidated
+ * with If-None-Match / If-Modified-Since instead of being refetched. Any PUT,
+ * POST or DELETE through the same RequestHandler invalidates the cached
+ * entries for that resource and its parent collection.
+ *
+ * Supported keys: cache.enabled, cache.maxEntries, cache.maxBytes, cache.ttlMs
+ *
+ * @author subramanyamkongani
+ */
+public class ResponseCache {
+
+	// Request headers that select a different representation and so belong in the key
+	private static final String[] VARY_HEADERS = { "Accept", "Accept-Encoding", "Authorization" };
+
+	/**
+	 * A point-in-time copy of the cache counters.
+	 */
+	public record Stats(long hits, long misses, long revalidations, long evictions, long invalidations, int entries,
+			long bytes) {
+
+		/**
+		 * Returns the fraction of lookups answered from the cache (including
+		 * successful revalidations).
+		 *
+		 * @return double - the hit ratio between 0 and 1
+		 */
+		public double hitRatio() {
+			long lookups = hits + misses + revalidations;
+			return lookups == 0 ? 0 : (double) (hits + revalidations) / lookups;
+		}
+	}
+
+	/**
+	 * A cached response and its validators.
+	 */
+	static final class Entry {
+		private final String path;
+		private final Response response;
+		private final long size;
+		private final String etag;
+		private final String lastModified;
+		private volatile long expiresAt;
+
+		private Entry(String path, Response response, long size, long expiresAt) {
+			this.path = path;
+			this.response = response;
+			this.size = size;
+			this.etag = response.getHeader("ETag");
+			this.lastModified = response.getHeader("Last-Modified");
+			this.expiresAt = expiresAt;
+		}
+
+		Response response() {
+			return response;
+		}
+
+		String etag() {
+			return etag;
+		}
+
+		String lastModified() {
+			return lastModified;
+		}
+
+		boolean isFresh() {
+			return System.nanoTime() - expiresAt < 0;
+		}
+
+		boolean canRevalidate() {
+			return etag != null || lastModified != null;
+		}
+	}
+
+	private final int maxEntries;
+	private final long maxBytes;
+	private final long ttlNanos;
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // Access order = LRU
+	private long bytes;
+	private long hits;
+	private long misses;
+	private long revalidations;
+	private long evictions;
+	private long invalidations;
+
+	/**
+	 * Constructor for ResponseCache.
+	 *
+	 * @param maxEntries Maximum number of cached responses.
+	 * @param maxBytes   Maximum total size of cached bodies.
+	 * @param ttl        Time a response is served without revalidation.
+	 */
+	public ResponseCache(int maxEntries, long maxBytes, Duration ttl) {
+		if (maxEntries <= 0 || maxBytes <= 0) {
+			throw new IllegalArgumentException("Cache bounds must be positive");
+		}
+		this.maxEntries = maxEntries;
+		this.maxBytes = maxBytes;
+		this.ttlNanos = ttl.toNanos();
+	}
+
+	/**
+	 * Builds a cache from the configuration file, or returns null when
+	 * cache.enabled is not true.
+	 *
+	 * @return ResponseCache - the configured cache, or null if disabled
+	 */
+	public static ResponseCache fromConfig() {
+		if (!"true".equalsIgnoreCase(ConfigMapping.getConfigProperty("cache.enabled"))) {
+			return null;
+		}
+		return new ResponseCache(Integer.parseInt(property("cache.maxEntries", "1000")),
+				Long.parseLong(property("cache.maxBytes", String.valueOf(64L * 1024 * 1024))),
+				Duration.ofMillis(Long.parseLong(property("cache.ttlMs", "60000"))));
+	}
+
+	/**
+	 * Builds the cache key for a GET request.
+	 *
+	 * @param path        Resolved request path, e.g. /posts/1.
+	 * @param queryParams Query parameters, may be null.
+	 * @param headers     Request headers, may be null.
+	 * @return String - the cache key
+	 */
+	static String key(String path, Map<String, String> queryParams, Map<String, String> headers) {
+		StringBuilder key = new StringBuilder("GET ").append(path);
+		if (queryParams != null && !queryParams.isEmpty()) {
+			key.append('?').append(new TreeMap<>(queryParams)); // Sorted so parameter order does not matter
+		}
+		if (headers != null && !headers.isEmpty()) {
+			for (String name : VARY_HEADERS) {
+				String value = headerValue(headers, name);
+				if (value != null) {
+					key.append('|').append(name).append('=').append(value);
+				}
+			}
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Returns the entry for the key, or null. Expired entries that cannot be
+	 * revalidated are removed and count as a miss.
+	 */
+	synchronized Entry lookup(String key) {
+		Entry entry = entries.get(key);
+		if (entry == null) {
+			misses++;
+			return null;
+		}
+		if (entry.isFresh()) {
+			hits++;
+			return entry;
+		}
+		if (!entry.canRevalidate()) {
+			remove(key);
+			misses++;
+			return null;
+		}
+		return entry; // Stale: the caller revalidates and reports the outcome
+	}
+
+	/**
+	 * Marks a stale entry as confirmed by a 304 response and restarts its TTL.
+	 */
+	synchronized void revalidated(Entry entry) {
+		revalidations++;
+		entry.expiresAt = System.nanoTime() + ttlNanos;
+	}
+
+	/**
+	 * Records that a stale entry changed on the server and was fetched again.
+	 */
+	synchronized void refetched() {
+		misses++;
+	}
+
+	/**
+	 * Stores a successful GET response, evicting least recently used entries to
+	 * stay within the bounds. Responses marked no-store are not cached.
+	 */
+	synchronized void store(String key, String path, Response response) {
+		String cacheControl = response.getHeader("Cache-Control");
+		if (cacheControl != null && cacheControl.toLowerCase().contains("no-store")) {
+			return;
+		}
+		long size = response.asByteArray().length;
+		if (size > maxBytes) {
+			return;
+		}
+		remove(key);
+		entries.put(key, new Entry(path, response, size, System.nanoTime() + ttlNanos));
+		bytes += size;
+		Iterator<Entry> eldest = entries.values().iterator();
+		while ((entries.size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+			bytes -= eldest.next().size;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Removes the entries for a resource and for its parent collection, e.g.
+	 * /posts/1 and /posts, whatever their query parameters.
+	 *
+	 * @param path Resolved path of the modified resource.
+	 */
+	public synchronized void invalidate(String path) {
+		int slash = path.lastIndexOf('/');
+		String parent = slash > 0 ? path.substring(0, slash) : null;
+		Iterator<Entry> it = entries.values().iterator();
+		while (it.hasNext()) {
+			Entry entry = it.next();
+			if (entry.path.equals(path) || entry.path.equals(parent)) {
+				bytes -= entry.size;
+				it.remove();
+				invalidations++;
+			}
+		}
+	}
+
+	/**
+	 * Removes every entry.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Returns a snapshot of the hit/miss statistics.
+	 *
+	 * @return Stats - the current counters
+	 */
+	public synchronized Stats getStats() {
+		return new Stats(hits, misses, revalidations, evictions, invalidations, entries.size(), bytes);
+	}
+
+	private void remove(String key) {
+		Entry previous = entries.remove(key);
+		if (previous != null) {
+			bytes -= previous.size;
+		}
+	}
+
+	private static String headerValue(Map<String, String> headers, String name) {
+		for (Map.Entry<String, String> header : headers.entrySet()) {
+			if (header.getKey().equalsIgnoreCase(name)) {
+				return header.getValue();
+			}
+		}
+		return null;
+	}
+
+	private static String property(String key, String defaultValue) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? defaultValue : value.trim();
+	}
+}
@@ -0,0 +1,106 @@
+package api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import config.HttpClientSettings;
+import io.restassured.RestAssured;
+import io.restassured.builder.RequestSpecBuilder;
+import io.restassured.config.DecoderConfig;
+import io.restassured.config.HttpClientConfig;
+import io.restassured.config.RestAssuredConfig;
+import io.restassured.response.Response;
+import io.restassured.specification.RequestSpecification;
+
+/**
+ * RestAssuredTransport sends requests through RestAssured on a pooled,
+ * keep-alive Apache HTTP/1.1 client (see ConnectionPool), one request in
+ * flight per connection. No global RestAssured state is modified.
+ *
+ * RestAssured's own gzip/deflate decoders are turned off, so response bodies
+ * arrive as they crossed the wire, as on the JDK transport.
+ */
+public final class RestAssuredTransport implements Transport {
+
+	private final ConnectionPool connectionPool; // Pooled client owned by this transport
+	private final RequestSpecification baseSpec; // Immutable template for every request
+
+	/**
+	 * Constructor for RestAssuredTransport.
+	 *
+	 * @param baseUri  The base URI requests are sent to.
+	 * @param settings Connection pool and timeout settings.
+	 */
+	public RestAssuredTransport(String baseUri, HttpClientSettings settings) {
+		this.connectionPool = new ConnectionPool(settings);
+
+		// Reuse the pooled client for every request instead of creating one per call
+		HttpClientConfig httpClientConfig = HttpClientConfig.httpClientConfig()
+				.reuseHttpClientInstance()
+				.httpClientFactory(connectionPool::httpClient)
+				.setParam("http.connection.timeout", settings.getConnectTimeoutMs())
+				.setParam("http.socket.timeout", settings.getReadTimeoutMs());
+		this.baseSpec = new RequestSpecBuilder()
+				.setBaseUri(baseUri)
+				// No implicit Accept-Encoding or decoding: compression is negotiated by CompressingTransport
+				.setConfig(RestAssuredConfig.config().httpClient(httpClientConfig)
+						.decoderConfig(DecoderConfig.decoderConfig().noContentDecoders()))
+				.setUrlEncodingEnabled(false) // Paths and query parameters are encoded by EndpointTemplate
+				.build();
+	}
+
+	@Override
+	public Response send(Request request, Observer observer) {
+		RequestSpecification spec = RestAssured.given(baseSpec)
+				.headers(request.headers() != null ? request.headers() : Map.of()); // Use an empty map if headers are null
+		if (request.queryParams() != null && !request.queryParams().isEmpty()) {
+			spec.queryParams(encodeQueryParams(request.queryParams()));
+		}
+		Object body = request.body();
+		if (body instanceof byte[]) {
+			spec.body((byte[]) body); // Pre-rendered payload, sent as is
+		} else if (body != null) {
+			spec.body(body); // Set the request body
+		}
+		if (observer != null) {
+			// Around the HTTP exchange: the request body is already serialized here, so its size is exact
+			spec.filter((requestSpec, responseSpec, ctx) -> {
+				long start = System.nanoTime();
+				try {
+					Response response = ctx.next(requestSpec, responseSpec);
+					response.asByteArray(); // Read fully so the latency covers the body
+					observer.onExchange(requestSpec.getBody(), response, null, System.nanoTime() - start);
+					return response;
+				} catch (Throwable e) {
+					observer.onExchange(requestSpec.getBody(), null, e, System.nanoTime() - start);
+					throw e;
+				}
+			});
+		}
+		Response response = spec.request(request.method(), request.path());
+		// Buffer the body so the pooled connection is released even if nobody reads it
+		response.asByteArray();
+		return response;
+	}
+
+	/**
+	 * Returns the number of leased and available connections.
+	 */
+	@Override
+	public String stats() {
+		return connectionPool.stats();
+	}
+
+	@Override
+	public void close() {
+		connectionPool.close();
+	}
+
+	// URL encoding is disabled on the specification, so query parameters are encoded here
+	private static Map<String, String> encodeQueryParams(Map<String, String> queryParams) {
+		Map<String, String> encoded = new LinkedHashMap<>(queryParams.size() * 2);
+		queryParams.forEach((name, value) -> encoded.put(EndpointTemplate.encodeQuery(name),
+				value == null ? null : EndpointTemplate.encodeQuery(value)));
+		return encoded;
+	}
+}
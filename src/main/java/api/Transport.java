@@ -0,0 +1,109 @@
+package api;
+
+import java.util.Locale;
+import java.util.Map;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+
+/**
+ * Transport sends a single HTTP exchange for a RequestHandler. Caching,
+ * resilience and listeners stay in the handler, so every transport behaves
+ * the same apart from the wire protocol, and every transport returns a
+ * RestAssured Response with a fully buffered body.
+ *
+ * Implementations, selected with http.transport:
+ * restassured (default): RestAssured over a pooled Apache HTTP/1.1 client;
+ * jdk: java.net.http.HttpClient, negotiating HTTP/2 (http.version) so that
+ * concurrent requests are multiplexed over one connection per host.
+ *
+ * Neither decodes compressed responses itself; with compression.enabled
+ * either is wrapped in a CompressingTransport, which negotiates the content
+ * coding the same way for both and sees the bytes that crossed the wire.
+ *
+ * @author subramanyamkongani
+ */
+public interface Transport extends AutoCloseable {
+
+	/**
+	 * A request to send. The path is expanded and percent-encoded; query
+	 * parameters are not encoded yet. Headers may be null.
+	 */
+	record Request(Method method, String path, Map<String, String> headers, Map<String, String> queryParams,
+			Object body) {
+	}
+
+	/**
+	 * Receives the timing of each exchange, with the request body as sent
+	 * (serialized where the transport serializes it) and either the response
+	 * or the error. Wire sizes are the body sizes as they crossed the wire when
+	 * they were compressed, or -1 when they crossed as they are.
+	 */
+	@FunctionalInterface
+	interface Observer {
+		void onExchange(Object requestBody, Response response, Throwable error, long durationNanos,
+				long requestWireBytes, long responseWireBytes);
+
+		default void onExchange(Object requestBody, Response response, Throwable error, long durationNanos) {
+			onExchange(requestBody, response, error, durationNanos, -1, -1);
+		}
+	}
+
+	/**
+	 * Sends the request and buffers the response body.
+	 *
+	 * @param request  The request to send.
+	 * @param observer Notified of the exchange, or null.
+	 * @return Response - the buffered response
+	 */
+	Response send(Request request, Observer observer);
+
+	/**
+	 * Returns connection or protocol statistics, for logging.
+	 *
+	 * @return String - the statistics
+	 */
+	String stats();
+
+	/**
+	 * Releases the connections owned by this transport.
+	 */
+	@Override
+	void close();
+
+	/**
+	 * Creates the transport named by http.transport, wrapped in a
+	 * CompressingTransport when compression.enabled is set.
+	 *
+	 * @param baseUri  The base URI requests are sent to.
+	 * @param settings Connection pool and timeout settings.
+	 * @return Transport - a new transport
+	 */
+	static Transport fromConfig(String baseUri, HttpClientSettings settings) {
+		String name = ConfigMapping.getConfigProperty("http.transport");
+		Transport transport = create(name == null || name.isBlank() ? "restassured" : name, baseUri, settings);
+		CompressionPolicy compression = CompressionPolicy.fromConfig();
+		return compression.isActive() ? new CompressingTransport(transport, compression) : transport;
+	}
+
+	/**
+	 * Creates a transport by name.
+	 *
+	 * @param name     restassured or jdk.
+	 * @param baseUri  The base URI requests are sent to.
+	 * @param settings Connection pool and timeout settings.
+	 * @return Transport - a new transport
+	 */
+	static Transport create(String name, String baseUri, HttpClientSettings settings) {
+		switch (name.trim().toLowerCase(Locale.ROOT)) {
+		case "restassured":
+			return new RestAssuredTransport(baseUri, settings);
+		case "jdk":
+			return new JdkHttpTransport(baseUri, settings, JdkHttpTransport.versionFromConfig());
+		default:
+			throw new IllegalArgumentException("Unknown http.transport: " + name + " (expected restassured or jdk)");
+		}
+	}
+}
@@ -1,21 +1,26 @@
 package api;
 
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 import config.ConfigMapping;
-import io.restassured.RestAssured;
 import io.restassured.response.Response;
-import io.restassured.specification.RequestSpecification;
+import metrics.CallProfile;
 import utils.ApiLogger;
+import utils.HeaderUtil;
 
 /**
  * UserApi provides methods to interact with the user-related API endpoints. 
  * It uses the RequestHandler to perform HTTP operations such as GET, POST, 
  * PUT, and DELETE.
  * 
+ * Each UserApi owns a RequestHandler with its own connection pool; close it
+ * (or use try-with-resources) when done to release the connections.
+ * 
  * @author subramanyamkongani
  */
-public class UserApi {
+public class UserApi implements AutoCloseable {
 
     // Instance of RequestHandler to manage HTTP requests
     private final RequestHandler requestHandler;
@@ -23,12 +28,10 @@ public class UserApi {
     // Base URI for the API
     private final String baseUri;
 
-    // API Endpoints
-    private static final String GET_POSTS = "/posts";
-    private static final String GET_POST_BY_ID = "/posts/{id}";
-    private static final String CREATE_POST = "/posts";
-    private static final String UPDATE_POST = "/posts/{id}";
-    private static final String DELETE_POST = "/posts/{id}";
+    // API endpoints are compiled once in the Endpoint registry
+
+    // Sent with request bodies so pre-rendered byte[] payloads are read as JSON
+    private static final Map<String, String> JSON_HEADERS = HeaderUtil.getDefaultHeaders();
 
     /**
      * Constructor for UserApi. Initializes the RequestHandler with the base URL
@@ -36,19 +39,56 @@ public class UserApi {
      */
     public UserApi() {
         // Retrieve the base URL from configuration properties
-        baseUri = ConfigMapping.getConfigProperty("base.url");
+        this(ConfigMapping.getConfigProperty("base.url"));
+    }
+
+    /**
+     * Constructor for UserApi against an explicit base URL, e.g. a local stub.
+     * 
+     * @param baseUri - the base URL of the API
+     */
+    public UserApi(String baseUri) {
+        this.baseUri = baseUri;
         requestHandler = new RequestHandler(baseUri);
     }
 
+    /**
+     * Returns the RequestHandler used by this UserApi, e.g. to enable response
+     * caching.
+     * 
+     * @return RequestHandler - the underlying request handler
+     */
+    public RequestHandler getRequestHandler() {
+        return requestHandler;
+    }
+
+    /**
+     * Closes the RequestHandler, releasing its connection pool.
+     */
+    @Override
+    public void close() {
+        requestHandler.close();
+    }
+
     /**
      * Retrieves all posts from the API.
      * 
      * @return Response - the API response containing all posts
      */
     public Response getAllPosts() {
-        Response response = requestHandler.get(GET_POSTS, null, null);
-        ApiLogger.logResponse(response);
-        return response;
+        return send(Endpoint.GET_POSTS, Endpoint.GET_POSTS.expand(), null, null);
+    }
+
+    /**
+     * Lazily streams all posts page by page, prefetching the next page while
+     * the current one is consumed.
+     * 
+     * @param pagination - how /posts is paged, e.g. Pagination.pages(100)
+     * @param type       - the class of the posts, e.g. Post.class
+     * @return Stream - the posts of all pages, in order
+     */
+    public <T> Stream<T> streamPosts(Pagination pagination, Class<T> type) {
+        return requestHandler.stream(Endpoint.GET_POSTS.getTemplate().getTemplate(), null, null, pagination, type);
     }
 
     /**
@@ -58,54 +98,30 @@ public class UserApi {
      * @return Response - the API response containing the post with the specified ID
      */
     public Response getPostById(int id) {
-        Map<String, String> pathParams = Map.of("id", String.valueOf(id));
-        String fullUrl = constructFullUrl(GET_POST_BY_ID, pathParams);
-        RequestSpecification requestSpec = getRequestSpec(GET_POST_BY_ID, null, null, pathParams);
-
-        // Log the request details
-        ApiLogger.logRequest("GET", fullUrl, null, null); // Log the full URL
-
-        Response response = requestHandler.get(GET_POST_BY_ID, null, pathParams);
-        ApiLogger.logResponse(response);
-        return response;
+        return send(Endpoint.GET_POST_BY_ID, Endpoint.GET_POST_BY_ID.expand(id), null, null);
     }
 
     /**
      * Creates a new post with the specified body.
      * 
-     * @param body - the content of the post to create
+     * @param body - the content of the post to create, e.g. a JsonNode or a
+     *             byte[] rendered by a PayloadTemplate
      * @return Response - the API response after creating the post
      */
     public Response createPost(Object body) {
-        String fullUrl = constructFullUrl(CREATE_POST, null);
-        RequestSpecification requestSpec = getRequestSpec(CREATE_POST, null, body, null);
-
-        // Log the request details
-        ApiLogger.logRequest("POST", fullUrl, null, body); // Log the full URL
-
-        Response response = requestHandler.post(CREATE_POST, null, body);
-        ApiLogger.logResponse(response);
-        return response;
+        return send(Endpoint.CREATE_POST, Endpoint.CREATE_POST.expand(), JSON_HEADERS, body);
     }
 
     /**
      * Updates an existing post identified by its ID.
      * 
      * @param id   - the ID of the post to update
-     * @param body - the updated content of the post
+     * @param body - the updated content of the post, e.g. a JsonNode or a
+     *             byte[] rendered by a PayloadTemplate
      * @return Response - the API response after updating the post
      */
     public Response updatePost(int id, Object body) {
-        Map<String, String> pathParams = Map.of("id", String.valueOf(id));
-        String fullUrl = constructFullUrl(UPDATE_POST, pathParams);
-        RequestSpecification requestSpec = getRequestSpec(UPDATE_POST, null, body, pathParams);
-
-        // Log the request details
-        ApiLogger.logRequest("PUT", fullUrl, null, body); // Log the full URL
-
-        Response response = requestHandler.put(UPDATE_POST, null, body, pathParams);
-        ApiLogger.logResponse(response);
-        return response;
+        return send(Endpoint.UPDATE_POST, Endpoint.UPDATE_POST.expand(id), JSON_HEADERS, body);
     }
 
     /**
@@ -115,43 +131,80 @@ public class UserApi {
      * @return Response - the API response after attempting to delete the post
      */
     public Response deletePost(int id) {
-        Map<String, String> pathParams = Map.of("id", String.valueOf(id));
-        String fullUrl = constructFullUrl(DELETE_POST, pathParams);
-        RequestSpecification requestSpec = getRequestSpec(DELETE_POST, null, null, pathParams);
+        return send(Endpoint.DELETE_POST, Endpoint.DELETE_POST.expand(id), null, null);
+    }
 
-        // Log the request details
-        ApiLogger.logRequest("DELETE", fullUrl, null, null); // Log the full URL
+    /**
+     * Asynchronously retrieves all posts on the RequestHandler's executor.
+     * 
+     * @return CompletableFuture - completed with the API response containing all posts
+     */
+    public CompletableFuture<Response> getAllPostsAsync() {
+        return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> getAllPosts()),
+                requestHandler.getExecutor());
+    }
 
-        Response response = requestHandler.delete(DELETE_POST, null, pathParams);
-        ApiLogger.logResponse(response);
-        return response;
+    /**
+     * Asynchronously retrieves a specific post by its ID.
+     * 
+     * @param id - the ID of the post to retrieve
+     * @return CompletableFuture - completed with the API response containing the post
+     */
+    public CompletableFuture<Response> getPostByIdAsync(int id) {
+        return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> getPostById(id)),
+                requestHandler.getExecutor());
     }
 
-    // Unified method for creating a request specification for logging
-    private RequestSpecification getRequestSpec(String path, Map<String, String> headers, Object body, Map<String, String> pathParams) {
-        RequestSpecification requestSpec = RestAssured.given()
-                .baseUri(baseUri)
-                .basePath(path)
-                .headers(headers != null ? headers : Map.of())
-                .pathParams(pathParams != null ? pathParams : Map.of());
+    /**
+     * Asynchronously creates a new post with the specified body.
+     * 
+     * @param body - the content of the post to create
+     * @return CompletableFuture - completed with the API response after creating the post
+     */
+    public CompletableFuture<Response> createPostAsync(Object body) {
+        return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> createPost(body)),
+                requestHandler.getExecutor());
+    }
 
-        // Only set the body if it's not null
-        if (body != null) {
-            requestSpec.body(body);
-        }
+    /**
+     * Asynchronously updates an existing post identified by its ID.
+     * 
+     * @param id   - the ID of the post to update
+     * @param body - the updated content of the post
+     * @return CompletableFuture - completed with the API response after updating the post
+     */
+    public CompletableFuture<Response> updatePostAsync(int id, Object body) {
+        return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> updatePost(id, body)),
+                requestHandler.getExecutor());
+    }
 
-        return requestSpec;
+    /**
+     * Asynchronously deletes a post identified by its ID.
+     * 
+     * @param id - the ID of the post to delete
+     * @return CompletableFuture - completed with the API response after deleting the post
+     */
+    public CompletableFuture<Response> deletePostAsync(int id) {
+        return CompletableFuture.supplyAsync(ConfigMapping.propagating(() -> deletePost(id)),
+                requestHandler.getExecutor());
     }
 
-    // Method to construct the full URL
-    private String constructFullUrl(String path, Map<String, String> pathParams) {
-        // Replace path parameters in the URL
-        String url = baseUri + path;
-        if (pathParams != null) {
-            for (Map.Entry<String, String> entry : pathParams.entrySet()) {
-                url = url.replace("{" + entry.getKey() + "}", entry.getValue());
-            }
+    // Logs and sends the request; the expanded path is shared by both. Logging is
+    // part of the profiled call's build time
+    private Response send(Endpoint endpoint, String path, Map<String, String> headers, Object body) {
+        CallProfile profile = CallProfile.begin(endpoint.name());
+        try {
+            ApiLogger.logRequest(endpoint.getMethod().name(), baseUri, path, headers, body);
+            Response response = requestHandler.request(endpoint.getMethod(), endpoint.getTemplate(), path, headers,
+                    null, body);
+            ApiLogger.logResponse(response);
+            return response;
+        } catch (Throwable e) {
+            // Also the checked exceptions, e.g. ConnectException, that RestAssured throws undeclared
+            profile.failed(e);
+            throw e;
+        } finally {
+            profile.close();
         }
-        return url;
     }
 }
@@ -2,36 +2,197 @@ package config;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 public class ConfigMapping {
 
 	/**
-	 * Path to Configuration File
+	 * Configuration file, looked up on the classpath first and then on disk:
+	 * the file of the selected Environment (-Denv=stg), or -Dconfig.file=...
 	 */
-	private static final String CONFIG_FILE = "src/main/resources/configuration/config_prod.properties";
+	private static final String SOURCE_DIR = "src/main/resources/";
 	private static Properties properties;
 
+	// Files of the other environments, loaded on first use
+	private static final Map<Environment, Properties> environments = new ConcurrentHashMap<>();
+
+	// Per-thread overrides; async work receives them explicitly through propagating, never by inheritance,
+	// so pooled threads created inside a scope do not keep it after it closes
+	private static final ThreadLocal<Properties> overrides = new ThreadLocal<>();
+
 	/**
 	 * ConfigMapping is responsible for loading properties from the
 	 * environment-specific file.
 	 */
 	static {
-		properties = new Properties();
-		try (FileInputStream fis = new FileInputStream(CONFIG_FILE)) {
-			properties.load(fis);
-		} catch (IOException e) {
-			e.printStackTrace();
+		properties = load(System.getProperty("config.file", Environment.current().getConfigFile()));
+	}
+
+	/**
+	 * Scope of a set of per-thread overrides; closing it restores the previous
+	 * configuration of the thread.
+	 */
+	public static final class Scope implements AutoCloseable {
+		private final Properties previous;
+
+		private Scope(Properties previous) {
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			restore(previous);
 		}
 	}
 
 	/**
 	 * Retrieve a property value by its key
-	 * 
+	 *
 	 * @param key - property key
 	 * @return String - property value
 	 */
 	public static String getConfigProperty(String key) {
+		Properties threadProperties = overrides.get();
+		if (threadProperties != null) {
+			String value = threadProperties.getProperty(key);
+			if (value != null) {
+				return value;
+			}
+		}
 		return properties.getProperty(key);
 	}
+
+	/**
+	 * Retrieve a property value of a specific environment. A per-thread
+	 * override of "&lt;env&gt;.&lt;key&gt;", e.g. stg.base.url, takes precedence
+	 * over the environment's file.
+	 *
+	 * @param environment - the environment to read
+	 * @param key         - property key
+	 * @return String - property value
+	 */
+	public static String getConfigProperty(Environment environment, String key) {
+		Properties threadProperties = overrides.get();
+		if (threadProperties != null) {
+			String value = threadProperties.getProperty(environment + "." + key);
+			if (value != null) {
+				return value;
+			}
+		}
+		return environments.computeIfAbsent(environment, env -> load(env.getConfigFile())).getProperty(key);
+	}
+
+	/**
+	 * Returns the names of all properties visible to the calling thread, e.g. to
+	 * find keys sharing a prefix.
+	 *
+	 * @return Set - the property names
+	 */
+	public static Set<String> getPropertyNames() {
+		Set<String> names = new TreeSet<>(properties.stringPropertyNames());
+		Properties threadProperties = overrides.get();
+		if (threadProperties != null) {
+			names.addAll(threadProperties.stringPropertyNames());
+		}
+		return names;
+	}
+
+	/**
+	 * Overrides properties for the calling thread until the returned scope is
+	 * closed, so parallel tests can each target their own environment. Other
+	 * threads only see them when a task is wrapped with propagating, e.g.
+	 * try (ConfigMapping.Scope scope = ConfigMapping.withOverrides(Map.of("base.url", stub.getBaseUri()))) { ... }
+	 *
+	 * @param values - properties to override
+	 * @return Scope - closes the overrides
+	 */
+	public static Scope withOverrides(Map<String, String> values) {
+		Properties previous = overrides.get();
+		Properties threadProperties = new Properties();
+		if (previous != null) {
+			threadProperties.putAll(previous);
+		}
+		threadProperties.putAll(values);
+		overrides.set(threadProperties);
+		return new Scope(previous);
+	}
+
+	/**
+	 * Wraps a task so that it runs with the overrides of the calling thread,
+	 * e.g. executor.execute(ConfigMapping.propagating(task)). The worker thread's
+	 * own overrides are restored when the task ends.
+	 *
+	 * @param task - the task to run on another thread
+	 * @return Runnable - the wrapped task
+	 */
+	public static Runnable propagating(Runnable task) {
+		Properties captured = overrides.get();
+		return () -> {
+			Properties previous = overrides.get();
+			restore(captured);
+			try {
+				task.run();
+			} finally {
+				restore(previous);
+			}
+		};
+	}
+
+	/**
+	 * Wraps a supplier so that it runs with the overrides of the calling
+	 * thread, e.g. CompletableFuture.supplyAsync(ConfigMapping.propagating(call),
+	 * executor).
+	 *
+	 * @param task - the supplier to run on another thread
+	 * @return Supplier - the wrapped supplier
+	 */
+	public static <T> Supplier<T> propagating(Supplier<T> task) {
+		Properties captured = overrides.get();
+		return () -> {
+			Properties previous = overrides.get();
+			restore(captured);
+			try {
+				return task.get();
+			} finally {
+				restore(previous);
+			}
+		};
+	}
+
+	private static void restore(Properties threadProperties) {
+		if (threadProperties == null) {
+			overrides.remove();
+		} else {
+			overrides.set(threadProperties);
+		}
+	}
+
+	// Loads from the classpath, falling back to a file path
+	private static Properties load(String location) {
+		Properties loaded = new Properties();
+		try (InputStream in = open(location)) {
+			loaded.load(in);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		return loaded;
+	}
+
+	private static InputStream open(String location) throws IOException {
+		InputStream in = ConfigMapping.class.getClassLoader().getResourceAsStream(location);
+		if (in != null) {
+			return in;
+		}
+		try {
+			return new FileInputStream(location);
+		} catch (IOException e) {
+			return new FileInputStream(SOURCE_DIR + location);
+		}
+	}
 }
@@ -1,5 +1,85 @@
 package config;
 
+import java.util.Locale;
+
+/**
+ * Environment names the deployments the framework can target, each with its
+ * own configuration file under configuration/. The environment of a run is
+ * selected with -Denv=stg (or the TEST_ENV environment variable) and defaults
+ * to PROD; Environment.getProperty reads any environment regardless, e.g. for
+ * a differential run against two of them.
+ *
+ * @author subramanyamkongani
+ */
 public enum Environment {
 
+	PROD("configuration/config_prod.properties"), STG("configuration/config_stg.properties");
+
+	private final String configFile;
+
+	Environment(String configFile) {
+		this.configFile = configFile;
+	}
+
+	/**
+	 * Returns the classpath location of the environment's configuration file.
+	 *
+	 * @return String - e.g. configuration/config_stg.properties
+	 */
+	public String getConfigFile() {
+		return configFile;
+	}
+
+	/**
+	 * Returns a property of this environment. A per-thread override of
+	 * "&lt;env&gt;.&lt;key&gt;" (e.g. stg.base.url) wins over the file.
+	 *
+	 * @param key - property key
+	 * @return String - property value, or null if not set
+	 */
+	public String getProperty(String key) {
+		return ConfigMapping.getConfigProperty(this, key);
+	}
+
+	/**
+	 * Returns the base URL of this environment.
+	 *
+	 * @return String - the base.url property
+	 */
+	public String getBaseUrl() {
+		String baseUrl = getProperty("base.url");
+		if (baseUrl == null || baseUrl.isBlank()) {
+			throw new IllegalStateException("base.url is not configured for " + this);
+		}
+		return baseUrl.trim();
+	}
+
+	/**
+	 * Returns the environment selected for this run by -Denv or TEST_ENV.
+	 *
+	 * @return Environment - the selected environment, PROD by default
+	 */
+	public static Environment current() {
+		String name = System.getProperty("env", System.getenv("TEST_ENV"));
+		return name == null || name.isBlank() ? PROD : fromName(name);
+	}
+
+	/**
+	 * Looks up an environment by name, ignoring case.
+	 *
+	 * @param name - e.g. "stg"
+	 * @return Environment - the environment
+	 */
+	public static Environment fromName(String name) {
+		try {
+			return valueOf(name.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown environment: " + name, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return name().toLowerCase(Locale.ROOT);
+	}
 }
@@ -0,0 +1,108 @@
+package config;
+
+/**
+ * HttpClientSettings holds the connection pool and timeout settings used by
+ * RequestHandler. Values are read from the configuration file when present and
+ * fall back to sensible defaults otherwise.
+ *
+ * Supported keys: http.pool.maxTotal, http.pool.maxPerRoute,
+ * http.pool.idleTimeoutMs, http.pool.keepAliveMs, http.connectTimeoutMs,
+ * http.readTimeoutMs
+ *
+ * @author subramanyamkongani
+ */
+public final class HttpClientSettings {
+
+	private final int maxTotal; // Maximum pooled connections across all routes
+	private final int maxPerRoute; // Maximum pooled connections per host
+	private final long idleTimeoutMs; // Idle connections older than this are evicted
+	private final long keepAliveMs; // Keep-alive used when the server does not send one
+	private final int connectTimeoutMs; // Socket connect timeout
+	private final int readTimeoutMs; // Socket read (SO_TIMEOUT) timeout
+
+	/**
+	 * Constructor for HttpClientSettings.
+	 *
+	 * @param maxTotal         Maximum number of pooled connections.
+	 * @param maxPerRoute      Maximum number of pooled connections per route.
+	 * @param idleTimeoutMs    Idle time after which a pooled connection is closed.
+	 * @param keepAliveMs      Keep-alive duration when the server sends none.
+	 * @param connectTimeoutMs Connect timeout in milliseconds.
+	 * @param readTimeoutMs    Read timeout in milliseconds.
+	 */
+	public HttpClientSettings(int maxTotal, int maxPerRoute, long idleTimeoutMs, long keepAliveMs,
+			int connectTimeoutMs, int readTimeoutMs) {
+		if (maxTotal <= 0 || maxPerRoute <= 0) {
+			throw new IllegalArgumentException("Pool sizes must be positive");
+		}
+		this.maxTotal = maxTotal;
+		this.maxPerRoute = maxPerRoute;
+		this.idleTimeoutMs = idleTimeoutMs;
+		this.keepAliveMs = keepAliveMs;
+		this.connectTimeoutMs = connectTimeoutMs;
+		this.readTimeoutMs = readTimeoutMs;
+	}
+
+	/**
+	 * Returns the default settings: 200 connections in total, 50 per route, 30s
+	 * idle eviction, 30s keep-alive, 10s connect and 30s read timeouts.
+	 *
+	 * @return HttpClientSettings - the default settings
+	 */
+	public static HttpClientSettings defaults() {
+		return new HttpClientSettings(200, 50, 30_000, 30_000, 10_000, 30_000);
+	}
+
+	/**
+	 * Builds settings from the configuration file, using the defaults for every
+	 * key that is not set.
+	 *
+	 * @return HttpClientSettings - the configured settings
+	 */
+	public static HttpClientSettings fromConfig() {
+		HttpClientSettings defaults = defaults();
+		return new HttpClientSettings(
+				intProperty("http.pool.maxTotal", defaults.maxTotal),
+				intProperty("http.pool.maxPerRoute", defaults.maxPerRoute),
+				longProperty("http.pool.idleTimeoutMs", defaults.idleTimeoutMs),
+				longProperty("http.pool.keepAliveMs", defaults.keepAliveMs),
+				intProperty("http.connectTimeoutMs", defaults.connectTimeoutMs),
+				intProperty("http.readTimeoutMs", defaults.readTimeoutMs));
+	}
+
+	public int getMaxTotal() {
+		return maxTotal;
+	}
+
+	public int getMaxPerRoute() {
+		return maxPerRoute;
+	}
+
+	public long getIdleTimeoutMs() {
+		return idleTimeoutMs;
+	}
+
+	public long getKeepAliveMs() {
+		return keepAliveMs;
+	}
+
+	public int getConnectTimeoutMs() {
+		return connectTimeoutMs;
+	}
+
+	public int getReadTimeoutMs() {
+		return readTimeoutMs;
+	}
+
+	// Reads an int property, falling back to the default when missing
+	private static int intProperty(String key, int defaultValue) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+	}
+
+	// Reads a long property, falling back to the default when missing
+	private static long longProperty(String key, long defaultValue) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? defaultValue : Long.parseLong(value.trim());
+	}
+}
@@ -4,10 +4,14 @@ public enum StatusCodes {
 
 	OK(200),
 	CREATED(201),
+	NOT_MODIFIED(304),
 	BAD_REQUEST(400),
 	UNAUTHORIZED(401),
 	FORBIDDEN(403),
+	NOT_FOUND(404),
+	TOO_MANY_REQUESTS(429),
 	INTERNAL_SERVER_ERROR(500),
+	SERVICE_UNAVAILABLE(503),
 	NO_CONTENT(204);
 
 	private final int code; // Keep this field private
@@ -0,0 +1,244 @@
+package diff;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import utils.StreamingJsonDiff;
+
+/**
+ * DiffReport is the result of a DifferentialRunner run: per operation the
+ * status and latency of both environments side by side with the body
+ * differences, plus latency percentiles per environment. toString renders it
+ * as a table; it can also be written as JSON.
+ *
+ * @author subramanyamkongani
+ */
+public final class DiffReport {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	// Latencies are summarized in microseconds, up to one hour, with 3 significant digits
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+	/**
+	 * Comparison of one operation. Status is -1 and error is set when the call
+	 * failed on that side; compareError is set when both calls returned but the
+	 * comparison itself failed. Latencies are in milliseconds.
+	 */
+	public record Result(String operation, int leftStatus, int rightStatus, double leftMs, double rightMs,
+			List<StreamingJsonDiff.Difference> differences, boolean truncated, String leftError, String rightError,
+			String compareError) {
+
+		public boolean matched() {
+			return leftStatus == rightStatus && leftError == null && rightError == null && compareError == null
+					&& differences.isEmpty();
+		}
+	}
+
+	/**
+	 * Latency summary of one environment, in milliseconds.
+	 */
+	public record LatencySummary(String environment, long count, long errors, double p50Ms, double p90Ms,
+			double p99Ms, double maxMs, double meanMs) {
+	}
+
+	private final String leftName;
+	private final String rightName;
+	private final double elapsedSeconds;
+	private final List<Result> results;
+	private final LatencySummary leftLatency;
+	private final LatencySummary rightLatency;
+
+	DiffReport(String leftName, String rightName, double elapsedSeconds, List<Result> results) {
+		this.leftName = leftName;
+		this.rightName = rightName;
+		this.elapsedSeconds = elapsedSeconds;
+		this.results = List.copyOf(results);
+		Histogram left = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+		Histogram right = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+		long leftErrors = 0;
+		long rightErrors = 0;
+		for (Result result : results) {
+			left.recordValue(micros(result.leftMs()));
+			right.recordValue(micros(result.rightMs()));
+			leftErrors += result.leftError() == null ? 0 : 1;
+			rightErrors += result.rightError() == null ? 0 : 1;
+		}
+		this.leftLatency = summarize(leftName, left, leftErrors);
+		this.rightLatency = summarize(rightName, right, rightErrors);
+	}
+
+	public double getElapsedSeconds() {
+		return elapsedSeconds;
+	}
+
+	/**
+	 * Returns the results of all operations, in the order they were added.
+	 *
+	 * @return List - the results
+	 */
+	public List<Result> getResults() {
+		return results;
+	}
+
+	/**
+	 * Returns the operations whose status, errors or bodies differ.
+	 *
+	 * @return List - the mismatching results
+	 */
+	public List<Result> getMismatches() {
+		return results.stream().filter(result -> !result.matched()).collect(Collectors.toList());
+	}
+
+	public boolean allMatched() {
+		return results.stream().allMatch(Result::matched);
+	}
+
+	public LatencySummary getLeftLatency() {
+		return leftLatency;
+	}
+
+	public LatencySummary getRightLatency() {
+		return rightLatency;
+	}
+
+	/**
+	 * Converts the report to a JSON object.
+	 *
+	 * @return ObjectNode - the report as JSON
+	 */
+	public ObjectNode toJson() {
+		ObjectNode root = mapper.createObjectNode();
+		root.put("left", leftName);
+		root.put("right", rightName);
+		root.put("elapsedSeconds", elapsedSeconds);
+		root.put("allMatched", allMatched());
+		ArrayNode latencies = root.putArray("latency");
+		latencies.add(mapper.valueToTree(leftLatency));
+		latencies.add(mapper.valueToTree(rightLatency));
+		ArrayNode operations = root.putArray("operations");
+		for (Result result : results) {
+			ObjectNode operation = mapper.valueToTree(result);
+			operation.put("matched", result.matched());
+			operations.add(operation);
+		}
+		return root;
+	}
+
+	/**
+	 * Writes the report as pretty-printed JSON, creating parent directories.
+	 *
+	 * @param file Destination file.
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeJson(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), toJson());
+	}
+
+	/**
+	 * Renders the operations side by side, followed by the latency summary and
+	 * the differences of every mismatching operation.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder out = new StringBuilder();
+		String n = System.lineSeparator();
+		List<Result> mismatches = getMismatches();
+		out.append(String.format(Locale.ROOT, "%s vs %s: %d operations, %d differ, %.2f s%n", leftName, rightName,
+				results.size(), mismatches.size(), elapsedSeconds));
+		int width = results.stream().mapToInt(result -> result.operation().length()).max().orElse(0);
+		width = Math.max(width, "operation".length());
+		String row = "%-" + width + "s  %6s %10s  %6s %10s  %s%n";
+		out.append(String.format(Locale.ROOT, row, "operation", leftName, "ms", rightName, "ms", "result"));
+		for (Result result : results) {
+			out.append(String.format(Locale.ROOT, row, result.operation(), status(result.leftStatus()),
+					String.format(Locale.ROOT, "%.1f", result.leftMs()), status(result.rightStatus()),
+					String.format(Locale.ROOT, "%.1f", result.rightMs()), verdict(result)));
+		}
+		for (LatencySummary latency : List.of(leftLatency, rightLatency)) {
+			out.append(String.format(Locale.ROOT, "%s latency ms: p50 %.1f, p90 %.1f, p99 %.1f, max %.1f, mean %.1f%n",
+					latency.environment(), latency.p50Ms(), latency.p90Ms(), latency.p99Ms(), latency.maxMs(),
+					latency.meanMs()));
+		}
+		for (Result result : mismatches) {
+			out.append(result.operation()).append(':').append(n);
+			if (result.leftError() != null) {
+				out.append("  ").append(leftName).append(" failed: ").append(result.leftError()).append(n);
+			}
+			if (result.rightError() != null) {
+				out.append("  ").append(rightName).append(" failed: ").append(result.rightError()).append(n);
+			}
+			if (result.compareError() != null) {
+				out.append("  comparison failed: ").append(result.compareError()).append(n);
+			}
+			for (StreamingJsonDiff.Difference difference : result.differences()) {
+				out.append("  ").append(describe(difference)).append(n);
+			}
+			if (result.truncated()) {
+				out.append("  ...").append(n);
+			}
+		}
+		return out.toString();
+	}
+
+	private String verdict(Result result) {
+		if (result.matched()) {
+			return "same";
+		}
+		if (result.leftError() != null || result.rightError() != null || result.compareError() != null) {
+			return "error";
+		}
+		String status = result.leftStatus() == result.rightStatus() ? "" : "status differs";
+		if (result.differences().isEmpty()) {
+			return status;
+		}
+		return (status.isEmpty() ? "" : status + ", ") + result.differences().size()
+				+ (result.truncated() ? "+" : "") + " differences";
+	}
+
+	// Names the environments instead of left and right
+	private String describe(StreamingJsonDiff.Difference difference) {
+		switch (difference.kind()) {
+		case MISSING:
+			return difference.path() + ": only in " + leftName + " (" + difference.left() + ")";
+		case EXTRA:
+			return difference.path() + ": only in " + rightName + " (" + difference.right() + ")";
+		default:
+			return difference.path() + ": " + leftName + " " + difference.left() + ", " + rightName + " "
+					+ difference.right();
+		}
+	}
+
+	private static String status(int status) {
+		return status < 0 ? "-" : String.valueOf(status);
+	}
+
+	private static LatencySummary summarize(String environment, Histogram histogram, long errors) {
+		return new LatencySummary(environment, histogram.getTotalCount(), errors,
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getMaxValue()),
+				histogram.getTotalCount() == 0 ? 0 : histogram.getMean() / 1000.0);
+	}
+
+	private static long micros(double millis) {
+		return Math.min(Math.max((long) (millis * 1000), 1), HIGHEST_TRACKABLE_MICROS);
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+}
@@ -0,0 +1,246 @@
+package diff;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import api.RequestExecutors;
+import api.UserApi;
+import config.ConfigMapping;
+import config.Environment;
+import io.restassured.response.Response;
+import utils.StreamingJsonDiff;
+
+/**
+ * DifferentialRunner sends the same UserApi operations to two environments,
+ * e.g. prod and a staging release candidate, and compares the responses. Both
+ * sides of an operation run concurrently and up to diff.concurrency
+ * operations are in flight, so a full check takes about as long as the
+ * slowest environment takes for the suite once.
+ *
+ * Statuses are compared exactly and bodies structurally with a
+ * StreamingJsonDiff; byte-identical bodies skip the diff. Volatile values are
+ * ignored with ignoringFields (any depth, e.g. id, createdAt) and
+ * ignoringPaths (e.g. [*].id), or the diff.ignore.fields and
+ * diff.ignore.paths properties (comma-separated).
+ *
+ * Example usage: try (DifferentialRunner runner = new
+ * DifferentialRunner(Environment.PROD, Environment.STG)) { DiffReport report =
+ * runner.ignoringFields("id").add("getPostById", api -> api.getPostById(1))
+ * .add("getAllPosts", UserApi::getAllPosts).run(); }
+ *
+ * A runner built from two Environments owns the UserApi of each and closes
+ * them when it is closed; UserApi instances passed in are left to the caller.
+ *
+ * @author subramanyamkongani
+ */
+public class DifferentialRunner implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(DifferentialRunner.class);
+
+	/**
+	 * A named operation sent to both environments.
+	 */
+	private record Operation(String name, Function<UserApi, Response> call) {
+	}
+
+	// Response of one side: status -1 and the error when the call threw
+	private record Outcome(int status, byte[] body, long latencyNanos, String error) {
+	}
+
+	private final String leftName;
+	private final UserApi left;
+	private final String rightName;
+	private final UserApi right;
+	private final boolean ownsApis;
+	private final List<Operation> operations = new ArrayList<>();
+	private StreamingJsonDiff diff;
+	private int concurrency;
+
+	/**
+	 * Constructor for DifferentialRunner comparing two configured
+	 * environments, using the base.url of each.
+	 *
+	 * @param left  The reference environment, e.g. Environment.PROD.
+	 * @param right The environment under test, e.g. Environment.STG.
+	 */
+	public DifferentialRunner(Environment left, Environment right) {
+		this(left.toString(), left.getBaseUrl(), right.toString(), right.getBaseUrl());
+	}
+
+	// Both base URLs are resolved before either UserApi is created, so a missing one leaks no connection pool
+	private DifferentialRunner(String leftName, String leftUrl, String rightName, String rightUrl) {
+		this(leftName, new UserApi(leftUrl), rightName, new UserApi(rightUrl), true);
+	}
+
+	/**
+	 * Constructor for DifferentialRunner comparing two UserApi instances.
+	 *
+	 * @param leftName  Name of the reference side in the report.
+	 * @param left      The reference API.
+	 * @param rightName Name of the side under test in the report.
+	 * @param right     The API under test.
+	 */
+	public DifferentialRunner(String leftName, UserApi left, String rightName, UserApi right) {
+		this(leftName, left, rightName, right, false);
+	}
+
+	private DifferentialRunner(String leftName, UserApi left, String rightName, UserApi right, boolean ownsApis) {
+		this.leftName = leftName;
+		this.left = left;
+		this.rightName = rightName;
+		this.right = right;
+		this.ownsApis = ownsApis;
+		this.diff = new StreamingJsonDiff().ignoringFields(listProperty("diff.ignore.fields"))
+				.ignoringPaths(listProperty("diff.ignore.paths"));
+		String configured = ConfigMapping.getConfigProperty("diff.concurrency");
+		this.concurrency = configured == null || configured.isBlank() ? 8 : Integer.parseInt(configured.trim());
+	}
+
+	/**
+	 * Adds an operation to run against both environments.
+	 *
+	 * @param name Name of the operation in the report.
+	 * @param call The call to make, e.g. api -> api.getPostById(1).
+	 * @return DifferentialRunner - this runner
+	 */
+	public DifferentialRunner add(String name, Function<UserApi, Response> call) {
+		operations.add(new Operation(name, call));
+		return this;
+	}
+
+	/**
+	 * Ignores every field with one of the given names, at any depth.
+	 *
+	 * @param names e.g. "id", "createdAt"
+	 * @return DifferentialRunner - this runner
+	 */
+	public DifferentialRunner ignoringFields(String... names) {
+		diff = diff.ignoringFields(names);
+		return this;
+	}
+
+	/**
+	 * Ignores the values at the given paths.
+	 *
+	 * @param paths e.g. "[*].id"
+	 * @return DifferentialRunner - this runner
+	 */
+	public DifferentialRunner ignoringPaths(String... paths) {
+		diff = diff.ignoringPaths(paths);
+		return this;
+	}
+
+	/**
+	 * Sets the number of operations in flight. Use 1 when operations depend on
+	 * each other, e.g. a create followed by a get.
+	 *
+	 * @param concurrency Maximum operations in flight.
+	 * @return DifferentialRunner - this runner
+	 */
+	public DifferentialRunner withConcurrency(int concurrency) {
+		if (concurrency < 1) {
+			throw new IllegalArgumentException("Concurrency must be at least 1: " + concurrency);
+		}
+		this.concurrency = concurrency;
+		return this;
+	}
+
+	/**
+	 * Runs every operation against both environments and blocks until all are
+	 * compared.
+	 *
+	 * @return DiffReport - the comparison results and latencies
+	 */
+	public DiffReport run() {
+		StreamingJsonDiff configuredDiff = diff;
+		DiffReport.Result[] results = new DiffReport.Result[operations.size()];
+		Semaphore inFlight = new Semaphore(concurrency);
+		ExecutorService executor = RequestExecutors.virtualThreadsIfAvailable(2 * concurrency);
+		long start = System.nanoTime();
+		try {
+			List<CompletableFuture<?>> pending = new ArrayList<>(operations.size());
+			for (int i = 0; i < operations.size(); i++) {
+				Operation operation = operations.get(i);
+				int index = i;
+				inFlight.acquireUninterruptibly();
+				CompletableFuture<Outcome> leftOutcome = CompletableFuture
+						.supplyAsync(ConfigMapping.propagating(() -> call(left, operation)), executor);
+				CompletableFuture<Outcome> rightOutcome = CompletableFuture
+						.supplyAsync(ConfigMapping.propagating(() -> call(right, operation)), executor);
+				// A comparison that throws is reported on its operation instead of discarding the whole run
+				String name = operation.name();
+				pending.add(leftOutcome.thenCombine(rightOutcome, (l, r) -> compare(configuredDiff, name, l, r))
+						.handle((result, error) -> results[index] = error == null ? result : failed(name, error))
+						.whenComplete((ignored, error) -> inFlight.release()));
+			}
+			CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).join();
+		} finally {
+			executor.shutdown();
+		}
+		DiffReport report = new DiffReport(leftName, rightName, (System.nanoTime() - start) / 1e9,
+				Arrays.asList(results));
+		logger.info("Differential run {} vs {}: {} of {} operations differ", leftName, rightName,
+				report.getMismatches().size(), results.length);
+		return report;
+	}
+
+	private static Outcome call(UserApi api, Operation operation) {
+		long start = System.nanoTime();
+		try {
+			Response response = operation.call().apply(api);
+			long latency = System.nanoTime() - start;
+			return new Outcome(response.getStatusCode(), response.asByteArray(), latency, null);
+		} catch (AssertionError | RuntimeException e) {
+			return new Outcome(-1, new byte[0], System.nanoTime() - start, e.toString());
+		}
+	}
+
+	private static DiffReport.Result failed(String name, Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		return new DiffReport.Result(name, -1, -1, 0, 0, List.of(), false, null, null, cause.toString());
+	}
+
+	private static DiffReport.Result compare(StreamingJsonDiff diff, String name, Outcome left, Outcome right) {
+		StreamingJsonDiff.Result bodies;
+		if (left.error() != null || right.error() != null || Arrays.equals(left.body(), right.body())) {
+			bodies = new StreamingJsonDiff.Result(List.of(), false);
+		} else {
+			try {
+				bodies = diff.compare(left.body(), right.body());
+			} catch (RuntimeException e) {
+				// Not JSON: all that is known is that the bytes differ
+				bodies = new StreamingJsonDiff.Result(List.of(new StreamingJsonDiff.Difference("$",
+						StreamingJsonDiff.Kind.VALUE, left.body().length + " bytes", right.body().length + " bytes")),
+						false);
+			}
+		}
+		return new DiffReport.Result(name, left.status(), right.status(), left.latencyNanos() / 1e6,
+				right.latencyNanos() / 1e6, bodies.differences(), bodies.truncated(), left.error(), right.error(),
+				null);
+	}
+
+	private static String[] listProperty(String key) {
+		String value = ConfigMapping.getConfigProperty(key);
+		return value == null || value.isBlank() ? new String[0] : value.trim().split("\\s*,\\s*");
+	}
+
+	/**
+	 * Closes the UserApi of both environments when this runner created them.
+	 */
+	@Override
+	public void close() {
+		if (ownsApis) {
+			left.close();
+			right.close();
+		}
+	}
+}
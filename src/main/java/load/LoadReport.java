@@ -0,0 +1,118 @@
+package load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * LoadReport is the result of a LoadRunner run: per-operation throughput,
+ * error counts and p50/p90/p99/p99.9 latencies, plus the totals across all
+ * operations. It can be written as JSON at the end of the run.
+ *
+ * @author subramanyamkongani
+ */
+public final class LoadReport {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	/**
+	 * Summary of a single operation. Latencies are in milliseconds.
+	 */
+	public record OperationSummary(String name, long count, long errors, double throughputPerSecond, double p50Ms,
+			double p90Ms, double p99Ms, double p999Ms, double maxMs, double meanMs) {
+	}
+
+	private final String scenario;
+	private final String workload;
+	private final boolean correctedForCoordinatedOmission;
+	private final double elapsedSeconds;
+	private final List<OperationSummary> operations;
+	private final OperationSummary total;
+
+	LoadReport(String scenario, WorkloadModel workload, double elapsedSeconds, Collection<OperationStats> stats) {
+		this.scenario = scenario;
+		this.workload = workload.toString();
+		this.correctedForCoordinatedOmission = workload.getType() == WorkloadModel.Type.OPEN;
+		this.elapsedSeconds = elapsedSeconds;
+
+		List<OperationSummary> summaries = new ArrayList<>();
+		Histogram combined = new Histogram(3);
+		long errors = 0;
+		for (OperationStats operation : stats) {
+			summaries.add(summarize(operation.getName(), operation.getLatencies(), operation.getErrors()));
+			combined.add(operation.getLatencies());
+			errors += operation.getErrors();
+		}
+		this.operations = Collections.unmodifiableList(summaries);
+		this.total = summarize("total", combined, errors);
+	}
+
+	public String getScenario() {
+		return scenario;
+	}
+
+	public double getElapsedSeconds() {
+		return elapsedSeconds;
+	}
+
+	public List<OperationSummary> getOperations() {
+		return operations;
+	}
+
+	public OperationSummary getTotal() {
+		return total;
+	}
+
+	/**
+	 * Converts the report to a JSON object.
+	 *
+	 * @return ObjectNode - the report as JSON
+	 */
+	public ObjectNode toJson() {
+		ObjectNode root = mapper.createObjectNode();
+		root.put("scenario", scenario);
+		root.put("workload", workload);
+		root.put("correctedForCoordinatedOmission", correctedForCoordinatedOmission);
+		root.put("elapsedSeconds", elapsedSeconds);
+		root.set("total", mapper.valueToTree(total));
+		ArrayNode operationNodes = root.putArray("operations");
+		operations.forEach(operation -> operationNodes.add(mapper.valueToTree(operation)));
+		return root;
+	}
+
+	/**
+	 * Writes the report as pretty-printed JSON, creating parent directories.
+	 *
+	 * @param file Destination file.
+	 * @throws IOException if the file cannot be written
+	 */
+	public void writeJson(Path file) throws IOException {
+		if (file.getParent() != null) {
+			Files.createDirectories(file.getParent());
+		}
+		mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), toJson());
+	}
+
+	// Builds the summary for one histogram (recorded in microseconds)
+	private OperationSummary summarize(String name, Histogram histogram, long errors) {
+		long count = histogram.getTotalCount();
+		return new OperationSummary(name, count, errors, elapsedSeconds > 0 ? count / elapsedSeconds : 0,
+				millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+				millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+				millis(histogram.getMaxValue()), count == 0 ? 0 : histogram.getMean() / 1000.0);
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000.0;
+	}
+}
@@ -0,0 +1,192 @@
+package load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import api.RequestExecutors;
+import api.UserApi;
+import config.ConfigMapping;
+import io.restassured.response.Response;
+import utils.PayloadTemplates;
+
+/**
+ * LoadRunner drives a Scenario against a UserApi using either a closed or an
+ * open WorkloadModel and returns a LoadReport with per-operation latency
+ * percentiles and throughput.
+ *
+ * In the open model each request has an intended start time on a fixed
+ * schedule. Latency is measured from that intended time rather than from when
+ * the request was actually sent, so a slow server that delays later requests
+ * shows up in the percentiles instead of being hidden.
+ *
+ * @author subramanyamkongani
+ */
+public class LoadRunner {
+
+	private static final Logger logger = LoggerFactory.getLogger(LoadRunner.class);
+
+	private final UserApi userApi; // Shared by every virtual user
+
+	/**
+	 * Constructor for LoadRunner.
+	 *
+	 * @param userApi The (thread-safe) UserApi to drive.
+	 */
+	public LoadRunner(UserApi userApi) {
+		this.userApi = userApi;
+	}
+
+	/**
+	 * Runs the scenario with the given workload and blocks until it completes.
+	 *
+	 * @param scenario The weighted mix of operations.
+	 * @param model    The closed or open workload model.
+	 * @return LoadReport - the results of the run
+	 */
+	public LoadReport run(Scenario scenario, WorkloadModel model) {
+		Map<Scenario.Step, OperationStats> stats = new LinkedHashMap<>();
+		scenario.getSteps().forEach(step -> stats.put(step, new OperationStats(step.getName())));
+
+		logger.info("Starting load run {} with {}", scenario.getName(), model);
+		long start = System.nanoTime();
+		ExecutorService executor = RequestExecutors.virtualThreadsIfAvailable(model.getConcurrency());
+		try {
+			if (model.getType() == WorkloadModel.Type.CLOSED) {
+				runClosed(scenario, model, stats, executor, start);
+			} else {
+				runOpen(scenario, model, stats, executor, start);
+			}
+		} finally {
+			executor.shutdown();
+			awaitTermination(executor);
+		}
+		double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+		LoadReport report = new LoadReport(scenario.getName(), model, elapsedSeconds, stats.values());
+		logger.info("Finished load run {}: {} requests, {} errors, {} req/s", scenario.getName(),
+				report.getTotal().count(), report.getTotal().errors(),
+				String.format("%.1f", report.getTotal().throughputPerSecond()));
+		return report;
+	}
+
+	// Every virtual user loops until the deadline, one request at a time
+	private void runClosed(Scenario scenario, WorkloadModel model, Map<Scenario.Step, OperationStats> stats,
+			ExecutorService executor, long start) {
+		long deadline = start + model.getDuration().toNanos();
+		List<Future<?>> users = new ArrayList<>();
+		for (int i = 0; i < model.getConcurrency(); i++) {
+			users.add(executor.submit(ConfigMapping.propagating(() -> {
+				while (System.nanoTime() < deadline) {
+					Scenario.Step step = scenario.pick();
+					long sent = System.nanoTime();
+					boolean success = execute(step);
+					stats.get(step).record(System.nanoTime() - sent, success);
+				}
+			})));
+		}
+		for (Future<?> user : users) {
+			try {
+				user.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (Exception e) {
+				logger.error("Virtual user failed", e);
+			}
+		}
+	}
+
+	// Requests start on a fixed schedule; latency is measured from the intended start
+	private void runOpen(Scenario scenario, WorkloadModel model, Map<Scenario.Step, OperationStats> stats,
+			ExecutorService executor, long start) {
+		long intervalNanos = (long) (1e9 / model.getTargetRps());
+		long requests = model.getDuration().toNanos() / intervalNanos;
+		Semaphore inFlight = new Semaphore(model.getConcurrency());
+		for (long i = 0; i < requests; i++) {
+			long intendedStart = start + i * intervalNanos;
+			long wait;
+			while ((wait = intendedStart - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(wait);
+			}
+			try {
+				inFlight.acquire(); // Backpressure when maxInFlight requests are outstanding
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			Scenario.Step step = scenario.pick();
+			executor.execute(ConfigMapping.propagating(() -> {
+				try {
+					boolean success = execute(step);
+					stats.get(step).record(System.nanoTime() - intendedStart, success);
+				} finally {
+					inFlight.release();
+				}
+			}));
+		}
+	}
+
+	// Runs one step, returning whether it produced the expected status code
+	private boolean execute(Scenario.Step step) {
+		try {
+			Response response = step.execute(userApi);
+			return response.getStatusCode() == step.getExpectedStatus().getCode();
+		} catch (RuntimeException e) {
+			logger.debug("Step {} failed", step.getName(), e);
+			return false;
+		}
+	}
+
+	private static void awaitTermination(ExecutorService executor) {
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Runs the default posts mix from the command line and writes the JSON
+	 * report.
+	 *
+	 * Usage: LoadRunner closed &lt;users&gt; &lt;seconds&gt; [report.json] or
+	 * LoadRunner open &lt;rps&gt; &lt;seconds&gt; [report.json]
+	 *
+	 * @param args The workload type, size, duration and optional report path.
+	 * @throws Exception if the report cannot be written
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.err.println("Usage: LoadRunner closed|open <users|rps> <seconds> [report.json]");
+			System.exit(2);
+		}
+		Duration duration = Duration.ofSeconds(Long.parseLong(args[2]));
+		WorkloadModel model = "open".equalsIgnoreCase(args[0])
+				? WorkloadModel.open(Double.parseDouble(args[1]), 1_000, duration)
+				: WorkloadModel.closed(Integer.parseInt(args[1]), duration);
+		Scenario scenario = Scenario.postsMix(100,
+				PayloadTemplates.get("createPostTemplate.json")
+						.render(Map.of("title", "Hello Boss", "body", "This is mine", "userId", 101)),
+				PayloadTemplates.get("updatePostTemplate.json")
+						.render(Map.of("id", 1, "title", "updated title", "body", "updated body", "userId", 1)));
+
+		LoadReport report;
+		try (UserApi userApi = new UserApi()) {
+			report = new LoadRunner(userApi).run(scenario, model);
+		}
+		Path output = Path.of(args.length > 3 ? args[3] : "target/load-report.json");
+		report.writeJson(output);
+		System.out.println("Load report written to " + output.toAbsolutePath());
+	}
+}
@@ -0,0 +1,58 @@
+package load;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * OperationStats collects the latency histogram and success/error counts for a
+ * single scenario step. Recording is thread-safe and allocation free.
+ */
+final class OperationStats {
+
+	// Latencies are recorded in microseconds, up to one hour, with 3 significant digits
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+
+	private final String name;
+	private final Histogram latencies = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+	private final LongAdder successes = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+
+	OperationStats(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Records one completed call.
+	 *
+	 * @param latencyNanos Latency of the call in nanoseconds.
+	 * @param success      Whether the call returned the expected status.
+	 */
+	void record(long latencyNanos, boolean success) {
+		long micros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(latencyNanos), 1), HIGHEST_TRACKABLE_MICROS);
+		latencies.recordValue(micros);
+		if (success) {
+			successes.increment();
+		} else {
+			errors.increment();
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	Histogram getLatencies() {
+		return latencies;
+	}
+
+	long getSuccesses() {
+		return successes.sum();
+	}
+
+	long getErrors() {
+		return errors.sum();
+	}
+}
@@ -0,0 +1,144 @@
+package load;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import api.UserApi;
+import constants.StatusCodes;
+import io.restassured.response.Response;
+
+/**
+ * Scenario is a weighted mix of UserApi operations for the LoadRunner. Each
+ * iteration picks one step at random in proportion to its weight.
+ *
+ * Example usage: Scenario scenario = new Scenario("read-heavy")
+ * .add("getPostById", 80, StatusCodes.OK, api -> api.getPostById(1))
+ * .add("getAllPosts", 20, StatusCodes.OK, UserApi::getAllPosts);
+ *
+ * @author subramanyamkongani
+ */
+public final class Scenario {
+
+	/**
+	 * A single named operation of the scenario.
+	 */
+	public static final class Step {
+		private final String name;
+		private final int weight;
+		private final StatusCodes expectedStatus;
+		private final Function<UserApi, Response> call;
+
+		Step(String name, int weight, StatusCodes expectedStatus, Function<UserApi, Response> call) {
+			this.name = name;
+			this.weight = weight;
+			this.expectedStatus = expectedStatus;
+			this.call = call;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getWeight() {
+			return weight;
+		}
+
+		public StatusCodes getExpectedStatus() {
+			return expectedStatus;
+		}
+
+		/**
+		 * Executes the step against the given UserApi.
+		 *
+		 * @param userApi The API to call.
+		 * @return Response - the API response
+		 */
+		public Response execute(UserApi userApi) {
+			return call.apply(userApi);
+		}
+	}
+
+	private final String name;
+	private final List<Step> steps = new ArrayList<>();
+	private int totalWeight;
+
+	/**
+	 * Constructor for Scenario.
+	 *
+	 * @param name Name of the scenario, written to the report.
+	 */
+	public Scenario(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Adds a weighted step to the scenario.
+	 *
+	 * @param name           Name used for the step in the report.
+	 * @param weight         Relative weight of the step; must be positive.
+	 * @param expectedStatus Status code that counts as a success.
+	 * @param call           The UserApi call to make.
+	 * @return Scenario - this scenario, for chaining
+	 */
+	public Scenario add(String name, int weight, StatusCodes expectedStatus, Function<UserApi, Response> call) {
+		if (weight <= 0) {
+			throw new IllegalArgumentException("Weight must be positive for step " + name);
+		}
+		steps.add(new Step(name, weight, expectedStatus, call));
+		totalWeight += weight;
+		return this;
+	}
+
+	/**
+	 * Picks a step at random, in proportion to the step weights.
+	 *
+	 * @return Step - the chosen step
+	 */
+	public Step pick() {
+		if (steps.isEmpty()) {
+			throw new IllegalStateException("Scenario " + name + " has no steps");
+		}
+		int ticket = ThreadLocalRandom.current().nextInt(totalWeight);
+		for (Step step : steps) {
+			ticket -= step.weight;
+			if (ticket < 0) {
+				return step;
+			}
+		}
+		return steps.get(steps.size() - 1);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public List<Step> getSteps() {
+		return Collections.unmodifiableList(steps);
+	}
+
+	/**
+	 * Returns the standard CRUD mix over the /posts endpoints: mostly reads, with
+	 * some creates, updates and deletes on random ids.
+	 *
+	 * @param maxPostId  Highest post id used for id-based operations.
+	 * @param createBody Body sent with createPost.
+	 * @param updateBody Body sent with updatePost.
+	 * @return Scenario - the default posts mix
+	 */
+	public static Scenario postsMix(int maxPostId, Object createBody, Object updateBody) {
+		return new Scenario("posts-mix")
+				.add("getAllPosts", 10, StatusCodes.OK, UserApi::getAllPosts)
+				.add("getPostById", 50, StatusCodes.OK, api -> api.getPostById(randomId(maxPostId)))
+				.add("createPost", 15, StatusCodes.CREATED, api -> api.createPost(createBody))
+				.add("updatePost", 15, StatusCodes.OK, api -> api.updatePost(randomId(maxPostId), updateBody))
+				.add("deletePost", 10, StatusCodes.NO_CONTENT, api -> api.deletePost(randomId(maxPostId)));
+	}
+
+	// Random post id in [1, maxPostId]
+	private static int randomId(int maxPostId) {
+		return ThreadLocalRandom.current().nextInt(maxPostId) + 1;
+	}
+}
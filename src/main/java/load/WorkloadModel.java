@@ -0,0 +1,90 @@
+package load;
+
+import java.time.Duration;
+
+/**
+ * WorkloadModel describes how the LoadRunner generates load.
+ *
+ * A closed model runs a fixed number of virtual users, each sending its next
+ * request as soon as the previous one completes. An open model starts requests
+ * at a fixed target rate regardless of how fast the server answers, and
+ * measures latency from each request's intended start time so queueing delay
+ * is not hidden (coordinated omission correction).
+ *
+ * @author subramanyamkongani
+ */
+public final class WorkloadModel {
+
+	/**
+	 * The two supported workload types.
+	 */
+	public enum Type {
+		CLOSED, OPEN
+	}
+
+	private final Type type;
+	private final int concurrency; // Virtual users (closed) or max in-flight requests (open)
+	private final double targetRps; // Only used by the open model
+	private final Duration duration;
+
+	private WorkloadModel(Type type, int concurrency, double targetRps, Duration duration) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("Concurrency must be positive");
+		}
+		if (duration.isNegative() || duration.isZero()) {
+			throw new IllegalArgumentException("Duration must be positive");
+		}
+		this.type = type;
+		this.concurrency = concurrency;
+		this.targetRps = targetRps;
+		this.duration = duration;
+	}
+
+	/**
+	 * Creates a closed workload of N virtual users.
+	 *
+	 * @param virtualUsers Number of concurrent virtual users.
+	 * @param duration     How long to run.
+	 * @return WorkloadModel - the closed model
+	 */
+	public static WorkloadModel closed(int virtualUsers, Duration duration) {
+		return new WorkloadModel(Type.CLOSED, virtualUsers, 0, duration);
+	}
+
+	/**
+	 * Creates an open workload with a fixed arrival rate.
+	 *
+	 * @param targetRps   Requests started per second.
+	 * @param maxInFlight Upper bound on concurrently running requests.
+	 * @param duration    How long to run.
+	 * @return WorkloadModel - the open model
+	 */
+	public static WorkloadModel open(double targetRps, int maxInFlight, Duration duration) {
+		if (targetRps <= 0) {
+			throw new IllegalArgumentException("Target rate must be positive");
+		}
+		return new WorkloadModel(Type.OPEN, maxInFlight, targetRps, duration);
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	public double getTargetRps() {
+		return targetRps;
+	}
+
+	public Duration getDuration() {
+		return duration;
+	}
+
+	@Override
+	public String toString() {
+		return type == Type.CLOSED ? "closed(users=" + concurrency + ", duration=" + duration + ")"
+				: "open(rps=" + targetRps + ", maxInFlight=" + concurrency + ", duration=" + duration + ")";
+	}
+}
@@ -0,0 +1,69 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for one API call, from the outermost framework layer that made it
+ * (a UserLib method, a UserApi endpoint or a bare RequestHandler request) to
+ * its return. The duration is split into request building (framework time
+ * before and around the wire, including logging), network, JSON parsing and
+ * assertions, and committed by CallProfile.
+ */
+@Name("api.Call")
+@Label("API Call")
+@Category({ "API Framework" })
+@Description("An API call with the time spent building, on the network, parsing and asserting")
+@StackTrace(false)
+public final class ApiCallEvent extends Event {
+
+	@Label("Operation")
+	String operation;
+
+	@Label("Method")
+	String method;
+
+	@Label("Endpoint")
+	@Description("Endpoint template, e.g. /posts/{id}")
+	String endpoint;
+
+	@Label("Status")
+	int status;
+
+	@Label("Attempts")
+	@Description("Requests sent, including retries and hedges")
+	int attempts;
+
+	@Label("Request Bytes")
+	@DataAmount
+	long requestBytes;
+
+	@Label("Response Bytes")
+	@DataAmount
+	long responseBytes;
+
+	@Label("Build Time")
+	@Timespan
+	long buildTime;
+
+	@Label("Network Time")
+	@Timespan
+	long networkTime;
+
+	@Label("Parse Time")
+	@Timespan
+	long parseTime;
+
+	@Label("Assertion Time")
+	@Timespan
+	long assertionTime;
+
+	@Label("Error")
+	String error;
+}
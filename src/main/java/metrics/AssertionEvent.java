@@ -0,0 +1,62 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a response assertion made by UserLib. Its duration, including
+ * the log flush of a failed assertion, is also added to the assertion time of
+ * the enclosing API call.
+ */
+@Name("api.Assertion")
+@Label("API Assertion")
+@Category({ "API Framework" })
+@Description("A status or schema assertion on an API response")
+@StackTrace(false)
+public final class AssertionEvent extends Event {
+
+	@Label("Expected")
+	String expected;
+
+	@Label("Actual")
+	String actual;
+
+	@Label("Passed")
+	boolean passed;
+
+	private transient long startNanos;
+
+	/**
+	 * Starts timing an assertion.
+	 *
+	 * @return AssertionEvent - the started event
+	 */
+	public static AssertionEvent start() {
+		AssertionEvent event = new AssertionEvent();
+		event.begin();
+		event.startNanos = System.nanoTime();
+		return event;
+	}
+
+	/**
+	 * Ends the assertion, adds it to the current call and commits the event.
+	 *
+	 * @param expected The expected value, e.g. 200.
+	 * @param actual   The actual value.
+	 * @param passed   Whether the assertion held.
+	 */
+	public void finish(String expected, String actual, boolean passed) {
+		end();
+		CallProfile.asserted(System.nanoTime() - startNanos);
+		if (shouldCommit()) {
+			this.expected = expected;
+			this.actual = actual;
+			this.passed = passed;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * CallProfile collects the phases of the API call in progress on the current
+ * thread and commits them as one ApiCallEvent when the outermost layer's
+ * scope closes. UserLib, UserApi and RequestHandler each open a scope; only
+ * the first one opened on the thread records, so a UserLib method is a single
+ * call whose network, parse and assertion times come from the layers below.
+ *
+ * Nothing is tracked unless a JFR recording has the api.Call event enabled,
+ * e.g. -XX:StartFlightRecording or mvn test -Pjfr; the check is a single
+ * field read.
+ *
+ * Example usage: try (CallProfile profile = CallProfile.begin("getPostById")) {
+ * ... }
+ *
+ * @author subramanyamkongani
+ */
+public final class CallProfile implements AutoCloseable {
+
+	// Returned when a call is already being profiled on this thread, or JFR is off
+	private static final CallProfile NESTED = new CallProfile(null, 0);
+
+	private static final ThreadLocal<CallProfile> current = new ThreadLocal<>();
+
+	private final ApiCallEvent event;
+	private final long startNanos;
+	private final List<long[]> exchanges = new ArrayList<>(2); // Start and end of every request, in nanoTime
+	private long parseNanos;
+	private long assertionNanos;
+
+	private CallProfile(ApiCallEvent event, long startNanos) {
+		this.event = event;
+		this.startNanos = startNanos;
+	}
+
+	/**
+	 * Starts profiling a call on this thread, unless one is already in
+	 * progress.
+	 *
+	 * @param operation Name of the call, e.g. the UserLib method.
+	 * @return CallProfile - the scope to close when the call returns
+	 */
+	public static CallProfile begin(String operation) {
+		ApiCallEvent event = new ApiCallEvent();
+		if (!event.isEnabled() || current.get() != null) {
+			return NESTED;
+		}
+		event.begin();
+		event.operation = operation;
+		CallProfile profile = new CallProfile(event, System.nanoTime());
+		current.set(profile);
+		return profile;
+	}
+
+	/**
+	 * Returns the call being profiled on this thread.
+	 *
+	 * @return CallProfile - the current call, or null
+	 */
+	public static CallProfile current() {
+		return current.get();
+	}
+
+	/**
+	 * Records one request sent by RequestHandler, possibly on another thread
+	 * when it is hedged: the latest status and bytes, and the time on the
+	 * network. Overlapping hedged requests count once towards the network
+	 * time, which is the wall-clock time any request of the call was in
+	 * flight.
+	 *
+	 * @param method        The HTTP method.
+	 * @param endpoint      The endpoint template.
+	 * @param status        Response status, or -1 on error.
+	 * @param requestBytes  Request body size.
+	 * @param responseBytes Response body size.
+	 * @param networkNanos  Time from sending the request to reading the body.
+	 */
+	public synchronized void exchanged(String method, String endpoint, int status, long requestBytes,
+			long responseBytes, long networkNanos) {
+		event.method = method;
+		event.endpoint = endpoint;
+		event.status = status;
+		event.attempts++;
+		event.requestBytes += requestBytes;
+		event.responseBytes = responseBytes;
+		long end = System.nanoTime();
+		exchanges.add(new long[] { end - networkNanos, end });
+	}
+
+	/**
+	 * Records the error that ended the call; a nested scope records it on the
+	 * call in progress on this thread.
+	 *
+	 * @param error The exception or assertion error.
+	 */
+	public void failed(Throwable error) {
+		CallProfile profile = event != null ? this : current.get();
+		if (profile != null) {
+			profile.event.error = error.toString();
+		}
+	}
+
+	static void parsed(long nanos) {
+		CallProfile profile = current.get();
+		if (profile != null) {
+			profile.parseNanos += nanos;
+		}
+	}
+
+	static void asserted(long nanos) {
+		CallProfile profile = current.get();
+		if (profile != null) {
+			profile.assertionNanos += nanos;
+		}
+	}
+
+	/**
+	 * Ends the call and commits the event if this scope started it.
+	 */
+	@Override
+	public void close() {
+		if (event == null) {
+			return;
+		}
+		current.remove();
+		event.end();
+		if (event.shouldCommit()) {
+			long total = System.nanoTime() - startNanos;
+			synchronized (this) {
+				event.networkTime = inFlightNanos(exchanges);
+			}
+			event.parseTime = parseNanos;
+			event.assertionTime = assertionNanos;
+			// Everything that is not the network, parsing or asserting: building, logging, the framework itself
+			event.buildTime = Math.max(0, total - event.networkTime - parseNanos - assertionNanos);
+			event.commit();
+		}
+	}
+
+	// Length of the union of the request intervals
+	private static long inFlightNanos(List<long[]> intervals) {
+		intervals.sort(Comparator.comparingLong(interval -> interval[0]));
+		long total = 0;
+		long coveredUntil = Long.MIN_VALUE;
+		for (long[] interval : intervals) {
+			long start = Math.max(interval[0], coveredUntil);
+			if (interval[1] > start) {
+				total += interval[1] - start;
+				coveredUntil = interval[1];
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,104 @@
+package metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import api.RequestEvent;
+
+/**
+ * Counters and latency histogram of one method and endpoint template.
+ */
+final class EndpointMetrics {
+
+	private final String method;
+	private final String endpoint;
+	private final Histogram latencyMicros = new ConcurrentHistogram(3);
+	private final LongAdder requestBytes = new LongAdder();
+	private final LongAdder responseBytes = new LongAdder();
+	private final LongAdder requestWireBytes = new LongAdder();
+	private final LongAdder responseWireBytes = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder timeouts = new LongAdder();
+	private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+
+	EndpointMetrics(String method, String endpoint) {
+		this.method = method;
+		this.endpoint = endpoint;
+	}
+
+	void record(RequestEvent event) {
+		latencyMicros.recordValue(Math.max(1, event.durationNanos() / 1_000));
+		requestBytes.add(event.requestBytes());
+		responseBytes.add(event.responseBytes());
+		requestWireBytes.add(event.requestWireBytes());
+		responseWireBytes.add(event.responseWireBytes());
+		if (event.error() != null) {
+			errors.increment();
+			if (event.isTimeout()) {
+				timeouts.increment();
+			}
+		} else {
+			statusCounts.computeIfAbsent(event.statusCode(), status -> new LongAdder()).increment();
+		}
+	}
+
+	String method() {
+		return method;
+	}
+
+	String endpoint() {
+		return endpoint;
+	}
+
+	long count() {
+		return latencyMicros.getTotalCount();
+	}
+
+	double latencySumSeconds() {
+		return latencyMicros.getMean() * latencyMicros.getTotalCount() / 1e6;
+	}
+
+	double latencySeconds(double percentile) {
+		return latencyMicros.getValueAtPercentile(percentile) / 1e6;
+	}
+
+	double maxLatencySeconds() {
+		return latencyMicros.getMaxValue() / 1e6;
+	}
+
+	long requestBytes() {
+		return requestBytes.sum();
+	}
+
+	long responseBytes() {
+		return responseBytes.sum();
+	}
+
+	long requestWireBytes() {
+		return requestWireBytes.sum();
+	}
+
+	long responseWireBytes() {
+		return responseWireBytes.sum();
+	}
+
+	long errors() {
+		return errors.sum();
+	}
+
+	long timeouts() {
+		return timeouts.sum();
+	}
+
+	// Sorted by status code for stable output
+	Map<Integer, Long> statusCounts() {
+		Map<Integer, Long> counts = new TreeMap<>();
+		statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+		return counts;
+	}
+}
@@ -0,0 +1,61 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for parsing or binding a response body in JsonUtil. Its duration
+ * is also added to the parse time of the enclosing API call.
+ *
+ * Example usage: JsonParseEvent event = JsonParseEvent.start(); ... finally {
+ * event.finish("Post", body.length); }
+ */
+@Name("api.JsonParse")
+@Label("JSON Parse")
+@Category({ "API Framework" })
+@Description("Parsing or binding of a response body")
+@StackTrace(false)
+public final class JsonParseEvent extends Event {
+
+	@Label("Target Type")
+	String type;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	private transient long startNanos;
+
+	/**
+	 * Starts timing a parse.
+	 *
+	 * @return JsonParseEvent - the started event
+	 */
+	public static JsonParseEvent start() {
+		JsonParseEvent event = new JsonParseEvent();
+		event.begin();
+		event.startNanos = System.nanoTime();
+		return event;
+	}
+
+	/**
+	 * Ends the parse, adds it to the current call and commits the event.
+	 *
+	 * @param type  What the body was parsed to, e.g. JsonNode or Post.
+	 * @param bytes Size of the parsed body.
+	 */
+	public void finish(String type, long bytes) {
+		end();
+		CallProfile.parsed(System.nanoTime() - startNanos);
+		if (shouldCommit()) {
+			this.type = type;
+			this.bytes = bytes;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,241 @@
+package metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToLongFunction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import api.RequestEvent;
+import api.RequestListener;
+import config.ConfigMapping;
+
+/**
+ * RequestMetrics is a RequestListener that aggregates, per method and
+ * endpoint template (e.g. GET /posts/{id}), a latency histogram, request and
+ * response bytes (decoded, and as they crossed the wire, which differ when
+ * compression is enabled), status code counts, and error and timeout counts.
+ *
+ * The global instance is attached to every RequestHandler unless
+ * metrics.enabled=false, and is written to metrics.dir (default
+ * target/metrics) as api-metrics.prom (Prometheus text format) and
+ * api-metrics.json when the JVM exits, so latency trends can be tracked
+ * across builds.
+ *
+ * Supported keys: metrics.enabled, metrics.dir
+ *
+ * @author subramanyamkongani
+ */
+public final class RequestMetrics implements RequestListener {
+
+	private static final Logger logger = LoggerFactory.getLogger(RequestMetrics.class);
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private static volatile RequestMetrics global;
+
+	private final Map<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+	/**
+	 * Returns whether the global metrics are attached to new RequestHandlers.
+	 * It is read each time a RequestHandler is created, so a per-thread
+	 * override applies to the handlers created in its scope.
+	 *
+	 * @return boolean - false when metrics.enabled=false
+	 */
+	public static boolean isEnabled() {
+		return !"false".equalsIgnoreCase(ConfigMapping.getConfigProperty("metrics.enabled"));
+	}
+
+	/**
+	 * Returns the JVM-wide metrics, registering the export at JVM exit on first
+	 * use.
+	 *
+	 * @return RequestMetrics - the global instance
+	 */
+	public static RequestMetrics global() {
+		RequestMetrics metrics = global;
+		if (metrics == null) {
+			synchronized (RequestMetrics.class) {
+				metrics = global;
+				if (metrics == null) {
+					metrics = new RequestMetrics();
+					Runtime.getRuntime().addShutdownHook(new Thread(metrics::exportOnExit, "api-metrics-export"));
+					global = metrics;
+				}
+			}
+		}
+		return metrics;
+	}
+
+	@Override
+	public void onRequest(RequestEvent event) {
+		endpoints.computeIfAbsent(event.method() + ' ' + event.endpoint(),
+				key -> new EndpointMetrics(event.method(), event.endpoint())).record(event);
+	}
+
+	/**
+	 * Discards everything recorded so far.
+	 */
+	public void reset() {
+		endpoints.clear();
+	}
+
+	/**
+	 * Returns the number of requests recorded for a method and endpoint.
+	 *
+	 * @param method   e.g. GET
+	 * @param endpoint e.g. /posts/{id}
+	 * @return long - the request count
+	 */
+	public long getCount(String method, String endpoint) {
+		EndpointMetrics metrics = endpoints.get(method + ' ' + endpoint);
+		return metrics == null ? 0 : metrics.count();
+	}
+
+	/**
+	 * Renders the metrics in the Prometheus text exposition format.
+	 *
+	 * @return String - the metrics as Prometheus text
+	 */
+	public String toPrometheus() {
+		List<EndpointMetrics> sorted = sorted();
+		StringBuilder out = new StringBuilder();
+
+		header(out, "api_request_duration_seconds", "summary", "Request latency by method and endpoint template.");
+		for (EndpointMetrics metrics : sorted) {
+			String labels = labels(metrics);
+			for (double quantile : QUANTILES) {
+				sample(out, "api_request_duration_seconds", labels + ",quantile=\"" + quantile + "\"",
+						metrics.latencySeconds(quantile * 100));
+			}
+			sample(out, "api_request_duration_seconds_sum", labels, metrics.latencySumSeconds());
+			sample(out, "api_request_duration_seconds_count", labels, metrics.count());
+		}
+
+		header(out, "api_responses_total", "counter", "Responses by status code.");
+		for (EndpointMetrics metrics : sorted) {
+			String labels = labels(metrics);
+			metrics.statusCounts().forEach(
+					(status, count) -> sample(out, "api_responses_total", labels + ",status=\"" + status + "\"", count));
+		}
+
+		counter(out, sorted, "api_request_errors_total", "Requests that failed without a response.",
+				EndpointMetrics::errors);
+		counter(out, sorted, "api_request_timeouts_total", "Requests that failed with a connect or read timeout.",
+				EndpointMetrics::timeouts);
+		counter(out, sorted, "api_request_bytes_total", "Request body bytes sent.", EndpointMetrics::requestBytes);
+		counter(out, sorted, "api_response_bytes_total", "Response body bytes received.",
+				EndpointMetrics::responseBytes);
+		counter(out, sorted, "api_request_wire_bytes_total", "Request body bytes sent on the wire, after compression.",
+				EndpointMetrics::requestWireBytes);
+		counter(out, sorted, "api_response_wire_bytes_total",
+				"Response body bytes received on the wire, before decompression.", EndpointMetrics::responseWireBytes);
+		return out.toString();
+	}
+
+	/**
+	 * Converts the metrics to JSON. Latencies are in milliseconds.
+	 *
+	 * @return ObjectNode - the metrics as JSON
+	 */
+	public ObjectNode toJson() {
+		ObjectNode root = mapper.createObjectNode();
+		ArrayNode endpointNodes = root.putArray("endpoints");
+		for (EndpointMetrics metrics : sorted()) {
+			ObjectNode node = endpointNodes.addObject();
+			node.put("method", metrics.method());
+			node.put("endpoint", metrics.endpoint());
+			node.put("count", metrics.count());
+			node.put("errors", metrics.errors());
+			node.put("timeouts", metrics.timeouts());
+			node.put("requestBytes", metrics.requestBytes());
+			node.put("responseBytes", metrics.responseBytes());
+			node.put("requestWireBytes", metrics.requestWireBytes());
+			node.put("responseWireBytes", metrics.responseWireBytes());
+			ObjectNode statuses = node.putObject("statusCounts");
+			metrics.statusCounts().forEach((status, count) -> statuses.put(String.valueOf(status), count));
+			ObjectNode latency = node.putObject("latencyMs");
+			latency.put("p50", metrics.latencySeconds(50) * 1000);
+			latency.put("p90", metrics.latencySeconds(90) * 1000);
+			latency.put("p99", metrics.latencySeconds(99) * 1000);
+			latency.put("p999", metrics.latencySeconds(99.9) * 1000);
+			latency.put("max", metrics.maxLatencySeconds() * 1000);
+			latency.put("mean", metrics.count() == 0 ? 0 : metrics.latencySumSeconds() * 1000 / metrics.count());
+		}
+		return root;
+	}
+
+	/**
+	 * Writes api-metrics.prom and api-metrics.json to a directory, creating it
+	 * if needed.
+	 *
+	 * @param directory Destination directory.
+	 * @throws IOException if the files cannot be written
+	 */
+	public void writeTo(Path directory) throws IOException {
+		Files.createDirectories(directory);
+		Files.writeString(directory.resolve("api-metrics.prom"), toPrometheus(), StandardCharsets.UTF_8);
+		mapper.writerWithDefaultPrettyPrinter().writeValue(directory.resolve("api-metrics.json").toFile(), toJson());
+	}
+
+	// Shutdown hook: exports once if anything was recorded
+	private void exportOnExit() {
+		if (endpoints.isEmpty()) {
+			return;
+		}
+		String directory = ConfigMapping.getConfigProperty("metrics.dir");
+		try {
+			writeTo(Path.of(directory == null || directory.isBlank() ? "target/metrics" : directory.trim()));
+		} catch (IOException e) {
+			logger.warn("Unable to export API metrics", e);
+		}
+	}
+
+	private List<EndpointMetrics> sorted() {
+		return endpoints.values().stream()
+				.sorted(Comparator.comparing(EndpointMetrics::endpoint).thenComparing(EndpointMetrics::method))
+				.toList();
+	}
+
+	private static void counter(StringBuilder out, List<EndpointMetrics> sorted, String name, String help,
+			ToLongFunction<EndpointMetrics> value) {
+		header(out, name, "counter", help);
+		for (EndpointMetrics metrics : sorted) {
+			sample(out, name, labels(metrics), value.applyAsLong(metrics));
+		}
+	}
+
+	private static void header(StringBuilder out, String name, String type, String help) {
+		out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, String labels, double value) {
+		out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+	}
+
+	private static void sample(StringBuilder out, String name, String labels, long value) {
+		out.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+	}
+
+	private static String labels(EndpointMetrics metrics) {
+		return "method=\"" + escape(metrics.method()) + "\",endpoint=\"" + escape(metrics.endpoint()) + "\"";
+	}
+
+	// Escapes a Prometheus label value
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,17 @@
+package models;
+
+/**
+ * A post as returned by the /posts endpoints. Bound directly from the
+ * response bytes by JsonUtil, without an intermediate JsonNode; unknown
+ * properties are ignored.
+ *
+ * Example usage: Post post = userLib.getPostById(1, Post.class);
+ *
+ * @param userId Author of the post.
+ * @param id     Post ID.
+ * @param title  Title.
+ * @param body   Text of the post.
+ * @author subramanyamkongani
+ */
+public record Post(int userId, int id, String title, String body) {
+}
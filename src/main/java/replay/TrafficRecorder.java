@@ -0,0 +1,212 @@
+package replay;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import api.RequestEvent;
+import api.RequestListener;
+import config.ConfigMapping;
+
+/**
+ * TrafficRecorder is a RequestListener that appends every exchange to a JSON
+ * Lines capture file, one object per request:
+ *
+ * {"at":1700000000000,"method":"GET","template":"/posts/{id}","path":"/posts/1",
+ * "query":{},"headers":{},"body":null,"status":200,"latencyUs":812,
+ * "responseBytes":292,"responseHash":"1c291ca3"}
+ *
+ * The request body is stored as UTF-8 text and the response only as its size
+ * and CRC32C hash, which is enough for TrafficReplayer to compare responses.
+ * Authorization, Proxy-Authorization and Cookie headers are never written.
+ *
+ * The global recorder is attached to every RequestHandler when
+ * record.enabled=true and writes to record.file (default
+ * target/recordings/requests.jsonl).
+ *
+ * Supported keys: record.enabled, record.file
+ *
+ * @author subramanyamkongani
+ */
+public final class TrafficRecorder implements RequestListener, AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(TrafficRecorder.class);
+	private static final JsonFactory json = new JsonFactory();
+	private static final Set<String> REDACTED = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+	static {
+		REDACTED.addAll(Set.of("Authorization", "Proxy-Authorization", "Cookie"));
+	}
+
+	private static volatile TrafficRecorder global;
+
+	private final Path file;
+	private final OutputStream out;
+	private boolean closed; // Guarded by this
+
+	/**
+	 * Constructor for TrafficRecorder; appends to the file if it already exists.
+	 *
+	 * @param file The capture file.
+	 */
+	public TrafficRecorder(Path file) {
+		this.file = file;
+		try {
+			Path parent = file.toAbsolutePath().getParent();
+			if (parent != null) {
+				Files.createDirectories(parent);
+			}
+			this.out = Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to open capture file " + file, e);
+		}
+	}
+
+	/**
+	 * Returns whether the global recorder is attached to new RequestHandlers.
+	 * Read from the configuration on every call, so ConfigMapping.withOverrides
+	 * can turn recording on for the handlers a test creates.
+	 *
+	 * @return boolean - true when record.enabled=true
+	 */
+	public static boolean isEnabled() {
+		return "true".equalsIgnoreCase(ConfigMapping.getConfigProperty("record.enabled"));
+	}
+
+	/**
+	 * Returns the JVM-wide recorder, closing it at JVM exit.
+	 *
+	 * @return TrafficRecorder - the global instance
+	 */
+	public static TrafficRecorder global() {
+		TrafficRecorder recorder = global;
+		if (recorder == null) {
+			synchronized (TrafficRecorder.class) {
+				recorder = global;
+				if (recorder == null) {
+					String file = ConfigMapping.getConfigProperty("record.file");
+					recorder = new TrafficRecorder(Path.of(file != null ? file : "target/recordings/requests.jsonl"));
+					Runtime.getRuntime().addShutdownHook(new Thread(recorder::close, "traffic-recorder-close"));
+					global = recorder;
+				}
+			}
+		}
+		return recorder;
+	}
+
+	@Override
+	public boolean needsExchange() {
+		return true;
+	}
+
+	@Override
+	public void onRequest(RequestEvent event) {
+		RequestEvent.Exchange exchange = event.exchange();
+		if (exchange == null) {
+			return;
+		}
+		// Serialize outside the lock; only the append itself is serialized
+		ByteArrayOutputStream line = new ByteArrayOutputStream((int) Math.min(4096, 512 + event.requestBytes()));
+		try (JsonGenerator generator = json.createGenerator(line, JsonEncoding.UTF8)) {
+			generator.writeStartObject();
+			generator.writeNumberField("at", exchange.startEpochMillis());
+			generator.writeStringField("method", event.method());
+			generator.writeStringField("template", event.endpoint());
+			generator.writeStringField("path", exchange.path());
+			writeMap(generator, "query", exchange.queryParams());
+			generator.writeObjectFieldStart("headers");
+			for (Map.Entry<String, String> header : exchange.headers().entrySet()) {
+				if (!REDACTED.contains(header.getKey())) {
+					generator.writeStringField(header.getKey(), header.getValue());
+				}
+			}
+			generator.writeEndObject();
+			generator.writeStringField("body", exchange.requestBody() == null ? null
+					: new String(exchange.requestBody(), StandardCharsets.UTF_8));
+			generator.writeNumberField("status", event.statusCode());
+			generator.writeNumberField("latencyUs", event.durationNanos() / 1_000);
+			generator.writeNumberField("responseBytes", exchange.responseBody().length);
+			generator.writeStringField("responseHash", hash(exchange.responseBody()));
+			if (event.error() != null) {
+				generator.writeStringField("error", String.valueOf(event.error()));
+			}
+			generator.writeEndObject();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		line.write('\n');
+		append(line);
+	}
+
+	/**
+	 * Returns the capture file.
+	 *
+	 * @return Path - the file written to
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Closes the capture file; later exchanges are dropped.
+	 */
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			out.close();
+		} catch (IOException e) {
+			logger.warn("Unable to close capture file {}", file, e);
+		}
+	}
+
+	/**
+	 * Returns the hash TrafficRecorder stores for a response body.
+	 *
+	 * @param body The response body.
+	 * @return String - the CRC32C of the body in hex
+	 */
+	public static String hash(byte[] body) {
+		CRC32C crc = new CRC32C();
+		crc.update(body);
+		return Long.toHexString(crc.getValue());
+	}
+
+	// Whole lines are written with a single unbuffered append, so the file is never torn between lines
+	private synchronized void append(ByteArrayOutputStream line) {
+		if (closed) {
+			return;
+		}
+		try {
+			line.writeTo(out);
+		} catch (IOException e) {
+			logger.warn("Unable to record request to {}", file, e);
+		}
+	}
+
+	private static void writeMap(JsonGenerator generator, String name, Map<String, String> values) throws IOException {
+		generator.writeObjectFieldStart(name);
+		for (Map.Entry<String, String> entry : values.entrySet()) {
+			generator.writeStringField(entry.getKey(), entry.getValue());
+		}
+		generator.writeEndObject();
+	}
+}
@@ -0,0 +1,394 @@
+package replay;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import api.EndpointTemplate;
+import api.RequestExecutors;
+import api.RequestHandler;
+import config.ConfigMapping;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+
+/**
+ * TrafficReplayer replays a capture file written by TrafficRecorder against a
+ * RequestHandler, i.e. any base.url, and compares each response's status code
+ * and body hash with the recorded one.
+ *
+ * The file is memory-mapped and read one line at a time, so captures far
+ * larger than the heap can be replayed. Requests are sent at their recorded
+ * offsets divided by the speed: 1 reproduces the original timing, 10 replays
+ * ten times faster and {@link #AS_FAST_AS_POSSIBLE} ignores the timing and is
+ * only limited by maxInFlight.
+ *
+ * Example usage: TrafficReplayer.Report report = new
+ * TrafficReplayer(Path.of("target/recordings/requests.jsonl")).withSpeed(10).replay(handler);
+ *
+ * @author subramanyamkongani
+ */
+public final class TrafficReplayer {
+
+	private static final Logger logger = LoggerFactory.getLogger(TrafficReplayer.class);
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final long WINDOW_BYTES = 64L << 20; // Mapped at a time
+	private static final int MAX_MISMATCHES = 100; // Kept in the report
+
+	/**
+	 * Replays without pacing, as fast as maxInFlight allows.
+	 */
+	public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+
+	/**
+	 * A replayed request whose response differed from the recording.
+	 *
+	 * @param line           Line number in the capture file, starting at 1.
+	 * @param method         HTTP method.
+	 * @param path           Expanded path.
+	 * @param expectedStatus Recorded status, -1 if the request failed.
+	 * @param actualStatus   Replayed status, -1 if the request failed.
+	 * @param expectedHash   Recorded response body hash.
+	 * @param actualHash     Replayed response body hash.
+	 * @param error          Replay failure, or null.
+	 */
+	public record Mismatch(long line, String method, String path, int expectedStatus, int actualStatus,
+			String expectedHash, String actualHash, String error) {
+	}
+
+	/**
+	 * Outcome of a replay.
+	 *
+	 * @param total            Requests replayed.
+	 * @param matched          Requests with the recorded status and body.
+	 * @param statusMismatches Requests with a different status.
+	 * @param bodyMismatches   Requests with the recorded status but another body.
+	 * @param errors           Requests that failed without a response.
+	 * @param elapsed          Wall-clock duration of the replay.
+	 * @param mismatches       The first 100 mismatches.
+	 */
+	public record Report(long total, long matched, long statusMismatches, long bodyMismatches, long errors,
+			Duration elapsed, List<Mismatch> mismatches) {
+
+		public boolean allMatched() {
+			return matched == total;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder out = new StringBuilder();
+			out.append(String.format("Replayed %d requests in %d ms: %d matched, %d status and %d body mismatches, "
+					+ "%d errors", total, elapsed.toMillis(), matched, statusMismatches, bodyMismatches, errors));
+			for (Mismatch mismatch : mismatches) {
+				out.append(System.lineSeparator()).append("  ").append(mismatch);
+			}
+			return out.toString();
+		}
+	}
+
+	private final Path file;
+	private final double speed;
+	private final int maxInFlight;
+	private final Map<String, String> extraHeaders;
+
+	/**
+	 * Constructor for TrafficReplayer with the original timing and up to 64
+	 * requests in flight.
+	 *
+	 * @param file Capture file written by TrafficRecorder.
+	 */
+	public TrafficReplayer(Path file) {
+		this(file, 1, 64, Map.of());
+	}
+
+	private TrafficReplayer(Path file, double speed, int maxInFlight, Map<String, String> extraHeaders) {
+		if (!(speed > 0)) {
+			throw new IllegalArgumentException("Speed must be positive: " + speed);
+		}
+		if (maxInFlight < 1) {
+			throw new IllegalArgumentException("maxInFlight must be at least 1: " + maxInFlight);
+		}
+		this.file = file;
+		this.speed = speed;
+		this.maxInFlight = maxInFlight;
+		this.extraHeaders = Map.copyOf(extraHeaders);
+	}
+
+	/**
+	 * Returns a copy replaying at another speed.
+	 *
+	 * @param speed Time compression factor: 1 for the original timing, or
+	 *              {@link #AS_FAST_AS_POSSIBLE}.
+	 * @return TrafficReplayer - the new replayer
+	 */
+	public TrafficReplayer withSpeed(double speed) {
+		return new TrafficReplayer(file, speed, maxInFlight, extraHeaders);
+	}
+
+	/**
+	 * Returns a copy with another concurrency limit. Use 1 when responses
+	 * depend on the order of the requests, e.g. generated IDs.
+	 *
+	 * @param maxInFlight Maximum outstanding requests.
+	 * @return TrafficReplayer - the new replayer
+	 */
+	public TrafficReplayer withMaxInFlight(int maxInFlight) {
+		return new TrafficReplayer(file, speed, maxInFlight, extraHeaders);
+	}
+
+	/**
+	 * Returns a copy that adds headers to every request, e.g. the
+	 * Authorization header the recorder redacted.
+	 *
+	 * @param headers Headers overriding the recorded ones.
+	 * @return TrafficReplayer - the new replayer
+	 */
+	public TrafficReplayer withHeaders(Map<String, String> headers) {
+		return new TrafficReplayer(file, speed, maxInFlight, headers);
+	}
+
+	/**
+	 * Replays the capture file and blocks until every request completed.
+	 *
+	 * @param handler Handler for the target base URL.
+	 * @return Report - the comparison results
+	 */
+	public Report replay(RequestHandler handler) {
+		LongAdder total = new LongAdder();
+		LongAdder matched = new LongAdder();
+		LongAdder statusMismatches = new LongAdder();
+		LongAdder bodyMismatches = new LongAdder();
+		LongAdder errors = new LongAdder();
+		Queue<Mismatch> mismatches = new ConcurrentLinkedQueue<>();
+		AtomicInteger mismatchCount = new AtomicInteger();
+
+		Semaphore inFlight = new Semaphore(maxInFlight);
+		ExecutorService executor = RequestExecutors.virtualThreadsIfAvailable(maxInFlight);
+		long start = System.nanoTime();
+		try (LineReader reader = new LineReader(file)) {
+			long firstAt = Long.MIN_VALUE;
+			long line = 0;
+			while (reader.next()) {
+				line++;
+				JsonNode recorded = reader.parse(line);
+				if (recorded == null) {
+					continue;
+				}
+				if (speed != AS_FAST_AS_POSSIBLE) {
+					long at = recorded.path("at").asLong();
+					if (firstAt == Long.MIN_VALUE) {
+						firstAt = at;
+					}
+					long due = start + (long) ((at - firstAt) * 1_000_000 / speed);
+					long wait;
+					while ((wait = due - System.nanoTime()) > 0) {
+						LockSupport.parkNanos(wait);
+					}
+				}
+				inFlight.acquireUninterruptibly();
+				long lineNumber = line;
+				executor.execute(ConfigMapping.propagating(() -> {
+					try {
+						Mismatch mismatch = replayOne(handler, lineNumber, recorded);
+						total.increment();
+						if (mismatch == null) {
+							matched.increment();
+							return;
+						}
+						if (mismatch.error() != null) {
+							errors.increment();
+						}
+						if (mismatch.expectedStatus() != mismatch.actualStatus()) {
+							statusMismatches.increment();
+						} else {
+							bodyMismatches.increment();
+						}
+						if (mismatchCount.incrementAndGet() <= MAX_MISMATCHES) {
+							mismatches.add(mismatch);
+						}
+					} finally {
+						inFlight.release();
+					}
+				}));
+			}
+			inFlight.acquireUninterruptibly(maxInFlight); // Wait for the outstanding requests
+		} finally {
+			executor.shutdown();
+		}
+		List<Mismatch> sorted = new ArrayList<>(mismatches);
+		sorted.sort((a, b) -> Long.compare(a.line(), b.line()));
+		return new Report(total.sum(), matched.sum(), statusMismatches.sum(), bodyMismatches.sum(), errors.sum(),
+				Duration.ofNanos(System.nanoTime() - start), List.copyOf(sorted));
+	}
+
+	// Sends one recorded request; returns null when the response matches
+	private Mismatch replayOne(RequestHandler handler, long line, JsonNode recorded) {
+		String method = recorded.path("method").asText();
+		String path = recorded.path("path").asText();
+		Map<String, String> headers = toMap(recorded.path("headers"));
+		headers.putAll(extraHeaders);
+		Map<String, String> query = toMap(recorded.path("query"));
+		JsonNode body = recorded.path("body");
+		int expectedStatus = recorded.path("status").asInt();
+		String expectedHash = recorded.path("responseHash").asText(null);
+
+		int actualStatus;
+		String actualHash;
+		String error = null;
+		try {
+			EndpointTemplate template = EndpointTemplate.of(recorded.path("template").asText());
+			Response response = handler.request(Method.valueOf(method), template, path, headers,
+					query.isEmpty() ? null : query, body.isTextual() ? body.asText().getBytes(StandardCharsets.UTF_8) : null);
+			actualStatus = response.getStatusCode();
+			actualHash = TrafficRecorder.hash(response.asByteArray());
+		} catch (RuntimeException e) {
+			actualStatus = -1;
+			actualHash = null;
+			error = String.valueOf(e);
+		}
+		boolean matches = actualStatus == expectedStatus
+				&& (actualStatus == -1 || expectedHash == null || expectedHash.equals(actualHash));
+		return matches ? null
+				: new Mismatch(line, method, path, expectedStatus, actualStatus, expectedHash, actualHash, error);
+	}
+
+	private static Map<String, String> toMap(JsonNode object) {
+		Map<String, String> map = new LinkedHashMap<>();
+		object.fields().forEachRemaining(field -> map.put(field.getKey(), field.getValue().asText()));
+		return map;
+	}
+
+	/**
+	 * Reads a file line by line through a sliding memory-mapped window. Lines
+	 * are copied into a reused buffer, which is grown for longer lines.
+	 */
+	private static final class LineReader implements AutoCloseable {
+		private final FileChannel channel;
+		private final long size;
+		private MappedByteBuffer window;
+		private long windowStart;
+		private long position;
+		private byte[] buffer = new byte[8192];
+		private int length;
+
+		private LineReader(Path file) {
+			try {
+				this.channel = FileChannel.open(file, StandardOpenOption.READ);
+				this.size = channel.size();
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to open capture file " + file, e);
+			}
+		}
+
+		// Advances to the next non-blank line; returns false at the end of the file
+		private boolean next() {
+			while (position < size) {
+				if (window == null || position >= windowStart + window.limit()) {
+					map(position, WINDOW_BYTES);
+				}
+				int from = (int) (position - windowStart);
+				int limit = window.limit();
+				int end = from;
+				while (end < limit && window.get(end) != '\n') {
+					end++;
+				}
+				boolean lastLine = windowStart + limit == size;
+				if (end == limit && !lastLine) {
+					map(position, Math.max(WINDOW_BYTES, 2L * (limit - from))); // The line crosses the window
+					continue;
+				}
+				copy(from, end);
+				position = windowStart + end + 1;
+				if (length > 0) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		// Parses the current line; a torn line (e.g. the last one after a crash) is skipped
+		private JsonNode parse(long line) {
+			try {
+				return mapper.readTree(buffer, 0, length);
+			} catch (IOException e) {
+				logger.warn("Skipping unreadable line {} of the capture file", line);
+				return null;
+			}
+		}
+
+		private void copy(int from, int end) {
+			length = end - from;
+			if (length > 0 && window.get(end - 1) == '\r') {
+				length--;
+			}
+			if (buffer.length < length) {
+				buffer = new byte[Math.max(length, buffer.length * 2)];
+			}
+			window.get(from, buffer, 0, length);
+		}
+
+		private void map(long start, long bytes) {
+			try {
+				windowStart = start;
+				window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(Math.min(bytes, Integer.MAX_VALUE), size - start));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Unable to map the capture file", e);
+			}
+		}
+
+		@Override
+		public void close() {
+			try {
+				channel.close();
+			} catch (IOException e) {
+				logger.warn("Unable to close the capture file", e);
+			}
+		}
+	}
+
+	/**
+	 * Replays a capture file from the command line and prints the report.
+	 *
+	 * Usage: TrafficReplayer &lt;capture.jsonl&gt; [base.url] [speed|max]
+	 *
+	 * @param args The capture file, optional target base URL and speed.
+	 */
+	public static void main(String[] args) {
+		if (args.length < 1) {
+			System.err.println("Usage: TrafficReplayer <capture.jsonl> [base.url] [speed|max]");
+			System.exit(2);
+		}
+		String baseUri = args.length > 1 ? args[1] : ConfigMapping.getConfigProperty("base.url");
+		double speed = args.length > 2
+				? ("max".equalsIgnoreCase(args[2]) ? AS_FAST_AS_POSSIBLE : Double.parseDouble(args[2]))
+				: 1;
+		Report report;
+		try (RequestHandler handler = new RequestHandler(baseUri)) {
+			report = new TrafficReplayer(Path.of(args[0])).withSpeed(speed).replay(handler);
+		}
+		System.out.println(report);
+		System.exit(report.allMatched() ? 0 : 1);
+	}
+}
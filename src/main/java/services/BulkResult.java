@@ -0,0 +1,180 @@
+package services;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+/**
+ * BulkResult is the outcome of a UserLib bulk operation: one Item per input
+ * element, in input order, with its status code, latency and either the
+ * response body or the failure (an AssertionError for an unexpected status
+ * code, or the exception thrown by the request).
+ *
+ * A BulkResult of a UserLib with bulk.keepValues=false keeps only the failed
+ * items; the successful ones are counted and recorded in the latency
+ * histogram, so getItems() then returns the failures alone.
+ *
+ * @param <T> type of the value returned for each successful item
+ * @author subramanyamkongani
+ */
+public final class BulkResult<T> {
+
+	// Number of failures listed by assertAllSucceeded()
+	private static final int MAX_REPORTED_FAILURES = 10;
+
+	/**
+	 * The outcome of one input element.
+	 *
+	 * @param index        Position of the element in the input.
+	 * @param statusCode   HTTP status code, or -1 if no response was received.
+	 * @param latencyNanos Time taken by the request.
+	 * @param value        Response body if the status code was as expected.
+	 * @param failure      Assertion or request failure, or null on success.
+	 */
+	public record Item<T>(int index, int statusCode, long latencyNanos, T value, Throwable failure) {
+
+		public boolean succeeded() {
+			return failure == null;
+		}
+	}
+
+	private final List<Item<T>> items;
+	private final int size;
+	private final long succeeded;
+	private final long elapsedNanos;
+	private final Histogram latencies;
+
+	private BulkResult(List<Item<T>> items, int size, long succeeded, long elapsedNanos, Histogram latencies) {
+		this.items = items;
+		this.size = size;
+		this.succeeded = succeeded;
+		this.elapsedNanos = elapsedNanos;
+		this.latencies = latencies;
+	}
+
+	/**
+	 * Returns the kept items in input order: every item, or only the failed
+	 * ones when successful items are not kept.
+	 *
+	 * @return List - the kept items
+	 */
+	public List<Item<T>> getItems() {
+		return items;
+	}
+
+	/**
+	 * Returns the failed items, in input order.
+	 *
+	 * @return List - the failed items
+	 */
+	public List<Item<T>> getFailures() {
+		return items.stream().filter(item -> !item.succeeded()).toList();
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getSucceededCount() {
+		return succeeded;
+	}
+
+	public long getFailedCount() {
+		return size() - getSucceededCount();
+	}
+
+	/**
+	 * Returns the wall-clock time of the whole operation.
+	 *
+	 * @return Duration - the elapsed time
+	 */
+	public Duration getElapsed() {
+		return Duration.ofNanos(elapsedNanos);
+	}
+
+	/**
+	 * Returns the request latency at the given percentile, e.g. 99.
+	 *
+	 * @param percentile Percentile between 0 and 100.
+	 * @return Duration - the latency at that percentile
+	 */
+	public Duration getLatencyPercentile(double percentile) {
+		return Duration.ofNanos(latencies.getValueAtPercentile(percentile) * 1_000);
+	}
+
+	/**
+	 * Returns the completed requests per second.
+	 *
+	 * @return double - the throughput
+	 */
+	public double getThroughput() {
+		return elapsedNanos == 0 ? 0 : size() * 1e9 / elapsedNanos;
+	}
+
+	/**
+	 * Asserts that every item succeeded, listing the first failures otherwise.
+	 *
+	 * @throws AssertionError if any item failed
+	 */
+	public void assertAllSucceeded() {
+		List<Item<T>> failures = getFailures();
+		if (failures.isEmpty()) {
+			return;
+		}
+		StringBuilder message = new StringBuilder(failures.size() + " of " + size() + " bulk items failed:");
+		failures.stream().limit(MAX_REPORTED_FAILURES).forEach(item -> message.append(System.lineSeparator())
+				.append("item ").append(item.index()).append(" (status ").append(item.statusCode()).append("): ")
+				.append(item.failure().getMessage()));
+		AssertionError error = new AssertionError(message.toString());
+		error.initCause(failures.get(0).failure());
+		throw error;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkResult[items=" + size() + ", failed=" + getFailedCount() + ", elapsed=" + getElapsed()
+				+ ", p99=" + getLatencyPercentile(99) + "]";
+	}
+
+	/**
+	 * Collects items from concurrent requests, keeping the successful ones only
+	 * when asked to.
+	 */
+	static final class Collector<T> {
+		private final ConcurrentLinkedQueue<Item<T>> items = new ConcurrentLinkedQueue<>();
+		private final Histogram latencies = new ConcurrentHistogram(3);
+		private final LongAdder size = new LongAdder();
+		private final LongAdder succeeded = new LongAdder();
+		private final boolean keepSucceeded;
+		private final long start = System.nanoTime();
+
+		Collector(boolean keepSucceeded) {
+			this.keepSucceeded = keepSucceeded;
+		}
+
+		void add(Item<T> item) {
+			size.increment();
+			if (item.succeeded()) {
+				succeeded.increment();
+			}
+			if (keepSucceeded || !item.succeeded()) {
+				items.add(item);
+			}
+			latencies.recordValue(Math.max(1, item.latencyNanos() / 1_000));
+		}
+
+		BulkResult<T> finish() {
+			List<Item<T>> sorted = new ArrayList<>(items);
+			sorted.sort(Comparator.comparingInt(Item::index));
+			return new BulkResult<>(Collections.unmodifiableList(sorted), size.intValue(), succeeded.sum(),
+					System.nanoTime() - start, latencies);
+		}
+	}
+}
@@ -1,9 +1,29 @@
 package services;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
 import com.fasterxml.jackson.databind.JsonNode;
+import api.Endpoint;
+import api.Pagination;
 import api.UserApi;
+import config.ConfigMapping;
 import io.restassured.response.Response;
+import metrics.AssertionEvent;
+import metrics.CallProfile;
+import utils.ApiLogger;
+import utils.JsonSchema;
+import utils.JsonSchemas;
 import utils.JsonUtil;
+import utils.StreamingJsonAssert;
 
 import static org.hamcrest.MatcherAssert.assertThat; // For Hamcrest assertions
 import static org.hamcrest.Matchers.equalTo; // For using equalTo matcher
@@ -13,86 +33,543 @@ import constants.StatusCodes; // Import the StatusCodes enum
  * UserLib is a utility class that provides methods to perform operations on
  * user-related data through the UserApi class. It abstracts the complexity of
  * making API calls by providing simple methods for GET, POST, PUT, and DELETE
- * requests, returning JsonNode types.
- * 
+ * requests, returning JsonNode types. Typed overloads, e.g.
+ * getPostById(id, Post.class), bind the response bytes straight to a class
+ * such as the models.Post record without building a JsonNode.
+ *
+ * The *Async variants return CompletableFutures; a failed status check
+ * completes the future exceptionally with the AssertionError.
+ *
+ * The bulk methods (createPosts, updatePosts, deletePosts, getPostsByIds) run
+ * at most bulk.concurrency requests at a time on the RequestHandler's executor.
+ * Input is read lazily, one element per free slot, so a stream of any size is
+ * never held in memory; every item gets the same status check as the single
+ * calls, and failures are collected in the BulkResult instead of thrown.
+ * With bulk.keepValues=false (or setBulkKeepValues(false)) a BulkResult keeps
+ * only the failed items and counts the rest, and successful response bodies
+ * are checked but never parsed into JsonNodes.
+ *
+ * With schema.validation.enabled=true every response body is also validated
+ * against its endpoint's JSON Schema after the status check
+ * (Endpoint.getSchema, compiled once and cached by JsonSchemas), reporting
+ * every violation with its path in one AssertionError. It is off by default.
+ *
+ * Every synchronous call and bulk item is one api.Call JFR event, with the
+ * time spent building, on the network, parsing and asserting (CallProfile).
+ *
+ * Closing a UserLib closes its UserApi and the connections behind it.
+ *
  * @author subramanyamkongani
  */
-public class UserLib {
+public class UserLib implements AutoCloseable {
 
 	private final UserApi userApi; // Instance for UserApi to manage API Interactions
+	private volatile int bulkConcurrency = bulkConcurrencyFromConfig(); // Max in-flight requests per bulk call
+	private volatile boolean bulkKeepValues = bulkKeepValuesFromConfig(); // Keep successful items in a BulkResult
 
 	/**
 	 * Constructor for UserLib Initializes the UserApi instance
 	 */
 	public UserLib() {
-		userApi = new UserApi(); // Initialize UserApi to use its methods
+		this(new UserApi()); // Initialize UserApi to use its methods
+	}
+
+	/**
+	 * Constructor for UserLib using the given UserApi, e.g. one pointing at a
+	 * local stub server.
+	 *
+	 * @param userApi - the UserApi to delegate to
+	 */
+	public UserLib(UserApi userApi) {
+		this.userApi = userApi;
+	}
+
+	/**
+	 * Closes the UserApi, releasing its connection pool.
+	 */
+	@Override
+	public void close() {
+		userApi.close();
 	}
 
 	/**
 	 * Return all Posts from the userApi
-	 * 
+	 *
 	 * @return JsonNode - The API response containing all posts of a json node
 	 */
 	public JsonNode getAllPosts() {
-		Response response = userApi.getAllPosts();
-		assertThat("Status code should be 200", response.getStatusCode(), equalTo(StatusCodes.OK.getCode())); // Directly
-																												// use
-																												// StatusCodes.OK.code
-		return JsonUtil.convertResponseToJsonNode(response);
+		return profiled("getAllPosts", () -> toJsonNode(userApi.getAllPosts(), StatusCodes.OK, Endpoint.GET_POSTS));
+	}
+
+	/**
+	 * Checks the status of the /posts response and returns streaming assertions
+	 * on its body, so large lists can be verified without building a JsonNode
+	 * tree.
+	 *
+	 * Example usage: userLib.assertAllPosts().valueAt("[0].title",
+	 * equalTo(expected)).verify();
+	 *
+	 * @return StreamingJsonAssert - assertions on the posts response body
+	 */
+	public StreamingJsonAssert assertAllPosts() {
+		return profiled("assertAllPosts", () -> {
+			Response response = userApi.getAllPosts();
+			assertStatus(response, StatusCodes.OK);
+			assertSchema(response, Endpoint.GET_POSTS);
+			return StreamingJsonAssert.assertThatJson(response);
+		});
+	}
+
+	/**
+	 * Returns all posts bound to a class.
+	 *
+	 * @param type - the element class, e.g. Post.class
+	 * @return List - the posts
+	 */
+	public <T> List<T> getAllPosts(Class<T> type) {
+		return profiled("getAllPosts", () -> {
+			Response response = userApi.getAllPosts();
+			assertStatus(response, StatusCodes.OK);
+			assertSchema(response, Endpoint.GET_POSTS);
+			return JsonUtil.convertResponseToList(response, type);
+		});
+	}
+
+	/**
+	 * Lazily streams all posts bound to a class, pages of pagination.pageSize
+	 * posts (default 100) at a time with _page/_limit parameters. Unlike
+	 * getAllPosts, memory stays bounded by two pages however large the
+	 * collection is.
+	 *
+	 * @param type - the element class, e.g. Post.class
+	 * @return Stream - the posts, in order
+	 */
+	public <T> Stream<T> streamAllPosts(Class<T> type) {
+		return streamAllPosts(Pagination.pages(pageSizeFromConfig()), type);
+	}
+
+	/**
+	 * Lazily streams all posts with the given pagination style.
+	 *
+	 * @param pagination - how /posts is paged
+	 * @param type       - the element class, e.g. Post.class
+	 * @return Stream - the posts, in order
+	 */
+	public <T> Stream<T> streamAllPosts(Pagination pagination, Class<T> type) {
+		return userApi.streamPosts(pagination, type);
 	}
 
 	public JsonNode getPostsById(int id) {
-		Response response = userApi.getPostById(id);
-		assertThat("Status code should be 200", response.getStatusCode(), equalTo(StatusCodes.OK.getCode())); // Directly
-																												// use
-																												// StatusCodes.OK.code
-		return JsonUtil.convertResponseToJsonNode(response);
+		return profiled("getPostsById",
+				() -> toJsonNode(userApi.getPostById(id), StatusCodes.OK, Endpoint.GET_POST_BY_ID));
+	}
+
+	/**
+	 * Returns the post with the given ID bound to a class.
+	 *
+	 * @param id   - the ID of the post to retrieve
+	 * @param type - the class to bind to, e.g. Post.class
+	 * @return T - the post
+	 */
+	public <T> T getPostById(int id, Class<T> type) {
+		return profiled("getPostById",
+				() -> toType(userApi.getPostById(id), StatusCodes.OK, Endpoint.GET_POST_BY_ID, type));
 	}
 
 	/**
 	 * Creates a new post with the specified body.
-	 * 
+	 *
 	 * @param body - the content of the post to create
 	 * @return JsonNode - the API response after creating the post as a JsonNode
 	 */
 	public JsonNode createPost(Object body) {
-		Response response = userApi.createPost(body); // Call the UserApi method
-		assertThat("Status code should be 201", response.getStatusCode(), equalTo(StatusCodes.CREATED.getCode())); // Directly
-																													// use
-																													// StatusCodes.CREATED.code
-		return JsonUtil.convertResponseToJsonNode(response); // Convert Response to JsonNode
+		return profiled("createPost",
+				() -> toJsonNode(userApi.createPost(body), StatusCodes.CREATED, Endpoint.CREATE_POST));
+	}
+
+	/**
+	 * Creates a new post and binds the created post to a class.
+	 *
+	 * @param body - the content of the post to create
+	 * @param type - the class to bind to, e.g. Post.class
+	 * @return T - the created post
+	 */
+	public <T> T createPost(Object body, Class<T> type) {
+		return profiled("createPost",
+				() -> toType(userApi.createPost(body), StatusCodes.CREATED, Endpoint.CREATE_POST, type));
 	}
 
 	/**
 	 * Updates an existing post identified by its ID.
-	 * 
+	 *
 	 * @param id   - the ID of the post to update
 	 * @param body - the updated content of the post
 	 * @return JsonNode - the API response after updating the post as a JsonNode
 	 */
 	public JsonNode updatePost(int id, Object body) {
-		Response response = userApi.updatePost(id, body); // Call the UserApi method
-		assertThat("Status code should be 200", response.getStatusCode(), equalTo(StatusCodes.OK.getCode())); // Directly
-																												// use
-																												// StatusCodes.OK.code
-		return JsonUtil.convertResponseToJsonNode(response); // Convert Response to JsonNode
+		return profiled("updatePost",
+				() -> toJsonNode(userApi.updatePost(id, body), StatusCodes.OK, Endpoint.UPDATE_POST));
+	}
+
+	/**
+	 * Updates an existing post and binds the updated post to a class.
+	 *
+	 * @param id   - the ID of the post to update
+	 * @param body - the updated content of the post
+	 * @param type - the class to bind to, e.g. Post.class
+	 * @return T - the updated post
+	 */
+	public <T> T updatePost(int id, Object body, Class<T> type) {
+		return profiled("updatePost",
+				() -> toType(userApi.updatePost(id, body), StatusCodes.OK, Endpoint.UPDATE_POST, type));
 	}
 
 	/**
 	 * Deletes a post identified by its ID.
-	 * 
+	 *
 	 * @param id - the ID of the post to delete
 	 * @return JsonNode - the API response after attempting to delete the post as a
 	 *         JsonNode
 	 */
 	public JsonNode deletePost(int id) {
-		Response response = userApi.deletePost(id); // Call the UserApi method
+		return profiled("deletePost", () -> {
+			Response response = userApi.deletePost(id); // Call the UserApi method; ApiLogger logs the response
+			return toJsonNode(response, StatusCodes.NO_CONTENT, Endpoint.DELETE_POST);
+		});
+	}
+
+	/**
+	 * Asynchronously returns all posts.
+	 *
+	 * @return CompletableFuture - completed with all posts as a JsonNode
+	 */
+	public CompletableFuture<JsonNode> getAllPostsAsync() {
+		return userApi.getAllPostsAsync()
+				.thenApply(response -> toJsonNode(response, StatusCodes.OK, Endpoint.GET_POSTS));
+	}
+
+	/**
+	 * Asynchronously returns the post with the given ID.
+	 *
+	 * @param id - the ID of the post to retrieve
+	 * @return CompletableFuture - completed with the post as a JsonNode
+	 */
+	public CompletableFuture<JsonNode> getPostsByIdAsync(int id) {
+		return userApi.getPostByIdAsync(id)
+				.thenApply(response -> toJsonNode(response, StatusCodes.OK, Endpoint.GET_POST_BY_ID));
+	}
+
+	/**
+	 * Asynchronously returns the post with the given ID bound to a class.
+	 *
+	 * @param id   - the ID of the post to retrieve
+	 * @param type - the class to bind to, e.g. Post.class
+	 * @return CompletableFuture - completed with the post
+	 */
+	public <T> CompletableFuture<T> getPostByIdAsync(int id, Class<T> type) {
+		return userApi.getPostByIdAsync(id)
+				.thenApply(response -> toType(response, StatusCodes.OK, Endpoint.GET_POST_BY_ID, type));
+	}
+
+	/**
+	 * Asynchronously creates a new post with the specified body.
+	 *
+	 * @param body - the content of the post to create
+	 * @return CompletableFuture - completed with the created post as a JsonNode
+	 */
+	public CompletableFuture<JsonNode> createPostAsync(Object body) {
+		return userApi.createPostAsync(body)
+				.thenApply(response -> toJsonNode(response, StatusCodes.CREATED, Endpoint.CREATE_POST));
+	}
+
+	/**
+	 * Asynchronously updates an existing post identified by its ID.
+	 *
+	 * @param id   - the ID of the post to update
+	 * @param body - the updated content of the post
+	 * @return CompletableFuture - completed with the updated post as a JsonNode
+	 */
+	public CompletableFuture<JsonNode> updatePostAsync(int id, Object body) {
+		return userApi.updatePostAsync(id, body)
+				.thenApply(response -> toJsonNode(response, StatusCodes.OK, Endpoint.UPDATE_POST));
+	}
 
-		System.out.println("Response Status Code: " + response.getStatusCode());
-		System.out.println("Response Body: " + response.getBody().asString());
-		assertThat("Status code should be 204", response.getStatusCode(), equalTo(StatusCodes.NO_CONTENT.getCode())); // Directly
-																														// use
-																														// StatusCodes.NO_CONTENT.code
+	/**
+	 * Asynchronously deletes a post identified by its ID.
+	 *
+	 * @param id - the ID of the post to delete
+	 * @return CompletableFuture - completed with the delete response as a JsonNode
+	 */
+	public CompletableFuture<JsonNode> deletePostAsync(int id) {
+		return userApi.deletePostAsync(id)
+				.thenApply(response -> toJsonNode(response, StatusCodes.NO_CONTENT, Endpoint.DELETE_POST));
+	}
+
+	/**
+	 * Sets the maximum number of concurrent requests of a bulk operation.
+	 *
+	 * @param concurrency - the maximum number of in-flight requests
+	 */
+	public void setBulkConcurrency(int concurrency) {
+		if (concurrency <= 0) {
+			throw new IllegalArgumentException("Bulk concurrency must be positive: " + concurrency);
+		}
+		this.bulkConcurrency = concurrency;
+	}
+
+	/**
+	 * Sets whether a bulk operation keeps its successful items and their
+	 * response bodies, or only its failures, e.g. false for millions of items
+	 * that are only counted.
+	 *
+	 * @param keepValues - false to keep only the failed items
+	 */
+	public void setBulkKeepValues(boolean keepValues) {
+		this.bulkKeepValues = keepValues;
+	}
+
+	/**
+	 * Creates a post for every body, expecting 201 for each.
+	 *
+	 * @param bodies - the contents of the posts to create
+	 * @return BulkResult - the created posts, failures and timings
+	 */
+	public BulkResult<JsonNode> createPosts(Iterable<?> bodies) {
+		return runBulk(bodies.iterator(), userApi::createPost, StatusCodes.CREATED, Endpoint.CREATE_POST);
+	}
+
+	/**
+	 * Creates a post for every body of a lazily consumed stream, expecting 201
+	 * for each.
+	 *
+	 * @param bodies - the contents of the posts to create
+	 * @return BulkResult - the created posts, failures and timings
+	 */
+	public BulkResult<JsonNode> createPosts(Stream<?> bodies) {
+		try (bodies) {
+			return runBulk(bodies.iterator(), userApi::createPost, StatusCodes.CREATED, Endpoint.CREATE_POST);
+		}
+	}
+
+	/**
+	 * Updates the post of every entry's key with the entry's value, expecting
+	 * 200 for each, e.g. updatePosts(bodiesById.entrySet()).
+	 *
+	 * @param updates - post IDs and their updated contents
+	 * @return BulkResult - the updated posts, failures and timings
+	 */
+	public BulkResult<JsonNode> updatePosts(Iterable<? extends Map.Entry<Integer, ?>> updates) {
+		return runBulk(updates.iterator(), update -> userApi.updatePost(update.getKey(), update.getValue()),
+				StatusCodes.OK, Endpoint.UPDATE_POST);
+	}
+
+	/**
+	 * Updates the post of every entry's key with the entry's value, expecting
+	 * 200 for each.
+	 *
+	 * @param updates - post IDs and their updated contents
+	 * @return BulkResult - the updated posts, failures and timings
+	 */
+	public BulkResult<JsonNode> updatePosts(Stream<? extends Map.Entry<Integer, ?>> updates) {
+		try (updates) {
+			return runBulk(updates.iterator(), update -> userApi.updatePost(update.getKey(), update.getValue()),
+					StatusCodes.OK, Endpoint.UPDATE_POST);
+		}
+	}
+
+	/**
+	 * Deletes every post, expecting 204 for each.
+	 *
+	 * @param ids - the IDs of the posts to delete
+	 * @return BulkResult - the delete responses, failures and timings
+	 */
+	public BulkResult<JsonNode> deletePosts(Iterable<Integer> ids) {
+		return runBulk(ids.iterator(), userApi::deletePost, StatusCodes.NO_CONTENT, Endpoint.DELETE_POST);
+	}
+
+	/**
+	 * Deletes every post, expecting 204 for each.
+	 *
+	 * @param ids - the IDs of the posts to delete
+	 * @return BulkResult - the delete responses, failures and timings
+	 */
+	public BulkResult<JsonNode> deletePosts(Stream<Integer> ids) {
+		try (ids) {
+			return runBulk(ids.iterator(), userApi::deletePost, StatusCodes.NO_CONTENT, Endpoint.DELETE_POST);
+		}
+	}
+
+	/**
+	 * Retrieves every post, expecting 200 for each.
+	 *
+	 * @param ids - the IDs of the posts to retrieve
+	 * @return BulkResult - the posts, failures and timings
+	 */
+	public BulkResult<JsonNode> getPostsByIds(Iterable<Integer> ids) {
+		return runBulk(ids.iterator(), userApi::getPostById, StatusCodes.OK, Endpoint.GET_POST_BY_ID);
+	}
+
+	/**
+	 * Retrieves every post, expecting 200 for each.
+	 *
+	 * @param ids - the IDs of the posts to retrieve
+	 * @return BulkResult - the posts, failures and timings
+	 */
+	public BulkResult<JsonNode> getPostsByIds(Stream<Integer> ids) {
+		try (ids) {
+			return runBulk(ids.iterator(), userApi::getPostById, StatusCodes.OK, Endpoint.GET_POST_BY_ID);
+		}
+	}
+
+	// Runs one call per input with at most bulkConcurrency in flight; the semaphore
+	// also paces how fast the input is read
+	private <I> BulkResult<JsonNode> runBulk(Iterator<I> inputs, Function<I, Response> call, StatusCodes expected,
+			Endpoint endpoint) {
+		int concurrency = bulkConcurrency;
+		boolean keepValues = bulkKeepValues;
+		Semaphore permits = new Semaphore(concurrency);
+		BulkResult.Collector<JsonNode> collector = new BulkResult.Collector<>(keepValues);
+		Executor executor = userApi.getRequestHandler().getExecutor();
+		int index = 0;
+		try {
+			while (inputs.hasNext()) {
+				permits.acquire();
+				I input;
+				try {
+					input = inputs.next();
+				} catch (RuntimeException | Error e) {
+					permits.release();
+					throw e;
+				}
+				int itemIndex = index++;
+				try {
+					executor.execute(ConfigMapping.propagating(() -> {
+						try {
+							collector.add(runItem(itemIndex, input, call, expected, endpoint, keepValues));
+						} finally {
+							permits.release();
+						}
+					}));
+				} catch (RejectedExecutionException e) {
+					permits.release();
+					collector.add(new BulkResult.Item<>(itemIndex, -1, 0, null, e));
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			permits.acquireUninterruptibly(concurrency);
+			throw new IllegalStateException("Interrupted after " + index + " bulk items", e);
+		} catch (RuntimeException | Error e) {
+			// Reading the input failed, e.g. in a lazy stream's mapping function: the items already
+			// started still finish before the failure is rethrown
+			permits.acquireUninterruptibly(concurrency);
+			throw e;
+		}
+		permits.acquireUninterruptibly(concurrency); // Wait for the in-flight requests
+		return collector.finish();
+	}
+
+	// Runs a single bulk item, capturing its status check or request failure; the body is only
+	// converted when the value is kept
+	private static <I> BulkResult.Item<JsonNode> runItem(int index, I input, Function<I, Response> call,
+			StatusCodes expected, Endpoint endpoint, boolean keepValue) {
+		long start = System.nanoTime();
+		int status = -1;
+		CallProfile profile = CallProfile.begin("bulk");
+		try {
+			Response response = call.apply(input);
+			status = response.getStatusCode();
+			long latency = System.nanoTime() - start;
+			JsonNode value = null;
+			if (keepValue) {
+				value = toJsonNode(response, expected, endpoint);
+			} else {
+				assertStatus(response, expected);
+				assertSchema(response, endpoint);
+			}
+			return new BulkResult.Item<>(index, status, latency, value, null);
+		} catch (AssertionError | Exception e) { // Exception: a ConnectException may be thrown undeclared
+			profile.failed(e);
+			return new BulkResult.Item<>(index, status, System.nanoTime() - start, null, e);
+		} finally {
+			profile.close();
+		}
+	}
+
+	// Runs a call as one profiled API call (see CallProfile), recording the error that ended it
+	private static <T> T profiled(String operation, Supplier<T> call) {
+		try (CallProfile profile = CallProfile.begin(operation)) {
+			try {
+				return call.get();
+			} catch (Throwable e) {
+				profile.failed(e);
+				throw e;
+			}
+		}
+	}
+
+	// Asserts the expected status code and schema and converts the response body to a JsonNode
+	private static JsonNode toJsonNode(Response response, StatusCodes expected, Endpoint endpoint) {
+		assertStatus(response, expected);
+		assertSchema(response, endpoint);
 		return JsonUtil.convertResponseToJsonNode(response); // Convert Response to JsonNode
 	}
+
+	// Asserts the expected status code and schema and binds the response body to the type
+	private static <T> T toType(Response response, StatusCodes expected, Endpoint endpoint, Class<T> type) {
+		assertStatus(response, expected);
+		assertSchema(response, endpoint);
+		return JsonUtil.convertResponseToType(response, type);
+	}
+
+	// Asserts the status code; on failure the recent exchanges are logged (log.mode=onFailure)
+	private static void assertStatus(Response response, StatusCodes expected) {
+		AssertionEvent event = AssertionEvent.start();
+		int actual = response.getStatusCode();
+		try {
+			assertThat("Status code should be " + expected.getCode(), actual, equalTo(expected.getCode()));
+		} catch (AssertionError e) {
+			ApiLogger.flushRecent();
+			event.finish(String.valueOf(expected.getCode()), String.valueOf(actual), false);
+			throw e;
+		}
+		ApiLogger.clearRecent();
+		event.finish(String.valueOf(expected.getCode()), String.valueOf(actual), true);
+	}
+
+	// Validates the body against the endpoint's schema in one pass, reporting every violation
+	private static void assertSchema(Response response, Endpoint endpoint) {
+		if (endpoint.getSchema() == null || !schemaValidationFromConfig()) {
+			return;
+		}
+		JsonSchema schema = JsonSchemas.get(endpoint.getSchema());
+		AssertionEvent event = AssertionEvent.start();
+		List<JsonSchema.Violation> violations = schema.validate(response);
+		if (!violations.isEmpty()) {
+			ApiLogger.flushRecent();
+			event.finish(schema.getName(), violations.size() + " violations, first " + violations.get(0), false);
+			throw new AssertionError(schema.describe(violations));
+		}
+		event.finish(schema.getName(), "valid", true);
+	}
+
+	private static boolean schemaValidationFromConfig() {
+		String value = ConfigMapping.getConfigProperty("schema.validation.enabled");
+		return value != null && Boolean.parseBoolean(value.trim());
+	}
+
+	private static int pageSizeFromConfig() {
+		String value = ConfigMapping.getConfigProperty("pagination.pageSize");
+		return value == null || value.isBlank() ? 100 : Integer.parseInt(value.trim());
+	}
+
+	private static boolean bulkKeepValuesFromConfig() {
+		String value = ConfigMapping.getConfigProperty("bulk.keepValues");
+		return value == null || value.isBlank() || Boolean.parseBoolean(value.trim());
+	}
+
+	private static int bulkConcurrencyFromConfig() {
+		String value = ConfigMapping.getConfigProperty("bulk.concurrency");
+		return value == null || value.isBlank() ? 16 : Integer.parseInt(value.trim());
+	}
 }
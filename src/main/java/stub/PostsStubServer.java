@@ -0,0 +1,632 @@
+package stub;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import api.RequestExecutors;
+import constants.StatusCodes;
+
+/**
+ * PostsStubServer is an embeddable HTTP server, built on the JDK HTTP server,
+ * that serves the /posts endpoints used by UserApi from in-memory state. It
+ * starts in milliseconds on a loopback port, so tests and benchmarks can run
+ * offline at local-loopback speed.
+ *
+ * The server is seeded from the payloads/posts.json fixture and padded with
+ * generated posts. Latency, errors and a concurrency capacity can be
+ * injected, and individual routes can be overridden with canned fixtures from
+ * the payloads directory. GET /posts supports _page, _start and _limit paging
+ * as json-server does (with Link and X-Total-Count headers), and cursor paging
+ * with limit and cursor. A client-credentials token endpoint is served at
+ * /oauth/token for tests of the AuthUtil token provider.
+ *
+ * Like most servers, the stub negotiates compression: responses of 256 bytes
+ * and more are gzip- or deflate-encoded when the request's Accept-Encoding
+ * allows it, and gzip or deflate request bodies are decoded (other codings
+ * are answered with 415).
+ *
+ * Start the JVM with -Dsun.net.httpserver.nodelay=true, as the test and
+ * benchmark launchers do; without TCP_NODELAY small responses wait on delayed
+ * ACKs (~40ms per call). The stub does not set the JVM-wide property itself.
+ *
+ * Example usage: try (PostsStubServer stub = PostsStubServer.start(); UserApi
+ * userApi = new UserApi(stub.getBaseUri())) { ... }
+ *
+ * @author subramanyamkongani
+ */
+public class PostsStubServer implements AutoCloseable {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final String POSTS = "/posts";
+	private static final String TOKEN = "/oauth/token";
+	private static final String SEED_FIXTURE = "posts.json";
+	private static final int DEFAULT_SEED_POSTS = 100;
+	private static final int COMPRESSION_MIN_BYTES = 256; // Smaller responses are sent as they are
+
+	/**
+	 * A canned response registered for a single method and path.
+	 */
+	private static final class CannedResponse {
+		private final int status;
+		private final byte[] body;
+
+		private CannedResponse(int status, byte[] body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final int seedPosts;
+	private final ConcurrentNavigableMap<Integer, ObjectNode> posts = new ConcurrentSkipListMap<>();
+	private final AtomicInteger nextId = new AtomicInteger();
+	private final Map<String, CannedResponse> cannedResponses = new ConcurrentHashMap<>();
+	private final AtomicLong requestCount = new AtomicLong();
+	private final AtomicLong tokenRequestCount = new AtomicLong();
+	private final Set<InetSocketAddress> clients = ConcurrentHashMap.newKeySet(); // One address per client connection
+
+	private volatile long latencyMillis; // Fixed delay added to every response
+	private volatile long jitterMillis; // Random extra delay in [0, jitter)
+	private volatile double errorRate; // Fraction of requests answered with errorStatus
+	private volatile int errorStatus = StatusCodes.INTERNAL_SERVER_ERROR.getCode();
+	private final AtomicInteger failuresRemaining = new AtomicInteger(); // Requests still to fail (failNext)
+	private volatile int failureStatus;
+	private volatile Duration failureRetryAfter;
+	private volatile long tokenLifetimeSeconds; // expires_in of issued tokens
+	private volatile int capacity; // Requests served at once before answering 429, 0 = unlimited
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private PostsStubServer(int port, int seedPosts) throws IOException {
+		this.seedPosts = seedPosts;
+		reset();
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		executor = RequestExecutors.virtualThreadsIfAvailable(Runtime.getRuntime().availableProcessors() * 4);
+		server.setExecutor(executor);
+		server.createContext(POSTS, this::handle);
+		server.createContext(TOKEN, this::handleToken);
+		server.start();
+	}
+
+	/**
+	 * Starts a stub on a free loopback port, seeded with 100 posts.
+	 *
+	 * @return PostsStubServer - the running server
+	 */
+	public static PostsStubServer start() {
+		return start(0, DEFAULT_SEED_POSTS);
+	}
+
+	/**
+	 * Starts a stub on the given port.
+	 *
+	 * @param port      Port to listen on, or 0 for any free port.
+	 * @param seedPosts Number of posts available before any request is made.
+	 * @return PostsStubServer - the running server
+	 */
+	public static PostsStubServer start(int port, int seedPosts) {
+		try {
+			return new PostsStubServer(port, seedPosts);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to start the stub server", e);
+		}
+	}
+
+	/**
+	 * Returns the base URL to pass to UserApi or RequestHandler.
+	 *
+	 * @return String - e.g. http://127.0.0.1:54321
+	 */
+	public String getBaseUri() {
+		return "http://127.0.0.1:" + server.getAddress().getPort();
+	}
+
+	/**
+	 * Adds a fixed delay plus a random jitter to every response.
+	 *
+	 * @param latency Fixed delay.
+	 * @param jitter  Maximum additional random delay.
+	 */
+	public void setLatency(Duration latency, Duration jitter) {
+		this.latencyMillis = latency.toMillis();
+		this.jitterMillis = jitter.toMillis();
+	}
+
+	/**
+	 * Answers a fraction of requests with the given error status.
+	 *
+	 * @param rate   Fraction of requests to fail, between 0 and 1.
+	 * @param status Status code of the injected errors.
+	 */
+	public void setErrorRate(double rate, int status) {
+		if (rate < 0 || rate > 1) {
+			throw new IllegalArgumentException("Error rate must be between 0 and 1");
+		}
+		this.errorRate = rate;
+		this.errorStatus = status;
+	}
+
+	/**
+	 * Answers 429 Too Many Requests to every request that arrives while the
+	 * given number are already being served, like a backend that sheds load.
+	 *
+	 * @param maxConcurrent Requests served at once, or 0 for no limit.
+	 */
+	public void setCapacity(int maxConcurrent) {
+		this.capacity = maxConcurrent;
+	}
+
+	/**
+	 * Answers the next requests with an error status, e.g. to exercise retries.
+	 *
+	 * @param requests   Number of requests to fail.
+	 * @param status     Status code of the failures, e.g. 503.
+	 * @param retryAfter Value of the Retry-After header, or null for none.
+	 */
+	public void failNext(int requests, int status, Duration retryAfter) {
+		this.failureStatus = status;
+		this.failureRetryAfter = retryAfter;
+		failuresRemaining.set(requests);
+	}
+
+	/**
+	 * Serves a canned fixture from the payloads directory for one route instead
+	 * of the in-memory state.
+	 *
+	 * @param method  HTTP method, e.g. "GET".
+	 * @param path    Exact request path, e.g. "/posts/1".
+	 * @param status  Status code to answer with.
+	 * @param fixture File name under payloads/, e.g. "updatePostPayload.json".
+	 */
+	public void stubResponse(String method, String path, int status, String fixture) {
+		cannedResponses.put(routeKey(method, path), new CannedResponse(status, readFixture(fixture)));
+	}
+
+	/**
+	 * Sets the lifetime (expires_in) of tokens issued by /oauth/token.
+	 *
+	 * @param lifetime Token lifetime, rounded down to whole seconds.
+	 */
+	public void setTokenLifetime(Duration lifetime) {
+		this.tokenLifetimeSeconds = lifetime.toSeconds();
+	}
+
+	/**
+	 * Returns the URL of the client-credentials token endpoint.
+	 *
+	 * @return String - e.g. http://127.0.0.1:54321/oauth/token
+	 */
+	public String getTokenUri() {
+		return getBaseUri() + TOKEN;
+	}
+
+	/**
+	 * Restores the seed posts and removes injected latency, errors and canned
+	 * responses.
+	 */
+	public void reset() {
+		posts.clear();
+		cannedResponses.clear();
+		tokenLifetimeSeconds = 3600;
+		latencyMillis = 0;
+		jitterMillis = 0;
+		errorRate = 0;
+		capacity = 0;
+		failuresRemaining.set(0);
+		try {
+			for (JsonNode post : mapper.readTree(readFixture(SEED_FIXTURE))) {
+				posts.put(post.get("id").asInt(), (ObjectNode) post);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException("Invalid seed fixture " + SEED_FIXTURE, e);
+		}
+		for (int id = posts.size() + 1; id <= seedPosts; id++) {
+			ObjectNode post = mapper.createObjectNode();
+			post.put("userId", (id - 1) / 10 + 1);
+			post.put("id", id);
+			post.put("title", "post title " + id);
+			post.put("body", "post body " + id);
+			posts.put(id, post);
+		}
+		nextId.set(posts.isEmpty() ? 1 : posts.lastKey() + 1);
+	}
+
+	/**
+	 * Returns the number of posts currently stored.
+	 *
+	 * @return int - the post count
+	 */
+	public int getPostCount() {
+		return posts.size();
+	}
+
+	/**
+	 * Returns the number of requests received since the server started.
+	 *
+	 * @return long - the request count
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	/**
+	 * Returns the number of client connections that sent /posts requests since
+	 * the server started, counted by distinct remote address and port.
+	 *
+	 * @return int - the connection count
+	 */
+	public int getConnectionCount() {
+		return clients.size();
+	}
+
+	/**
+	 * Returns the number of tokens issued since the server started.
+	 *
+	 * @return long - the token request count
+	 */
+	public long getTokenRequestCount() {
+		return tokenRequestCount.get();
+	}
+
+	/**
+	 * Stops the server immediately.
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	// Routes /posts and /posts/{id} requests
+	private void handle(HttpExchange exchange) throws IOException {
+		int limit = capacity;
+		try (exchange) {
+			if (limit > 0 && inFlight.incrementAndGet() > limit) {
+				requestCount.incrementAndGet();
+				exchange.getRequestBody().readAllBytes();
+				send(exchange, StatusCodes.TOO_MANY_REQUESTS.getCode(),
+						mapper.writeValueAsBytes(Map.of("error", "over capacity")));
+				return;
+			}
+			requestCount.incrementAndGet();
+			clients.add(exchange.getRemoteAddress());
+			byte[] requestBody = readBody(exchange);
+			injectLatency();
+			if (requestBody == null) {
+				send(exchange, 415, mapper.writeValueAsBytes(Map.of("error", "unsupported content encoding")));
+				return;
+			}
+
+			String method = exchange.getRequestMethod();
+			String path = exchange.getRequestURI().getPath();
+			CannedResponse canned = cannedResponses.get(routeKey(method, path));
+			if (failuresRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+				Duration retryAfter = failureRetryAfter;
+				if (retryAfter != null) {
+					exchange.getResponseHeaders().set("Retry-After", String.valueOf(retryAfter.toSeconds()));
+				}
+				send(exchange, failureStatus, mapper.writeValueAsBytes(Map.of("error", "injected failure")));
+			} else if (canned != null) {
+				send(exchange, canned.status, canned.body);
+			} else if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+				send(exchange, errorStatus, mapper.writeValueAsBytes(Map.of("error", "injected failure")));
+			} else if (POSTS.equals(path) || (POSTS + "/").equals(path)) {
+				handleCollection(exchange, method, requestBody);
+			} else {
+				handleItem(exchange, method, path.substring(POSTS.length() + 1), requestBody);
+			}
+		} finally {
+			if (limit > 0) {
+				inFlight.decrementAndGet();
+			}
+		}
+	}
+
+	// POST on /oauth/token with a client_credentials form; latency and failNext apply
+	private void handleToken(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			requestCount.incrementAndGet();
+			byte[] requestBody = readBody(exchange);
+			injectLatency();
+			if (requestBody == null) {
+				send(exchange, 415, mapper.writeValueAsBytes(Map.of("error", "unsupported content encoding")));
+				return;
+			}
+			Map<String, String> form = parseForm(requestBody);
+			if (failuresRemaining.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+				send(exchange, failureStatus, mapper.writeValueAsBytes(Map.of("error", "injected failure")));
+			} else if (!"POST".equals(exchange.getRequestMethod())) {
+				send(exchange, 405, null);
+			} else if (!"client_credentials".equals(form.get("grant_type")) || form.get("client_id") == null
+					|| form.get("client_secret") == null) {
+				send(exchange, StatusCodes.BAD_REQUEST.getCode(),
+						mapper.writeValueAsBytes(Map.of("error", "invalid_request")));
+			} else {
+				long n = tokenRequestCount.incrementAndGet();
+				ObjectNode token = mapper.createObjectNode();
+				token.put("access_token", "token-" + form.get("client_id") + "-" + n);
+				token.put("token_type", "Bearer");
+				token.put("expires_in", tokenLifetimeSeconds);
+				if (form.get("scope") != null) {
+					token.put("scope", form.get("scope"));
+				}
+				send(exchange, StatusCodes.OK.getCode(), mapper.writeValueAsBytes(token));
+			}
+		}
+	}
+
+	// GET and POST on /posts
+	private void handleCollection(HttpExchange exchange, String method, byte[] requestBody) throws IOException {
+		switch (method) {
+		case "GET":
+			String rawQuery = exchange.getRequestURI().getRawQuery();
+			if (rawQuery == null) {
+				sendWithEtag(exchange, mapper.writeValueAsBytes(posts.values()));
+			} else {
+				handlePage(exchange, parseForm(rawQuery.getBytes(StandardCharsets.UTF_8)));
+			}
+			break;
+		case "POST":
+			ObjectNode post = parseBody(requestBody);
+			if (post == null) {
+				send(exchange, StatusCodes.BAD_REQUEST.getCode(), null);
+				return;
+			}
+			int id = nextId.getAndIncrement();
+			post.put("id", id);
+			posts.put(id, post);
+			send(exchange, StatusCodes.CREATED.getCode(), mapper.writeValueAsBytes(post));
+			break;
+		default:
+			send(exchange, 405, null);
+		}
+	}
+
+	// Paged GET on /posts: limit[&cursor] answers with an {"items":[...],"nextCursor":...} envelope,
+	// _start[&_limit] with a slice and _page[&_limit] with a slice plus json-server style Link headers
+	private void handlePage(HttpExchange exchange, Map<String, String> query) throws IOException {
+		try {
+			if (query.containsKey("limit")) {
+				int limit = Integer.parseInt(query.get("limit"));
+				String cursor = query.get("cursor");
+				List<ObjectNode> items = posts.tailMap(cursor == null ? Integer.MIN_VALUE : Integer.parseInt(cursor), false)
+						.values().stream().limit(limit).collect(Collectors.toList());
+				Integer last = items.isEmpty() ? null : items.get(items.size() - 1).get("id").asInt();
+				ObjectNode envelope = mapper.createObjectNode();
+				envelope.set("items", mapper.valueToTree(items));
+				envelope.put("nextCursor", last != null && posts.higherKey(last) != null ? String.valueOf(last) : null);
+				send(exchange, StatusCodes.OK.getCode(), mapper.writeValueAsBytes(envelope));
+				return;
+			}
+			int limit = query.containsKey("_limit") ? Integer.parseInt(query.get("_limit")) : 10;
+			int page = query.containsKey("_page") ? Integer.parseInt(query.get("_page")) : 1;
+			long start = query.containsKey("_start") ? Long.parseLong(query.get("_start")) : (page - 1L) * limit;
+			int total = posts.size();
+			List<ObjectNode> items = posts.values().stream().skip(start).limit(limit).collect(Collectors.toList());
+			exchange.getResponseHeaders().set("X-Total-Count", String.valueOf(total));
+			if (!query.containsKey("_start")) {
+				int lastPage = Math.max(1, (total + limit - 1) / limit);
+				StringBuilder link = new StringBuilder();
+				appendLink(link, limit, "first", 1);
+				if (page > 1) {
+					appendLink(link, limit, "prev", page - 1);
+				}
+				if (page < lastPage) {
+					appendLink(link, limit, "next", page + 1);
+				}
+				appendLink(link, limit, "last", lastPage);
+				exchange.getResponseHeaders().set("Link", link.toString());
+			}
+			send(exchange, StatusCodes.OK.getCode(), mapper.writeValueAsBytes(items));
+		} catch (NumberFormatException e) {
+			send(exchange, StatusCodes.BAD_REQUEST.getCode(), mapper.writeValueAsBytes(Map.of("error", "bad paging")));
+		}
+	}
+
+	private void appendLink(StringBuilder link, int limit, String rel, int target) {
+		if (link.length() > 0) {
+			link.append(", ");
+		}
+		link.append('<').append(getBaseUri()).append(POSTS).append("?_page=").append(target).append("&_limit=")
+				.append(limit).append(">; rel=\"").append(rel).append('"');
+	}
+
+	// GET, PUT and DELETE on /posts/{id}
+	private void handleItem(HttpExchange exchange, String method, String idSegment, byte[] requestBody)
+			throws IOException {
+		Integer id = parseId(idSegment);
+		ObjectNode existing = id == null ? null : posts.get(id);
+		if (existing == null) {
+			send(exchange, StatusCodes.NOT_FOUND.getCode(), mapper.writeValueAsBytes(Map.of()));
+			return;
+		}
+		switch (method) {
+		case "GET":
+			sendWithEtag(exchange, mapper.writeValueAsBytes(existing));
+			break;
+		case "PUT":
+			ObjectNode updated = parseBody(requestBody);
+			if (updated == null) {
+				send(exchange, StatusCodes.BAD_REQUEST.getCode(), null);
+				return;
+			}
+			updated.put("id", id);
+			posts.put(id, updated);
+			send(exchange, StatusCodes.OK.getCode(), mapper.writeValueAsBytes(updated));
+			break;
+		case "DELETE":
+			posts.remove(id);
+			send(exchange, StatusCodes.NO_CONTENT.getCode(), null);
+			break;
+		default:
+			send(exchange, 405, null);
+		}
+	}
+
+	private void injectLatency() {
+		long delay = latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0);
+		if (delay > 0) {
+			try {
+				Thread.sleep(delay);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	// Answers a GET with an ETag, or 304 when the client's If-None-Match still matches
+	private static void sendWithEtag(HttpExchange exchange, byte[] body) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(body);
+		String coding = responseCoding(exchange, body);
+		// Each coding is a different representation, so it gets its own tag
+		String etag = "\"" + Long.toHexString(crc.getValue()) + (coding != null ? "-" + coding : "") + "\"";
+		exchange.getResponseHeaders().set("ETag", etag);
+		if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+			exchange.sendResponseHeaders(StatusCodes.NOT_MODIFIED.getCode(), -1);
+			return;
+		}
+		send(exchange, StatusCodes.OK.getCode(), body);
+	}
+
+	// Writes the status, JSON content type and body (or no body when null), compressed when the client accepts it
+	private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		if (body == null || status == StatusCodes.NO_CONTENT.getCode()) {
+			exchange.sendResponseHeaders(status, -1);
+			return;
+		}
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		String coding = responseCoding(exchange, body);
+		if (coding != null) {
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+			try (OutputStream out = coding.equals("gzip") ? new GZIPOutputStream(compressed)
+					: new DeflaterOutputStream(compressed)) {
+				out.write(body);
+			}
+			body = compressed.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", coding);
+			exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+		}
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	// Returns gzip or deflate if the client accepts it and the body is worth compressing, else null
+	private static String responseCoding(HttpExchange exchange, byte[] body) {
+		String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (accept == null || body.length < COMPRESSION_MIN_BYTES) {
+			return null;
+		}
+		boolean deflate = false;
+		for (String token : accept.toLowerCase().split(",")) {
+			String[] parts = token.split(";");
+			String coding = parts[0].trim();
+			if (parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?")) {
+				continue; // Explicitly refused
+			}
+			if (coding.equals("gzip")) {
+				return "gzip";
+			}
+			deflate |= coding.equals("deflate");
+		}
+		return deflate ? "deflate" : null;
+	}
+
+	// Reads the request body, undoing a gzip or deflate Content-Encoding; null for any other coding
+	private static byte[] readBody(HttpExchange exchange) throws IOException {
+		String coding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+		InputStream in = exchange.getRequestBody();
+		if (coding == null || coding.isBlank() || coding.trim().equalsIgnoreCase("identity")) {
+			return in.readAllBytes();
+		}
+		switch (coding.trim().toLowerCase()) {
+		case "gzip":
+			return new GZIPInputStream(in).readAllBytes();
+		case "deflate":
+			return new InflaterInputStream(in).readAllBytes();
+		default:
+			in.readAllBytes();
+			return null;
+		}
+	}
+
+	// Returns the body as an object, or null if it is not a JSON object
+	private static ObjectNode parseBody(byte[] body) {
+		try {
+			JsonNode node = mapper.readTree(body);
+			return node instanceof ObjectNode ? (ObjectNode) node : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	// Parses an application/x-www-form-urlencoded body
+	private static Map<String, String> parseForm(byte[] body) {
+		Map<String, String> form = new HashMap<>();
+		for (String pair : new String(body, StandardCharsets.UTF_8).split("&")) {
+			int eq = pair.indexOf('=');
+			if (eq > 0) {
+				form.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+						URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+			}
+		}
+		return form;
+	}
+
+	private static Integer parseId(String segment) {
+		try {
+			return Integer.valueOf(segment);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static String routeKey(String method, String path) {
+		return method.toUpperCase() + " " + path;
+	}
+
+	// Reads a fixture from payloads/ on the classpath
+	private static byte[] readFixture(String name) {
+		try (InputStream in = PostsStubServer.class.getClassLoader().getResourceAsStream("payloads/" + name)) {
+			if (in == null) {
+				throw new IllegalArgumentException("Fixture not found on classpath: payloads/" + name);
+			}
+			return in.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read fixture payloads/" + name, e);
+		}
+	}
+}
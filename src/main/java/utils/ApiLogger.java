@@ -1,26 +1,275 @@
 package utils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+
+import config.ConfigMapping;
 import io.restassured.response.Response;
 
+/**
+ * ApiLogger logs API requests and responses.
+ *
+ * Entries are rendered by a background writer thread fed through a bounded
+ * queue (entries are dropped and counted when the queue is full). The calling
+ * thread only snapshots what the caller may still change: the header map is
+ * copied, a byte[] body is copied up to log.body.maxChars and any other body
+ * object is converted to text and truncated, so later changes to a reused
+ * map or buffer do not reach the log. No work is done at all when INFO is
+ * disabled, and response bodies are truncated without decoding the rest.
+ *
+ * In "onFailure" mode (log.mode=onFailure) the most recent exchanges are kept
+ * in a per-thread ring buffer of log.ring.size entries and only written when
+ * {@link #flushRecent()} is called, e.g. by UserLib when an assertion fails.
+ *
+ * Supported keys: log.mode (always|onFailure), log.async, log.queue.capacity,
+ * log.body.maxChars, log.ring.size
+ */
 public class ApiLogger {
     private static final Logger logger = LoggerFactory.getLogger(ApiLogger.class);
 
-    public static void logRequest(String method, String uri, Map<String, String> headers, Object body) {
-        logger.info("Request Method: {}", method);
-        logger.info("Request URI: {}", uri);
-        logger.info("Request Headers: {}", headers);
-        if (body != null) {
-            logger.info("Request Body: {}", body);
+    /**
+     * When request/response entries are written.
+     */
+    public enum Mode {
+        ALWAYS, ON_FAILURE
+    }
+
+    private static volatile Mode mode = "onFailure".equalsIgnoreCase(ConfigMapping.getConfigProperty("log.mode"))
+            ? Mode.ON_FAILURE : Mode.ALWAYS;
+    private static volatile int maxBodyChars = intProperty("log.body.maxChars", 2_000);
+    private static final int RING_SIZE = intProperty("log.ring.size", 20);
+    private static final boolean ASYNC = !"false".equalsIgnoreCase(ConfigMapping.getConfigProperty("log.async"));
+
+    private static final BlockingQueue<LogEntry> queue = new ArrayBlockingQueue<>(
+            intProperty("log.queue.capacity", 10_000));
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final ThreadLocal<ArrayDeque<LogEntry>> recent = ThreadLocal.withInitial(ArrayDeque::new);
+
+    static {
+        if (ASYNC) {
+            Thread writer = new Thread(ApiLogger::drainForever, "api-logger");
+            writer.setDaemon(true);
+            writer.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(ApiLogger::flush, "api-logger-flush"));
+        }
+    }
+
+    /**
+     * A captured request or response; rendered lazily by the writer. Request
+     * headers and bodies are snapshotted when the entry is created.
+     */
+    static final class LogEntry {
+        private final String thread = Thread.currentThread().getName();
+        private final String method;
+        private final String baseUri;
+        private final String uri;
+        private final Map<String, String> headers;
+        private final Object body; // Immutable: a String, or a byte[] prefix of bodyLength bytes
+        private final int bodyLength;
+        private final int limit;
+        private final Response response;
+
+        LogEntry(String method, String baseUri, String uri, Map<String, String> headers, Object body,
+                Response response) {
+            this.method = method;
+            this.baseUri = baseUri;
+            this.uri = uri;
+            this.headers = headers == null ? null : new LinkedHashMap<>(headers);
+            this.limit = maxBodyChars;
+            this.response = response;
+            if (body instanceof byte[]) {
+                byte[] bytes = (byte[]) body;
+                this.body = Arrays.copyOf(bytes, Math.min(bytes.length, limit));
+                this.bodyLength = bytes.length;
+            } else if (body != null) {
+                String text = String.valueOf(body);
+                this.body = text.length() <= limit ? text : text.substring(0, limit);
+                this.bodyLength = text.length();
+            } else {
+                this.body = null;
+                this.bodyLength = 0;
+            }
+        }
+
+        String render() {
+            if (response == null) {
+                return "[" + thread + "] Request " + method + " " + (baseUri == null ? uri : baseUri + uri)
+                        + " Headers: " + headers + (body == null ? "" : " Body: " + renderBody());
+            }
+            return "[" + thread + "] Response Status Code: " + response.getStatusCode() + " Headers: "
+                    + response.getHeaders().asList() + " Body: " + truncate(response.asByteArray(), limit);
+        }
+
+        private String renderBody() {
+            if (body instanceof byte[]) {
+                byte[] prefix = (byte[]) body;
+                String text = new String(prefix, StandardCharsets.UTF_8);
+                return prefix.length == bodyLength ? text : text + "... (" + (bodyLength - limit) + " more bytes)";
+            }
+            String text = (String) body;
+            return text.length() == bodyLength ? text : text + "... (" + (bodyLength - limit) + " more chars)";
         }
     }
 
+    public static void logRequest(String method, String uri, Map<String, String> headers, Object body) {
+        record(method, null, uri, headers, body, null);
+    }
+
+    /**
+     * Logs a request whose URL is only concatenated from the base URI and path
+     * when the entry is written.
+     */
+    public static void logRequest(String method, String baseUri, String path, Map<String, String> headers,
+            Object body) {
+        record(method, baseUri, path, headers, body, null);
+    }
+
     public static void logResponse(Response response) {
-        logger.info("Response Status Code: {}", response.getStatusCode());
-        logger.info("Response Body: {}", response.getBody().asString());
-        logger.info("Response Headers: {}", response.getHeaders());
+        record(null, null, null, null, null, response);
+    }
+
+    /**
+     * Writes the calling thread's recent exchanges (onFailure mode) at ERROR
+     * level and clears them. Does nothing in ALWAYS mode.
+     */
+    public static void flushRecent() {
+        ArrayDeque<LogEntry> entries = recent.get();
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<LogEntry> snapshot = new ArrayList<>(entries);
+        entries.clear();
+        logger.error("Recent API exchanges before the failure:");
+        snapshot.forEach(entry -> logger.error(entry.render()));
+    }
+
+    /**
+     * Discards the calling thread's recent exchanges, e.g. after a test passed.
+     */
+    public static void clearRecent() {
+        recent.get().clear();
+    }
+
+    /**
+     * Writes every queued entry on the calling thread.
+     */
+    public static void flush() {
+        LogEntry entry;
+        while ((entry = queue.poll()) != null) {
+            write(entry);
+        }
+    }
+
+    /**
+     * Returns the number of entries dropped because the queue was full.
+     *
+     * @return long - the dropped entry count
+     */
+    public static long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public static Mode getMode() {
+        return mode;
+    }
+
+    public static void setMode(Mode newMode) {
+        mode = newMode;
+    }
+
+    public static int getMaxBodyChars() {
+        return maxBodyChars;
+    }
+
+    public static void setMaxBodyChars(int chars) {
+        maxBodyChars = chars;
+    }
+
+    // Applies the mode and level gates before anything is captured
+    private static void record(String method, String baseUri, String uri, Map<String, String> headers, Object body,
+            Response response) {
+        if (mode == Mode.ON_FAILURE) {
+            if (!logger.isErrorEnabled()) {
+                return;
+            }
+            ArrayDeque<LogEntry> entries = recent.get();
+            if (entries.size() == RING_SIZE) {
+                entries.removeFirst();
+            }
+            entries.addLast(new LogEntry(method, baseUri, uri, headers, body, response));
+            return;
+        }
+        if (!logger.isInfoEnabled()) {
+            return; // Level gate: no formatting, no body access
+        }
+        LogEntry entry = new LogEntry(method, baseUri, uri, headers, body, response);
+        if (!ASYNC) {
+            write(entry);
+        } else {
+            enqueue(queue, entry);
+        }
+    }
+
+    // Hands an entry to the writer, counting it as dropped when the queue is full
+    static boolean enqueue(BlockingQueue<LogEntry> target, LogEntry entry) {
+        if (target.offer(entry)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    private static void write(LogEntry entry) {
+        try {
+            logger.info(entry.render());
+        } catch (RuntimeException e) {
+            logger.warn("Unable to log API exchange", e);
+        }
+    }
+
+    // Background writer loop
+    private static void drainForever() {
+        long reportedDrops = 0;
+        while (true) {
+            try {
+                LogEntry entry = queue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+                long drops = dropped.get();
+                if (drops != reportedDrops) {
+                    logger.warn("{} API log entries dropped because the log queue was full", drops - reportedDrops);
+                    reportedDrops = drops;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // Decodes at most limit bytes of the body
+    private static String truncate(byte[] body, int limit) {
+        if (body.length <= limit) {
+            return new String(body, StandardCharsets.UTF_8);
+        }
+        return new String(body, 0, limit, StandardCharsets.UTF_8) + "... (" + (body.length - limit) + " more bytes)";
+    }
+
+    private static int intProperty(String key, int defaultValue) {
+        String value = ConfigMapping.getConfigProperty(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
     }
 }
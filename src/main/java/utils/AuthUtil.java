@@ -1,5 +1,357 @@
 package utils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import api.Transport;
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+
+/**
+ * AuthUtil is a caching token provider. Tokens are cached per credentials
+ * (client id, secret and scope) together with an immutable, prebuilt header
+ * map, so the hot path is a single map lookup.
+ *
+ * A token is refreshed in the background once a configurable fraction of its
+ * lifetime remains (auth.refreshAhead, default 0.2): either by a scheduled
+ * refresh if it was used since it was issued, or by the first caller that
+ * sees it stale, who keeps using the still valid token meanwhile. Concurrent
+ * misses for the same credentials share a single token request, and callers
+ * without a usable token wait for it at most auth.timeoutMs (default 30000).
+ *
+ * Example usage: Map<String, String> headers =
+ * AuthUtil.getDefault().getAuthHeaders(credentials);
+ *
+ * @author subramanyamkongani
+ */
 public class AuthUtil {
 
+	private static final Logger logger = LoggerFactory.getLogger(AuthUtil.class);
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final long MAX_EXPIRY_SKEW_NANOS = TimeUnit.SECONDS.toNanos(5);
+	private static final Duration DEFAULT_FETCH_TIMEOUT = Duration.ofSeconds(30);
+	private static final Map<String, String> FORM_HEADERS = Map.of("Content-Type",
+			"application/x-www-form-urlencoded", "Accept", "application/json");
+
+	// Schedules proactive refreshes; the token requests themselves run on it too
+	private static final ScheduledExecutorService REFRESHER = refresher();
+
+	private static volatile AuthUtil defaultProvider;
+
+	/**
+	 * Client credentials identifying a cached token. The secret is never
+	 * printed.
+	 */
+	public record Credentials(String clientId, String clientSecret, String scope) {
+
+		public Credentials {
+			Objects.requireNonNull(clientId, "clientId");
+			Objects.requireNonNull(clientSecret, "clientSecret");
+		}
+
+		@Override
+		public String toString() {
+			return clientId + (scope == null ? "" : " [" + scope + "]");
+		}
+	}
+
+	/**
+	 * An access token and the lifetime it was issued with.
+	 */
+	public record Token(String value, Duration expiresIn) {
+	}
+
+	/**
+	 * Obtains a new token from the authorization server.
+	 */
+	@FunctionalInterface
+	public interface TokenFetcher {
+		Token fetch(Credentials credentials);
+	}
+
+	// A cached token with its prebuilt headers; times are System.nanoTime based
+	private static final class CachedToken {
+		private final Token token;
+		private final Map<String, String> headers;
+		private final long refreshAt;
+		private final long usableUntil;
+		private volatile boolean used;
+
+		private CachedToken(Token token, long issuedAt, double refreshAhead) {
+			this.token = token;
+			this.headers = HeaderUtil.getAuthHeaders(token.value());
+			long lifetime = token.expiresIn().toNanos();
+			long ahead = (long) (lifetime * refreshAhead);
+			this.refreshAt = issuedAt + lifetime - ahead;
+			this.usableUntil = issuedAt + lifetime - Math.min(MAX_EXPIRY_SKEW_NANOS, ahead / 2);
+		}
+	}
+
+	private final TokenFetcher fetcher;
+	private final double refreshAhead;
+	private final long fetchTimeoutNanos; // Longest wait of a caller for a token request
+	private final Map<Credentials, CachedToken> tokens = new ConcurrentHashMap<>();
+	private final Map<Credentials, CompletableFuture<CachedToken>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * Constructor for AuthUtil.
+	 *
+	 * @param fetcher      Obtains new tokens, e.g. {@link #clientCredentials(String)}.
+	 * @param refreshAhead Fraction of the token lifetime, between 0 and 1, left
+	 *                     when the token is refreshed.
+	 */
+	public AuthUtil(TokenFetcher fetcher, double refreshAhead) {
+		this(fetcher, refreshAhead, DEFAULT_FETCH_TIMEOUT);
+	}
+
+	/**
+	 * Constructor for AuthUtil with a bound on how long callers without a
+	 * usable token wait for it.
+	 *
+	 * @param fetcher      Obtains new tokens, e.g. {@link #clientCredentials(String)}.
+	 * @param refreshAhead Fraction of the token lifetime, between 0 and 1, left
+	 *                     when the token is refreshed.
+	 * @param fetchTimeout Longest wait for a token request.
+	 */
+	public AuthUtil(TokenFetcher fetcher, double refreshAhead, Duration fetchTimeout) {
+		if (refreshAhead < 0 || refreshAhead >= 1) {
+			throw new IllegalArgumentException("refreshAhead must be in [0, 1): " + refreshAhead);
+		}
+		if (fetchTimeout.isNegative() || fetchTimeout.isZero()) {
+			throw new IllegalArgumentException("fetchTimeout must be positive: " + fetchTimeout);
+		}
+		this.fetcher = Objects.requireNonNull(fetcher, "fetcher");
+		this.refreshAhead = refreshAhead;
+		this.fetchTimeoutNanos = fetchTimeout.toNanos();
+	}
+
+	/**
+	 * Returns the shared provider for the auth.token.url endpoint, created on
+	 * first use.
+	 *
+	 * @return AuthUtil - the shared provider
+	 */
+	public static AuthUtil getDefault() {
+		AuthUtil provider = defaultProvider;
+		if (provider == null) {
+			synchronized (AuthUtil.class) {
+				provider = defaultProvider;
+				if (provider == null) {
+					String tokenUrl = ConfigMapping.getConfigProperty("auth.token.url");
+					if (tokenUrl == null) {
+						throw new IllegalStateException("auth.token.url is not configured");
+					}
+					String refreshAhead = ConfigMapping.getConfigProperty("auth.refreshAhead");
+					String timeoutMs = ConfigMapping.getConfigProperty("auth.timeoutMs");
+					provider = new AuthUtil(clientCredentials(tokenUrl),
+							refreshAhead == null ? 0.2 : Double.parseDouble(refreshAhead.trim()),
+							timeoutMs == null ? DEFAULT_FETCH_TIMEOUT
+									: Duration.ofMillis(Long.parseLong(timeoutMs.trim())));
+					defaultProvider = provider;
+				}
+			}
+		}
+		return provider;
+	}
+
+	/**
+	 * Returns the credentials from the auth.client.id, auth.client.secret and
+	 * auth.scope properties.
+	 *
+	 * @return Credentials - the configured credentials
+	 */
+	public static Credentials configuredCredentials() {
+		String clientId = ConfigMapping.getConfigProperty("auth.client.id");
+		String clientSecret = ConfigMapping.getConfigProperty("auth.client.secret");
+		if (clientId == null || clientSecret == null) {
+			throw new IllegalStateException("auth.client.id and auth.client.secret must be configured");
+		}
+		return new Credentials(clientId, clientSecret, ConfigMapping.getConfigProperty("auth.scope"));
+	}
+
+	/**
+	 * Creates a fetcher for an OAuth 2.0 client-credentials token endpoint,
+	 * sending with the http.* connection and timeout settings.
+	 *
+	 * @param tokenUrl URL of the token endpoint.
+	 * @return TokenFetcher - the fetcher
+	 */
+	public static TokenFetcher clientCredentials(String tokenUrl) {
+		return clientCredentials(tokenUrl, HttpClientSettings.fromConfig());
+	}
+
+	/**
+	 * Creates a fetcher for an OAuth 2.0 client-credentials token endpoint. It
+	 * sends on its own pooled Transport (http.transport) with the given
+	 * timeouts, bypassing the request listeners so that client secrets are
+	 * never recorded.
+	 *
+	 * @param tokenUrl URL of the token endpoint.
+	 * @param settings Connection pool and timeout settings of the token requests.
+	 * @return TokenFetcher - the fetcher
+	 */
+	public static TokenFetcher clientCredentials(String tokenUrl, HttpClientSettings settings) {
+		URI uri = URI.create(tokenUrl);
+		Transport transport = Transport.fromConfig(uri.getScheme() + "://" + uri.getRawAuthority(), settings);
+		String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+		return credentials -> {
+			StringBuilder form = new StringBuilder("grant_type=client_credentials");
+			appendFormParam(form, "client_id", credentials.clientId());
+			appendFormParam(form, "client_secret", credentials.clientSecret());
+			if (credentials.scope() != null) {
+				appendFormParam(form, "scope", credentials.scope());
+			}
+			Response response = transport
+					.send(new Transport.Request(Method.POST, path, FORM_HEADERS, null, form.toString()), null);
+			if (response.getStatusCode() != 200) {
+				throw new IllegalStateException(
+						"Token request for " + credentials + " failed with status " + response.getStatusCode());
+			}
+			try {
+				JsonNode json = mapper.readTree(response.asByteArray());
+				String value = json.path("access_token").asText(null);
+				if (value == null) {
+					throw new IllegalStateException("Token response for " + credentials + " has no access_token");
+				}
+				return new Token(value, Duration.ofSeconds(json.path("expires_in").asLong(3600)));
+			} catch (IOException e) {
+				throw new UncheckedIOException("Invalid token response for " + credentials, e);
+			}
+		};
+	}
+
+	/**
+	 * Returns a valid access token, fetching one only if none is cached.
+	 *
+	 * @param credentials Credentials to authenticate with.
+	 * @return String - the access token
+	 */
+	public String getToken(Credentials credentials) {
+		return current(credentials).token.value();
+	}
+
+	/**
+	 * Returns the default headers plus a Bearer Authorization header for the
+	 * credentials. The map is immutable and shared by all callers until the
+	 * token is refreshed.
+	 *
+	 * @param credentials Credentials to authenticate with.
+	 * @return Map - the immutable headers
+	 */
+	public Map<String, String> getAuthHeaders(Credentials credentials) {
+		return current(credentials).headers;
+	}
+
+	/**
+	 * Drops the cached token, e.g. after the server rejected it with 401.
+	 *
+	 * @param credentials Credentials whose token to drop.
+	 */
+	public void invalidate(Credentials credentials) {
+		tokens.remove(credentials);
+	}
+
+	private CachedToken current(Credentials credentials) {
+		CachedToken cached = tokens.get(credentials);
+		long now = System.nanoTime();
+		if (cached != null && now - cached.usableUntil < 0) {
+			cached.used = true;
+			if (now - cached.refreshAt >= 0) {
+				refresh(credentials); // Stale: refresh in the background, keep using this one meanwhile
+			}
+			return cached;
+		}
+		try {
+			CachedToken fetched = refresh(credentials).get(fetchTimeoutNanos, TimeUnit.NANOSECONDS);
+			fetched.used = true;
+			return fetched;
+		} catch (TimeoutException e) {
+			// The request keeps running and caches its token for later callers if it completes
+			throw new UncheckedIOException(new SocketTimeoutException("Token request for " + credentials
+					+ " did not complete within " + TimeUnit.NANOSECONDS.toMillis(fetchTimeoutNanos) + " ms"));
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for a token for " + credentials, e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof IOException) {
+				throw new UncheckedIOException((IOException) cause);
+			}
+			throw new IllegalStateException("Token request for " + credentials + " failed", cause);
+		}
+	}
+
+	// Starts a token request unless one is already running for these credentials
+	private CompletableFuture<CachedToken> refresh(Credentials credentials) {
+		CompletableFuture<CachedToken> created = new CompletableFuture<>();
+		CompletableFuture<CachedToken> running = inFlight.putIfAbsent(credentials, created);
+		if (running != null) {
+			return running;
+		}
+		// The request is removed from inFlight before it completes, so callers woken by a
+		// failure start a new request instead of rejoining the failed one
+		REFRESHER.execute(() -> {
+			try {
+				CachedToken fetched = new CachedToken(fetcher.fetch(credentials), System.nanoTime(), refreshAhead);
+				tokens.put(credentials, fetched);
+				scheduleRefresh(credentials, fetched);
+				inFlight.remove(credentials, created);
+				created.complete(fetched);
+			} catch (Exception e) {
+				// A ConnectException may arrive here undeclared, so every failure completes the request
+				logger.warn("Token request for {} failed", credentials, e);
+				inFlight.remove(credentials, created);
+				created.completeExceptionally(e);
+			}
+		});
+		return created;
+	}
+
+	// Refreshes ahead of expiry if the token is still cached and was used
+	private void scheduleRefresh(Credentials credentials, CachedToken token) {
+		REFRESHER.schedule(() -> {
+			if (tokens.get(credentials) == token && token.used) {
+				refresh(credentials);
+			}
+		}, Math.max(0, token.refreshAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+	}
+
+	private static void appendFormParam(StringBuilder form, String name, String value) {
+		form.append('&').append(name).append('=').append(URLEncoder.encode(value, StandardCharsets.UTF_8));
+	}
+
+	private static ScheduledExecutorService refresher() {
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(2, runnable -> {
+			Thread thread = new Thread(runnable, "auth-token-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	}
 }
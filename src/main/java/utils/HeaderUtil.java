@@ -1,36 +1,49 @@
 package utils;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * HeaderUtil is a utility class that manages headers for API requests. It
  * provides methods to retrieve default headers and authentication headers.
+ * The returned maps are immutable, so they can be built once and shared
+ * across threads.
  * 
  * @author subramanyamkongani
  */
 public class HeaderUtil {
 
+	private static final String CONTENT_TYPE = "Content-Type";
+	private static final String JSON = "application/json"; // Default content type for JSON APIs
+	private static final Map<String, String> DEFAULT_HEADERS = Map.of(CONTENT_TYPE, JSON);
+
 	/**
 	 * Retrieves default headers for API requests.
 	 * 
-	 * @return A map containing default headers, including Content-Type.
+	 * @return An immutable map containing default headers, including Content-Type.
 	 */
 	public static Map<String, String> getDefaultHeaders() {
-		Map<String, String> headers = new HashMap<>();
-		headers.put("Content-Type", "application/json"); // Default content type for JSON APIs
-		return headers;
+		return DEFAULT_HEADERS;
 	}
 
 	/**
 	 * Retrieves authentication headers, including the Authorization header.
 	 * 
 	 * @param authToken The token used for Bearer authentication.
-	 * @return A map containing default headers along with the Authorization header.
+	 * @return An immutable map containing default headers along with the
+	 *         Authorization header.
 	 */
 	public static Map<String, String> getAuthHeaders(String authToken) {
-		Map<String, String> headers = getDefaultHeaders(); // Get default headers
-		headers.put("Authorization", "Bearer " + authToken); // Add the Authorization header
-		return headers;
+		return Map.of(CONTENT_TYPE, JSON, "Authorization", "Bearer " + authToken);
+	}
+
+	/**
+	 * Retrieves authentication headers for the configured auth.* credentials
+	 * from the shared token provider, fetching a token only when none is cached.
+	 * 
+	 * @return An immutable map containing default headers along with the
+	 *         Authorization header.
+	 */
+	public static Map<String, String> getAuthHeaders() {
+		return AuthUtil.getDefault().getAuthHeaders(AuthUtil.configuredCredentials());
 	}
 }
@@ -0,0 +1,128 @@
+package utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JsonPathPattern is a compiled path expression such as [0].title,
+ * [*].userId or data.items[*].id, matched against the position of a value
+ * while a JSON document is streamed.
+ *
+ * Supported segments: [n] (array index), [*] (any index), .name or a leading
+ * name (object field), .* (any field). A leading $ is ignored.
+ */
+final class JsonPathPattern {
+
+	private static final int ANY_INDEX = -1;
+	private static final int FIELD = -2;
+	private static final int ANY_FIELD = -3;
+
+	private final String expression;
+	private final int[] indices; // Index, ANY_INDEX, FIELD or ANY_FIELD per segment
+	private final String[] names; // Field name for FIELD segments
+
+	private JsonPathPattern(String expression, int[] indices, String[] names) {
+		this.expression = expression;
+		this.indices = indices;
+		this.names = names;
+	}
+
+	/**
+	 * Parses a path expression.
+	 *
+	 * @param expression e.g. "[0].title"
+	 * @return JsonPathPattern - the compiled pattern
+	 */
+	static JsonPathPattern compile(String expression) {
+		List<Integer> indices = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		String path = expression.startsWith("$") ? expression.substring(1) : expression;
+		int i = 0;
+		while (i < path.length()) {
+			char c = path.charAt(i);
+			if (c == '[') {
+				int end = path.indexOf(']', i);
+				if (end < 0) {
+					throw new IllegalArgumentException("Unclosed [ in path: " + expression);
+				}
+				String index = path.substring(i + 1, end).trim();
+				indices.add("*".equals(index) ? ANY_INDEX : parseIndex(index, expression));
+				names.add(null);
+				i = end + 1;
+			} else {
+				if (c == '.') {
+					i++;
+				}
+				int end = i;
+				while (end < path.length() && path.charAt(end) != '.' && path.charAt(end) != '[') {
+					end++;
+				}
+				String name = path.substring(i, end);
+				if (name.isEmpty()) {
+					throw new IllegalArgumentException("Empty field name in path: " + expression);
+				}
+				indices.add("*".equals(name) ? ANY_FIELD : FIELD);
+				names.add("*".equals(name) ? null : name);
+				i = end;
+			}
+		}
+		return new JsonPathPattern(expression, indices.stream().mapToInt(Integer::intValue).toArray(),
+				names.toArray(new String[0]));
+	}
+
+	/**
+	 * Returns whether the pattern matches the given position exactly.
+	 *
+	 * @param depth        Number of segments in the current position.
+	 * @param pathIndices  Array index per segment, or -1 for object fields.
+	 * @param pathNames    Field name per segment, or null for array elements.
+	 * @return boolean - true if the position matches
+	 */
+	boolean matches(int depth, int[] pathIndices, String[] pathNames) {
+		return depth == indices.length && matchesPrefix(depth, pathIndices, pathNames);
+	}
+
+	/**
+	 * Returns whether a value below the given position could still match, i.e.
+	 * the position is a strict prefix of the pattern.
+	 */
+	boolean canMatchBelow(int depth, int[] pathIndices, String[] pathNames) {
+		return depth < indices.length && matchesPrefix(depth, pathIndices, pathNames);
+	}
+
+	@Override
+	public String toString() {
+		return expression;
+	}
+
+	private boolean matchesPrefix(int depth, int[] pathIndices, String[] pathNames) {
+		for (int i = 0; i < depth; i++) {
+			int segment = indices[i];
+			boolean arrayElement = pathNames[i] == null;
+			if (segment == ANY_INDEX) {
+				if (!arrayElement) {
+					return false;
+				}
+			} else if (segment == ANY_FIELD) {
+				if (arrayElement) {
+					return false;
+				}
+			} else if (segment == FIELD) {
+				if (arrayElement || !names[i].equals(pathNames[i])) {
+					return false;
+				}
+			} else if (!arrayElement || segment != pathIndices[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int parseIndex(String index, String expression) {
+		try {
+			return Integer.parseInt(index);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid index [" + index + "] in path: " + expression);
+		}
+	}
+}
@@ -0,0 +1,757 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.NullNode;
+
+import io.restassured.response.Response;
+
+/**
+ * JsonSchema is a JSON Schema compiled once into a tree of validators, which
+ * is immutable and can be shared by every thread. Validation streams the
+ * document once with Jackson's JsonParser, without building a JsonNode tree,
+ * and reports every violation with the path of the offending value, e.g.
+ * $[3].title: expected string but was integer.
+ *
+ * Supported keywords (draft 2020-12 / draft-07): type, properties, required,
+ * additionalProperties, minProperties, maxProperties, items, minItems,
+ * maxItems, minLength, maxLength, pattern, minimum, maximum,
+ * exclusiveMinimum, exclusiveMaximum, enum, const, allOf, anyOf, oneOf, not
+ * and $ref to #, #/$defs/..., #/definitions/... or another schema file.
+ * Annotations such as title, description and format are ignored; any other
+ * keyword is rejected when the schema is compiled, so a schema is never
+ * silently weaker than it reads. Only values under enum, const and the
+ * combinators are materialized, one subtree at a time.
+ *
+ * Example usage: JsonSchemas.get("posts.json").assertValid(response);
+ *
+ * @author subramanyamkongani
+ */
+public final class JsonSchema {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final int MAX_REPORTED = 50; // Violations listed in an assertion message
+
+	// Type bits; integer is also a number
+	private static final int NULL = 1;
+	private static final int BOOLEAN = 2;
+	private static final int OBJECT = 4;
+	private static final int ARRAY = 8;
+	private static final int NUMBER = 16;
+	private static final int STRING = 32;
+	private static final int INTEGER = 64;
+	private static final Map<String, Integer> TYPES = Map.of("null", NULL, "boolean", BOOLEAN, "object", OBJECT,
+			"array", ARRAY, "number", NUMBER, "string", STRING, "integer", INTEGER);
+
+	private static final Set<String> ANNOTATIONS = Set.of("$schema", "$id", "$comment", "$defs", "definitions",
+			"title", "description", "default", "examples", "format", "readOnly", "writeOnly", "deprecated");
+
+	// Numbers are equal by value, so 1 equals 1.0 in enum and const
+	private static final Comparator<JsonNode> NUMERIC_EQUALITY = (a, b) -> a.equals(b)
+			|| a.isNumber() && b.isNumber() && a.decimalValue().compareTo(b.decimalValue()) == 0 ? 0 : 1;
+
+	/**
+	 * A value that does not match the schema.
+	 *
+	 * @param path    Path of the value, e.g. $[3].title.
+	 * @param message What is wrong with it.
+	 */
+	public record Violation(String path, String message) {
+		@Override
+		public String toString() {
+			return path + ": " + message;
+		}
+	}
+
+	/**
+	 * Target of a $ref: local references are resolved when the schema is
+	 * compiled, references to other files on first use, so files may refer to
+	 * each other.
+	 */
+	private static final class Ref {
+		private final String target;
+		private volatile Node node;
+
+		private Ref(String target) {
+			this.target = target;
+		}
+	}
+
+	/**
+	 * A property named by properties and/or required.
+	 */
+	private static final class Property {
+		private Node schema; // Null when the property is only required
+		private int required = -1; // Index into Node.required
+	}
+
+	/**
+	 * One compiled (sub)schema. Limits are -1 or NaN when absent.
+	 */
+	private final class Node {
+		private boolean never; // The false schema
+		private int types; // 0 = any type
+		private Map<String, Property> properties;
+		private String[] required;
+		private Node additionalProperties; // Null = allowed
+		private int minProperties = -1;
+		private int maxProperties = -1;
+		private Node items;
+		private int minItems = -1;
+		private int maxItems = -1;
+		private int minLength = -1;
+		private int maxLength = -1;
+		private Pattern pattern;
+		private double minimum = Double.NaN;
+		private double maximum = Double.NaN;
+		private double exclusiveMinimum = Double.NaN;
+		private double exclusiveMaximum = Double.NaN;
+		private List<JsonNode> enumValues;
+		private JsonNode constValue;
+		private List<Node> allOf;
+		private List<Node> anyOf;
+		private List<Node> oneOf;
+		private Node not;
+		private Ref ref;
+		private boolean refOnly; // Nothing but a $ref: delegate without materializing
+		private boolean needsTree; // enum, const or a combinator: materialize the value once
+
+		// Validates the value starting at the current token and consumes it
+		void validate(JsonParser parser, JsonToken token, Context context) throws IOException {
+			if (refOnly) {
+				resolve(ref).validate(parser, token, context);
+			} else if (needsTree) {
+				JsonNode value = parser.readValueAsTree();
+				validateTree(value != null ? value : NullNode.getInstance(), context);
+			} else {
+				validateValue(parser, token, context);
+			}
+		}
+
+		// Validates a materialized value, replaying it through a parser for the streaming keywords
+		void validateTree(JsonNode value, Context context) throws IOException {
+			if (refOnly) {
+				resolve(ref).validateTree(value, context);
+				return;
+			}
+			if (enumValues != null && enumValues.stream().noneMatch(candidate -> candidate.equals(NUMERIC_EQUALITY,
+					value))) {
+				context.fail("must be one of " + enumValues + " but was " + value);
+			}
+			if (constValue != null && !constValue.equals(NUMERIC_EQUALITY, value)) {
+				context.fail("must be " + constValue + " but was " + value);
+			}
+			if (ref != null) {
+				resolve(ref).validateTree(value, context);
+			}
+			if (allOf != null) {
+				for (Node schema : allOf) {
+					schema.validateTree(value, context);
+				}
+			}
+			if (anyOf != null && countMatches(anyOf, value, context) == 0) {
+				context.fail("must match at least one of " + anyOf.size() + " anyOf schemas");
+			}
+			if (oneOf != null) {
+				int matches = countMatches(oneOf, value, context);
+				if (matches != 1) {
+					context.fail("must match exactly one of " + oneOf.size() + " oneOf schemas but matched " + matches);
+				}
+			}
+			if (not != null && countMatches(List.of(not), value, context) == 1) {
+				context.fail("must not match the not schema");
+			}
+			try (JsonParser parser = value.traverse(mapper)) {
+				validateValue(parser, parser.nextToken(), context);
+			}
+		}
+
+		// The keywords that are checked while streaming
+		private void validateValue(JsonParser parser, JsonToken token, Context context) throws IOException {
+			if (never) {
+				context.fail("is not allowed");
+				parser.skipChildren();
+				return;
+			}
+			if (types != 0 && !hasType(parser, token)) {
+				context.fail("expected " + typeNames(types) + " but was " + typeNames(typeOf(token)));
+				parser.skipChildren();
+				return;
+			}
+			switch (token) {
+			case START_OBJECT:
+				validateObject(parser, context);
+				break;
+			case START_ARRAY:
+				validateArray(parser, context);
+				break;
+			case VALUE_STRING:
+				if (minLength >= 0 || maxLength >= 0 || pattern != null) {
+					validateString(parser.getText(), context);
+				}
+				break;
+			case VALUE_NUMBER_INT:
+			case VALUE_NUMBER_FLOAT:
+				if (!Double.isNaN(minimum) || !Double.isNaN(maximum) || !Double.isNaN(exclusiveMinimum)
+						|| !Double.isNaN(exclusiveMaximum)) {
+					validateNumber(parser, context);
+				}
+				break;
+			default:
+				break;
+			}
+		}
+
+		private void validateObject(JsonParser parser, Context context) throws IOException {
+			long seen = 0; // Required properties found, as bits, or in seenMany beyond 64
+			boolean[] seenMany = required != null && required.length > 64 ? new boolean[required.length] : null;
+			int count = 0;
+			context.push(false);
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken value = parser.nextToken();
+				count++;
+				context.name(name);
+				Property property = properties != null ? properties.get(name) : null;
+				if (property != null && property.required >= 0) {
+					if (seenMany != null) {
+						seenMany[property.required] = true;
+					} else {
+						seen |= 1L << property.required;
+					}
+				}
+				Node schema = property != null && property.schema != null ? property.schema : additionalProperties;
+				if (schema != null) {
+					schema.validate(parser, value, context);
+				} else {
+					parser.skipChildren();
+				}
+			}
+			context.pop();
+			if (required != null) {
+				for (int i = 0; i < required.length; i++) {
+					if (seenMany != null ? !seenMany[i] : (seen & 1L << i) == 0) {
+						context.fail("is missing required property '" + required[i] + "'");
+					}
+				}
+			}
+			if (minProperties >= 0 && count < minProperties) {
+				context.fail("must have at least " + minProperties + " properties but had " + count);
+			}
+			if (maxProperties >= 0 && count > maxProperties) {
+				context.fail("must have at most " + maxProperties + " properties but had " + count);
+			}
+		}
+
+		private void validateArray(JsonParser parser, Context context) throws IOException {
+			int count = 0;
+			context.push(true);
+			JsonToken token;
+			while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+				context.index(count++);
+				if (items != null) {
+					items.validate(parser, token, context);
+				} else {
+					parser.skipChildren();
+				}
+			}
+			context.pop();
+			if (minItems >= 0 && count < minItems) {
+				context.fail("must have at least " + minItems + " items but had " + count);
+			}
+			if (maxItems >= 0 && count > maxItems) {
+				context.fail("must have at most " + maxItems + " items but had " + count);
+			}
+		}
+
+		private void validateString(String text, Context context) {
+			int length = text.codePointCount(0, text.length());
+			if (minLength >= 0 && length < minLength) {
+				context.fail("must be at least " + minLength + " characters long but was " + length);
+			}
+			if (maxLength >= 0 && length > maxLength) {
+				context.fail("must be at most " + maxLength + " characters long but was " + length);
+			}
+			if (pattern != null && !pattern.matcher(text).find()) {
+				context.fail("must match " + pattern.pattern());
+			}
+		}
+
+		private void validateNumber(JsonParser parser, Context context) throws IOException {
+			double value = parser.getDoubleValue();
+			if (!Double.isNaN(minimum) && value < minimum) {
+				context.fail("must be >= " + format(minimum) + " but was " + parser.getText());
+			}
+			if (!Double.isNaN(maximum) && value > maximum) {
+				context.fail("must be <= " + format(maximum) + " but was " + parser.getText());
+			}
+			if (!Double.isNaN(exclusiveMinimum) && value <= exclusiveMinimum) {
+				context.fail("must be > " + format(exclusiveMinimum) + " but was " + parser.getText());
+			}
+			if (!Double.isNaN(exclusiveMaximum) && value >= exclusiveMaximum) {
+				context.fail("must be < " + format(exclusiveMaximum) + " but was " + parser.getText());
+			}
+		}
+
+		private boolean hasType(JsonParser parser, JsonToken token) throws IOException {
+			int type = typeOf(token);
+			if ((types & type) != 0 || type == INTEGER && (types & NUMBER) != 0) {
+				return true;
+			}
+			// 1.0 is an integer too
+			return token == JsonToken.VALUE_NUMBER_FLOAT && (types & INTEGER) != 0
+					&& parser.getDecimalValue().stripTrailingZeros().scale() <= 0;
+		}
+	}
+
+	/**
+	 * Position and violations of one validation run.
+	 */
+	private static final class Context {
+		private List<Violation> violations = new ArrayList<>();
+		private int depth;
+		private int[] indices = new int[16];
+		private String[] names = new String[16];
+		private boolean[] arrays = new boolean[16];
+
+		void push(boolean array) {
+			if (depth == indices.length) {
+				indices = Arrays.copyOf(indices, depth * 2);
+				names = Arrays.copyOf(names, depth * 2);
+				arrays = Arrays.copyOf(arrays, depth * 2);
+			}
+			arrays[depth++] = array;
+		}
+
+		void pop() {
+			depth--;
+		}
+
+		void name(String name) {
+			names[depth - 1] = name;
+		}
+
+		void index(int index) {
+			indices[depth - 1] = index;
+		}
+
+		// The path is only built for violations
+		void fail(String message) {
+			StringBuilder path = new StringBuilder("$");
+			for (int i = 0; i < depth; i++) {
+				if (arrays[i]) {
+					path.append('[').append(indices[i]).append(']');
+				} else {
+					path.append('.').append(names[i]);
+				}
+			}
+			violations.add(new Violation(path.toString(), message));
+		}
+	}
+
+	private final String name;
+	private final Function<String, JsonSchema> resolver; // Loads the schema files referenced by $ref
+	private final Node root;
+
+	private JsonSchema(String name, JsonNode schema, Function<String, JsonSchema> resolver) {
+		this.name = name;
+		this.resolver = resolver;
+		Compiler compiler = new Compiler(schema);
+		this.root = compiler.compile(schema, "#");
+		compiler.resolveLocalRefs();
+	}
+
+	/**
+	 * Compiles a schema that refers to no other files.
+	 *
+	 * @param name   Name used in messages, e.g. the file name.
+	 * @param schema The schema document.
+	 * @return JsonSchema - the compiled schema
+	 * @throws IllegalArgumentException if the schema uses an unsupported
+	 *                                  keyword or is malformed
+	 */
+	public static JsonSchema compile(String name, JsonNode schema) {
+		return compile(name, schema, file -> {
+			throw new IllegalArgumentException("Schema " + name + " refers to " + file
+					+ ", but no schema files can be loaded; use JsonSchemas");
+		});
+	}
+
+	/**
+	 * Compiles a schema whose references to other files are loaded by the
+	 * resolver on first use.
+	 *
+	 * @param name     Name used in messages, e.g. the file name.
+	 * @param schema   The schema document.
+	 * @param resolver Returns the compiled schema of a referenced file name.
+	 * @return JsonSchema - the compiled schema
+	 */
+	static JsonSchema compile(String name, JsonNode schema, Function<String, JsonSchema> resolver) {
+		return new JsonSchema(name, schema, resolver);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Validates a JSON document.
+	 *
+	 * @param json The document.
+	 * @return List - every violation, empty when the document is valid
+	 */
+	public List<Violation> validate(byte[] json) {
+		try (JsonParser parser = mapper.getFactory().createParser(json)) {
+			return validate(parser);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read JSON", e);
+		}
+	}
+
+	/**
+	 * Validates a JSON document read from a stream, which is not closed.
+	 *
+	 * @param json The document.
+	 * @return List - every violation, empty when the document is valid
+	 */
+	public List<Violation> validate(InputStream json) {
+		try (JsonParser parser = mapper.getFactory().createParser(json)) {
+			return validate(parser);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read JSON", e);
+		}
+	}
+
+	/**
+	 * Validates the body of a response.
+	 *
+	 * @param response The API response.
+	 * @return List - every violation, empty when the body is valid
+	 */
+	public List<Violation> validate(Response response) {
+		return validate(response.asByteArray()); // The buffered body, shared with the logger
+	}
+
+	/**
+	 * Asserts that the body of a response matches the schema.
+	 *
+	 * @param response The API response.
+	 * @throws AssertionError listing the violations
+	 */
+	public void assertValid(Response response) {
+		List<Violation> violations = validate(response);
+		if (!violations.isEmpty()) {
+			throw new AssertionError(describe(violations));
+		}
+	}
+
+	/**
+	 * Describes violations of this schema for an assertion message, listing
+	 * the first 50.
+	 *
+	 * @param violations Violations returned by validate.
+	 * @return String - the message
+	 */
+	public String describe(List<Violation> violations) {
+		StringBuilder message = new StringBuilder("Response does not match schema ").append(name).append(" (")
+				.append(violations.size()).append(violations.size() == 1 ? " violation):" : " violations):");
+		for (int i = 0; i < Math.min(violations.size(), MAX_REPORTED); i++) {
+			message.append(System.lineSeparator()).append("  ").append(violations.get(i));
+		}
+		if (violations.size() > MAX_REPORTED) {
+			message.append(System.lineSeparator()).append("  ... and ").append(violations.size() - MAX_REPORTED)
+					.append(" more");
+		}
+		return message.toString();
+	}
+
+	@Override
+	public String toString() {
+		return "JsonSchema[" + name + "]";
+	}
+
+	private List<Violation> validate(JsonParser parser) throws IOException {
+		Context context = new Context();
+		try {
+			JsonToken token = parser.nextToken();
+			if (token == null) {
+				context.fail("expected a JSON document but the body was empty");
+				return context.violations;
+			}
+			root.validate(parser, token, context);
+			if (parser.nextToken() != null) {
+				context.depth = 0;
+				context.fail("unexpected content after the document");
+			}
+		} catch (JsonParseException e) {
+			context.fail("is not valid JSON: " + e.getOriginalMessage());
+		}
+		return context.violations;
+	}
+
+	// Runs each schema on its own violation list and counts those that passed
+	private static int countMatches(List<Node> schemas, JsonNode value, Context context) throws IOException {
+		List<Violation> violations = context.violations;
+		int matches = 0;
+		try {
+			for (Node schema : schemas) {
+				context.violations = new ArrayList<>();
+				schema.validateTree(value, context);
+				if (context.violations.isEmpty()) {
+					matches++;
+				}
+			}
+		} finally {
+			context.violations = violations;
+		}
+		return matches;
+	}
+
+	private Node resolve(Ref ref) {
+		Node node = ref.node;
+		if (node == null) {
+			// Another file: loaded (and cached) by the resolver on first use
+			node = resolver.apply(ref.target).root;
+			ref.node = node;
+		}
+		return node;
+	}
+
+	private static int typeOf(JsonToken token) {
+		switch (token) {
+		case START_OBJECT:
+			return OBJECT;
+		case START_ARRAY:
+			return ARRAY;
+		case VALUE_STRING:
+			return STRING;
+		case VALUE_NUMBER_INT:
+			return INTEGER;
+		case VALUE_NUMBER_FLOAT:
+			return NUMBER;
+		case VALUE_TRUE:
+		case VALUE_FALSE:
+			return BOOLEAN;
+		default:
+			return NULL;
+		}
+	}
+
+	private static String typeNames(int types) {
+		StringJoiner names = new StringJoiner(" or ");
+		TYPES.entrySet().stream().sorted(Map.Entry.comparingByValue())
+				.filter(type -> (types & type.getValue()) != 0).forEach(type -> names.add(type.getKey()));
+		return names.toString();
+	}
+
+	private static String format(double value) {
+		return value == Math.rint(value) && Math.abs(value) < 1e15 ? String.valueOf((long) value)
+				: String.valueOf(value);
+	}
+
+	/**
+	 * Compiles the nodes of one schema document.
+	 */
+	private final class Compiler {
+		private final JsonNode document;
+		private final Map<String, Node> byPointer = new HashMap<>(); // Compiled targets of local references
+		private final List<Ref> localRefs = new ArrayList<>();
+
+		private Compiler(JsonNode document) {
+			this.document = document;
+		}
+
+		Node compile(JsonNode schema, String pointer) {
+			Node node = new Node();
+			if (schema.isBoolean()) {
+				node.never = !schema.booleanValue();
+				return node;
+			}
+			if (!schema.isObject()) {
+				throw invalid(pointer, "a schema must be an object or a boolean");
+			}
+			boolean onlyRef = true;
+			for (Iterator<Map.Entry<String, JsonNode>> it = schema.fields(); it.hasNext();) {
+				Map.Entry<String, JsonNode> field = it.next();
+				String keyword = field.getKey();
+				JsonNode value = field.getValue();
+				String at = pointer + "/" + keyword;
+				if (!keyword.equals("$ref") && !ANNOTATIONS.contains(keyword)) {
+					onlyRef = false;
+				}
+				switch (keyword) {
+				case "type":
+					node.types = types(value, at);
+					break;
+				case "properties":
+					value.fields().forEachRemaining(property -> property(node, property.getKey()).schema = compile(
+							property.getValue(), at + "/" + property.getKey()));
+					break;
+				case "required":
+					node.required = new String[value.size()];
+					for (int i = 0; i < value.size(); i++) {
+						node.required[i] = value.get(i).asText();
+						property(node, node.required[i]).required = i;
+					}
+					break;
+				case "additionalProperties":
+					node.additionalProperties = value.isBoolean() && value.booleanValue() ? null : compile(value, at);
+					break;
+				case "minProperties":
+					node.minProperties = value.intValue();
+					break;
+				case "maxProperties":
+					node.maxProperties = value.intValue();
+					break;
+				case "items":
+					if (value.isArray()) {
+						throw invalid(at, "tuple items are not supported");
+					}
+					node.items = compile(value, at);
+					break;
+				case "minItems":
+					node.minItems = value.intValue();
+					break;
+				case "maxItems":
+					node.maxItems = value.intValue();
+					break;
+				case "minLength":
+					node.minLength = value.intValue();
+					break;
+				case "maxLength":
+					node.maxLength = value.intValue();
+					break;
+				case "pattern":
+					node.pattern = Pattern.compile(value.asText());
+					break;
+				case "minimum":
+					node.minimum = value.doubleValue();
+					break;
+				case "maximum":
+					node.maximum = value.doubleValue();
+					break;
+				case "exclusiveMinimum":
+					node.exclusiveMinimum = number(value, at);
+					break;
+				case "exclusiveMaximum":
+					node.exclusiveMaximum = number(value, at);
+					break;
+				case "enum":
+					node.enumValues = new ArrayList<>();
+					value.forEach(node.enumValues::add);
+					break;
+				case "const":
+					node.constValue = value;
+					break;
+				case "allOf":
+					node.allOf = compileAll(value, at);
+					break;
+				case "anyOf":
+					node.anyOf = compileAll(value, at);
+					break;
+				case "oneOf":
+					node.oneOf = compileAll(value, at);
+					break;
+				case "not":
+					node.not = compile(value, at);
+					break;
+				case "$ref":
+					node.ref = reference(value.asText(), at);
+					break;
+				default:
+					if (!ANNOTATIONS.contains(keyword)) {
+						throw invalid(at, "unsupported keyword " + keyword);
+					}
+				}
+			}
+			node.refOnly = node.ref != null && onlyRef;
+			node.needsTree = !node.refOnly && (node.ref != null || node.enumValues != null || node.constValue != null
+					|| node.allOf != null || node.anyOf != null || node.oneOf != null || node.not != null);
+			return node;
+		}
+
+		// Compiles the targets of local references, which may add more references
+		void resolveLocalRefs() {
+			for (int i = 0; i < localRefs.size(); i++) {
+				Ref ref = localRefs.get(i);
+				Node target = byPointer.get(ref.target);
+				if (target == null) {
+					JsonNode schema = ref.target.equals("#") ? document : document.at(ref.target.substring(1));
+					if (schema.isMissingNode()) {
+						throw invalid(ref.target, "$ref target not found");
+					}
+					target = ref.target.equals("#") ? root : compile(schema, ref.target);
+					byPointer.put(ref.target, target);
+				}
+				ref.node = target;
+			}
+		}
+
+		private Ref reference(String target, String at) {
+			Ref ref = new Ref(target);
+			if (target.startsWith("#")) {
+				localRefs.add(ref);
+			} else if (target.contains("#")) {
+				throw invalid(at, "references into other files are not supported: " + target);
+			}
+			return ref;
+		}
+
+		private List<Node> compileAll(JsonNode schemas, String at) {
+			List<Node> nodes = new ArrayList<>();
+			for (int i = 0; i < schemas.size(); i++) {
+				nodes.add(compile(schemas.get(i), at + "/" + i));
+			}
+			return nodes;
+		}
+
+		private Property property(Node node, String name) {
+			if (node.properties == null) {
+				node.properties = new HashMap<>();
+			}
+			return node.properties.computeIfAbsent(name, key -> new Property());
+		}
+
+		private int types(JsonNode value, String at) {
+			int types = 0;
+			for (JsonNode type : value.isArray() ? value : List.of(value)) {
+				Integer bit = TYPES.get(type.asText());
+				if (bit == null) {
+					throw invalid(at, "unknown type " + type);
+				}
+				types |= bit;
+			}
+			return types;
+		}
+
+		// Draft 4 used booleans for exclusiveMinimum/Maximum
+		private double number(JsonNode value, String at) {
+			if (!value.isNumber()) {
+				throw invalid(at, "expected a number (draft 6 and later)");
+			}
+			return value.doubleValue();
+		}
+
+		private IllegalArgumentException invalid(String pointer, String message) {
+			return new IllegalArgumentException("Invalid schema " + name + " at " + pointer + ": " + message);
+		}
+	}
+}
@@ -0,0 +1,48 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JsonSchemas loads schema files from the schemas directory on the classpath
+ * and caches their compiled JsonSchema, so each file is read and compiled
+ * once per JVM and shared by every thread validating responses. A $ref to
+ * another file name, e.g. "post.json", is loaded from here on first use.
+ *
+ * @author subramanyamkongani
+ */
+public final class JsonSchemas {
+
+	private static final String SCHEMA_DIR = "schemas/";
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final Map<String, JsonSchema> schemas = new ConcurrentHashMap<>();
+
+	private JsonSchemas() {
+	}
+
+	/**
+	 * Returns the compiled schema for a schema file.
+	 *
+	 * @param fileName File name under schemas/, e.g. "posts.json".
+	 * @return JsonSchema - the cached schema
+	 */
+	public static JsonSchema get(String fileName) {
+		return schemas.computeIfAbsent(fileName, JsonSchemas::load);
+	}
+
+	private static JsonSchema load(String fileName) {
+		try (InputStream in = JsonSchemas.class.getClassLoader().getResourceAsStream(SCHEMA_DIR + fileName)) {
+			if (in == null) {
+				throw new IllegalArgumentException("Schema not found on classpath: " + SCHEMA_DIR + fileName);
+			}
+			return JsonSchema.compile(fileName, mapper.readTree(in), JsonSchemas::get);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read schema " + SCHEMA_DIR + fileName, e);
+		}
+	}
+}
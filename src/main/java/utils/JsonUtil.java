@@ -2,20 +2,35 @@ package utils;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
 import io.restassured.response.Response;
+import metrics.JsonParseEvent;
 
 /**
  * JsonUtil provides methods to work with JSON data.
  * 
+ * Responses are parsed from the body bytes that RequestHandler buffered once,
+ * and typed conversions bind straight to the target class through an
+ * ObjectReader that is created once per type and reused. Each parse is timed
+ * as an api.JsonParse JFR event.
+ * 
  * @author subramanyamkongani
  *
  */
 public class JsonUtil {
-	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final ObjectMapper mapper = new ObjectMapper()
+			.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+	private static final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+	private static final Map<Class<?>, ObjectReader> listReaders = new ConcurrentHashMap<>();
 
 	/**
 	 * Reads a JSON file from the given file path and returns it as a JsonNode.
@@ -40,11 +55,74 @@ public class JsonUtil {
 	 * @return JsonNode - The parsed JSON response, or null if conversion fails.
 	 */
 	public static JsonNode convertResponseToJsonNode(Response response) {
+		byte[] body = response.asByteArray(); // The buffered body, shared with the logger
+		JsonParseEvent event = JsonParseEvent.start();
 		try {
-			return mapper.readTree(response.getBody().asInputStream());
+			return mapper.readTree(body);
 		} catch (IOException e) {
 			e.printStackTrace();
 			return null;
+		} finally {
+			event.finish("JsonNode", body.length);
+		}
+	}
+
+	/**
+	 * Binds the response body to a class, e.g. a record such as models.Post.
+	 * 
+	 * @param response The response object from the api call
+	 * @param type     The class to bind to
+	 * @return T - the bound object, or null for an empty body
+	 * @throws UncheckedIOException if the body does not match the type
+	 */
+	public static <T> T convertResponseToType(Response response, Class<T> type) {
+		return read(readerFor(type), response);
+	}
+
+	/**
+	 * Binds a response body holding a JSON array to a list of the class.
+	 * 
+	 * @param response The response object from the api call
+	 * @param type     The element class to bind to
+	 * @return List - the bound elements, or null for an empty body
+	 * @throws UncheckedIOException if the body does not match the type
+	 */
+	public static <T> List<T> convertResponseToList(Response response, Class<T> type) {
+		return read(listReaderFor(type), response);
+	}
+
+	/**
+	 * Returns the cached reader binding JSON to a class.
+	 * 
+	 * @param type The class to bind to
+	 * @return ObjectReader - the shared, thread-safe reader
+	 */
+	public static ObjectReader readerFor(Class<?> type) {
+		return readers.computeIfAbsent(type, mapper::readerFor);
+	}
+
+	/**
+	 * Returns the cached reader binding a JSON array to a list of a class.
+	 * 
+	 * @param type The element class to bind to
+	 * @return ObjectReader - the shared, thread-safe reader
+	 */
+	public static ObjectReader listReaderFor(Class<?> type) {
+		return listReaders.computeIfAbsent(type, mapper::readerForListOf);
+	}
+
+	private static <T> T read(ObjectReader reader, Response response) {
+		byte[] body = response.asByteArray();
+		if (body.length == 0) {
+			return null;
+		}
+		JsonParseEvent event = JsonParseEvent.start();
+		try {
+			return reader.readValue(body);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to bind the response body with " + reader.getValueType(), e);
+		} finally {
+			event.finish(reader.getValueType().getRawClass().getSimpleName(), body.length);
 		}
 	}
 }
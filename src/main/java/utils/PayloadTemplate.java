@@ -0,0 +1,188 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * PayloadTemplate is a JSON payload compiled once into literal byte segments
+ * and ${name} placeholders, and rendered straight to bytes for
+ * RequestHandler.post/put without parsing the JSON again.
+ *
+ * A placeholder inside a string literal ("title": "${title}") is replaced by
+ * the JSON-escaped text of the value. A bare placeholder ("userId": ${userId})
+ * is replaced by the JSON form of the value: numbers and booleans as is,
+ * strings quoted, null as null and other objects serialized with Jackson.
+ * NaN and infinite numbers have no JSON form and are rejected there.
+ *
+ * Example usage: byte[] body =
+ * PayloadTemplates.get("createPostTemplate.json").render(Map.of("title", "t",
+ * "body", "b", "userId", 7));
+ *
+ * @author subramanyamkongani
+ */
+public final class PayloadTemplate {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private final String name;
+	private final byte[][] literals; // literals[i] precedes placeholder i; one extra trailing literal
+	private final String[] placeholders;
+	private final boolean[] inString; // Whether placeholder i sits inside a JSON string literal
+	private volatile int sizeHint; // Size of the last rendering, used to pre-size the buffer
+
+	private PayloadTemplate(String name, byte[][] literals, String[] placeholders, boolean[] inString) {
+		this.name = name;
+		this.literals = literals;
+		this.placeholders = placeholders;
+		this.inString = inString;
+		int size = 0;
+		for (byte[] literal : literals) {
+			size += literal.length;
+		}
+		this.sizeHint = size + placeholders.length * 16;
+	}
+
+	/**
+	 * Compiles template text.
+	 *
+	 * @param name     Name used in error messages, e.g. the file name.
+	 * @param template The template JSON with ${name} placeholders.
+	 * @return PayloadTemplate - the compiled template
+	 */
+	public static PayloadTemplate compile(String name, String template) {
+		List<byte[]> literals = new ArrayList<>();
+		List<String> placeholders = new ArrayList<>();
+		List<Boolean> inString = new ArrayList<>();
+
+		boolean quoted = false;
+		int literalStart = 0;
+		int i = 0;
+		while (i < template.length()) {
+			char c = template.charAt(i);
+			if (quoted && c == '\\') {
+				i += 2; // Skip the escaped character
+				continue;
+			}
+			if (c == '"') {
+				quoted = !quoted;
+			} else if (c == '$' && i + 1 < template.length() && template.charAt(i + 1) == '{') {
+				int end = template.indexOf('}', i + 2);
+				if (end < 0) {
+					throw new IllegalArgumentException("Unclosed placeholder in payload template " + name);
+				}
+				literals.add(template.substring(literalStart, i).getBytes(StandardCharsets.UTF_8));
+				placeholders.add(template.substring(i + 2, end).trim());
+				inString.add(quoted);
+				literalStart = end + 1;
+				i = end + 1;
+				continue;
+			}
+			i++;
+		}
+		literals.add(template.substring(literalStart).getBytes(StandardCharsets.UTF_8));
+
+		boolean[] flags = new boolean[inString.size()];
+		for (int j = 0; j < flags.length; j++) {
+			flags[j] = inString.get(j);
+		}
+		return new PayloadTemplate(name, literals.toArray(new byte[0][]), placeholders.toArray(new String[0]),
+				flags);
+	}
+
+	/**
+	 * Renders the template with the given values.
+	 *
+	 * @param values Value for every placeholder, by name.
+	 * @return byte[] - the rendered UTF-8 JSON
+	 * @throws IllegalArgumentException if a placeholder has no value, or a bare
+	 *                                  one a NaN or infinite number
+	 */
+	public byte[] render(Map<String, ?> values) {
+		byte[] buffer = new byte[sizeHint];
+		int length = 0;
+		for (int i = 0; i < placeholders.length; i++) {
+			buffer = append(buffer, length, literals[i]);
+			length += literals[i].length;
+			if (!values.containsKey(placeholders[i])) {
+				throw new IllegalArgumentException(
+						"No value for ${" + placeholders[i] + "} in payload template " + name);
+			}
+			Object raw = values.get(placeholders[i]);
+			if (!inString[i] && !isFinite(raw)) {
+				throw new IllegalArgumentException("Value " + raw + " for ${" + placeholders[i]
+						+ "} in payload template " + name + " is not a valid JSON number");
+			}
+			byte[] value = encode(raw, inString[i]);
+			buffer = append(buffer, length, value);
+			length += value.length;
+		}
+		byte[] tail = literals[literals.length - 1];
+		buffer = append(buffer, length, tail);
+		length += tail.length;
+		sizeHint = length;
+		return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+	}
+
+	/**
+	 * Renders a template that has no placeholders.
+	 *
+	 * @return byte[] - the payload bytes
+	 */
+	public byte[] render() {
+		return render(Map.of());
+	}
+
+	/**
+	 * Returns the placeholder names in order of appearance.
+	 *
+	 * @return List - the placeholder names
+	 */
+	public List<String> getPlaceholders() {
+		return List.of(placeholders);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	private static byte[] append(byte[] buffer, int length, byte[] bytes) {
+		if (length + bytes.length > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + bytes.length));
+		}
+		System.arraycopy(bytes, 0, buffer, length, bytes.length);
+		return buffer;
+	}
+
+	// NaN and Infinity would be written as bare tokens that JSON parsers reject
+	private static boolean isFinite(Object value) {
+		if (value instanceof Double) {
+			return Double.isFinite((Double) value);
+		}
+		if (value instanceof Float) {
+			return Float.isFinite((Float) value);
+		}
+		return true;
+	}
+
+	// Encodes a value for its position in the template
+	private static byte[] encode(Object value, boolean inString) {
+		if (inString) {
+			return JsonStringEncoder.getInstance().quoteAsUTF8(String.valueOf(value));
+		}
+		if (value == null || value instanceof Number || value instanceof Boolean) {
+			return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+		}
+		try {
+			return mapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Unable to serialize template value " + value, e);
+		}
+	}
+}
@@ -0,0 +1,45 @@
+package utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PayloadTemplates loads payload files from the payloads directory on the
+ * classpath and caches their compiled PayloadTemplate, so each file is read
+ * and compiled once per JVM no matter how many requests use it.
+ *
+ * @author subramanyamkongani
+ */
+public final class PayloadTemplates {
+
+	private static final String PAYLOAD_DIR = "payloads/";
+	private static final Map<String, PayloadTemplate> templates = new ConcurrentHashMap<>();
+
+	private PayloadTemplates() {
+	}
+
+	/**
+	 * Returns the compiled template for a payload file.
+	 *
+	 * @param fileName File name under payloads/, e.g. "createPostTemplate.json".
+	 * @return PayloadTemplate - the cached template
+	 */
+	public static PayloadTemplate get(String fileName) {
+		return templates.computeIfAbsent(fileName, PayloadTemplates::load);
+	}
+
+	private static PayloadTemplate load(String fileName) {
+		try (InputStream in = PayloadTemplates.class.getClassLoader().getResourceAsStream(PAYLOAD_DIR + fileName)) {
+			if (in == null) {
+				throw new IllegalArgumentException("Payload not found on classpath: " + PAYLOAD_DIR + fileName);
+			}
+			return PayloadTemplate.compile(fileName, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read payload " + PAYLOAD_DIR + fileName, e);
+		}
+	}
+}
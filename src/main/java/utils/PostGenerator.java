@@ -0,0 +1,363 @@
+package utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import config.ConfigMapping;
+
+/**
+ * PostGenerator produces an unbounded, lazily generated sequence of varied
+ * post payloads from a seed. The same seed and rules always give the same
+ * payloads, so a volume run can be reproduced from the seed it logged.
+ *
+ * Payloads are encoded straight to UTF-8 JSON ({"title", "body", "userId"},
+ * plus "id" for updates) in a buffer that each stream reuses, without
+ * Strings, maps or Jackson, and handed out as exact-size byte arrays, the
+ * form RequestHandler sends as is. Only that array is allocated per payload.
+ * Streams are sequential and not thread-safe; the bulk methods of UserLib read
+ * them from a single thread.
+ *
+ * Rules (each with* method returns a copy): title and body lengths in code
+ * points, the userId distribution, the share of non-ASCII characters (Latin-1,
+ * Greek, Cyrillic, CJK and emoji outside the BMP) and the share of characters
+ * JSON has to escape (quote, backslash, newline, tab, control characters).
+ *
+ * Example usage: userLib.createPosts(PostGenerator.seeded(42).withUnicode(0.2)
+ * .stream().limit(1_000_000));
+ *
+ * @author subramanyamkongani
+ */
+public final class PostGenerator {
+	private static final Logger logger = LoggerFactory.getLogger(PostGenerator.class);
+
+	private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] TITLE = "{\"title\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] BODY = "\",\"body\":\"".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] USER_ID = "\",\"userId\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ID = "{\"id\":".getBytes(StandardCharsets.US_ASCII);
+	private static final byte[] ID_TITLE = ",\"title\":\"".getBytes(StandardCharsets.US_ASCII);
+
+	// Code point ranges the non-ASCII characters are drawn from, one range picked uniformly
+	private static final int[][] UNICODE_RANGES = {
+			{ 0x00C0, 0x00FF }, // Latin-1 letters
+			{ 0x03B1, 0x03C9 }, // Greek
+			{ 0x0430, 0x044F }, // Cyrillic
+			{ 0x4E00, 0x9FFF }, // CJK ideographs
+			{ 0x1F600, 0x1F64F } }; // Emoji, encoded as surrogate pairs in UTF-16
+	private static final int[] ESCAPED = { '"', '\\', '\n', '\t', '\r', 0x01 };
+
+	/**
+	 * Distribution of the userId field.
+	 */
+	@FunctionalInterface
+	public interface UserIds {
+
+		/**
+		 * Draws the next userId.
+		 *
+		 * @param random The generator's random source.
+		 * @return int - the userId
+		 */
+		int next(SplittableRandom random);
+
+		/**
+		 * Every userId in [min, max] equally often.
+		 */
+		static UserIds uniform(int min, int max) {
+			if (max < min) {
+				throw new IllegalArgumentException("Empty userId range: " + min + ".." + max);
+			}
+			return random -> random.nextInt(min, max + 1);
+		}
+
+		/**
+		 * userIds 1..users where userId k is drawn in proportion to 1/k^exponent,
+		 * so a few users own most posts, e.g. zipf(1000, 1.1).
+		 */
+		static UserIds zipf(int users, double exponent) {
+			if (users < 1 || exponent <= 0) {
+				throw new IllegalArgumentException("Invalid zipf distribution: " + users + " users, " + exponent);
+			}
+			double[] cumulative = new double[users];
+			double total = 0;
+			for (int k = 1; k <= users; k++) {
+				total += 1 / Math.pow(k, exponent);
+				cumulative[k - 1] = total;
+			}
+			double sum = total;
+			return random -> {
+				int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+				return (index >= 0 ? index : -index - 1) + 1;
+			};
+		}
+
+		/**
+		 * The same userId for every post.
+		 */
+		static UserIds fixed(int userId) {
+			return random -> userId;
+		}
+	}
+
+	private final long seed;
+	private final int titleMin;
+	private final int titleMax;
+	private final int bodyMin;
+	private final int bodyMax;
+	private final UserIds userIds;
+	private final double unicodeRatio;
+	private final double escapeRatio;
+
+	private PostGenerator(long seed, int titleMin, int titleMax, int bodyMin, int bodyMax, UserIds userIds,
+			double unicodeRatio, double escapeRatio) {
+		if (titleMin < 0 || titleMax < titleMin || bodyMin < 0 || bodyMax < bodyMin) {
+			throw new IllegalArgumentException("Invalid lengths: title " + titleMin + ".." + titleMax + ", body "
+					+ bodyMin + ".." + bodyMax);
+		}
+		if (unicodeRatio < 0 || escapeRatio < 0 || unicodeRatio + escapeRatio > 1) {
+			throw new IllegalArgumentException(
+					"Character ratios must be between 0 and 1 in total: " + unicodeRatio + ", " + escapeRatio);
+		}
+		this.seed = seed;
+		this.titleMin = titleMin;
+		this.titleMax = titleMax;
+		this.bodyMin = bodyMin;
+		this.bodyMax = bodyMax;
+		this.userIds = userIds;
+		this.unicodeRatio = unicodeRatio;
+		this.escapeRatio = escapeRatio;
+	}
+
+	/**
+	 * Returns a generator with ASCII titles of 10-60 and bodies of 50-500 code
+	 * points and userIds uniform in 1-10, like the /posts fixtures.
+	 *
+	 * @param seed The seed that determines every payload.
+	 * @return PostGenerator - the generator
+	 */
+	public static PostGenerator seeded(long seed) {
+		return new PostGenerator(seed, 10, 60, 50, 500, UserIds.uniform(1, 10), 0, 0);
+	}
+
+	/**
+	 * Returns a generator seeded with payload.seed (a system property or a
+	 * configuration key), or with a random seed that is logged so the run can be
+	 * repeated with -Dpayload.seed.
+	 *
+	 * @return PostGenerator - the generator
+	 */
+	public static PostGenerator fromConfig() {
+		String value = System.getProperty("payload.seed", ConfigMapping.getConfigProperty("payload.seed"));
+		long seed = value == null || value.isBlank() ? new SplittableRandom().nextLong() : Long.parseLong(value.trim());
+		logger.info("Generating posts with payload.seed={}", seed);
+		return seeded(seed);
+	}
+
+	public PostGenerator withTitleLength(int min, int max) {
+		return new PostGenerator(seed, min, max, bodyMin, bodyMax, userIds, unicodeRatio, escapeRatio);
+	}
+
+	public PostGenerator withBodyLength(int min, int max) {
+		return new PostGenerator(seed, titleMin, titleMax, min, max, userIds, unicodeRatio, escapeRatio);
+	}
+
+	public PostGenerator withUserIds(UserIds distribution) {
+		return new PostGenerator(seed, titleMin, titleMax, bodyMin, bodyMax, distribution, unicodeRatio,
+				escapeRatio);
+	}
+
+	/**
+	 * Returns a copy where the given share of characters is non-ASCII.
+	 *
+	 * @param ratio Share of code points outside ASCII, between 0 and 1.
+	 * @return PostGenerator - the new generator
+	 */
+	public PostGenerator withUnicode(double ratio) {
+		return new PostGenerator(seed, titleMin, titleMax, bodyMin, bodyMax, userIds, ratio, escapeRatio);
+	}
+
+	/**
+	 * Returns a copy where the given share of characters has to be escaped in
+	 * JSON.
+	 *
+	 * @param ratio Share of quotes, backslashes and control characters.
+	 * @return PostGenerator - the new generator
+	 */
+	public PostGenerator withEscapes(double ratio) {
+		return new PostGenerator(seed, titleMin, titleMax, bodyMin, bodyMax, userIds, unicodeRatio, ratio);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * Returns the create payloads, starting from the seed on every call.
+	 *
+	 * @return Stream - an unbounded, ordered stream of payloads
+	 */
+	public Stream<byte[]> stream() {
+		Cursor cursor = new Cursor();
+		return StreamSupport.stream(new Spliterators.AbstractSpliterator<byte[]>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super byte[]> action) {
+				action.accept(cursor.next(-1));
+				return true;
+			}
+		}, false);
+	}
+
+	/**
+	 * Returns update payloads, carrying the id, for the given post IDs, for
+	 * UserLib.updatePosts.
+	 *
+	 * @param ids IDs of the posts to update.
+	 * @return Stream - the IDs with their payloads, generated lazily
+	 */
+	public Stream<Map.Entry<Integer, byte[]>> updates(IntStream ids) {
+		Cursor cursor = new Cursor();
+		return ids.mapToObj(id -> new AbstractMap.SimpleImmutableEntry<>(id, cursor.next(id)));
+	}
+
+	@Override
+	public String toString() {
+		return "PostGenerator[seed=" + seed + ", title=" + titleMin + ".." + titleMax + ", body=" + bodyMin + ".."
+				+ bodyMax + ", unicode=" + unicodeRatio + ", escapes=" + escapeRatio + "]";
+	}
+
+	/**
+	 * The state of one stream: its random source and reusable buffer.
+	 */
+	private final class Cursor {
+		private final SplittableRandom random = new SplittableRandom(seed);
+		private byte[] buffer = new byte[256];
+		private int length;
+
+		// Encodes the next payload; an id of -1 leaves it out
+		byte[] next(int id) {
+			length = 0;
+			if (id >= 0) {
+				write(ID);
+				writeInt(id);
+				write(ID_TITLE);
+			} else {
+				write(TITLE);
+			}
+			writeText(random.nextInt(titleMin, titleMax + 1));
+			write(BODY);
+			writeText(random.nextInt(bodyMin, bodyMax + 1));
+			write(USER_ID);
+			writeInt(userIds.next(random));
+			writeByte('}');
+			return Arrays.copyOf(buffer, length);
+		}
+
+		// Writes words of 1-10 letters separated by spaces, code point by code point
+		private void writeText(int codePoints) {
+			int wordLeft = random.nextInt(1, 11);
+			for (int i = 0; i < codePoints; i++) {
+				if (wordLeft-- == 0 && i < codePoints - 1) {
+					writeByte(' ');
+					wordLeft = random.nextInt(1, 11);
+					continue;
+				}
+				double kind = random.nextDouble();
+				if (kind < unicodeRatio) {
+					int[] range = UNICODE_RANGES[random.nextInt(UNICODE_RANGES.length)];
+					writeCodePoint(random.nextInt(range[0], range[1] + 1));
+				} else if (kind < unicodeRatio + escapeRatio) {
+					writeEscaped(ESCAPED[random.nextInt(ESCAPED.length)]);
+				} else {
+					writeByte('a' + random.nextInt(26));
+				}
+			}
+		}
+
+		private void writeEscaped(int c) {
+			writeByte('\\');
+			switch (c) {
+			case '"':
+			case '\\':
+				writeByte(c);
+				break;
+			case '\n':
+				writeByte('n');
+				break;
+			case '\t':
+				writeByte('t');
+				break;
+			case '\r':
+				writeByte('r');
+				break;
+			default:
+				writeByte('u');
+				writeByte('0');
+				writeByte('0');
+				writeByte(HEX[c >> 4]);
+				writeByte(HEX[c & 0xF]);
+			}
+		}
+
+		private void writeCodePoint(int codePoint) {
+			if (codePoint < 0x800) {
+				writeByte(0xC0 | codePoint >> 6);
+			} else {
+				if (codePoint < 0x10000) {
+					writeByte(0xE0 | codePoint >> 12);
+				} else {
+					writeByte(0xF0 | codePoint >> 18);
+					writeByte(0x80 | (codePoint >> 12 & 0x3F));
+				}
+				writeByte(0x80 | (codePoint >> 6 & 0x3F));
+			}
+			writeByte(0x80 | (codePoint & 0x3F));
+		}
+
+		private void writeInt(int value) {
+			if (value < 0) {
+				writeByte('-');
+				value = -value; // userIds and post IDs never reach Integer.MIN_VALUE
+			}
+			int start = length;
+			do {
+				writeByte('0' + value % 10);
+				value /= 10;
+			} while (value > 0);
+			for (int i = start, j = length - 1; i < j; i++, j--) { // Digits were written backwards
+				byte digit = buffer[i];
+				buffer[i] = buffer[j];
+				buffer[j] = digit;
+			}
+		}
+
+		private void write(byte[] bytes) {
+			ensureCapacity(bytes.length);
+			System.arraycopy(bytes, 0, buffer, length, bytes.length);
+			length += bytes.length;
+		}
+
+		private void writeByte(int b) {
+			ensureCapacity(1);
+			buffer[length++] = (byte) b;
+		}
+
+		private void ensureCapacity(int extra) {
+			if (length + extra > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+			}
+		}
+	}
+}
@@ -0,0 +1,381 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.hamcrest.Matcher;
+import org.hamcrest.StringDescription;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.restassured.response.Response;
+
+/**
+ * StreamingJsonAssert evaluates assertions on a JSON document in a single pass
+ * over Jackson's streaming JsonParser, without building a JsonNode tree for the
+ * whole document. Subtrees that no assertion can match are skipped, and
+ * parsing stops as soon as every assertion is decided.
+ *
+ * Example usage: StreamingJsonAssert.assertThatJson(response)
+ * .valueAt("[0].title", equalTo("qui est esse"))
+ * .allMatch("[*].userId", greaterThan(0))
+ * .count("[*]", equalTo(100))
+ * .verify();
+ *
+ * Paths use [n], [*], .name and .* segments (see JsonPathPattern). Scalars are
+ * passed to matchers as String, Integer/Long/BigInteger, Double, Boolean or
+ * null; an object or array matched by valueAt/allMatch/anyMatch is passed as
+ * a JsonNode of just that subtree.
+ *
+ * @author subramanyamkongani
+ */
+public final class StreamingJsonAssert {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	private enum Kind {
+		VALUE_AT, ALL_MATCH, ANY_MATCH, COUNT
+	}
+
+	/**
+	 * A single assertion and its evaluation state.
+	 */
+	private static final class Check {
+		private final Kind kind;
+		private final JsonPathPattern pattern;
+		private final Matcher<?> matcher;
+		private boolean decided;
+		private int matches;
+		private String failure;
+
+		private Check(Kind kind, String path, Matcher<?> matcher) {
+			this.kind = kind;
+			this.pattern = JsonPathPattern.compile(path);
+			this.matcher = matcher;
+		}
+	}
+
+	private final InputStream source;
+	private final List<Check> checks = new ArrayList<>();
+	private int undecided;
+
+	// Position of the current value: one segment per open container
+	private int[] pathIndices = new int[16];
+	private String[] pathNames = new String[16];
+	private boolean[] arrayFrames = new boolean[16];
+
+	private StreamingJsonAssert(InputStream source) {
+		this.source = source;
+	}
+
+	/**
+	 * Starts assertions on a JSON stream. The stream is consumed and closed by
+	 * {@link #verify()}.
+	 *
+	 * @param json The JSON document.
+	 * @return StreamingJsonAssert - a new assertion builder
+	 */
+	public static StreamingJsonAssert assertThatJson(InputStream json) {
+		return new StreamingJsonAssert(json);
+	}
+
+	/**
+	 * Starts assertions on a JSON document held in memory.
+	 *
+	 * @param json The JSON document.
+	 * @return StreamingJsonAssert - a new assertion builder
+	 */
+	public static StreamingJsonAssert assertThatJson(byte[] json) {
+		return new StreamingJsonAssert(new ByteArrayInputStream(json));
+	}
+
+	/**
+	 * Starts assertions on the body of a response.
+	 *
+	 * @param response The API response.
+	 * @return StreamingJsonAssert - a new assertion builder
+	 */
+	public static StreamingJsonAssert assertThatJson(Response response) {
+		return new StreamingJsonAssert(response.getBody().asInputStream());
+	}
+
+	/**
+	 * Asserts that the first value at the path matches.
+	 *
+	 * @param path    e.g. "[0].title"
+	 * @param matcher Matcher for the value.
+	 * @return StreamingJsonAssert - this builder
+	 */
+	public StreamingJsonAssert valueAt(String path, Matcher<?> matcher) {
+		return add(new Check(Kind.VALUE_AT, path, matcher));
+	}
+
+	/**
+	 * Asserts that every value at the path matches. Passes if there is none.
+	 *
+	 * @param path    e.g. "[*].userId"
+	 * @param matcher Matcher for each value.
+	 * @return StreamingJsonAssert - this builder
+	 */
+	public StreamingJsonAssert allMatch(String path, Matcher<?> matcher) {
+		return add(new Check(Kind.ALL_MATCH, path, matcher));
+	}
+
+	/**
+	 * Asserts that at least one value at the path matches.
+	 *
+	 * @param path    e.g. "[*].id"
+	 * @param matcher Matcher for the values.
+	 * @return StreamingJsonAssert - this builder
+	 */
+	public StreamingJsonAssert anyMatch(String path, Matcher<?> matcher) {
+		return add(new Check(Kind.ANY_MATCH, path, matcher));
+	}
+
+	/**
+	 * Asserts on the number of values at the path. A count needs the whole
+	 * document, so it prevents stopping early.
+	 *
+	 * @param path    e.g. "[*]"
+	 * @param matcher Matcher for the count.
+	 * @return StreamingJsonAssert - this builder
+	 */
+	public StreamingJsonAssert count(String path, Matcher<? super Integer> matcher) {
+		return add(new Check(Kind.COUNT, path, matcher));
+	}
+
+	/**
+	 * Streams the document once and evaluates every assertion.
+	 *
+	 * @throws AssertionError listing every failed assertion
+	 */
+	public void verify() {
+		try (InputStream in = source; JsonParser parser = mapper.getFactory().createParser(in)) {
+			stream(parser);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to read JSON", e);
+		}
+
+		StringBuilder failures = new StringBuilder();
+		for (Check check : checks) {
+			if (!check.decided) {
+				finish(check);
+			}
+			if (check.failure != null) {
+				failures.append(System.lineSeparator()).append(check.failure);
+			}
+		}
+		if (failures.length() > 0) {
+			throw new AssertionError("JSON assertions failed:" + failures);
+		}
+	}
+
+	private StreamingJsonAssert add(Check check) {
+		checks.add(check);
+		undecided++;
+		return this;
+	}
+
+	// Single pass over the parser; stops once every check is decided
+	private void stream(JsonParser parser) throws IOException {
+		int open = 0;
+		JsonToken token;
+		while (undecided > 0 && (token = parser.nextToken()) != null) {
+			if (token == JsonToken.FIELD_NAME) {
+				pathNames[open - 1] = parser.getCurrentName();
+				continue;
+			}
+			if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+				open--;
+				continue;
+			}
+			if (open > 0 && arrayFrames[open - 1]) {
+				pathIndices[open - 1]++;
+			}
+			boolean container = token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY;
+			if (!container) {
+				evaluate(open, scalarValue(parser, token), false);
+			} else if (needsValue(open)) {
+				// A check wants this object/array itself: materialize just this subtree
+				JsonNode subtree = parser.readValueAsTree();
+				evaluate(open, subtree, true);
+				walk(subtree, open);
+			} else {
+				evaluate(open, null, true);
+				if (canMatchBelow(open)) {
+					push(open++, token == JsonToken.START_ARRAY);
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+	}
+
+	// Evaluates the children of an already materialized subtree
+	private void walk(JsonNode node, int depth) {
+		if (undecided == 0 || !node.isContainerNode() || !canMatchBelow(depth)) {
+			return;
+		}
+		push(depth, node.isArray());
+		if (node.isArray()) {
+			for (JsonNode child : node) {
+				pathIndices[depth]++;
+				visit(child, depth + 1);
+			}
+		} else {
+			for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext();) {
+				Map.Entry<String, JsonNode> field = it.next();
+				pathNames[depth] = field.getKey();
+				visit(field.getValue(), depth + 1);
+			}
+		}
+	}
+
+	private void visit(JsonNode child, int depth) {
+		if (undecided == 0) {
+			return;
+		}
+		evaluate(depth, child.isContainerNode() ? child : scalarValue(child), child.isContainerNode());
+		walk(child, depth);
+	}
+
+	// Applies every undecided check whose path matches the current position
+	private void evaluate(int depth, Object value, boolean container) {
+		for (Check check : checks) {
+			if (check.decided || !check.pattern.matches(depth, pathIndices, pathNames)) {
+				continue;
+			}
+			check.matches++;
+			switch (check.kind) {
+			case VALUE_AT:
+				decide(check, check.matcher.matches(value) ? null : mismatch(check, value));
+				break;
+			case ALL_MATCH:
+				if (!check.matcher.matches(value)) {
+					decide(check, mismatch(check, value) + " (element " + check.matches + ")");
+				}
+				break;
+			case ANY_MATCH:
+				if (check.matcher.matches(value)) {
+					decide(check, null);
+				}
+				break;
+			case COUNT:
+			default:
+				break;
+			}
+		}
+	}
+
+	// Decides checks that were still open when the document ended
+	private void finish(Check check) {
+		switch (check.kind) {
+		case VALUE_AT:
+			check.failure = "Expected a value at " + check.pattern + " but there was none";
+			break;
+		case ANY_MATCH:
+			check.failure = "Expected some value at " + check.pattern + " to be " + describe(check.matcher)
+					+ " but none of " + check.matches + " matched";
+			break;
+		case COUNT:
+			if (!check.matcher.matches(check.matches)) {
+				check.failure = mismatch(check, check.matches);
+			}
+			break;
+		case ALL_MATCH:
+		default:
+			break;
+		}
+		check.decided = true;
+	}
+
+	private void decide(Check check, String failure) {
+		check.decided = true;
+		check.failure = failure;
+		undecided--;
+	}
+
+	// True when a value/all/any check matches this exact position
+	private boolean needsValue(int depth) {
+		for (Check check : checks) {
+			if (!check.decided && check.kind != Kind.COUNT && check.pattern.matches(depth, pathIndices, pathNames)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean canMatchBelow(int depth) {
+		for (Check check : checks) {
+			if (!check.decided && check.pattern.canMatchBelow(depth, pathIndices, pathNames)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// Opens a container frame at the given depth, growing the path arrays if needed
+	private void push(int depth, boolean array) {
+		if (depth == pathIndices.length) {
+			pathIndices = Arrays.copyOf(pathIndices, depth * 2);
+			pathNames = Arrays.copyOf(pathNames, depth * 2);
+			arrayFrames = Arrays.copyOf(arrayFrames, depth * 2);
+		}
+		arrayFrames[depth] = array;
+		pathIndices[depth] = -1;
+		pathNames[depth] = null;
+	}
+
+	private static String mismatch(Check check, Object actual) {
+		StringDescription description = new StringDescription();
+		check.matcher.describeMismatch(actual, description);
+		return "Expected " + (check.kind == Kind.COUNT ? "count of " : "") + check.pattern + " to be "
+				+ describe(check.matcher) + " but " + description;
+	}
+
+	private static String describe(Matcher<?> matcher) {
+		return StringDescription.toString(matcher);
+	}
+
+	private static Object scalarValue(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+		case VALUE_STRING:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+			return parser.getNumberValue();
+		case VALUE_NUMBER_FLOAT:
+			return parser.getDoubleValue();
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_EMBEDDED_OBJECT:
+			return parser.getEmbeddedObject();
+		default:
+			return null;
+		}
+	}
+
+	private static Object scalarValue(JsonNode node) {
+		if (node.isTextual()) {
+			return node.textValue();
+		}
+		if (node.isNumber()) {
+			return node.isFloatingPointNumber() ? (Object) node.doubleValue() : node.numberValue();
+		}
+		if (node.isBoolean()) {
+			return node.booleanValue();
+		}
+		return null;
+	}
+}
@@ -0,0 +1,428 @@
+package utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * StreamingJsonDiff compares two JSON documents structurally in a single pass
+ * over two Jackson streaming parsers advanced in lockstep, so identical
+ * documents are compared without building a JsonNode tree for either. Only
+ * when the fields of an object come in a different order (or one side has a
+ * field the other lacks) are the remaining fields of that one object buffered
+ * and matched by name.
+ *
+ * Numbers are compared by value (1 equals 1.0), array elements by index.
+ * Values at ignored paths (see JsonPathPattern, e.g. [*].id) and fields with
+ * an ignored name at any depth (e.g. createdAt) are skipped on both sides.
+ * Comparison stops once the maximum number of differences is reached.
+ *
+ * Example usage: StreamingJsonDiff.Result result = new StreamingJsonDiff()
+ * .ignoringFields("id", "updatedAt").compare(left, right);
+ *
+ * Instances are immutable and thread-safe.
+ *
+ * @author subramanyamkongani
+ */
+public final class StreamingJsonDiff {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+	private static final int MAX_VALUE_CHARS = 120;
+
+	/**
+	 * Kind of a difference, from the left document's point of view.
+	 */
+	public enum Kind {
+		VALUE, // Same type, different value
+		TYPE, // Different JSON types, e.g. string and number
+		MISSING, // Only in the left document
+		EXTRA // Only in the right document
+	}
+
+	/**
+	 * A single difference. Values are abbreviated JSON; objects and arrays are
+	 * shown as {...} and [...], and the absent side of MISSING/EXTRA is null.
+	 */
+	public record Difference(String path, Kind kind, String left, String right) {
+
+		@Override
+		public String toString() {
+			switch (kind) {
+			case MISSING:
+				return path + ": only in left (" + left + ")";
+			case EXTRA:
+				return path + ": only in right (" + right + ")";
+			default:
+				return path + ": " + left + " != " + right;
+			}
+		}
+	}
+
+	/**
+	 * The differences found, in document order, and whether the comparison
+	 * stopped at the maximum before reaching the end.
+	 */
+	public record Result(List<Difference> differences, boolean truncated) {
+
+		public boolean isEmpty() {
+			return differences.isEmpty();
+		}
+	}
+
+	private final List<JsonPathPattern> ignoredPaths;
+	private final Set<String> ignoredFields;
+	private final int maxDifferences;
+
+	/**
+	 * Creates a diff that ignores nothing and reports up to 100 differences.
+	 */
+	public StreamingJsonDiff() {
+		this(List.of(), Set.of(), 100);
+	}
+
+	private StreamingJsonDiff(List<JsonPathPattern> ignoredPaths, Set<String> ignoredFields, int maxDifferences) {
+		if (maxDifferences < 1) {
+			throw new IllegalArgumentException("maxDifferences must be at least 1: " + maxDifferences);
+		}
+		this.ignoredPaths = ignoredPaths;
+		this.ignoredFields = ignoredFields;
+		this.maxDifferences = maxDifferences;
+	}
+
+	/**
+	 * Returns a copy that also skips the values at the given paths.
+	 *
+	 * @param paths e.g. "[*].id", "data.generatedAt"
+	 * @return StreamingJsonDiff - the new diff
+	 */
+	public StreamingJsonDiff ignoringPaths(String... paths) {
+		List<JsonPathPattern> patterns = new ArrayList<>(ignoredPaths);
+		for (String path : paths) {
+			patterns.add(JsonPathPattern.compile(path.trim()));
+		}
+		return new StreamingJsonDiff(List.copyOf(patterns), ignoredFields, maxDifferences);
+	}
+
+	/**
+	 * Returns a copy that also skips every field with one of the given names,
+	 * at any depth.
+	 *
+	 * @param names e.g. "id", "createdAt"
+	 * @return StreamingJsonDiff - the new diff
+	 */
+	public StreamingJsonDiff ignoringFields(String... names) {
+		Set<String> fields = new HashSet<>(ignoredFields);
+		for (String name : names) {
+			fields.add(name.trim());
+		}
+		return new StreamingJsonDiff(ignoredPaths, Set.copyOf(fields), maxDifferences);
+	}
+
+	/**
+	 * Returns a copy that stops after the given number of differences.
+	 *
+	 * @param maxDifferences Maximum differences to report.
+	 * @return StreamingJsonDiff - the new diff
+	 */
+	public StreamingJsonDiff withMaxDifferences(int maxDifferences) {
+		return new StreamingJsonDiff(ignoredPaths, ignoredFields, maxDifferences);
+	}
+
+	/**
+	 * Compares two documents held in memory, e.g. response bodies.
+	 *
+	 * @param left  The left (reference) document.
+	 * @param right The right document.
+	 * @return Result - the differences
+	 */
+	public Result compare(byte[] left, byte[] right) {
+		return compare(new ByteArrayInputStream(left), new ByteArrayInputStream(right));
+	}
+
+	/**
+	 * Compares two JSON streams; both are consumed and closed. Empty documents
+	 * are equal to each other.
+	 *
+	 * @param left  The left (reference) document.
+	 * @param right The right document.
+	 * @return Result - the differences
+	 * @throws UncheckedIOException if either side is not valid JSON
+	 */
+	public Result compare(InputStream left, InputStream right) {
+		try (InputStream leftIn = left;
+				InputStream rightIn = right;
+				JsonParser leftParser = mapper.getFactory().createParser(leftIn);
+				JsonParser rightParser = mapper.getFactory().createParser(rightIn)) {
+			Comparison comparison = new Comparison();
+			JsonToken leftToken = leftParser.nextToken();
+			JsonToken rightToken = rightParser.nextToken();
+			if (leftToken == null || rightToken == null) {
+				if (leftToken != null) {
+					comparison.add(0, Kind.MISSING, describe(leftParser, leftToken), null);
+				} else if (rightToken != null) {
+					comparison.add(0, Kind.EXTRA, null, describe(rightParser, rightToken));
+				}
+			} else {
+				comparison.compareValue(leftParser, rightParser, 0);
+			}
+			return new Result(List.copyOf(comparison.differences), comparison.full);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Unable to compare JSON documents", e);
+		}
+	}
+
+	/**
+	 * State of one comparison: the position of the current value, one segment
+	 * per open container, and the differences found so far.
+	 */
+	private final class Comparison {
+		private int[] pathIndices = new int[16];
+		private String[] pathNames = new String[16];
+		private final List<Difference> differences = new ArrayList<>();
+		private boolean full; // maxDifferences reached, stop comparing
+
+		// Both parsers are on the first token of the value at this depth
+		private void compareValue(JsonParser left, JsonParser right, int depth) throws IOException {
+			JsonToken leftToken = left.currentToken();
+			JsonToken rightToken = right.currentToken();
+			if (ignored(depth)) {
+				left.skipChildren();
+				right.skipChildren();
+			} else if (leftToken == JsonToken.START_OBJECT && rightToken == JsonToken.START_OBJECT) {
+				compareObjects(left, right, depth);
+			} else if (leftToken == JsonToken.START_ARRAY && rightToken == JsonToken.START_ARRAY) {
+				compareArrays(left, right, depth);
+			} else if (leftToken.isScalarValue() && rightToken.isScalarValue()) {
+				if (!sameScalar(left, leftToken, right, rightToken)) {
+					add(depth, type(leftToken) == type(rightToken) ? Kind.VALUE : Kind.TYPE,
+							describe(left, leftToken), describe(right, rightToken));
+				}
+			} else {
+				add(depth, Kind.TYPE, describe(left, leftToken), describe(right, rightToken));
+				left.skipChildren();
+				right.skipChildren();
+			}
+		}
+
+		private void compareObjects(JsonParser left, JsonParser right, int depth) throws IOException {
+			push(depth);
+			JsonToken leftToken = left.nextToken();
+			JsonToken rightToken = right.nextToken();
+			// Common case: the same fields in the same order, compared while streaming
+			while (leftToken == JsonToken.FIELD_NAME && rightToken == JsonToken.FIELD_NAME
+					&& left.getCurrentName().equals(right.getCurrentName())) {
+				pathNames[depth] = left.getCurrentName();
+				left.nextToken();
+				right.nextToken();
+				compareValue(left, right, depth + 1);
+				if (full) {
+					return;
+				}
+				leftToken = left.nextToken();
+				rightToken = right.nextToken();
+			}
+			if (leftToken == JsonToken.END_OBJECT && rightToken == JsonToken.END_OBJECT) {
+				return;
+			}
+			// The fields diverge: buffer the rest of this object on both sides and match by name
+			Map<String, JsonNode> leftRest = remainingFields(left, leftToken);
+			Map<String, JsonNode> rightRest = remainingFields(right, rightToken);
+			for (Map.Entry<String, JsonNode> field : leftRest.entrySet()) {
+				pathNames[depth] = field.getKey();
+				JsonNode other = rightRest.remove(field.getKey());
+				if (ignored(depth + 1)) {
+					continue;
+				}
+				if (other == null) {
+					add(depth + 1, Kind.MISSING, describe(field.getValue()), null);
+				} else {
+					compareTrees(field.getValue(), other, depth + 1);
+				}
+				if (full) {
+					return;
+				}
+			}
+			for (Map.Entry<String, JsonNode> field : rightRest.entrySet()) {
+				pathNames[depth] = field.getKey();
+				if (!ignored(depth + 1)) {
+					add(depth + 1, Kind.EXTRA, null, describe(field.getValue()));
+				}
+				if (full) {
+					return;
+				}
+			}
+		}
+
+		private void compareArrays(JsonParser left, JsonParser right, int depth) throws IOException {
+			push(depth);
+			for (int index = 0;; index++) {
+				JsonToken leftToken = left.nextToken();
+				JsonToken rightToken = right.nextToken();
+				if (leftToken == JsonToken.END_ARRAY && rightToken == JsonToken.END_ARRAY) {
+					return;
+				}
+				pathIndices[depth] = index;
+				if (rightToken == JsonToken.END_ARRAY) {
+					remainingElements(left, leftToken, depth, Kind.MISSING);
+					return;
+				}
+				if (leftToken == JsonToken.END_ARRAY) {
+					remainingElements(right, rightToken, depth, Kind.EXTRA);
+					return;
+				}
+				compareValue(left, right, depth + 1);
+				if (full) {
+					return;
+				}
+			}
+		}
+
+		// Compares two buffered values by streaming over their trees
+		private void compareTrees(JsonNode left, JsonNode right, int depth) throws IOException {
+			try (JsonParser leftParser = left.traverse(mapper); JsonParser rightParser = right.traverse(mapper)) {
+				leftParser.nextToken();
+				rightParser.nextToken();
+				compareValue(leftParser, rightParser, depth);
+			}
+		}
+
+		// Reads the fields left in an object, starting at the given token, up to its end
+		private Map<String, JsonNode> remainingFields(JsonParser parser, JsonToken token) throws IOException {
+			Map<String, JsonNode> fields = new LinkedHashMap<>();
+			while (token == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				fields.put(name, parser.readValueAsTree());
+				token = parser.nextToken();
+			}
+			return fields;
+		}
+
+		// Reports the elements one array has beyond the end of the other
+		private void remainingElements(JsonParser parser, JsonToken token, int depth, Kind kind) throws IOException {
+			while (token != JsonToken.END_ARRAY && !full) {
+				if (!ignored(depth + 1)) {
+					String value = describe(parser, token);
+					add(depth + 1, kind, kind == Kind.MISSING ? value : null, kind == Kind.EXTRA ? value : null);
+				}
+				parser.skipChildren();
+				token = parser.nextToken();
+				pathIndices[depth]++;
+			}
+		}
+
+		private boolean ignored(int depth) {
+			if (depth > 0 && pathNames[depth - 1] != null && ignoredFields.contains(pathNames[depth - 1])) {
+				return true;
+			}
+			for (JsonPathPattern pattern : ignoredPaths) {
+				if (pattern.matches(depth, pathIndices, pathNames)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private void add(int depth, Kind kind, String left, String right) {
+			if (differences.size() == maxDifferences) {
+				full = true;
+				return;
+			}
+			differences.add(new Difference(path(depth), kind, left, right));
+		}
+
+		// Renders the position as [0].title; the document itself is $
+		private String path(int depth) {
+			if (depth == 0) {
+				return "$";
+			}
+			StringBuilder path = new StringBuilder();
+			for (int i = 0; i < depth; i++) {
+				if (pathNames[i] == null) {
+					path.append('[').append(pathIndices[i]).append(']');
+				} else {
+					path.append(i == 0 ? "" : ".").append(pathNames[i]);
+				}
+			}
+			return path.toString();
+		}
+
+		// Opens a container frame at the given depth, growing the path arrays if needed
+		private void push(int depth) {
+			if (depth == pathIndices.length) {
+				pathIndices = Arrays.copyOf(pathIndices, depth * 2);
+				pathNames = Arrays.copyOf(pathNames, depth * 2);
+			}
+			pathIndices[depth] = -1;
+			pathNames[depth] = null;
+		}
+	}
+
+	private static boolean sameScalar(JsonParser left, JsonToken leftToken, JsonParser right, JsonToken rightToken)
+			throws IOException {
+		if (leftToken.isNumeric() && rightToken.isNumeric()) {
+			if (leftToken == JsonToken.VALUE_NUMBER_INT && rightToken == JsonToken.VALUE_NUMBER_INT) {
+				return left.getNumberValue().equals(right.getNumberValue())
+						|| left.getBigIntegerValue().equals(right.getBigIntegerValue());
+			}
+			return left.getDecimalValue().compareTo(right.getDecimalValue()) == 0;
+		}
+		if (leftToken != rightToken) {
+			return false;
+		}
+		return leftToken != JsonToken.VALUE_STRING || left.getText().equals(right.getText());
+	}
+
+	// Coarse JSON type: a change within one is a VALUE difference, across them a TYPE difference
+	private static int type(JsonToken token) {
+		if (token.isNumeric()) {
+			return 0;
+		}
+		if (token.isBoolean()) {
+			return 1;
+		}
+		return token == JsonToken.VALUE_STRING ? 2 : 3;
+	}
+
+	private static String describe(JsonParser parser, JsonToken token) throws IOException {
+		switch (token) {
+		case START_OBJECT:
+			return "{...}";
+		case START_ARRAY:
+			return "[...]";
+		case VALUE_STRING:
+			return quote(parser.getText());
+		default:
+			return parser.getText();
+		}
+	}
+
+	private static String describe(JsonNode node) {
+		if (node.isObject()) {
+			return "{...}";
+		}
+		if (node.isArray()) {
+			return "[...]";
+		}
+		return node.isTextual() ? quote(node.textValue()) : node.asText();
+	}
+
+	private static String quote(String text) {
+		String value = text.length() > MAX_VALUE_CHARS ? text.substring(0, MAX_VALUE_CHARS) + "..." : text;
+		return "\"" + new String(JsonStringEncoder.getInstance().quoteAsString(value)) + "\"";
+	}
+}
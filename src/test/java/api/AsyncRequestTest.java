@@ -0,0 +1,134 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.response.Response;
+import stub.PostsStubServer;
+
+/**
+ * AsyncRequestTest verifies that the asynchronous UserApi and RequestHandler
+ * calls complete against the stub server, that failures surface through the
+ * returned future, and that they run on the configured executor.
+ */
+public class AsyncRequestTest {
+
+	@Test
+	public void completesUserApiCallsOnTheDefaultExecutor() {
+		try (PostsStubServer stub = PostsStubServer.start(); UserApi userApi = new UserApi(stub.getBaseUri())) {
+			List<String> threads = new CopyOnWriteArrayList<>();
+			userApi.getRequestHandler().addListener(event -> threads.add(Thread.currentThread().getName()));
+			assertThat(userApi.getRequestHandler().getExecutor(), sameInstance(RequestExecutors.defaultExecutor()));
+
+			CompletableFuture<Response> all = userApi.getAllPostsAsync();
+			CompletableFuture<Response> one = userApi.getPostByIdAsync(1);
+			CompletableFuture<Response> created = userApi.createPostAsync(Map.of("title", "t", "userId", 1));
+			CompletableFuture<Response> updated = userApi.updatePostAsync(2, Map.of("title", "u"));
+			CompletableFuture<Response> deleted = userApi.deletePostAsync(3);
+			assertThat(all.join().getStatusCode(), equalTo(200));
+			assertThat(one.join().jsonPath().getInt("id"), equalTo(1));
+			assertThat(created.join().getStatusCode(), equalTo(201));
+			assertThat(updated.join().jsonPath().getString("title"), equalTo("u"));
+			assertThat(deleted.join().getStatusCode(), equalTo(204));
+
+			assertThat(threads.size(), equalTo(5));
+			if (Runtime.version().feature() < 21) {
+				assertThat(threads, everyItem(startsWith("api-request-")));
+			}
+		}
+	}
+
+	@Test
+	public void runsHandlerCallsOnTheConfiguredExecutor() {
+		ExecutorService pool = Executors.newFixedThreadPool(2, task -> new Thread(task, "custom-async"));
+		AtomicInteger submitted = new AtomicInteger();
+		Executor counting = task -> {
+			submitted.incrementAndGet();
+			pool.execute(task);
+		};
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri(), HttpClientSettings.defaults(),
+						counting)) {
+			List<String> threads = new CopyOnWriteArrayList<>();
+			handler.addListener(event -> threads.add(Thread.currentThread().getName()));
+
+			assertThat(handler.getAsync("/posts/{id}", null, null, Map.of("id", "1")).join().getStatusCode(),
+					equalTo(200));
+			assertThat(handler.postAsync("/posts", null, "{\"title\":\"t\"}").join().getStatusCode(), equalTo(201));
+			assertThat(handler.deleteAsync("/posts/{id}", null, Map.of("id", "1")).join().getStatusCode(),
+					equalTo(204));
+			assertThat(submitted.get(), equalTo(3));
+			assertThat(threads, equalTo(List.of("custom-async", "custom-async", "custom-async")));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	public void propagatesFailuresThroughTheFuture() {
+		String closedUri;
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			closedUri = stub.getBaseUri();
+		}
+		try (UserApi userApi = new UserApi(closedUri)) {
+			CompletableFuture<Response> future = userApi.getPostByIdAsync(1);
+			CompletionException error = Assert.expectThrows(CompletionException.class, future::join);
+			assertThat(error.getCause(), notNullValue());
+			assertThat(future.isCompletedExceptionally(), equalTo(true));
+		}
+		// An executor that rejects the call fails it on the caller's thread
+		try (RequestHandler handler = new RequestHandler(closedUri, HttpClientSettings.defaults(), task -> {
+			throw new RejectedExecutionException("full");
+		})) {
+			Assert.assertThrows(RejectedExecutionException.class, () -> handler.getAsync("/posts", null, null));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void createsExecutorsFromConfig() {
+		try (ConfigMapping.Scope scope = ConfigMapping
+				.withOverrides(Map.of("http.async.executor", "platform", "http.async.threads", "3"))) {
+			ExecutorService executor = RequestExecutors.fromConfig();
+			try {
+				assertThat(executor, instanceOf(ThreadPoolExecutor.class));
+				assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize(), equalTo(3));
+				assertThat(CompletableFuture.supplyAsync(() -> Thread.currentThread().isDaemon(), executor).join(),
+						equalTo(true));
+			} finally {
+				executor.shutdownNow();
+			}
+		}
+		ExecutorService executor = RequestExecutors.virtualThreadsIfAvailable(2);
+		try {
+			if (Runtime.version().feature() < 21) {
+				assertThat(((ThreadPoolExecutor) executor).getMaximumPoolSize(), equalTo(2));
+			}
+			assertThat(CompletableFuture.supplyAsync(() -> 1, executor).join(), equalTo(1));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
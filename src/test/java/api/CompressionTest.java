@@ -0,0 +1,134 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.response.Response;
+import metrics.RequestMetrics;
+import models.Post;
+import services.UserLib;
+import stub.PostsStubServer;
+import utils.PostGenerator;
+
+/**
+ * CompressionTest verifies Accept-Encoding negotiation and decoding,
+ * compression of large request bodies, and that listeners see decoded bodies
+ * with the wire sizes alongside, on both transports.
+ */
+public class CompressionTest {
+
+	@DataProvider
+	public Object[][] transports() {
+		return new Object[][] { { "restassured" }, { "jdk" } };
+	}
+
+	@Test(dataProvider = "transports")
+	@SuppressWarnings("try")
+	public void compressesLargeBodiesBothWays(String transport) {
+		try (PostsStubServer stub = PostsStubServer.start();
+				ConfigMapping.Scope scope = ConfigMapping.withOverrides(Map.of("http.transport", transport,
+						"compression.enabled", "true", "compression.request.minBytes", "512"));
+				UserApi userApi = new UserApi(stub.getBaseUri())) {
+			RequestHandler handler = userApi.getRequestHandler();
+			assertThat(handler.getTransport(), instanceOf(CompressingTransport.class));
+			List<RequestEvent> events = new CopyOnWriteArrayList<>();
+			handler.addListener(events::add);
+			RequestMetrics metrics = new RequestMetrics();
+			handler.addListener(metrics);
+
+			Response posts = userApi.getAllPosts();
+			assertThat(posts.jsonPath().getList("id").size(), equalTo(100));
+			assertThat(posts.getHeader("Content-Encoding"), nullValue());
+			RequestEvent get = events.get(0);
+			assertThat(get.responseBytes(), equalTo((long) posts.asByteArray().length));
+			assertThat(get.responseWireBytes(), lessThan(get.responseBytes() / 2));
+
+			byte[] large = PostGenerator.seeded(3).withBodyLength(2_000, 2_000).stream().findFirst().get();
+			Response created = userApi.createPost(large);
+			assertThat(created.getStatusCode(), equalTo(201));
+			assertThat(created.as(Post.class).body(), equalTo(new UserLib(userApi).getPostById(101, Post.class).body()));
+			RequestEvent post = events.get(1);
+			assertThat(post.requestBytes(), equalTo((long) large.length));
+			assertThat(post.requestWireBytes(), lessThan(post.requestBytes()));
+
+			// Below both thresholds: sent and answered as they are
+			userApi.updatePost(1, "{\"title\":\"t\",\"body\":\"b\",\"userId\":1}");
+			RequestEvent put = events.get(3);
+			assertThat(put.requestWireBytes(), equalTo(put.requestBytes()));
+			assertThat(put.responseWireBytes(), equalTo(put.responseBytes()));
+
+			assertThat(metrics.toPrometheus(), containsString(
+					"api_response_wire_bytes_total{method=\"GET\",endpoint=\"/posts\"} " + get.responseWireBytes()));
+			assertThat(metrics.toJson().get("endpoints").get(1).get("requestWireBytes").asLong(),
+					equalTo(post.requestWireBytes()));
+			assertThat(handler.getPoolStats(), containsString("compressed requests: 1; compressed responses: 3"));
+			handler.close();
+		}
+	}
+
+	@Test
+	public void negotiatesDeflate() {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri(),
+						new CompressingTransport(Transport.create("jdk", stub.getBaseUri(), HttpClientSettings.defaults()),
+								CompressionPolicy.defaults().withEncodings("deflate").withRequestMinBytes(0)),
+						RequestExecutors.defaultExecutor())) {
+			List<RequestEvent> events = new CopyOnWriteArrayList<>();
+			handler.addListener(events::add);
+			Response posts = handler.get("/posts", null, null);
+			assertThat(posts.jsonPath().getList("id").size(), equalTo(100));
+			assertThat(events.get(0).responseWireBytes(), lessThan(events.get(0).responseBytes()));
+
+			Response created = handler.post("/posts", null, Map.of("title", "t", "body", "b", "userId", 1));
+			assertThat(created.getStatusCode(), equalTo(201));
+			assertThat(created.jsonPath().getString("title"), equalTo("t"));
+		}
+	}
+
+	@Test
+	public void leavesBodiesAloneWhenDisabled() {
+		try (PostsStubServer stub = PostsStubServer.start(); UserApi userApi = new UserApi(stub.getBaseUri())) {
+			List<RequestEvent> events = new CopyOnWriteArrayList<>();
+			userApi.getRequestHandler().addListener(events::add);
+			assertThat(userApi.getRequestHandler().getTransport(), instanceOf(RestAssuredTransport.class));
+			userApi.getAllPosts();
+			assertThat(events.get(0).responseWireBytes(), equalTo(events.get(0).responseBytes()));
+		}
+	}
+
+	@Test
+	public void decodesEveryFormOfDeflate() throws Exception {
+		byte[] json = "{\"title\":\"t\",\"body\":\"b\",\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+		assertThat(CompressingTransport.decode(CompressingTransport.encode(json, "deflate"), "deflate"), equalTo(json));
+		assertThat(CompressingTransport.decode(CompressingTransport.encode(json, "gzip"), "gzip"), equalTo(json));
+
+		// Raw deflate without the zlib header, as some servers send it
+		ByteArrayOutputStream raw = new ByteArrayOutputStream();
+		try (DeflaterOutputStream out = new DeflaterOutputStream(raw, new Deflater(Deflater.DEFAULT_COMPRESSION, true))) {
+			out.write(json);
+		}
+		assertThat(CompressingTransport.decode(raw.toByteArray(), "deflate"), equalTo(json));
+
+		// Codings applied in order are undone in reverse
+		byte[] twice = CompressingTransport.encode(CompressingTransport.encode(json, "deflate"), "gzip");
+		assertThat(CompressingTransport.decode(twice, "deflate, gzip"), equalTo(json));
+		assertThat(CompressingTransport.decode(json, "br"), equalTo(json));
+	}
+}
@@ -0,0 +1,89 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import stub.PostsStubServer;
+
+/**
+ * EndpointTemplateTest verifies template compilation, positional and named
+ * expansion, RFC 3986 percent-encoding of path and query values and that
+ * expanded paths are keyed by their template.
+ */
+public class EndpointTemplateTest {
+
+	@Test
+	public void expandsPositionalAndNamedValues() {
+		EndpointTemplate template = EndpointTemplate.of("/users/{userId}/posts/{id}");
+		assertThat(template, sameInstance(EndpointTemplate.of("/users/{userId}/posts/{id}")));
+		assertThat(template.getVariables(), equalTo(List.of("userId", "id")));
+		assertThat(template.expand(7, 42L), equalTo("/users/7/posts/42"));
+		assertThat(template.expand(Map.of("id", "42", "userId", 7)), equalTo("/users/7/posts/42"));
+		assertThat(Endpoint.GET_POSTS.expand(), sameInstance(Endpoint.GET_POSTS.getTemplate().getTemplate()));
+		assertThat(Endpoint.DELETE_POST.expand(-1), equalTo("/posts/-1"));
+	}
+
+	@Test
+	public void percentEncodesValues() {
+		EndpointTemplate template = EndpointTemplate.of("/posts/{id}");
+		assertThat(template.expand("a b"), equalTo("/posts/a%20b"));
+		assertThat(template.expand("a/b?c#d"), equalTo("/posts/a%2Fb%3Fc%23d"));
+		assertThat(template.expand("caf\u00e9\ud83d\ude00"), equalTo("/posts/caf%C3%A9%F0%9F%98%80"));
+		assertThat(template.expand("a:b@c~d"), equalTo("/posts/a:b@c~d"));
+		assertThat(EndpointTemplate.encodeQuery("a b&c=d+e/f"), equalTo("a%20b%26c%3Dd%2Be/f"));
+	}
+
+	@Test
+	public void rejectsMissingOrExtraValues() {
+		EndpointTemplate template = EndpointTemplate.of("/posts/{id}");
+		Assert.assertThrows(IllegalArgumentException.class, () -> template.expand(Map.of("postId", 1)));
+		Assert.assertThrows(IllegalArgumentException.class, () -> template.expand(1, 2));
+		// A null value is missing as well, positionally as by name
+		Assert.assertThrows(IllegalArgumentException.class, () -> template.expand((Object) null));
+		Assert.assertThrows(IllegalArgumentException.class,
+				() -> EndpointTemplate.of("/users/{userId}/posts/{id}").expand(7, null));
+		Assert.assertThrows(IllegalArgumentException.class, () -> EndpointTemplate.of("/posts/{id"));
+	}
+
+	@Test
+	public void generalizesExpandedPaths() {
+		String posts = "/posts";
+		assertThat(EndpointTemplate.generalize(posts), sameInstance(posts));
+		assertThat(EndpointTemplate.generalize("/posts/42"), equalTo("/posts/{id}"));
+		assertThat(EndpointTemplate.generalize("/users/7/posts/"), equalTo("/users/{id}/posts/"));
+		assertThat(EndpointTemplate.generalize("/posts/3f2504e0-4f89-11d3-9a0c-0305e82c3301/comments/1"),
+				equalTo("/posts/{id}/comments/{id}"));
+		assertThat(EndpointTemplate.generalize("/posts/v2/a1"), equalTo("/posts/v2/a1"));
+	}
+
+	@Test
+	public void keysExpandedPathsByTheirTemplate() {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri())) {
+			List<String> templates = new CopyOnWriteArrayList<>();
+			handler.addListener(event -> templates.add(event.endpoint()));
+			assertThat(handler.get("/posts/1", null, null).getStatusCode(), equalTo(200));
+			assertThat(handler.get("/posts/2", null, null).getStatusCode(), equalTo(200));
+			assertThat(handler.get("/posts/{id}", null, null, Map.of("id", "3")).getStatusCode(), equalTo(200));
+			assertThat(templates, equalTo(List.of("/posts/{id}", "/posts/{id}", "/posts/{id}")));
+		}
+	}
+
+	@Test
+	public void sendsEncodedPathAndQuery() {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri())) {
+			stub.stubResponse("GET", "/posts/a b", 200, "updatePostPayload.json");
+			assertThat(handler.get("/posts/{id}", null, null, Map.of("id", "a b")).getStatusCode(), equalTo(200));
+			assertThat(handler.get("/posts", null, Map.of("q", "a b&c=d")).getStatusCode(), equalTo(200));
+		}
+	}
+}
@@ -0,0 +1,112 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import models.Post;
+import services.UserLib;
+import stub.PostsStubServer;
+
+/**
+ * PaginationTest walks the stub's /posts collection with every paging style
+ * and checks that pages are fetched lazily, one ahead of the consumer.
+ */
+@Test(singleThreaded = true)
+public class PaginationTest {
+
+	private static final int POSTS = 1_000;
+
+	private PostsStubServer stub;
+	private RequestHandler handler;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start(0, POSTS);
+		handler = new RequestHandler(stub.getBaseUri());
+	}
+
+	@AfterMethod
+	public void resetStub() {
+		stub.reset();
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		handler.close();
+		stub.close();
+	}
+
+	@DataProvider
+	public Object[][] styles() {
+		return new Object[][] { { Pagination.pages(37) }, { Pagination.offsets(37) },
+				{ Pagination.linkHeader("_limit", 37) },
+				{ Pagination.cursor("cursor", "limit", 37, "items", "nextCursor") } };
+	}
+
+	@Test(dataProvider = "styles")
+	public void streamsEveryItemOnce(Pagination pagination) {
+		long requests = stub.getRequestCount();
+		List<Integer> ids;
+		try (Stream<Post> posts = handler.stream("/posts", null, null, pagination, Post.class)) {
+			ids = posts.map(Post::id).collect(Collectors.toList());
+		}
+		assertThat(ids, equalTo(IntStream.rangeClosed(1, POSTS).boxed().collect(Collectors.toList())));
+		assertThat(stub.getRequestCount() - requests, equalTo((long) (POSTS + 36) / 37));
+	}
+
+	@Test
+	public void fetchesLazilyOnePageAhead() throws InterruptedException {
+		stub.setLatency(Duration.ofMillis(50), Duration.ZERO);
+		long requests = stub.getRequestCount();
+		try (Stream<Post> posts = handler.stream("/posts", null, null, Pagination.pages(10), Post.class)) {
+			Iterator<Post> iterator = posts.iterator();
+			assertThat(stub.getRequestCount(), equalTo(requests)); // Nothing sent yet
+
+			assertThat(iterator.next().id(), equalTo(1));
+			long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+			while (stub.getRequestCount() - requests < 2 && System.nanoTime() < deadline) {
+				Thread.sleep(10); // The second page arrives while the first is consumed
+			}
+			assertThat(stub.getRequestCount() - requests, equalTo(2L));
+			for (int i = 0; i < 14; i++) {
+				iterator.next();
+			}
+		}
+		Thread.sleep(100);
+		assertThat(stub.getRequestCount() - requests, lessThanOrEqualTo(3L));
+	}
+
+	@Test
+	public void streamsPostsThroughUserLib() {
+		try (UserLib userLib = new UserLib(new UserApi(stub.getBaseUri()));
+				Stream<Post> posts = userLib.streamAllPosts(Post.class)) {
+			assertThat(posts.count(), equalTo((long) POSTS));
+		}
+	}
+
+	@Test
+	public void parsesLinkHeaders() {
+		assertThat(
+				PageIterator.nextLink("<https://a/posts?_page=1>; rel=\"first\", <https://a/posts?_page=3>; rel=\"next\""),
+				equalTo("https://a/posts?_page=3"));
+		assertThat(PageIterator.nextLink("</posts?page=2>; rel=\"prev next\", </posts?page=9>; rel=last"),
+				equalTo("/posts?page=2"));
+		assertThat(PageIterator.nextLink("<https://a/posts?_page=9>; rel=\"last\""), nullValue());
+		assertThat(PageIterator.nextLink(null), nullValue());
+	}
+}
@@ -0,0 +1,232 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.builder.ResponseBuilder;
+import io.restassured.http.Header;
+import io.restassured.http.Headers;
+import io.restassured.response.Response;
+import stub.PostsStubServer;
+
+/**
+ * RateLimiterTest verifies the token bucket, the concurrency limit and its
+ * adaptation to 429s, latency and Retry-After, and that a handler settles
+ * near the capacity of a backend that sheds load.
+ */
+public class RateLimiterTest {
+
+	private static final String ENDPOINT = "/posts/{id}";
+
+	@Test
+	public void tokenBucketPacesRequests() {
+		RateLimiter limiter = new RateLimiter("test", RateLimitPolicy.disabled().withRate(50, 1));
+		long start = System.nanoTime();
+		for (int i = 0; i < 11; i++) {
+			limiter.call(ENDPOINT, () -> response(200, null));
+		}
+		// One token up front, then one every 20 ms
+		assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(180L));
+		RateLimiter.Stats stats = limiter.getStats().get("test");
+		assertThat(stats.requests(), equalTo(11L));
+		assertThat(stats.delayed(), greaterThan(0L));
+	}
+
+	@Test
+	public void concurrencyLimitBoundsRequestsInFlight() {
+		RateLimiter limiter = new RateLimiter("test", RateLimitPolicy.disabled().withAdaptiveConcurrency(2, 2, 2));
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		runConcurrently(8, 5, () -> limiter.call(ENDPOINT, () -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			sleep(5);
+			inFlight.decrementAndGet();
+			return response(200, null);
+		}));
+		assertThat(maxInFlight.get(), equalTo(2));
+		assertThat(limiter.getStats().get("test").inFlight(), equalTo(0));
+	}
+
+	@Test
+	public void backsOffOnThrottlingAndGrowsWhileHealthy() {
+		// Only 429s count as overload here: scheduling jitter of a busy machine must not look like rising latency
+		RateLimiter limiter = new RateLimiter("test",
+				RateLimitPolicy.disabled().withAdaptiveConcurrency(16, 1, 64).withBackoff(0.9, 1_000));
+		for (int i = 0; i < 20; i++) {
+			limiter.call(ENDPOINT, () -> {
+				sleep(2); // Decreases are at most once per round trip
+				return response(429, null);
+			});
+		}
+		double throttled = limiter.getStats().get("test").limit();
+		assertThat(throttled, lessThan(4.0));
+		assertThat(limiter.getStats().get("test").overloads(), equalTo(20L));
+
+		runConcurrently(8, 50, () -> limiter.call(ENDPOINT, () -> {
+			sleep(2);
+			return response(200, null);
+		}));
+		assertThat(limiter.getStats().get("test").limit(), greaterThan(throttled + 2));
+	}
+
+	@Test
+	public void backsOffWhenLatencyRises() {
+		RateLimiter limiter = new RateLimiter("test", RateLimitPolicy.disabled().withAdaptiveConcurrency(16, 1, 64));
+		runConcurrently(8, 10, () -> limiter.call(ENDPOINT, () -> {
+			sleep(2);
+			return response(200, null);
+		}));
+		double healthy = limiter.getStats().get("test").limit();
+		for (int i = 0; i < 10; i++) {
+			limiter.call(ENDPOINT, () -> {
+				sleep(30); // Far above twice the lowest latency
+				return response(200, null);
+			});
+		}
+		assertThat(limiter.getStats().get("test").limit(), lessThan(healthy));
+		assertThat(limiter.getStats().get("test").overloads(), equalTo(0L));
+	}
+
+	@Test
+	public void retryAfterHoldsBackTheScope() {
+		RateLimiter limiter = new RateLimiter("test", RateLimitPolicy.disabled().withAdaptiveConcurrency(4, 1, 8));
+		limiter.call(ENDPOINT, () -> response(503, "1"));
+		long start = System.nanoTime();
+		limiter.call(ENDPOINT, () -> response(200, null));
+		assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(900L));
+	}
+
+	@Test
+	public void limitsEachEndpointSeparately() {
+		RateLimiter limiter = new RateLimiter("test",
+				RateLimitPolicy.disabled().withAdaptiveConcurrency(4, 1, 8).perEndpoint());
+		limiter.call(ENDPOINT, () -> response(429, null));
+		limiter.call("/posts", () -> response(200, null));
+		assertThat(limiter.getStats().keySet(), equalTo(Set.of(ENDPOINT, "/posts")));
+		assertThat(limiter.getStats().get(ENDPOINT).limit(), lessThan(4.0));
+		assertThat(limiter.getStats().get("/posts").limit(), greaterThanOrEqualTo(4.0));
+	}
+
+	@Test
+	public void settlesNearTheCapacityOfTheBackend() {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri())) {
+			stub.setCapacity(2);
+			stub.setLatency(Duration.ofMillis(20), Duration.ZERO);
+			RateLimiter limiter = new RateLimiter("stub",
+					RateLimitPolicy.disabled().withAdaptiveConcurrency(16, 1, 64).withBackoff(0.5, 2.0));
+			handler.setRateLimiter(limiter);
+			LongAdder throttled = new LongAdder();
+			Supplier<Void> call = () -> {
+				if (handler.get(ENDPOINT, null, null, Map.of("id", "1")).getStatusCode() == 429) {
+					throttled.increment();
+				}
+				return null;
+			};
+			runConcurrently(8, 10, call); // Converge
+			throttled.reset();
+			runConcurrently(8, 10, call);
+			// Without the limiter three of every four requests would be rejected
+			assertThat(throttled.sum(), lessThan(8L * 10 / 2));
+			assertThat(limiter.getStats().get("stub").limit(), lessThanOrEqualTo(8.0));
+		}
+	}
+
+	@DataProvider
+	public Object[][] transports() {
+		return new Object[][] { { "restassured" }, { "jdk" } };
+	}
+
+	@Test(dataProvider = "transports")
+	public void backsOffWhenRequestsTimeOut(String transport) {
+		HttpClientSettings settings = new HttpClientSettings(10, 10, 30_000, 30_000, 1_000, 100);
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri(),
+						Transport.create(transport, stub.getBaseUri(), settings), RequestExecutors.defaultExecutor())) {
+			stub.setLatency(Duration.ofMillis(500), Duration.ZERO);
+			RateLimiter limiter = new RateLimiter("stub",
+					RateLimitPolicy.disabled().withAdaptiveConcurrency(10, 1, 20));
+			handler.setRateLimiter(limiter);
+
+			Assert.expectThrows(Exception.class, () -> handler.get(ENDPOINT, null, null, Map.of("id", "1")));
+			RateLimiter.Stats stats = limiter.getStats().get("stub");
+			assertThat(stats.overloads(), equalTo(1L));
+			assertThat(stats.limit(), lessThan(10.0));
+			assertThat(stats.inFlight(), equalTo(0));
+		}
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void sharesConfiguredLimitersPerHostAndPolicy() {
+		String baseUri = "http://limited.invalid:8080/api";
+		try (ConfigMapping.Scope scope = ConfigMapping.withOverrides(Map.of("ratelimit.perSecond", "5"))) {
+			RateLimiter limiter = RateLimiter.forHost(baseUri);
+			assertThat(RateLimiter.forHost("http://limited.invalid:8080/other"), sameInstance(limiter));
+			try (ConfigMapping.Scope faster = ConfigMapping.withOverrides(Map.of("ratelimit.perSecond", "50"))) {
+				RateLimiter other = RateLimiter.forHost(baseUri);
+				assertThat(other, not(sameInstance(limiter)));
+				assertThat(other.getPolicy().getPerSecond(), equalTo(50.0));
+			}
+		}
+		assertThat(RateLimiter.forHost(baseUri), nullValue());
+	}
+
+	private static void runConcurrently(int threads, int callsPerThread, Supplier<?> call) {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<CompletableFuture<Void>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				futures.add(CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < callsPerThread; i++) {
+						call.get();
+					}
+				}, executor));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static Response response(int status, String retryAfter) {
+		List<Header> headers = new ArrayList<>();
+		if (retryAfter != null) {
+			headers.add(new Header("Retry-After", retryAfter));
+		}
+		return new ResponseBuilder().setStatusCode(status).setHeaders(new Headers(headers)).setBody("{}").build();
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
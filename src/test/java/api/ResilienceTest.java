@@ -0,0 +1,185 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import io.restassured.http.Method;
+import io.restassured.response.Response;
+import stub.PostsStubServer;
+
+/**
+ * ResilienceTest verifies retries, deadlines, the circuit breaker and hedging
+ * against the in-process stub server. Its tests inject failures into a shared
+ * stub and therefore run on a single thread.
+ */
+@Test(singleThreaded = true)
+public class ResilienceTest {
+
+	private static final Map<String, String> POST_1 = Map.of("id", "1");
+
+	private PostsStubServer stub;
+	private RequestHandler handler;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start();
+		handler = new RequestHandler(stub.getBaseUri());
+	}
+
+	@AfterMethod
+	public void resetStub() {
+		stub.reset();
+		handler.setResiliencePolicy(ResiliencePolicy.disabled());
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		handler.close();
+		stub.close();
+	}
+
+	@Test
+	public void retriesIdempotentCallsHonouringRetryAfter() {
+		handler.setResiliencePolicy(
+				ResiliencePolicy.disabled().withRetries(3, Duration.ofMillis(10), Duration.ofMillis(50)));
+		stub.failNext(2, 503, null);
+		assertThat(handler.get("/posts/{id}", null, null, POST_1).getStatusCode(), equalTo(200));
+		assertThat(handler.getResilienceStats().retries(), equalTo(2L));
+
+		stub.failNext(1, 429, Duration.ofSeconds(1));
+		long start = System.nanoTime();
+		assertThat(handler.get("/posts/{id}", null, null, POST_1).getStatusCode(), equalTo(200));
+		assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(1_000L));
+
+		stub.failNext(1, 503, null);
+		assertThat(handler.post("/posts", null, "{}").getStatusCode(), equalTo(503)); // POST is never retried
+	}
+
+	@Test
+	public void enforcesPerEndpointDeadline() {
+		handler.setResiliencePolicy(
+				ResiliencePolicy.disabled().withEndpointTimeout("/posts/{id}", Duration.ofMillis(100)));
+		stub.setLatency(Duration.ofMillis(400), Duration.ZERO);
+		long start = System.nanoTime();
+		try {
+			handler.get("/posts/{id}", null, null, POST_1);
+			Assert.fail("Expected the deadline to expire");
+		} catch (UncheckedIOException e) {
+			assertThat(e.getCause(), instanceOf(SocketTimeoutException.class));
+		}
+		assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(400L));
+		assertThat(handler.getResilienceStats().timeouts(), equalTo(1L));
+	}
+
+	@Test
+	public void opensCircuitAfterConsecutiveFailures() {
+		handler.setResiliencePolicy(ResiliencePolicy.disabled().withCircuitBreaker(3, Duration.ofMinutes(1)));
+		stub.setErrorRate(1.0, 503);
+		for (int i = 0; i < 3; i++) {
+			assertThat(handler.get("/posts/{id}", null, null, POST_1).getStatusCode(), equalTo(503));
+		}
+		long requests = stub.getRequestCount();
+		try {
+			handler.get("/posts/{id}", null, null, POST_1);
+			Assert.fail("Expected the circuit to be open");
+		} catch (CircuitOpenException e) {
+			assertThat(stub.getRequestCount(), equalTo(requests));
+		}
+		assertThat(handler.getResilienceStats().circuitRejections(), equalTo(1L));
+	}
+
+	@Test
+	public void hedgesSlowCallsAfterPercentileDelay() throws InterruptedException {
+		Resilience resilience = new Resilience(ResiliencePolicy.disabled().withHedging(90, Duration.ofMillis(1)));
+		AtomicInteger calls = new AtomicInteger();
+		for (int i = 0; i < 30; i++) {
+			resilience.call(Method.GET, "/posts/{id}", () -> handler.get("/posts/{id}", null, null, POST_1));
+		}
+
+		long wonBefore = resilience.getStats().hedgesWon();
+		long start = System.nanoTime();
+		CountDownLatch interrupted = new CountDownLatch(1);
+		Response response = resilience.call(Method.GET, "/posts/{id}", () -> {
+			if (calls.incrementAndGet() == 1) {
+				// The first attempt stalls and never reaches the stub, so it cannot disturb later tests
+				return stall(interrupted);
+			}
+			return handler.get("/posts/{id}", null, null, POST_1);
+		});
+		assertThat(response.getStatusCode(), equalTo(200));
+		assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(2_000L));
+		assertThat(resilience.getStats().hedgesWon() - wonBefore, equalTo(1L));
+		// The losing attempt is interrupted instead of holding its thread until it ends
+		assertThat(interrupted.await(10, TimeUnit.SECONDS), equalTo(true));
+	}
+
+	@Test
+	public void cancelsAttemptsPastTheirDeadline() throws InterruptedException {
+		Resilience resilience = new Resilience(ResiliencePolicy.disabled().withTimeout(Duration.ofMillis(50)));
+		CountDownLatch interrupted = new CountDownLatch(1);
+		UncheckedIOException error = Assert.expectThrows(UncheckedIOException.class,
+				() -> resilience.call(Method.GET, "/posts/{id}", () -> stall(interrupted)));
+		assertThat(error.getCause(), instanceOf(SocketTimeoutException.class));
+		assertThat(interrupted.await(10, TimeUnit.SECONDS), equalTo(true));
+		assertThat(resilience.getStats().timeouts(), equalTo(1L));
+	}
+
+	@Test
+	public void rejectsAttemptsWhenThePoolIsFull() {
+		Resilience resilience = new Resilience(ResiliencePolicy.disabled().withTimeout(Duration.ofSeconds(1))
+				.withRetries(3, Duration.ZERO, Duration.ZERO).withCircuitBreaker(1, Duration.ofMinutes(1)), task -> {
+					throw new RejectedExecutionException("full");
+				});
+		AtomicInteger calls = new AtomicInteger();
+		Supplier<Response> attempt = () -> {
+			calls.incrementAndGet();
+			return handler.get("/posts/{id}", null, null, POST_1);
+		};
+		for (int i = 0; i < 2; i++) {
+			Assert.assertThrows(RejectedExecutionException.class,
+					() -> resilience.call(Method.GET, "/posts/{id}", attempt));
+		}
+		assertThat(calls.get(), equalTo(0));
+		// A full pool is neither retried nor held against the endpoint's circuit
+		Resilience.Stats stats = resilience.getStats();
+		assertThat(stats.attemptRejections(), equalTo(2L));
+		assertThat(stats.retries(), equalTo(0L));
+		assertThat(stats.circuitRejections(), equalTo(0L));
+	}
+
+	@Test
+	public void parsesRetryAfter() {
+		assertThat(Resilience.retryAfterMillis("3"), equalTo(3_000L));
+		assertThat(Resilience.retryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT"), equalTo(0L));
+		assertThat(Resilience.retryAfterMillis(null), equalTo(0L));
+	}
+
+	// Blocks until interrupted, as an attempt stuck on a slow server would
+	private static Response stall(CountDownLatch interrupted) {
+		try {
+			Thread.sleep(60_000);
+		} catch (InterruptedException e) {
+			interrupted.countDown();
+		}
+		throw new IllegalStateException("Stalled attempt");
+	}
+}
@@ -0,0 +1,99 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.time.Duration;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import stub.PostsStubServer;
+
+/**
+ * ResponseCacheTest verifies hits, invalidation, revalidation and LRU eviction
+ * of the GET response cache against the in-process stub server. Its tests
+ * count requests on a shared stub and therefore run on a single thread.
+ */
+@Test(singleThreaded = true)
+public class ResponseCacheTest {
+
+	private PostsStubServer stub;
+	private UserApi userApi;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start();
+		userApi = new UserApi(stub.getBaseUri());
+	}
+
+	@AfterMethod
+	public void resetStub() {
+		stub.reset();
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		userApi.close();
+		stub.close();
+	}
+
+	@Test
+	public void servesRepeatedGetsFromCache() {
+		ResponseCache cache = enableCache(10, Duration.ofMinutes(1));
+		long before = stub.getRequestCount();
+		userApi.getPostById(1);
+		userApi.getPostById(1);
+		userApi.getPostById(1);
+
+		assertThat(stub.getRequestCount() - before, equalTo(1L));
+		assertThat(cache.getStats().hits(), equalTo(2L));
+		assertThat(cache.getStats().misses(), equalTo(1L));
+	}
+
+	@Test
+	public void invalidatesOnUpdateAndDelete() {
+		ResponseCache cache = enableCache(10, Duration.ofMinutes(1));
+		userApi.getAllPosts();
+		userApi.getPostById(2);
+		userApi.updatePost(2, "{\"title\":\"changed\"}");
+		assertThat(cache.getStats().entries(), equalTo(0));
+
+		assertThat(userApi.getPostById(2).jsonPath().getString("title"), equalTo("changed"));
+		userApi.deletePost(2);
+		assertThat(userApi.getPostById(2).getStatusCode(), equalTo(404));
+	}
+
+	@Test
+	public void revalidatesExpiredEntriesWithEtag() throws InterruptedException {
+		ResponseCache cache = enableCache(10, Duration.ofMillis(1));
+		userApi.getPostById(3);
+		Thread.sleep(5);
+		assertThat(userApi.getPostById(3).getStatusCode(), equalTo(200));
+		assertThat(cache.getStats().revalidations(), equalTo(1L));
+	}
+
+	@Test
+	public void evictsLeastRecentlyUsed() {
+		ResponseCache cache = enableCache(2, Duration.ofMinutes(1));
+		userApi.getPostById(1);
+		userApi.getPostById(2);
+		userApi.getPostById(1); // 1 becomes most recently used
+		userApi.getPostById(3); // evicts 2
+
+		long before = stub.getRequestCount();
+		userApi.getPostById(1);
+		assertThat(stub.getRequestCount() - before, equalTo(0L));
+		userApi.getPostById(2);
+		assertThat(stub.getRequestCount() - before, equalTo(1L));
+		assertThat(cache.getStats().evictions(), equalTo(2L));
+	}
+
+	private ResponseCache enableCache(int maxEntries, Duration ttl) {
+		ResponseCache cache = new ResponseCache(maxEntries, 1024 * 1024, ttl);
+		userApi.getRequestHandler().setResponseCache(cache);
+		return cache;
+	}
+}
@@ -0,0 +1,103 @@
+package api;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import io.restassured.response.Response;
+import models.Post;
+import services.UserLib;
+import stub.PostsStubServer;
+
+/**
+ * TransportTest runs the same calls over the RestAssured and the JDK
+ * HttpClient transports and checks that callers see the same responses,
+ * events and timeouts either way.
+ */
+public class TransportTest {
+
+	@DataProvider
+	public Object[][] transports() {
+		return new Object[][] { { "restassured" }, { "jdk" } };
+	}
+
+	@Test(dataProvider = "transports")
+	@SuppressWarnings("try")
+	public void returnsTheSameResponsesOnEitherTransport(String transport) throws Exception {
+		try (PostsStubServer stub = PostsStubServer.start();
+				ConfigMapping.Scope scope = ConfigMapping.withOverrides(Map.of("http.transport", transport));
+				UserApi userApi = new UserApi(stub.getBaseUri())) {
+			List<RequestEvent> events = new CopyOnWriteArrayList<>();
+			userApi.getRequestHandler().addListener(events::add);
+			assertThat(userApi.getRequestHandler().getTransport().getClass().getSimpleName().toLowerCase(),
+					equalTo(transport.equals("jdk") ? "jdkhttptransport" : "restassuredtransport"));
+
+			Response post = userApi.getPostById(1);
+			assertThat(post.getStatusCode(), equalTo(200));
+			assertThat(post.jsonPath().getInt("id"), equalTo(1));
+			assertThat(post.getHeader("content-type"), equalTo("application/json; charset=utf-8"));
+			post.then().statusCode(200);
+
+			Response created = userApi.createPost(new ObjectMapper().readTree("{\"title\":\"t\",\"body\":\"b\",\"userId\":1}"));
+			assertThat(created.getStatusCode(), equalTo(201));
+			assertThat(created.jsonPath().getString("title"), equalTo("t"));
+			byte[] update = "{\"title\":\"u\",\"body\":\"b\",\"userId\":1}".getBytes(StandardCharsets.UTF_8);
+			assertThat(userApi.updatePost(1, update).jsonPath().getString("title"), equalTo("u"));
+			assertThat(userApi.deletePost(2).getStatusCode(), equalTo(204));
+			assertThat(userApi.getRequestHandler().get("/posts", null, Map.of("_start", "5", "_limit", "2"))
+					.jsonPath().getList("id"), equalTo(List.of(7, 8))); // Post 2 was deleted
+			assertThat(new UserLib(userApi).getPostById(1, Post.class).title(), equalTo("u"));
+
+			assertThat(events.size(), equalTo(6));
+			assertThat(events.get(1).method(), equalTo("POST"));
+			assertThat(events.get(1).endpoint(), equalTo("/posts"));
+			assertThat(events.get(1).requestBytes(), greaterThan(0L));
+			assertThat(events.get(1).responseBytes(), equalTo((long) created.asByteArray().length));
+			userApi.getRequestHandler().close();
+		}
+	}
+
+	@Test(dataProvider = "transports")
+	public void reusesOneConnectionForSequentialRequests(String transport) {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri(),
+						Transport.create(transport, stub.getBaseUri(), HttpClientSettings.defaults()),
+						RequestExecutors.defaultExecutor())) {
+			for (int id = 1; id <= 20; id++) {
+				assertThat(handler.get("/posts/{id}", null, null, Map.of("id", String.valueOf(id))).getStatusCode(),
+						equalTo(200));
+			}
+			assertThat(stub.getConnectionCount(), equalTo(1));
+		}
+	}
+
+	@Test(dataProvider = "transports")
+	public void reportsReadTimeouts(String transport) {
+		HttpClientSettings settings = new HttpClientSettings(10, 10, 30_000, 30_000, 1_000, 100);
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri(),
+						Transport.create(transport, stub.getBaseUri(), settings), RequestExecutors.defaultExecutor())) {
+			List<RequestEvent> events = new CopyOnWriteArrayList<>();
+			handler.addListener(events::add);
+			stub.setLatency(Duration.ofMillis(1_000), Duration.ZERO);
+			Throwable error = Assert.expectThrows(Throwable.class, () -> handler.get("/posts/1", null, null));
+			assertThat(events.get(0).isTimeout(), equalTo(true));
+			assertThat(events.get(0).error(), instanceOf(error.getClass()));
+		}
+	}
+}
@@ -1,11 +1,13 @@
 package api;
 
+import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import services.UserLib; // Import the UserLib service class that interacts with the API
-import java.io.File; // For handling file operations
-import java.io.IOException; // For handling IO exceptions
+import utils.PayloadTemplates; // Compiled, cached payload templates
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import static org.hamcrest.MatcherAssert.assertThat; // For Hamcrest assertions
 import static org.hamcrest.Matchers.equalTo;
 
@@ -16,9 +18,13 @@ import static org.hamcrest.Matchers.equalTo;
  */
 public class UserApiTest {
 
-	// Initialize the UserLib instance once at the class level
-	private final UserLib userLib = new UserLib();
-	private final ObjectMapper objectMapper = new ObjectMapper(); // ObjectMapper to read JSON files
+	// One UserLib per test thread, so test methods can run in parallel; all are closed after the class
+	private final Queue<UserLib> userLibs = new ConcurrentLinkedQueue<>();
+	private final ThreadLocal<UserLib> userLib = ThreadLocal.withInitial(() -> {
+		UserLib lib = new UserLib();
+		userLibs.add(lib);
+		return lib;
+	});
 
 	/**
 	 * Tests the retrieval of all posts from the API. Asserts that the status code
@@ -28,7 +34,7 @@ public class UserApiTest {
 	public void verifyGetAllPosts() {
 		String expectedTitle = "sunt aut facere repellat provident occaecati excepturi optio reprehenderit";
 		// Call the method that retrieves all posts and returns a JsonNode object
-		JsonNode response = userLib.getAllPosts();
+		JsonNode response = userLib.get().getAllPosts();
 
 		// Print the response body for debugging
 		System.out.println("Response Body: " + response.toString());
@@ -40,14 +46,14 @@ public class UserApiTest {
 	 * 201 (Created) and prints the response body.
 	 */
 	@Test
-	public void verifyCreatePost() throws IOException {
-		// Read the JSON payload from the specified file
-		File createPayloadFile = new File("src/main/resources/payloads/createPostPayload.json");
-		JsonNode createPayload = objectMapper.readTree(createPayloadFile); // Parse the JSON file
+	public void verifyCreatePost() {
+		// Render the JSON payload from its cached template
+		byte[] createPayload = PayloadTemplates.get("createPostTemplate.json")
+				.render(Map.of("title", "Hello Boss", "body", "This is mine", "userId", 101));
 
 		// Call the method that creates a post with the JSON payload and returns a
 		// JsonNode object
-		JsonNode response = userLib.createPost(createPayload); // Pass the JSON payload
+		JsonNode response = userLib.get().createPost(createPayload); // Pass the JSON payload
 
 		// Print the response body
 		System.out.println("Response Body: " + response.toString());
@@ -58,14 +64,14 @@ public class UserApiTest {
 	 * code is 200 (OK) and prints the response body.
 	 */
 	@Test
-	public void verifyUpdatePost() throws IOException {
-		// Read the JSON payload from the specified file
-		File updatePayloadFile = new File("src/main/resources/payloads/updatePostPayload.json");
-		JsonNode updatePayload = objectMapper.readTree(updatePayloadFile); // Parse the JSON file
+	public void verifyUpdatePost() {
+		// Render the JSON payload from its cached template
+		byte[] updatePayload = PayloadTemplates.get("updatePostTemplate.json")
+				.render(Map.of("id", 1, "title", "updated title", "body", "updated body", "userId", 1));
 
 		// Call the method that updates a post with the JSON payload and returns a
 		// JsonNode object
-		JsonNode response = userLib.updatePost(1, updatePayload); // Assuming an ID of 1 for this example
+		JsonNode response = userLib.get().updatePost(1, updatePayload); // Assuming an ID of 1 for this example
 
 		// Print the response body
 		System.out.println("Response Body: " + response.toString());
@@ -78,10 +84,18 @@ public class UserApiTest {
 	@Test
 	public void verifyDeletePost() {
 		// Call the method that deletes a post and returns a JsonNode object
-		JsonNode response = userLib.deletePost(101); // Assuming an ID of 1 for this example
+		JsonNode response = userLib.get().deletePost(101); // Assuming an ID of 1 for this example
 
 		// Print the response body for debugging; no content expected for a successful
 		// delete
 		System.out.println("Response Body: " + response.toString());
 	}
+
+	/**
+	 * Closes the UserLib of every test thread, releasing their connection pools.
+	 */
+	@AfterClass(alwaysRun = true)
+	public void closeUserLibs() {
+		userLibs.forEach(UserLib::close);
+	}
 }
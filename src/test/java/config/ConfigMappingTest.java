@@ -0,0 +1,76 @@
+package config;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.startsWith;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.Test;
+
+/**
+ * ConfigMappingTest verifies classpath loading, that per-thread overrides
+ * stay isolated between threads and that only wrapped tasks receive them.
+ */
+public class ConfigMappingTest {
+
+	@Test
+	public void loadsBaseConfigurationFromClasspath() {
+		assertThat(ConfigMapping.getConfigProperty("base.url"), startsWith("http"));
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void isolatesOverridesPerThread() throws Exception {
+		String base = ConfigMapping.getConfigProperty("base.url");
+		try (ConfigMapping.Scope scope = ConfigMapping.withOverrides(Map.of("base.url", "http://localhost:1"))) {
+			assertThat(ConfigMapping.getConfigProperty("base.url"), equalTo("http://localhost:1"));
+
+			// Threads started inside the scope do not inherit it; wrapped tasks receive it explicitly
+			AtomicReference<String> plain = new AtomicReference<>();
+			AtomicReference<String> propagated = new AtomicReference<>();
+			Thread child = new Thread(() -> plain.set(ConfigMapping.getConfigProperty("base.url")));
+			Thread wrapped = new Thread(ConfigMapping.propagating(
+					() -> propagated.set(ConfigMapping.getConfigProperty("base.url"))));
+			child.start();
+			wrapped.start();
+			child.join();
+			wrapped.join();
+			assertThat(plain.get(), equalTo(base));
+			assertThat(propagated.get(), equalTo("http://localhost:1"));
+			try (ConfigMapping.Scope nested = ConfigMapping.withOverrides(Map.of("extra", "1"))) {
+				assertThat(ConfigMapping.getConfigProperty("base.url"), equalTo("http://localhost:1"));
+				assertThat(ConfigMapping.getConfigProperty("extra"), equalTo("1"));
+			}
+			assertThat(ConfigMapping.getConfigProperty("extra"), equalTo(null));
+		}
+		assertThat(ConfigMapping.getConfigProperty("base.url"), equalTo(base));
+		assertThat(CompletableFuture.supplyAsync(() -> ConfigMapping.getConfigProperty("base.url")).get(),
+				equalTo(base));
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void pooledThreadsDoNotKeepClosedOverrides() throws Exception {
+		String base = ConfigMapping.getConfigProperty("base.url");
+		ExecutorService pool = Executors.newSingleThreadExecutor();
+		try {
+			try (ConfigMapping.Scope scope = ConfigMapping.withOverrides(Map.of("base.url", "http://localhost:1"))) {
+				// The pool's only thread is created by this first task, inside the scope
+				assertThat(CompletableFuture.supplyAsync(
+						ConfigMapping.propagating(() -> ConfigMapping.getConfigProperty("base.url")), pool).get(),
+						equalTo("http://localhost:1"));
+				assertThat(CompletableFuture.supplyAsync(() -> ConfigMapping.getConfigProperty("base.url"), pool)
+						.get(), equalTo(base));
+			}
+			assertThat(CompletableFuture.supplyAsync(() -> ConfigMapping.getConfigProperty("base.url"), pool).get(),
+					equalTo(base));
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,104 @@
+package diff;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import api.UserApi;
+import config.ConfigMapping;
+import config.Environment;
+import stub.PostsStubServer;
+
+/**
+ * DifferentialRunnerTest compares two stub servers standing in for prod and
+ * staging, one of which serves a changed post, and checks that a failing
+ * operation or an unconfigured environment is reported rather than lost.
+ */
+public class DifferentialRunnerTest {
+
+	@Test
+	@SuppressWarnings("try")
+	public void reportsDifferencesBetweenEnvironments() {
+		try (PostsStubServer prod = PostsStubServer.start(); PostsStubServer stg = PostsStubServer.start();
+				ConfigMapping.Scope scope = ConfigMapping.withOverrides(
+						Map.of("prod.base.url", prod.getBaseUri(), "stg.base.url", stg.getBaseUri()))) {
+			stg.stubResponse("GET", "/posts/1", 200, "updatePostPayload.json");
+			stg.stubResponse("GET", "/posts/3", 404, "updatePostPayload.json");
+			assertThat(Environment.STG.getBaseUrl(), equalTo(stg.getBaseUri()));
+
+			DiffReport report;
+			try (DifferentialRunner runner = new DifferentialRunner(Environment.PROD, Environment.STG)) {
+				report = runner.add("getPostById(1)", api -> api.getPostById(1))
+						.add("getPostById(2)", api -> api.getPostById(2))
+						.add("getPostById(3)", api -> api.getPostById(3))
+						.add("getAllPosts", UserApi::getAllPosts).run();
+			}
+
+			assertThat(report.toString(), report.getMismatches().size(), equalTo(2));
+			DiffReport.Result changed = report.getResults().get(0);
+			assertThat(changed.differences().size(), equalTo(2)); // title and body
+			assertThat(changed.differences().get(0).path(), equalTo("title"));
+			assertThat(report.getResults().get(2).rightStatus(), equalTo(404));
+			assertThat(report.getResults().get(3).matched(), equalTo(true));
+			assertThat(report.getLeftLatency().count(), equalTo(4L));
+			assertThat(report.toString(), containsString("title: prod \""));
+
+			try (DifferentialRunner runner = new DifferentialRunner(Environment.PROD, Environment.STG)) {
+				report = runner.ignoringFields("title", "body").add("getPostById(1)", api -> api.getPostById(1)).run();
+			}
+			assertThat(report.toString(), report.allMatched(), equalTo(true));
+		}
+	}
+
+	@Test
+	public void runsBothEnvironmentsConcurrently() {
+		try (PostsStubServer left = PostsStubServer.start(); PostsStubServer right = PostsStubServer.start();
+				UserApi leftApi = new UserApi(left.getBaseUri()); UserApi rightApi = new UserApi(right.getBaseUri())) {
+			leftApi.getPostById(1); // Warm up the clients
+			rightApi.getPostById(1);
+			left.setLatency(Duration.ofMillis(200), Duration.ZERO);
+			right.setLatency(Duration.ofMillis(200), Duration.ZERO);
+			DifferentialRunner runner = new DifferentialRunner("left", leftApi, "right", rightApi).withConcurrency(4);
+			for (int id = 1; id <= 4; id++) {
+				int postId = id;
+				runner.add("getPostById(" + id + ")", api -> api.getPostById(postId));
+			}
+			DiffReport report = runner.run();
+			assertThat(report.allMatched(), equalTo(true));
+			assertThat(report.getRightLatency().p50Ms(), greaterThanOrEqualTo(200.0));
+			assertThat(report.getElapsedSeconds(), lessThan(1.0)); // Sequentially this takes 1.6 s
+		}
+	}
+
+	@Test
+	public void reportsAnOperationThatFailsWithoutLosingTheOthers() {
+		try (PostsStubServer left = PostsStubServer.start(); PostsStubServer right = PostsStubServer.start();
+				UserApi leftApi = new UserApi(left.getBaseUri()); UserApi rightApi = new UserApi(right.getBaseUri())) {
+			DiffReport report = new DifferentialRunner("left", leftApi, "right", rightApi)
+					.add("getPostById(1)", api -> api.getPostById(1)).add("broken", api -> {
+						throw new Error("boom");
+					}).add("getPostById(2)", api -> api.getPostById(2)).run();
+
+			assertThat(report.getResults().size(), equalTo(3));
+			assertThat(report.getResults().get(0).matched(), equalTo(true));
+			assertThat(report.getResults().get(1).compareError(), equalTo("java.lang.Error: boom"));
+			assertThat(report.getResults().get(2).matched(), equalTo(true));
+			assertThat(report.toString(), containsString("comparison failed: java.lang.Error: boom"));
+		}
+	}
+
+	@Test
+	public void requiresAConfiguredStagingUrl() {
+		IllegalStateException error = Assert.expectThrows(IllegalStateException.class,
+				() -> new DifferentialRunner(Environment.PROD, Environment.STG));
+		assertThat(error.getMessage(), equalTo("base.url is not configured for stg"));
+	}
+}
@@ -0,0 +1,51 @@
+package listeners;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.testng.IMethodInstance;
+import org.testng.IMethodInterceptor;
+import org.testng.ITestContext;
+
+/**
+ * ShardingInterceptor splits a suite across several JVMs or CI workers. Test
+ * classes are sorted by name and dealt round-robin to shard.total shards, and
+ * this JVM keeps the classes of shard shard.index (0-based), so every worker
+ * computes the same split without coordination. Whole classes are kept
+ * together so their @BeforeClass/@AfterClass fixtures run once.
+ *
+ * Example usage: mvn test -Dshard.index=0 -Dshard.total=4
+ *
+ * The values may also come from the SHARD_INDEX and SHARD_TOTAL environment
+ * variables. Without them every test runs.
+ */
+public class ShardingInterceptor implements IMethodInterceptor {
+
+	@Override
+	public List<IMethodInstance> intercept(List<IMethodInstance> methods, ITestContext context) {
+		int total = setting("shard.total", "SHARD_TOTAL", 1);
+		int index = setting("shard.index", "SHARD_INDEX", 0);
+		if (total <= 1) {
+			return methods;
+		}
+		if (index < 0 || index >= total) {
+			throw new IllegalArgumentException("shard.index must be between 0 and " + (total - 1) + ": " + index);
+		}
+
+		List<String> classes = new ArrayList<>(new TreeSet<>(methods.stream()
+				.map(method -> method.getMethod().getRealClass().getName()).toList()));
+		List<IMethodInstance> shard = new ArrayList<>();
+		for (IMethodInstance method : methods) {
+			if (classes.indexOf(method.getMethod().getRealClass().getName()) % total == index) {
+				shard.add(method);
+			}
+		}
+		return shard;
+	}
+
+	private static int setting(String property, String variable, int defaultValue) {
+		String value = System.getProperty(property, System.getenv(variable));
+		return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+	}
+}
@@ -0,0 +1,139 @@
+package load;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import api.UserApi;
+import constants.StatusCodes;
+import io.restassured.response.Response;
+import load.LoadReport.OperationSummary;
+import stub.PostsStubServer;
+
+/**
+ * LoadRunnerTest drives short workloads against the offline stub server and
+ * checks request counts and concurrency bounds rather than timings, which
+ * vary too much on shared build machines to assert on.
+ */
+public class LoadRunnerTest {
+
+	private PostsStubServer stub;
+	private UserApi userApi;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start();
+		userApi = new UserApi(stub.getBaseUri());
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void resetStub() {
+		stub.setLatency(Duration.ZERO, Duration.ZERO);
+		stub.reset();
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		userApi.close();
+		stub.close();
+	}
+
+	@Test
+	public void openModelStartsOneRequestPerScheduledArrival() {
+		long requests = stub.getRequestCount();
+		// 40 requests per second for half a second is 20 arrivals, however fast the server answers
+		Scenario scenario = Scenario.postsMix(100, Map.of("title", "t"), Map.of("title", "u"));
+		LoadReport report = new LoadRunner(userApi).run(scenario, WorkloadModel.open(40, 10, Duration.ofMillis(500)));
+
+		assertThat(report.getTotal().count(), equalTo(20L));
+		assertThat(report.getOperations().stream().mapToLong(OperationSummary::count).sum(), equalTo(20L));
+		assertThat(stub.getRequestCount() - requests, equalTo(20L));
+	}
+
+	@Test
+	public void openModelKeepsRequestsInFlightWithinItsBound() {
+		stub.setLatency(Duration.ofMillis(20), Duration.ZERO);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		Scenario scenario = new Scenario("bounded").add("getPostById", 1, StatusCodes.OK,
+				tracking(inFlight, maxInFlight, api -> api.getPostById(1)));
+
+		LoadReport report = new LoadRunner(userApi).run(scenario, WorkloadModel.open(200, 2, Duration.ofMillis(200)));
+
+		// Arrivals that find both slots busy wait for one instead of being dropped
+		assertThat(report.getTotal().count(), equalTo(40L));
+		assertThat(maxInFlight.get(), lessThanOrEqualTo(2));
+	}
+
+	@Test
+	public void closedModelRunsAtMostOneRequestPerVirtualUser() {
+		stub.setLatency(Duration.ofMillis(5), Duration.ZERO);
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		Scenario scenario = new Scenario("closed")
+				.add("getPostById", 3, StatusCodes.OK, tracking(inFlight, maxInFlight, api -> api.getPostById(1)))
+				.add("getMissingPost", 1, StatusCodes.OK,
+						tracking(inFlight, maxInFlight, api -> api.getPostById(999)));
+
+		LoadReport report = new LoadRunner(userApi).run(scenario, WorkloadModel.closed(3, Duration.ofMillis(300)));
+
+		assertThat(maxInFlight.get(), lessThanOrEqualTo(3));
+		assertThat(inFlight.get(), equalTo(0));
+		OperationSummary found = report.getOperations().get(0);
+		OperationSummary missing = report.getOperations().get(1);
+		assertThat(found.count(), greaterThan(0L));
+		assertThat(found.errors(), equalTo(0L));
+		// A 404 where a 200 is expected counts as an error
+		assertThat(missing.errors(), equalTo(missing.count()));
+		assertThat(report.getTotal().count(), equalTo(found.count() + missing.count()));
+	}
+
+	@Test
+	public void picksStepsInProportionToTheirWeight() {
+		Scenario scenario = new Scenario("weighted").add("never", 1, StatusCodes.OK, UserApi::getAllPosts)
+				.add("mostly", 999, StatusCodes.OK, UserApi::getAllPosts);
+		int mostly = 0;
+		for (int i = 0; i < 10_000; i++) {
+			mostly += scenario.pick().getName().equals("mostly") ? 1 : 0;
+		}
+		assertThat(mostly, greaterThan(9_900));
+
+		Assert.assertThrows(IllegalStateException.class, () -> new Scenario("empty").pick());
+		Assert.assertThrows(IllegalArgumentException.class,
+				() -> scenario.add("zero", 0, StatusCodes.OK, UserApi::getAllPosts));
+	}
+
+	@Test
+	public void rejectsInvalidWorkloads() {
+		Assert.assertThrows(IllegalArgumentException.class, () -> WorkloadModel.closed(0, Duration.ofSeconds(1)));
+		Assert.assertThrows(IllegalArgumentException.class, () -> WorkloadModel.closed(1, Duration.ZERO));
+		Assert.assertThrows(IllegalArgumentException.class, () -> WorkloadModel.open(0, 1, Duration.ofSeconds(1)));
+		assertThat(WorkloadModel.open(10, 5, Duration.ofSeconds(1)).toString(),
+				equalTo("open(rps=10.0, maxInFlight=5, duration=PT1S)"));
+	}
+
+	// Wraps a call so that the number of concurrent calls and its peak are tracked
+	private static Function<UserApi, Response> tracking(AtomicInteger inFlight, AtomicInteger maxInFlight,
+			Function<UserApi, Response> call) {
+		return api -> {
+			maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				return call.apply(api);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+		};
+	}
+}
@@ -0,0 +1,176 @@
+package metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import api.RequestHandler;
+import api.UserApi;
+import config.HttpClientSettings;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import models.Post;
+import services.UserLib;
+import stub.PostsStubServer;
+
+/**
+ * CallProfileTest verifies that a UserLib call is recorded as one api.Call
+ * JFR event with its phases, plus the parse and assertion events.
+ */
+@Test(singleThreaded = true)
+public class CallProfileTest {
+
+	@Test
+	public void recordsOneEventPerCallWithPhases() throws Exception {
+		try (PostsStubServer stub = PostsStubServer.start();
+				UserLib userLib = new UserLib(new UserApi(stub.getBaseUri()))) {
+			List<RecordedEvent> events = record(() -> {
+				userLib.getPostById(1, Post.class);
+				Assert.assertThrows(AssertionError.class, () -> userLib.getPostsById(999));
+			});
+
+			List<RecordedEvent> calls = named(events, "api.Call");
+			assertThat(calls, hasSize(2)); // The UserApi and RequestHandler scopes are part of the UserLib call
+			RecordedEvent call = calls.get(0);
+			assertThat(call.getString("operation"), equalTo("getPostById"));
+			assertThat(call.getString("endpoint"), equalTo("/posts/{id}"));
+			assertThat(call.getString("method"), equalTo("GET"));
+			assertThat(call.getInt("status"), equalTo(200));
+			assertThat(call.getInt("attempts"), equalTo(1));
+			assertThat(call.getLong("responseBytes"), greaterThan(0L));
+			assertThat(call.getDuration("networkTime").toNanos(), greaterThan(0L));
+			assertThat(call.getDuration("parseTime").toNanos(), greaterThan(0L));
+			assertThat(call.getDuration("assertionTime").toNanos(), greaterThan(0L));
+			assertThat(call.getString("error"), nullValue());
+
+			RecordedEvent failed = calls.get(1);
+			assertThat(failed.getString("operation"), equalTo("getPostsById"));
+			assertThat(failed.getInt("status"), equalTo(404));
+			assertThat(failed.getString("error"), containsString("Status code should be 200"));
+
+			List<RecordedEvent> parses = named(events, "api.JsonParse");
+			assertThat(parses, hasSize(1)); // The failed call never reaches the parse
+			assertThat(parses.get(0).getString("type"), equalTo("Post"));
+			List<RecordedEvent> assertions = named(events, "api.Assertion");
+			assertThat(assertions, hasSize(2));
+			assertThat(assertions.get(1).getString("actual"), equalTo("404"));
+			assertThat(assertions.get(1).getBoolean("passed"), equalTo(false));
+		}
+	}
+
+	@Test
+	public void recordsTheErrorOfFailedBulkItems() throws Exception {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler callerRuns = new RequestHandler(stub.getBaseUri(), HttpClientSettings.defaults(),
+						Runnable::run);
+				UserLib userLib = new UserLib(new UserApi(stub.getBaseUri()) {
+					// Runs the bulk items on the test thread, where the events are recorded
+					@Override
+					public RequestHandler getRequestHandler() {
+						return callerRuns;
+					}
+				})) {
+			List<RecordedEvent> calls = named(record(() -> userLib.getPostsByIds(List.of(1, 999))), "api.Call");
+
+			assertThat(calls, hasSize(2));
+			assertThat(calls.get(0).getString("operation"), equalTo("bulk"));
+			assertThat(calls.get(0).getString("error"), nullValue());
+			assertThat(calls.get(1).getInt("status"), equalTo(404));
+			assertThat(calls.get(1).getString("error"), containsString("Status code should be 200"));
+		}
+	}
+
+	@Test
+	public void recordsTheErrorOfFailedUserApiCalls() throws Exception {
+		String closedUri;
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			closedUri = stub.getBaseUri();
+		}
+		try (UserApi userApi = new UserApi(closedUri)) {
+			List<RecordedEvent> calls = named(
+					record(() -> Assert.expectThrows(Exception.class, () -> userApi.getPostById(1))), "api.Call");
+
+			assertThat(calls, hasSize(1));
+			assertThat(calls.get(0).getString("operation"), equalTo("GET_POST_BY_ID"));
+			assertThat(calls.get(0).getInt("status"), equalTo(-1));
+			assertThat(calls.get(0).getString("error"), notNullValue());
+		}
+	}
+
+	@Test
+	public void countsOverlappingRequestsOnceTowardsNetworkTime() throws Exception {
+		long hedged = Duration.ofMillis(50).toNanos();
+		List<RecordedEvent> calls = named(record(() -> {
+			try (CallProfile profile = CallProfile.begin("hedged")) {
+				sleep(60);
+				// Two attempts in flight over the same 50 ms, as a request and its hedge are
+				profile.exchanged("GET", "/posts/{id}", 200, 0, 10, hedged);
+				profile.exchanged("GET", "/posts/{id}", 200, 0, 10, hedged);
+			}
+		}), "api.Call");
+
+		RecordedEvent call = calls.get(0);
+		assertThat(call.getInt("attempts"), equalTo(2));
+		assertThat(call.getDuration("networkTime").toNanos(), greaterThanOrEqualTo(hedged));
+		assertThat(call.getDuration("networkTime"), lessThanOrEqualTo(call.getDuration()));
+		assertThat(call.getDuration("buildTime").toNanos(), greaterThan(0L));
+	}
+
+	@Test
+	public void isInactiveWithoutRecording() {
+		try (CallProfile profile = CallProfile.begin("unrecorded")) {
+			assertThat(CallProfile.current(), nullValue());
+			profile.failed(new IllegalStateException()); // Ignored
+		}
+	}
+
+	// Records the api.* events of the runnable on this thread; other tests run in parallel
+	private static List<RecordedEvent> record(Runnable calls) throws Exception {
+		Path file = Files.createTempFile("calls", ".jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("api.Call");
+			recording.enable("api.JsonParse");
+			recording.enable("api.Assertion");
+			recording.start();
+			calls.run();
+			recording.stop();
+			recording.dump(file);
+			String thread = Thread.currentThread().getName();
+			return RecordingFile.readAllEvents(file).stream()
+					.filter(event -> event.getThread() != null && thread.equals(event.getThread().getJavaName()))
+					.sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+					.collect(Collectors.toList());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+		return events.stream().filter(event -> event.getEventType().getName().equals(name))
+				.collect(Collectors.toList());
+	}
+}
@@ -0,0 +1,129 @@
+package metrics;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.apache.http.conn.ConnectTimeoutException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import api.RequestEvent;
+import api.RequestHandler;
+import api.UserApi;
+import config.ConfigMapping;
+import config.HttpClientSettings;
+import replay.TrafficRecorder;
+import stub.PostsStubServer;
+
+/**
+ * RequestMetricsTest verifies per-endpoint aggregation, error and timeout
+ * counting, the Prometheus/JSON export and that metrics and recording can be
+ * switched per thread.
+ */
+public class RequestMetricsTest {
+
+	@Test
+	public void aggregatesByEndpointTemplate() throws Exception {
+		try (PostsStubServer stub = PostsStubServer.start(); UserApi userApi = new UserApi(stub.getBaseUri())) {
+			RequestMetrics metrics = new RequestMetrics();
+			userApi.getRequestHandler().addListener(metrics);
+
+			userApi.getPostById(1);
+			userApi.getPostById(2);
+			userApi.getPostById(999);
+			userApi.createPost("{\"title\":\"t\"}");
+
+			assertThat(metrics.getCount("GET", "/posts/{id}"), equalTo(3L));
+			assertThat(metrics.getCount("POST", "/posts"), equalTo(1L));
+
+			JsonNode byId = metrics.toJson().get("endpoints").get(1);
+			assertThat(byId.get("endpoint").asText(), equalTo("/posts/{id}"));
+			assertThat(byId.get("statusCounts").get("200").asLong(), equalTo(2L));
+			assertThat(byId.get("statusCounts").get("404").asLong(), equalTo(1L));
+			assertThat(byId.get("responseBytes").asLong(), greaterThan(0L));
+			assertThat(metrics.toJson().get("endpoints").get(0).get("requestBytes").asLong(), equalTo(13L));
+
+			String prometheus = metrics.toPrometheus();
+			assertThat(prometheus, containsString("# TYPE api_request_duration_seconds summary"));
+			assertThat(prometheus, containsString(
+					"api_responses_total{method=\"GET\",endpoint=\"/posts/{id}\",status=\"404\"} 1"));
+			assertThat(prometheus,
+					containsString("api_request_duration_seconds_count{method=\"POST\",endpoint=\"/posts\"} 1"));
+
+			Path directory = Files.createTempDirectory("metrics");
+			metrics.writeTo(directory);
+			assertThat(Files.exists(directory.resolve("api-metrics.prom")), equalTo(true));
+			assertThat(Files.exists(directory.resolve("api-metrics.json")), equalTo(true));
+		}
+	}
+
+	@Test
+	public void countsErrorsAndTimeouts() {
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri(),
+						new HttpClientSettings(10, 10, 30_000, 30_000, 1_000, 100))) {
+			RequestMetrics metrics = new RequestMetrics();
+			handler.addListener(metrics);
+			stub.setLatency(Duration.ofMillis(500), Duration.ZERO);
+			try {
+				handler.get("/posts/{id}", null, null, Map.of("id", "1"));
+				Assert.fail("Expected a read timeout");
+			} catch (Exception e) {
+				// Expected
+			}
+			String prometheus = metrics.toPrometheus();
+			assertThat(prometheus,
+					containsString("api_request_errors_total{method=\"GET\",endpoint=\"/posts/{id}\"} 1"));
+			assertThat(prometheus,
+					containsString("api_request_timeouts_total{method=\"GET\",endpoint=\"/posts/{id}\"} 1"));
+		}
+	}
+
+	@Test
+	public void countsOnlyExpiredTimeoutsAsTimeouts() {
+		assertThat(failed(new UncheckedIOException(new SocketTimeoutException("Read timed out"))).isTimeout(),
+				equalTo(true));
+		assertThat(failed(new ConnectTimeoutException("Connect timed out")).isTimeout(), equalTo(true));
+		assertThat(failed(new RuntimeException(new HttpConnectTimeoutException("connect"))).isTimeout(),
+				equalTo(true));
+		assertThat(failed(new RuntimeException(new HttpTimeoutException("request"))).isTimeout(), equalTo(true));
+		// An interrupted request thread is an error, not a timeout
+		assertThat(failed(new UncheckedIOException(new InterruptedIOException("Request interrupted"))).isTimeout(),
+				equalTo(false));
+		assertThat(failed(new UncheckedIOException(new ConnectException("Connection refused"))).isTimeout(),
+				equalTo(false));
+		assertThat(failed(null).isTimeout(), equalTo(false));
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void readsTheEnabledFlagsPerCall() {
+		assertThat(RequestMetrics.isEnabled(), equalTo(true));
+		assertThat(TrafficRecorder.isEnabled(), equalTo(false));
+		try (ConfigMapping.Scope scope = ConfigMapping
+				.withOverrides(Map.of("metrics.enabled", "false", "record.enabled", "true"))) {
+			assertThat(RequestMetrics.isEnabled(), equalTo(false));
+			assertThat(TrafficRecorder.isEnabled(), equalTo(true));
+		}
+		assertThat(RequestMetrics.isEnabled(), equalTo(true));
+	}
+
+	private static RequestEvent failed(Throwable error) {
+		return new RequestEvent("GET", "/posts/{id}", -1, 1_000, 0, 0, error);
+	}
+}
@@ -0,0 +1,84 @@
+package replay;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import api.RequestHandler;
+import api.UserApi;
+import stub.PostsStubServer;
+
+/**
+ * TrafficReplayerTest records traffic against one stub server and replays it
+ * against another, checking the capture format, response comparison and
+ * pacing.
+ */
+public class TrafficReplayerTest {
+
+	@Test
+	public void replaysRecordedTrafficAgainstAnotherServer() throws Exception {
+		Path capture = Files.createTempFile("requests", ".jsonl");
+		try (PostsStubServer recorded = PostsStubServer.start(); TrafficRecorder recorder = new TrafficRecorder(capture);
+				UserApi userApi = new UserApi(recorded.getBaseUri())) {
+			userApi.getRequestHandler().addListener(recorder);
+			userApi.getPostById(1);
+			userApi.createPost("{\"title\":\"t\",\"body\":\"b\",\"userId\":1}");
+			userApi.getRequestHandler().get("/posts", Map.of("Authorization", "Bearer secret"), Map.of("q", "a b"));
+			userApi.deletePost(2);
+		}
+		List<String> lines = Files.readAllLines(capture);
+		assertThat(lines.size(), equalTo(4));
+		assertThat(lines.get(0), containsString("\"template\":\"/posts/{id}\",\"path\":\"/posts/1\""));
+		assertThat(lines.get(2), containsString("\"query\":{\"q\":\"a b\"}"));
+		assertThat(lines.get(2), not(containsString("secret")));
+
+		try (PostsStubServer target = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(target.getBaseUri())) {
+			TrafficReplayer replayer = new TrafficReplayer(capture).withSpeed(TrafficReplayer.AS_FAST_AS_POSSIBLE)
+					.withMaxInFlight(1);
+			TrafficReplayer.Report report = replayer.replay(handler);
+			assertThat(report.toString(), report.allMatched(), equalTo(true));
+			assertThat(report.total(), equalTo(4L));
+
+			target.reset();
+			target.stubResponse("GET", "/posts/1", 200, "updatePostPayload.json");
+			target.stubResponse("DELETE", "/posts/2", 404, "updatePostPayload.json");
+			report = replayer.replay(handler);
+			assertThat(report.bodyMismatches(), equalTo(1L));
+			assertThat(report.statusMismatches(), equalTo(1L));
+			assertThat(report.mismatches().get(0).path(), equalTo("/posts/1"));
+		} finally {
+			Files.deleteIfExists(capture);
+		}
+	}
+
+	@Test
+	public void keepsRecordedTimingScaledBySpeed() throws Exception {
+		Path capture = Files.createTempFile("requests", ".jsonl");
+		try (PostsStubServer stub = PostsStubServer.start();
+				RequestHandler handler = new RequestHandler(stub.getBaseUri())) {
+			try (TrafficRecorder recorder = new TrafficRecorder(capture)) {
+				handler.addListener(recorder);
+				handler.get("/posts/{id}", null, null, Map.of("id", "1"));
+				Thread.sleep(500);
+				handler.get("/posts/{id}", null, null, Map.of("id", "2"));
+				handler.removeListener(recorder);
+			}
+			TrafficReplayer replayer = new TrafficReplayer(capture);
+			assertThat(replayer.replay(handler).elapsed().toMillis(), greaterThanOrEqualTo(450L));
+			assertThat(replayer.withSpeed(10).replay(handler).elapsed().toMillis(), lessThan(450L));
+		} finally {
+			Files.deleteIfExists(capture);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package services;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import api.UserApi;
+import stub.PostsStubServer;
+import utils.PayloadTemplate;
+import utils.PayloadTemplates;
+
+/**
+ * UserLibBulkTest runs the bulk CRUD operations against the in-process stub
+ * server and checks results, failures and the concurrency bound. Its tests
+ * share the stub's state and therefore run on a single thread.
+ */
+@Test(singleThreaded = true)
+public class UserLibBulkTest {
+
+	private PostsStubServer stub;
+	private UserLib userLib;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start();
+		userLib = new UserLib(new UserApi(stub.getBaseUri()));
+		userLib.setBulkConcurrency(4);
+	}
+
+	@AfterMethod
+	public void resetStub() {
+		stub.reset();
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		userLib.close();
+		stub.close();
+	}
+
+	@Test
+	public void createsUpdatesAndDeletesFromStreams() {
+		PayloadTemplate template = PayloadTemplates.get("createPostTemplate.json");
+		AtomicInteger read = new AtomicInteger();
+		BulkResult<JsonNode> created = userLib.createPosts(IntStream.rangeClosed(1, 200)
+				.peek(i -> read.incrementAndGet())
+				.mapToObj(i -> template.render(Map.of("title", "bulk " + i, "body", "b", "userId", i % 10 + 1))));
+		created.assertAllSucceeded();
+		assertThat(created.size(), equalTo(200));
+		assertThat(read.get(), equalTo(200));
+		assertThat(stub.getPostCount(), equalTo(300));
+		assertThat(created.getItems().get(0).value().get("title").asText(), equalTo("bulk 1"));
+
+		BulkResult<JsonNode> updated = userLib.updatePosts(IntStream.rangeClosed(101, 300)
+				.mapToObj(id -> Map.entry(id, (Object) Map.of("title", "updated " + id))));
+		updated.assertAllSucceeded();
+		assertThat(userLib.getPostsById(300).get("title").asText(), equalTo("updated 300"));
+
+		userLib.deletePosts(IntStream.rangeClosed(101, 300).boxed()).assertAllSucceeded();
+		assertThat(stub.getPostCount(), equalTo(100));
+	}
+
+	@Test
+	public void collectsFailuresPerItem() {
+		BulkResult<JsonNode> result = userLib.getPostsByIds(Stream.of(1, 2, 999, 3));
+		assertThat(result.getSucceededCount(), equalTo(3L));
+		assertThat(result.getFailures().get(0).index(), equalTo(2));
+		assertThat(result.getFailures().get(0).statusCode(), equalTo(404));
+		try {
+			result.assertAllSucceeded();
+			Assert.fail("Expected the 404 to fail the bulk result");
+		} catch (AssertionError e) {
+			assertThat(e.getMessage(), containsString("1 of 4 bulk items failed"));
+		}
+	}
+
+	@Test
+	public void keepsOnlyFailuresWhenValuesAreNotKept() {
+		try (UserLib failuresOnly = new UserLib(new UserApi(stub.getBaseUri()))) {
+			failuresOnly.setBulkKeepValues(false);
+			BulkResult<JsonNode> result = failuresOnly
+					.getPostsByIds(IntStream.rangeClosed(1, 50).map(id -> id % 10 == 0 ? 900 + id : id).boxed());
+			assertThat(result.size(), equalTo(50));
+			assertThat(result.getSucceededCount(), equalTo(45L));
+			assertThat(result.getFailedCount(), equalTo(5L));
+			// Only the failures are kept, in input order
+			assertThat(result.getItems(), equalTo(result.getFailures()));
+			assertThat(result.getItems().stream().map(BulkResult.Item::index).toList(),
+					equalTo(List.of(9, 19, 29, 39, 49)));
+			assertThat(result.getItems().get(0).statusCode(), equalTo(404));
+			Assert.expectThrows(AssertionError.class, result::assertAllSucceeded);
+		}
+	}
+
+	@Test
+	public void waitsForStartedItemsWhenTheInputFails() {
+		stub.setLatency(Duration.ofMillis(50), Duration.ZERO);
+		try {
+			long requests = stub.getRequestCount();
+			IllegalStateException error = Assert.expectThrows(IllegalStateException.class,
+					() -> userLib.getPostsByIds(IntStream.rangeClosed(1, 20).map(id -> {
+						if (id == 7) {
+							throw new IllegalStateException("Unreadable input " + id);
+						}
+						return id;
+					}).boxed()));
+			assertThat(error.getMessage(), equalTo("Unreadable input 7"));
+			// The six items read before the failure were sent and finished, none after it
+			assertThat(stub.getRequestCount() - requests, equalTo(6L));
+			assertThat(userLib.getPostsByIds(Stream.of(1, 2)).getSucceededCount(), equalTo(2L));
+		} finally {
+			stub.setLatency(Duration.ZERO, Duration.ZERO);
+		}
+	}
+
+	@Test
+	public void boundsRequestsInFlight() {
+		AtomicInteger inFlight = new AtomicInteger();
+		AtomicInteger maxInFlight = new AtomicInteger();
+		UserApi countingApi = new UserApi(stub.getBaseUri()) {
+			@Override
+			public io.restassured.response.Response getPostById(int id) {
+				maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+				try {
+					return super.getPostById(id);
+				} finally {
+					inFlight.decrementAndGet();
+				}
+			}
+		};
+		try (UserLib bounded = new UserLib(countingApi)) {
+			bounded.setBulkConcurrency(3);
+			bounded.getPostsByIds(IntStream.rangeClosed(1, 60).boxed()).assertAllSucceeded();
+		}
+		assertThat(maxInFlight.get(), lessThanOrEqualTo(3));
+	}
+}
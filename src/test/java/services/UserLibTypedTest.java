@@ -0,0 +1,71 @@
+package services;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import api.UserApi;
+import io.restassured.response.Response;
+import models.Post;
+import stub.PostsStubServer;
+import utils.JsonUtil;
+import utils.PayloadTemplates;
+
+/**
+ * UserLibTypedTest verifies binding responses straight to the Post record.
+ */
+@Test(singleThreaded = true)
+public class UserLibTypedTest {
+
+	private PostsStubServer stub;
+	private UserApi userApi;
+	private UserLib userLib;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start();
+		userApi = new UserApi(stub.getBaseUri());
+		userLib = new UserLib(userApi);
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		userLib.close();
+		stub.close();
+	}
+
+	@Test
+	public void bindsPostsToRecords() {
+		Post post = userLib.getPostById(1, Post.class);
+		assertThat(post.id(), equalTo(1));
+		assertThat(post.title(), equalTo(userLib.getPostsById(1).get("title").asText()));
+		assertThat(userLib.getPostByIdAsync(1, Post.class).join(), equalTo(post));
+
+		List<Post> posts = userLib.getAllPosts(Post.class);
+		assertThat(posts, hasSize(stub.getPostCount()));
+		assertThat(posts.get(0), equalTo(post));
+
+		byte[] body = PayloadTemplates.get("createPostTemplate.json")
+				.render(Map.of("title", "typed", "body", "b", "userId", 7));
+		Post created = userLib.createPost(body, Post.class);
+		assertThat(created.title(), equalTo("typed"));
+		assertThat(created.userId(), equalTo(7));
+		assertThat(userLib.updatePost(created.id(), body, Post.class).id(), equalTo(created.id()));
+	}
+
+	@Test
+	public void sharesTheBufferedBody() {
+		Response response = userApi.getPostById(2);
+		assertThat(response.asByteArray(), sameInstance(response.asByteArray()));
+		assertThat(JsonUtil.convertResponseToType(response, Post.class).id(), equalTo(2));
+		assertThat(JsonUtil.readerFor(Post.class), sameInstance(JsonUtil.readerFor(Post.class)));
+	}
+}
@@ -0,0 +1,104 @@
+package stub;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+import java.time.Duration;
+import java.util.Map;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import api.UserApi;
+import constants.StatusCodes;
+import services.UserLib;
+import utils.PayloadTemplates;
+
+/**
+ * PostsStubServerTest runs the UserLib CRUD flows against the in-process stub
+ * server, so it needs no network access. Its tests share the stub's state
+ * and therefore run on a single thread.
+ */
+@Test(singleThreaded = true)
+public class PostsStubServerTest {
+
+	private PostsStubServer stub;
+	private UserApi userApi;
+	private UserLib userLib;
+
+	@BeforeClass
+	public void startStub() {
+		stub = PostsStubServer.start();
+		userApi = new UserApi(stub.getBaseUri());
+		userLib = new UserLib(userApi);
+	}
+
+	@AfterMethod
+	public void resetStub() {
+		stub.reset();
+	}
+
+	@AfterClass(alwaysRun = true)
+	public void stopStub() {
+		userLib.close();
+		stub.close();
+	}
+
+	@Test
+	public void servesSeededPosts() {
+		JsonNode posts = userLib.getAllPosts();
+		assertThat(posts.size(), equalTo(100));
+		assertThat(posts.get(0).get("title").asText(),
+				equalTo("sunt aut facere repellat provident occaecati excepturi optio reprehenderit"));
+		assertThat(userLib.getPostsById(42).get("id").asInt(), equalTo(42));
+	}
+
+	@Test
+	public void streamsAssertionsOnAllPosts() {
+		userLib.assertAllPosts()
+				.valueAt("[0].title", equalTo("sunt aut facere repellat provident occaecati excepturi optio reprehenderit"))
+				.allMatch("[*].userId", greaterThanOrEqualTo(1))
+				.count("[*]", equalTo(100))
+				.verify();
+	}
+
+	@Test
+	public void createUpdateAndDeletePost() {
+		JsonNode created = userLib.createPost(PayloadTemplates.get("createPostTemplate.json")
+				.render(Map.of("title", "Hello Boss", "body", "This is mine", "userId", 101)));
+		int id = created.get("id").asInt();
+		assertThat(id, equalTo(101));
+		assertThat(created.get("title").asText(), equalTo("Hello Boss"));
+
+		JsonNode updated = userLib.updatePost(id, PayloadTemplates.get("updatePostTemplate.json")
+				.render(Map.of("id", id, "title", "updated title", "body", "updated body", "userId", 1)));
+		assertThat(updated.get("id").asInt(), equalTo(id));
+		assertThat(updated.get("title").asText(), equalTo("updated title"));
+
+		userLib.deletePost(id);
+		assertThat(userApi.getPostById(id).getStatusCode(), equalTo(StatusCodes.NOT_FOUND.getCode()));
+	}
+
+	@Test
+	public void servesCannedFixture() {
+		stub.stubResponse("GET", "/posts/7", StatusCodes.OK.getCode(), "updatePostPayload.json");
+		assertThat(userLib.getPostsById(7).get("title").asText(), equalTo("updated title"));
+	}
+
+	@Test
+	public void injectsErrorsAndLatency() {
+		stub.setErrorRate(1.0, StatusCodes.INTERNAL_SERVER_ERROR.getCode());
+		assertThat(userApi.getPostById(1).getStatusCode(), equalTo(StatusCodes.INTERNAL_SERVER_ERROR.getCode()));
+
+		stub.setErrorRate(0, StatusCodes.INTERNAL_SERVER_ERROR.getCode());
+		stub.setLatency(Duration.ofMillis(50), Duration.ZERO);
+		long start = System.nanoTime();
+		userApi.getPostById(1);
+		assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), greaterThanOrEqualTo(50L));
+	}
+}
@@ -0,0 +1,117 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.stream.Collectors;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * ApiLoggerTest verifies that request entries are snapshotted when they are
+ * captured, that bodies are truncated, that entries are dropped and counted
+ * when the writer queue is full, and the onFailure ring buffer.
+ */
+public class ApiLoggerTest {
+
+	private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+	private ApiLogger.Mode mode;
+	private int maxBodyChars;
+
+	@BeforeMethod
+	public void captureLog() {
+		mode = ApiLogger.getMode();
+		maxBodyChars = ApiLogger.getMaxBodyChars();
+		appender.list.clear();
+		appender.start();
+		((Logger) LoggerFactory.getLogger(ApiLogger.class)).addAppender(appender);
+	}
+
+	@AfterMethod(alwaysRun = true)
+	public void restore() {
+		((Logger) LoggerFactory.getLogger(ApiLogger.class)).detachAppender(appender);
+		ApiLogger.setMode(mode);
+		ApiLogger.setMaxBodyChars(maxBodyChars);
+		ApiLogger.clearRecent();
+	}
+
+	@Test
+	public void snapshotsHeadersAndBodiesWhenCaptured() {
+		Map<String, String> headers = new HashMap<>(Map.of("X-Trace", "1"));
+		byte[] buffer = "{\"title\":\"first\"}".getBytes(StandardCharsets.UTF_8);
+		StringBuilder text = new StringBuilder("draft");
+		ApiLogger.LogEntry bytes = new ApiLogger.LogEntry("POST", "http://stub", "/posts", headers, buffer, null);
+		ApiLogger.LogEntry builder = new ApiLogger.LogEntry("PUT", null, "/posts/1", null, text, null);
+
+		// A caller reusing its map and buffers must not change what is logged
+		headers.put("X-Trace", "2");
+		Arrays.fill(buffer, (byte) 'x');
+		text.append(" changed");
+		assertThat(bytes.render(),
+				endsWith("Request POST http://stub/posts Headers: {X-Trace=1} Body: {\"title\":\"first\"}"));
+		assertThat(builder.render(), endsWith("Request PUT /posts/1 Headers: null Body: draft"));
+	}
+
+	@Test
+	public void truncatesBodiesToTheLimit() {
+		ApiLogger.setMaxBodyChars(5);
+		byte[] bytes = "0123456789".getBytes(StandardCharsets.UTF_8);
+		assertThat(new ApiLogger.LogEntry("POST", null, "/posts", Map.of(), bytes, null).render(),
+				endsWith("Body: 01234... (5 more bytes)"));
+		assertThat(new ApiLogger.LogEntry("POST", null, "/posts", Map.of(), "abcdefgh", null).render(),
+				endsWith("Body: abcde... (3 more chars)"));
+		assertThat(new ApiLogger.LogEntry("POST", null, "/posts", Map.of(), "abcde", null).render(),
+				endsWith("Body: abcde"));
+	}
+
+	@Test
+	public void countsEntriesDroppedWhenTheQueueIsFull() {
+		BlockingQueue<ApiLogger.LogEntry> queue = new ArrayBlockingQueue<>(2);
+		long dropped = ApiLogger.getDroppedCount();
+		for (int i = 0; i < 5; i++) {
+			ApiLogger.enqueue(queue, new ApiLogger.LogEntry("GET", null, "/posts/" + i, null, null, null));
+		}
+		assertThat(queue.size(), equalTo(2));
+		assertThat(ApiLogger.getDroppedCount() - dropped, equalTo(3L));
+	}
+
+	@Test
+	public void keepsOnlyTheMostRecentExchangesUntilAFailure() {
+		ApiLogger.setMode(ApiLogger.Mode.ON_FAILURE);
+		for (int i = 1; i <= 25; i++) {
+			ApiLogger.logRequest("GET", "http://stub", "/posts/" + i, null, null);
+		}
+		assertThat(appender.list, empty()); // Nothing is written before the failure
+
+		ApiLogger.flushRecent();
+		List<String> messages = appender.list.stream().map(ILoggingEvent::getFormattedMessage)
+				.collect(Collectors.toList());
+		assertThat(messages.size(), equalTo(21)); // The heading and the last log.ring.size (20) entries
+		assertThat(messages.get(0), equalTo("Recent API exchanges before the failure:"));
+		assertThat(messages.get(1), endsWith("GET http://stub/posts/6 Headers: null"));
+		assertThat(messages.get(20), endsWith("GET http://stub/posts/25 Headers: null"));
+
+		appender.list.clear();
+		ApiLogger.flushRecent(); // Flushed entries are cleared
+		ApiLogger.logRequest("GET", "http://stub", "/posts/26", null, null);
+		ApiLogger.clearRecent(); // A passing test discards them
+		ApiLogger.flushRecent();
+		assertThat(appender.list, empty());
+	}
+}
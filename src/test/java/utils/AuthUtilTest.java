@@ -0,0 +1,130 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import config.HttpClientSettings;
+import stub.PostsStubServer;
+import utils.AuthUtil.Credentials;
+
+/**
+ * AuthUtilTest verifies token caching, single-flight fetching and proactive
+ * refresh against the stub token endpoint.
+ */
+public class AuthUtilTest {
+
+	private static final Credentials CLIENT = new Credentials("client", "secret", "posts:read");
+
+	@Test
+	public void cachesTokensPerCredentials() {
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			AuthUtil auth = new AuthUtil(AuthUtil.clientCredentials(stub.getTokenUri()), 0.2);
+			Map<String, String> headers = auth.getAuthHeaders(CLIENT);
+			assertThat(auth.getAuthHeaders(CLIENT), sameInstance(headers));
+			assertThat(headers.get("Authorization"), equalTo("Bearer " + auth.getToken(CLIENT)));
+			assertThat(headers.get("Content-Type"), equalTo("application/json"));
+			Assert.assertThrows(UnsupportedOperationException.class, () -> headers.put("X-Trace", "1"));
+			assertThat(stub.getTokenRequestCount(), equalTo(1L));
+
+			auth.getAuthHeaders(new Credentials("client", "secret", "posts:write"));
+			assertThat(stub.getTokenRequestCount(), equalTo(2L));
+		}
+	}
+
+	@Test
+	public void collapsesConcurrentMissesIntoOneRequest() {
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			stub.setLatency(Duration.ofMillis(300), Duration.ZERO);
+			AuthUtil auth = new AuthUtil(AuthUtil.clientCredentials(stub.getTokenUri()), 0.2);
+			CountDownLatch start = new CountDownLatch(1);
+			List<CompletableFuture<Map<String, String>>> callers = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				callers.add(CompletableFuture.supplyAsync(() -> {
+					await(start);
+					return auth.getAuthHeaders(CLIENT);
+				}));
+			}
+			start.countDown();
+			Map<String, String> first = callers.get(0).join();
+			for (CompletableFuture<Map<String, String>> caller : callers) {
+				assertThat(caller.join(), sameInstance(first));
+			}
+			assertThat(stub.getTokenRequestCount(), equalTo(1L));
+		}
+	}
+
+	@Test
+	public void refreshesBeforeExpiry() throws InterruptedException {
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			stub.setTokenLifetime(Duration.ofSeconds(2));
+			AuthUtil auth = new AuthUtil(AuthUtil.clientCredentials(stub.getTokenUri()), 0.5);
+			String first = auth.getToken(CLIENT);
+			long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+			while (stub.getTokenRequestCount() < 2 && System.nanoTime() < deadline) {
+				Thread.sleep(50); // The scheduled refresh fires after half the lifetime
+			}
+			assertThat(stub.getTokenRequestCount(), equalTo(2L));
+			String refreshed = auth.getToken(CLIENT);
+			while (refreshed.equals(first) && System.nanoTime() < deadline) {
+				Thread.sleep(10); // The server counted the request; the response may still be in flight
+				refreshed = auth.getToken(CLIENT);
+			}
+			assertThat(refreshed, not(equalTo(first)));
+			assertThat(stub.getTokenRequestCount(), equalTo(2L));
+		}
+	}
+
+	@Test
+	public void propagatesFailuresWithoutCachingThem() {
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			AuthUtil auth = new AuthUtil(AuthUtil.clientCredentials(stub.getTokenUri()), 0.2);
+			stub.failNext(1, 500, null);
+			Assert.assertThrows(IllegalStateException.class, () -> auth.getToken(CLIENT));
+			assertThat(auth.getToken(CLIENT), equalTo("token-client-1"));
+		}
+	}
+
+	@Test
+	public void boundsTheWaitForAHungTokenEndpoint() {
+		try (PostsStubServer stub = PostsStubServer.start()) {
+			stub.setLatency(Duration.ofMillis(1_000), Duration.ZERO);
+			// The caller gives up first; the request itself is bounded by the read timeout
+			AuthUtil waiting = new AuthUtil(
+					AuthUtil.clientCredentials(stub.getTokenUri(), HttpClientSettings.defaults()), 0.2,
+					Duration.ofMillis(100));
+			UncheckedIOException error = Assert.expectThrows(UncheckedIOException.class,
+					() -> waiting.getToken(CLIENT));
+			assertThat(error.getCause(), instanceOf(SocketTimeoutException.class));
+
+			AuthUtil reading = new AuthUtil(AuthUtil.clientCredentials(stub.getTokenUri(),
+					new HttpClientSettings(2, 2, 30_000, 30_000, 1_000, 100)), 0.2);
+			Assert.expectThrows(Exception.class, () -> reading.getToken(CLIENT));
+			// The timed-out request is not left in flight for the next caller to join
+			stub.setLatency(Duration.ZERO, Duration.ZERO);
+			assertThat(reading.getToken(CLIENT).startsWith("token-client-"), equalTo(true));
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
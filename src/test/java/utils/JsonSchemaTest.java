@@ -0,0 +1,140 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import api.Endpoint;
+import api.UserApi;
+import config.ConfigMapping;
+import services.UserLib;
+import stub.PostsStubServer;
+import utils.JsonSchema.Violation;
+
+/**
+ * JsonSchemaTest verifies that schemas are compiled once per file, that
+ * validation reports every violation with its path, and that UserLib checks
+ * responses against their endpoint's schema when validation is enabled.
+ */
+public class JsonSchemaTest {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void reportsEveryViolationWithItsPath() {
+		String posts = "[{\"userId\":1,\"id\":1,\"title\":\"a\",\"body\":\"b\"},"
+				+ "{\"userId\":0,\"id\":2,\"title\":7,\"body\":\"b\"}," + "{\"userId\":1,\"title\":\"c\"}]";
+		List<Violation> violations = JsonSchemas.get("posts.json").validate(bytes(posts));
+		assertThat(violations, equalTo(List.of(new Violation("$[1].userId", "must be >= 1 but was 0"),
+				new Violation("$[1].title", "expected string but was integer"),
+				new Violation("$[2]", "is missing required property 'id'"),
+				new Violation("$[2]", "is missing required property 'body'"))));
+
+		assertThat(JsonSchemas.get("post.json").validate(bytes("[]")),
+				equalTo(List.of(new Violation("$", "expected object but was array"))));
+		assertThat(JsonSchemas.get("post.json").validate(bytes("")).get(0).message(), containsString("empty"));
+		assertThat(JsonSchemas.get("post.json").validate(bytes("{\"id\":")).get(0).message(),
+				containsString("not valid JSON"));
+	}
+
+	@Test
+	public void compilesEachFileOnce() {
+		assertThat(JsonSchemas.get("posts.json"), sameInstance(JsonSchemas.get("posts.json")));
+		assertThat(JsonSchemas.get(Endpoint.CREATE_POST.getSchema()),
+				sameInstance(JsonSchemas.get(Endpoint.UPDATE_POST.getSchema())));
+		Assert.assertThrows(IllegalArgumentException.class, () -> JsonSchemas.get("missing.json"));
+		// A keyword that would be silently ignored is rejected instead
+		Assert.assertThrows(IllegalArgumentException.class,
+				() -> JsonSchema.compile("bad", tree("{\"uniqueItems\":true}")));
+	}
+
+	@Test
+	public void supportsCombinatorsAndLocalRefs() {
+		JsonSchema schema = JsonSchema.compile("tree", tree("{\"$ref\":\"#/$defs/node\",\"$defs\":{\"node\":{"
+				+ "\"type\":\"object\",\"additionalProperties\":false,\"properties\":{"
+				+ "\"kind\":{\"enum\":[\"leaf\",\"branch\"]},"
+				+ "\"weight\":{\"oneOf\":[{\"type\":\"integer\"},{\"type\":\"number\",\"exclusiveMaximum\":1}]},"
+				+ "\"name\":{\"anyOf\":[{\"type\":\"null\"},"
+				+ "{\"type\":\"string\",\"pattern\":\"^[a-z]+$\",\"maxLength\":5}]},"
+				+ "\"children\":{\"type\":\"array\",\"maxItems\":2,\"items\":{\"$ref\":\"#/$defs/node\"}}}}}}"));
+		assertThat(schema.validate(bytes("{\"kind\":\"branch\",\"weight\":1.0,\"name\":null,\"children\":["
+				+ "{\"kind\":\"leaf\",\"weight\":0.5,\"name\":\"ab\"}]}")), empty());
+
+		List<Violation> violations = schema.validate(bytes("{\"kind\":\"root\",\"weight\":2.5,\"children\":["
+				+ "{\"name\":\"ABC\"},{\"children\":[{\"extra\":1}]},{}]}"));
+		assertThat(violations, equalTo(List.of(
+				new Violation("$.kind", "must be one of [\"leaf\", \"branch\"] but was \"root\""),
+				new Violation("$.weight", "must match exactly one of 2 oneOf schemas but matched 0"),
+				new Violation("$.children[0].name", "must match at least one of 2 anyOf schemas"),
+				new Violation("$.children[1].children[0].extra", "is not allowed"),
+				new Violation("$.children", "must have at most 2 items but had 3"))));
+	}
+
+	@Test
+	@SuppressWarnings("try")
+	public void validatesResponsesInUserLibWhenEnabled() {
+		try (PostsStubServer stub = PostsStubServer.start();
+				UserLib userLib = new UserLib(new UserApi(stub.getBaseUri()))) {
+			try (ConfigMapping.Scope scope = ConfigMapping
+					.withOverrides(Map.of("schema.validation.enabled", "true"))) {
+				assertThat(userLib.getAllPosts().size(), equalTo(100));
+				userLib.assertAllPosts().verify();
+
+				AssertionError error = Assert.expectThrows(AssertionError.class,
+						() -> userLib.createPost(Map.of("title", 1, "userId", "one")));
+				assertThat(error.getMessage(),
+						containsString("Response does not match schema savedPost.json (2 violations):"));
+				assertThat(error.getMessage(), containsString("$.userId: expected integer but was string"));
+				assertThat(error.getMessage(), containsString("$.title: expected string but was integer"));
+				// A partial update is echoed back as it was sent
+				assertThat(userLib.updatePost(1, Map.of("title", "t")).get("id").asInt(), equalTo(1));
+			}
+			// Off by default: only the status is checked
+			assertThat(userLib.createPost(Map.of("title", 1)).get("title").asInt(), equalTo(1));
+		}
+	}
+
+	@Test
+	public void validatesLargeArraysInOnePass() {
+		// Timings are measured by HotPathBenchmark.validateLargePostsSchema
+		byte[] posts = posts(10_000);
+		assertThat(JsonSchemas.get("posts.json").validate(posts), empty());
+		byte[] broken = bytes(new String(posts, StandardCharsets.UTF_8).replace("\"id\":10000,", "\"id\":\"10000\","));
+		assertThat(JsonSchemas.get("posts.json").validate(broken),
+				equalTo(List.of(new Violation("$[9999].id", "expected integer but was string"))));
+	}
+
+	private static byte[] posts(int count) {
+		StringBuilder json = new StringBuilder("[");
+		for (int i = 1; i <= count; i++) {
+			json.append(i > 1 ? "," : "").append("{\"userId\":").append(i % 10 + 1).append(",\"id\":").append(i)
+					.append(",\"title\":\"title ").append(i).append("\",\"body\":\"body of post ").append(i)
+					.append(" with a few more words in it\"}");
+		}
+		return bytes(json.append(']').toString());
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static JsonNode tree(String json) {
+		try {
+			return mapper.readTree(json);
+		} catch (Exception e) {
+			throw new IllegalArgumentException(e);
+		}
+	}
+}
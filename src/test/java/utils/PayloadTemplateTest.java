@@ -0,0 +1,93 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.restassured.response.Response;
+import stub.PostsStubServer;
+import api.UserApi;
+
+/**
+ * PayloadTemplateTest verifies placeholder compilation, JSON encoding of
+ * substituted values and sending rendered payloads.
+ */
+public class PayloadTemplateTest {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void rendersStringAndBareValues() throws Exception {
+		PayloadTemplate template = PayloadTemplates.get("createPostTemplate.json");
+		assertThat(template.getPlaceholders(), contains("title", "body", "userId"));
+
+		JsonNode json = mapper.readTree(template.render(Map.of("title", "say \"hi\"\n", "body", "b", "userId", 7)));
+		assertThat(json.get("title").textValue(), equalTo("say \"hi\"\n"));
+		assertThat(json.get("body").textValue(), equalTo("b"));
+		assertThat(json.get("userId").intValue(), equalTo(7));
+	}
+
+	@Test
+	public void encodesBareStringsNullsAndObjects() throws Exception {
+		PayloadTemplate template = PayloadTemplate.compile("inline",
+				"{\"a\": ${a}, \"b\": ${b}, \"c\": ${c}, \"d\": \"x-${d}-y\", \"e\": \"\\\"${e}\"}");
+		Map<String, Object> values = new HashMap<>();
+		values.put("a", "text");
+		values.put("b", null);
+		values.put("c", List.of(1, 2));
+		values.put("d", 5);
+		values.put("e", "q");
+
+		String rendered = new String(template.render(values), StandardCharsets.UTF_8);
+		assertThat(rendered, equalTo("{\"a\": \"text\", \"b\": null, \"c\": [1,2], \"d\": \"x-5-y\", \"e\": \"\\\"q\"}"));
+		mapper.readTree(rendered); // Still valid JSON
+	}
+
+	@Test
+	public void cachesCompiledTemplatesAndRejectsMissingValues() {
+		assertThat(PayloadTemplates.get("updatePostTemplate.json"),
+				sameInstance(PayloadTemplates.get("updatePostTemplate.json")));
+		try {
+			PayloadTemplates.get("updatePostTemplate.json").render(Map.of("id", 1));
+			Assert.fail("Expected a missing placeholder value to be rejected");
+		} catch (IllegalArgumentException e) {
+			assertThat(e.getMessage(), containsString("${title}"));
+		}
+	}
+
+	@Test
+	public void rejectsNumbersWithoutJsonForm() {
+		PayloadTemplate template = PayloadTemplate.compile("inline", "{\"a\": ${a}, \"b\": \"${b}\"}");
+		for (Object number : List.of(Double.NaN, Double.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY)) {
+			IllegalArgumentException error = Assert.expectThrows(IllegalArgumentException.class,
+					() -> template.render(Map.of("a", number, "b", 1)));
+			assertThat(error.getMessage(), containsString("${a} in payload template inline"));
+		}
+		// Inside a string literal it is only text
+		assertThat(new String(template.render(Map.of("a", 1.5, "b", Double.NaN)), StandardCharsets.UTF_8),
+				equalTo("{\"a\": 1.5, \"b\": \"NaN\"}"));
+	}
+
+	@Test
+	public void sendsRenderedPayloads() throws Exception {
+		try (PostsStubServer stub = PostsStubServer.start(); UserApi userApi = new UserApi(stub.getBaseUri())) {
+			Response response = userApi.createPost(PayloadTemplates.get("createPostTemplate.json")
+					.render(Map.of("title", "templated", "body", "rendered", "userId", 3)));
+			assertThat(response.getStatusCode(), equalTo(201));
+			assertThat(mapper.readTree(response.asByteArray()).get("title").textValue(), equalTo("templated"));
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.both;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import api.UserApi;
+import models.Post;
+import services.UserLib;
+import stub.PostsStubServer;
+
+/**
+ * PostGeneratorTest verifies that generated payloads are reproducible from
+ * their seed, valid JSON within the field rules, and cheap to produce.
+ */
+public class PostGeneratorTest {
+
+	private static final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	public void sameSeedGivesTheSamePayloads() {
+		PostGenerator generator = PostGenerator.seeded(42).withUnicode(0.2).withEscapes(0.05);
+		List<byte[]> first = generator.stream().limit(100).collect(Collectors.toList());
+		List<byte[]> second = PostGenerator.seeded(42).withUnicode(0.2).withEscapes(0.05).stream().limit(100)
+				.collect(Collectors.toList());
+		for (int i = 0; i < first.size(); i++) {
+			assertThat(second.get(i), equalTo(first.get(i)));
+		}
+		assertThat(PostGenerator.seeded(43).stream().findFirst().get(), not(equalTo(first.get(0))));
+	}
+
+	@Test
+	public void followsTheFieldRules() throws Exception {
+		PostGenerator generator = PostGenerator.seeded(7).withTitleLength(5, 20).withBodyLength(0, 300)
+				.withUserIds(PostGenerator.UserIds.uniform(3, 5)).withUnicode(0.3).withEscapes(0.1);
+		int surrogates = 0;
+		int escapes = 0;
+		Iterator<byte[]> payloads = generator.stream().iterator();
+		for (int i = 0; i < 1_000; i++) {
+			Post post = JsonUtil.readerFor(Post.class).readValue(payloads.next());
+			assertThat(post.title().codePointCount(0, post.title().length()), both(greaterThanOrEqualTo(5))
+					.and(lessThanOrEqualTo(20)));
+			assertThat(post.body().codePointCount(0, post.body().length()), lessThanOrEqualTo(300));
+			assertThat(post.userId(), both(greaterThanOrEqualTo(3)).and(lessThanOrEqualTo(5)));
+			surrogates += post.body().codePoints().filter(Character::isSupplementaryCodePoint).count();
+			escapes += post.body().chars().filter(c -> c == '"' || c == '\\' || c < 0x20).count();
+		}
+		assertThat(surrogates, greaterThan(0));
+		assertThat(escapes, greaterThan(0));
+	}
+
+	@Test
+	public void skewsUserIdsWithZipf() {
+		PostGenerator.UserIds zipf = PostGenerator.UserIds.zipf(100, 1.2);
+		Map<Integer, Long> counts = PostGenerator.seeded(1).withUserIds(zipf).stream().limit(5_000)
+				.map(this::userId).collect(Collectors.groupingBy(id -> id, Collectors.counting()));
+		assertThat(counts.get(1), greaterThan(counts.getOrDefault(10, 0L) * 5));
+		assertThat(counts.keySet().stream().allMatch(id -> id >= 1 && id <= 100), equalTo(true));
+	}
+
+	@Test
+	public void allocatesLittleMoreThanThePayloads() {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		PostGenerator generator = PostGenerator.seeded(5).withUnicode(0.1);
+		generator.stream().limit(10_000).forEach(payload -> {
+		}); // Warm up
+
+		long before = threads.getCurrentThreadAllocatedBytes();
+		long payloadBytes = generator.stream().limit(100_000).mapToLong(payload -> payload.length).sum();
+		long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+		// The payload arrays themselves, with their headers and padding, and nothing per character
+		assertThat(allocated, lessThan(payloadBytes + 100_000L * 64));
+	}
+
+	@Test
+	public void createsAndUpdatesPostsFromTheStream() throws Exception {
+		try (PostsStubServer stub = PostsStubServer.start();
+				UserLib userLib = new UserLib(new UserApi(stub.getBaseUri()))) {
+			PostGenerator generator = PostGenerator.seeded(11).withUnicode(0.2).withEscapes(0.02);
+
+			userLib.createPosts(generator.stream().limit(50)).assertAllSucceeded();
+			assertThat(stub.getPostCount(), equalTo(150));
+			// Created concurrently, so in any order
+			Set<String> titles = userLib.getAllPosts(Post.class).stream().filter(post -> post.id() > 100)
+					.map(Post::title).collect(Collectors.toSet());
+			assertThat(titles, equalTo(generator.stream().limit(50).map(this::title).collect(Collectors.toSet())));
+
+			userLib.updatePosts(generator.updates(IntStream.rangeClosed(1, 20))).assertAllSucceeded();
+			JsonNode update = mapper.readTree(generator.updates(IntStream.of(1)).findFirst().get().getValue());
+			assertThat(update.get("id").intValue(), equalTo(1));
+			assertThat(userLib.getPostsById(1).get("body"), equalTo(update.get("body")));
+		}
+	}
+
+	private int userId(byte[] payload) {
+		return parse(payload).get("userId").intValue();
+	}
+
+	private String title(byte[] payload) {
+		return parse(payload).get("title").textValue();
+	}
+
+	private static JsonNode parse(byte[] payload) {
+		try {
+			return mapper.readTree(payload);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
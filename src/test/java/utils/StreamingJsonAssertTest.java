@@ -0,0 +1,74 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.startsWith;
+import static utils.StreamingJsonAssert.assertThatJson;
+
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+/**
+ * StreamingJsonAssertTest verifies path matching, early termination and
+ * failure reporting of the streaming JSON assertions.
+ */
+public class StreamingJsonAssertTest {
+
+	private static final String POSTS = "[{\"userId\":1,\"id\":1,\"title\":\"first\",\"tags\":[\"a\",\"b\"]},"
+			+ "{\"userId\":1,\"id\":2,\"title\":\"second\",\"tags\":[]},"
+			+ "{\"userId\":2,\"id\":3,\"title\":\"third\",\"meta\":{\"score\":4.5}}]";
+
+	@Test
+	public void evaluatesValueAllAnyAndCount() {
+		assertThatJson(bytes(POSTS))
+				.valueAt("[0].title", equalTo("first"))
+				.valueAt("$[2].meta.score", equalTo(4.5))
+				.valueAt("[0].tags[1]", equalTo("b"))
+				.allMatch("[*].userId", lessThan(3))
+				.anyMatch("[*].title", startsWith("sec"))
+				.count("[*]", equalTo(3))
+				.count("[*].tags[*]", equalTo(2))
+				.verify();
+	}
+
+	@Test
+	public void passesMatchedContainersAsTrees() {
+		assertThatJson(bytes(POSTS))
+				.valueAt("[2].meta", org.hamcrest.Matchers.hasToString("{\"score\":4.5}"))
+				.allMatch("[*].id", greaterThan(0))
+				.verify();
+	}
+
+	@Test
+	public void stopsOnceEveryAssertionIsDecided() {
+		// The document is truncated after the first element; a decided check must not read further
+		assertThatJson(bytes("[{\"title\":\"first\"},{\"title\":")).valueAt("[0].title", equalTo("first")).verify();
+	}
+
+	@Test
+	public void reportsEveryFailure() {
+		try {
+			assertThatJson(bytes(POSTS))
+					.valueAt("[0].title", equalTo("nope"))
+					.allMatch("[*].userId", equalTo(1))
+					.valueAt("[5].title", equalTo("missing"))
+					.count("[*]", equalTo(4))
+					.verify();
+			Assert.fail("Expected the assertions to fail");
+		} catch (AssertionError e) {
+			assertThat(e.getMessage(), containsString("[0].title"));
+			assertThat(e.getMessage(), containsString("[*].userId"));
+			assertThat(e.getMessage(), containsString("value at [5].title"));
+			assertThat(e.getMessage(), containsString("count of [*]"));
+		}
+	}
+
+	private static byte[] bytes(String json) {
+		return json.getBytes(StandardCharsets.UTF_8);
+	}
+}
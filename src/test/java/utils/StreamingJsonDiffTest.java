@@ -0,0 +1,64 @@
+package utils;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.testng.annotations.Test;
+
+/**
+ * StreamingJsonDiffTest checks the differences reported for changed values,
+ * reordered and missing fields, arrays of different lengths and ignore rules.
+ */
+public class StreamingJsonDiffTest {
+
+	private static List<String> diff(StreamingJsonDiff diff, String left, String right) {
+		return diff.compare(left.getBytes(StandardCharsets.UTF_8), right.getBytes(StandardCharsets.UTF_8))
+				.differences().stream().map(Object::toString).collect(Collectors.toList());
+	}
+
+	@Test
+	public void reportsChangedValuesAndTypes() {
+		assertThat(diff(new StreamingJsonDiff(), "[{\"id\":1,\"title\":\"a\",\"n\":1,\"tags\":[1]}]",
+				"[{\"id\":1,\"title\":\"b\",\"n\":1.0,\"tags\":\"x\"}]"),
+				contains("[0].title: \"a\" != \"b\"", "[0].tags: [...] != \"x\""));
+		assertThat(diff(new StreamingJsonDiff(), "{\"a\":true}", "{\"a\":\"true\"}"), contains("a: true != \"true\""));
+		assertThat(diff(new StreamingJsonDiff(), "", ""), empty());
+	}
+
+	@Test
+	public void matchesReorderedFieldsByName() {
+		assertThat(diff(new StreamingJsonDiff(), "{\"a\":1,\"b\":{\"x\":1,\"y\":2},\"c\":3}",
+				"{\"a\":1,\"c\":3,\"b\":{\"y\":2,\"x\":5},\"d\":4}"),
+				contains("b.x: 1 != 5", "d: only in right (4)"));
+	}
+
+	@Test
+	public void reportsArrayLengthDifferences() {
+		assertThat(diff(new StreamingJsonDiff(), "[1,2,{\"a\":1},4]", "[1,2]"),
+				contains("[2]: only in left ({...})", "[3]: only in left (4)"));
+		assertThat(diff(new StreamingJsonDiff(), "{\"a\":[]}", "{\"a\":[\"x\"]}"), contains("a[0]: only in right (\"x\")"));
+	}
+
+	@Test
+	public void skipsIgnoredFieldsAndPaths() {
+		StreamingJsonDiff diff = new StreamingJsonDiff().ignoringFields("createdAt").ignoringPaths("[*].id");
+		assertThat(diff(diff, "[{\"id\":1,\"meta\":{\"createdAt\":\"t1\"},\"title\":\"a\"}]",
+				"[{\"id\":9,\"meta\":{\"createdAt\":[\"t2\"]},\"title\":\"a\"}]"), empty());
+		assertThat(diff(diff, "[{\"title\":\"a\",\"id\":1}]", "[{\"id\":2,\"title\":\"b\"}]"),
+				contains("[0].title: \"a\" != \"b\""));
+	}
+
+	@Test
+	public void stopsAtMaxDifferences() {
+		StreamingJsonDiff.Result result = new StreamingJsonDiff().withMaxDifferences(2)
+				.compare("[1,2,3,4]".getBytes(StandardCharsets.UTF_8), "[5,6,7,8]".getBytes(StandardCharsets.UTF_8));
+		assertThat(result.differences().size(), equalTo(2));
+		assertThat(result.truncated(), equalTo(true));
+	}
+}